@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# Lays the executable jar out for fast startup and trains a class-data-sharing archive
+# for it. Run by `mvn -Pfast-startup package`; by hand: scripts/cds-archive.sh <jar> <out-dir>
+#
+#   <out-dir>/application.jar   application classes, with a Class-Path naming lib/*
+#   <out-dir>/lib/              dependency jars (CDS cannot archive classes from nested jars)
+#   <out-dir>/application.jsa   the classes loaded while a prod context starts, pre-parsed
+#
+# Start it from <out-dir>:
+#   java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+#        -jar application.jar --spring.profiles.active=prod
+# The archive is only used by the JVM that built it and with these exact jars: ship the
+# directory as it is (file sizes and timestamps are checked) and rebuild on every JDK update.
+set -euo pipefail
+
+jar_file=$(cd "$(dirname "$1")" && pwd)/$(basename "$1")
+out=$2
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+
+rm -rf "$out"
+mkdir -p "$out/lib" "$work/exploded"
+(cd "$work/exploded" && jar -xf "$jar_file")
+
+# Dependencies in the order Boot itself puts them on the class path
+{
+    echo "Main-Class: $(sed -n 's/^Start-Class: *//p' "$work/exploded/META-INF/MANIFEST.MF" | tr -d '\r')"
+    echo "Class-Path: "
+    sed -n 's/^- "BOOT-INF\/lib\/\(.*\)"$/\1/p' "$work/exploded/BOOT-INF/classpath.idx" | while read -r lib; do
+        cp -p "$work/exploded/BOOT-INF/lib/$lib" "$out/lib/"
+        echo "  lib/$lib"
+    done
+} > "$work/manifest.txt"
+jar --create --file "$out/application.jar" --manifest "$work/manifest.txt" -C "$work/exploded/BOOT-INF/classes" .
+
+# Training run: start the prod context against a throwaway in-memory database, and exit
+# as soon as it is refreshed; the JVM writes out every class it loaded on the way.
+cd "$out"
+java -XX:ArchiveClassesAtExit=application.jsa \
+    -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh \
+    -jar application.jar \
+    --spring.profiles.active=prod \
+    --spring.datasource.url="jdbc:h2:mem:cds-training;MODE=MySQL;DATABASE_TO_LOWER=TRUE" \
+    --spring.datasource.username=sa \
+    --spring.datasource.password= \
+    --spring.datasource.driver-class-name=org.h2.Driver \
+    --server.port=0 \
+    --journal.directory="$work/journal" \
+    --analytics.checkpoint-file="$work/analytics-checkpoint.bin" \
+    > "$work/training.log" 2>&1 || { cat "$work/training.log"; exit 1; }
+[ -s application.jsa ] || { cat "$work/training.log"; echo "No CDS archive was written" >&2; exit 1; }
+echo "Fast-startup layout with CDS archive in $(pwd)"
@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+# Cold-start benchmark: milliseconds from launching the JVM until /actuator/health/readiness
+# answers 200, for each startup configuration. Each configuration is started once untimed
+# (to warm the OS file cache), then RUNS times; the median is reported. The warm-up that
+# normally holds readiness back is switched off: this measures startup alone.
+#
+#   mvn -Pfast-startup package && scripts/startup-benchmark.sh [runs]
+#
+# Every configuration starts against the same database, already migrated: by default a
+# throwaway H2 file in MySQL mode; set DB_URL, DB_USER, DB_PASSWORD and DB_DRIVER to
+# measure against a MySQL server instead. PORT (default 5499) must be free.
+set -euo pipefail
+
+runs=${1:-5}
+port=${PORT:-5499}
+backend=$(cd "$(dirname "$0")/.." && pwd)
+jar=$(ls "$backend"/target/system-*.jar | head -n 1)
+fast=$backend/target/fast-startup
+[ -f "$fast/application.jsa" ] || { echo "Build first: mvn -Pfast-startup package" >&2; exit 1; }
+
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+db_url=${DB_URL:-"jdbc:h2:file:$work/db/shelfsync;MODE=MySQL;DATABASE_TO_LOWER=TRUE"}
+args=(
+    --server.port="$port"
+    --spring.datasource.url="$db_url"
+    --spring.datasource.username="${DB_USER:-sa}"
+    --spring.datasource.password="${DB_PASSWORD:-}"
+    --spring.datasource.driver-class-name="${DB_DRIVER:-org.h2.Driver}"
+    --journal.directory="$work/journal"
+    --analytics.checkpoint-file="$work/analytics-checkpoint.bin"
+    --warmup.enabled=false
+)
+
+# Milliseconds until ready; the application is stopped again before returning
+start_once() {
+    local dir=$1; shift
+    local started=$(date +%s%N)
+    (cd "$dir" && exec "$@" "${args[@]}") > "$work/last.log" 2>&1 &
+    local pid=$!
+    local deadline=$(( $(date +%s) + 300 ))
+    until curl -sf -o /dev/null "http://localhost:$port/actuator/health/readiness"; do
+        if ! kill -0 "$pid" 2>/dev/null || [ "$(date +%s)" -gt "$deadline" ]; then
+            kill "$pid" 2>/dev/null || true
+            cat "$work/last.log" >&2
+            echo "Application did not become ready" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    local ready=$(date +%s%N)
+    kill "$pid"
+    wait "$pid" || true
+    echo $(( (ready - started) / 1000000 ))
+}
+
+measure() {
+    local name=$1; shift
+    start_once "$@" > /dev/null
+    local times=()
+    for _ in $(seq "$runs"); do
+        times+=("$(start_once "$@")")
+    done
+    local median=$(printf '%s\n' "${times[@]}" | sort -n | awk '{ t[NR] = $1 } END { print t[int((NR + 1) / 2)] }')
+    printf '%-34s median %6d ms   runs: %s\n' "$name" "$median" "${times[*]}"
+}
+
+# Creates the schema (Flyway, prod profile) so no timed run pays for it
+start_once "$backend" java -jar "$jar" --spring.profiles.active=prod > /dev/null
+
+measure "default profile (ddl-auto=update)" "$backend" java -jar "$jar"
+measure "prod" "$backend" java -jar "$jar" --spring.profiles.active=prod
+measure "prod + AOT" "$fast" java -Dspring.aot.enabled=true -jar application.jar --spring.profiles.active=prod
+measure "prod + AOT + CDS" "$fast" java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+    -jar application.jar --spring.profiles.active=prod
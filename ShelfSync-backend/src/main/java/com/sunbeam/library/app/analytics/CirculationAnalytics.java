@@ -0,0 +1,182 @@
+package com.sunbeam.library.app.analytics;
+
+import com.sunbeam.library.app.entity.Book;
+import com.sunbeam.library.app.enums.AnalyticsDimension;
+import com.sunbeam.library.app.enums.AnalyticsWindow;
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.event.DomainEvent;
+import com.sunbeam.library.app.event.NodeLocalEventConsumer;
+import com.sunbeam.library.app.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming "most borrowed" analytics fed by COPY_ISSUED events.
+ * <p>
+ * Keeps, per dimension, an hourly ring (last 24h) and a daily ring (last 30
+ * days) of heavy-hitter sketches, so memory is fixed regardless of volume.
+ * State is checkpointed to a local file periodically and on shutdown; issues
+ * recorded after the last checkpoint are lost on a crash, which is acceptable
+ * for approximate rankings.
+ * <p>
+ * Checkpoint format (big-endian): magic "SSTK", format version, number of
+ * dimensions, then per dimension its name and the hourly and daily rings, each
+ * ring as its size followed by every bucket's id, summary and sketch. A file
+ * with another magic, version or ring size is ignored and the rankings start empty.
+ */
+@Component
+public class CirculationAnalytics implements NodeLocalEventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationAnalytics.class);
+
+    private static final int HOURLY_BUCKETS = 24;
+    private static final int DAILY_BUCKETS = 30;
+    private static final int SUMMARY_CAPACITY = 100;
+    private static final int SKETCH_WIDTH = 1024;
+    private static final int CHECKPOINT_MAGIC = 0x5353544B; // "SSTK"
+    private static final int CHECKPOINT_VERSION = 1;
+
+    @Autowired private BookRepository bookRepository;
+
+    @Value("${analytics.checkpoint-file:data/analytics-checkpoint.bin}")
+    private String checkpointFile;
+
+    private State state = new State();
+
+    @PostConstruct
+    void restore() {
+        Path path = Path.of(checkpointFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            state = State.readFrom(in);
+            log.info("Restored circulation analytics from {}", path);
+        } catch (IOException | IllegalArgumentException ex) {
+            log.warn("Ignoring unreadable analytics checkpoint {}: {}", path, ex.toString());
+        }
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event.type() != DomainEventType.COPY_ISSUED || event.bookId() == null) {
+            return;
+        }
+        bookRepository.findById(event.bookId()).ifPresent(book -> record(book, event.occurredAt()));
+    }
+
+    synchronized void record(Book book, LocalDateTime at) {
+        long hour = at.atZone(ZoneId.systemDefault()).toEpochSecond() / 3600;
+        long day = at.toLocalDate().toEpochDay();
+        add(AnalyticsDimension.BOOK, String.valueOf(book.getId()), hour, day);
+        add(AnalyticsDimension.AUTHOR, book.getAuthor(), hour, day);
+        add(AnalyticsDimension.SUBJECT, book.getSubject(), hour, day);
+    }
+
+    /** Top {@code k} keys (book id, author or subject) with their estimated issue counts. */
+    public synchronized List<Map.Entry<String, Long>> top(AnalyticsDimension dimension, AnalyticsWindow window, int k) {
+        LocalDateTime now = LocalDateTime.now();
+        return switch (window) {
+            case DAY -> state.hourly.get(dimension)
+                    .top(k, now.atZone(ZoneId.systemDefault()).toEpochSecond() / 3600, HOURLY_BUCKETS);
+            case WEEK -> state.daily.get(dimension).top(k, now.toLocalDate().toEpochDay(), 7);
+            case MONTH -> state.daily.get(dimension).top(k, now.toLocalDate().toEpochDay(), DAILY_BUCKETS);
+        };
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${analytics.checkpoint-interval-ms:300000}")
+    public void checkpoint() {
+        byte[] snapshot;
+        synchronized (this) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                state.writeTo(out);
+            } catch (IOException ex) {
+                log.warn("Could not serialize analytics state", ex);
+                return;
+            }
+            snapshot = bytes.toByteArray();
+        }
+        try {
+            Path target = Path.of(checkpointFile).toAbsolutePath();
+            Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.write(tmp, snapshot);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Could not write analytics checkpoint {}", checkpointFile, ex);
+        }
+    }
+
+    private void add(AnalyticsDimension dimension, String key, long hour, long day) {
+        if (key == null || key.isBlank()) {
+            return;
+        }
+        state.hourly.get(dimension).add(key, hour);
+        state.daily.get(dimension).add(key, day);
+    }
+
+    private static final class State {
+        private final Map<AnalyticsDimension, WindowedTopK> hourly = new EnumMap<>(AnalyticsDimension.class);
+        private final Map<AnalyticsDimension, WindowedTopK> daily = new EnumMap<>(AnalyticsDimension.class);
+
+        private State() {
+            for (AnalyticsDimension dimension : AnalyticsDimension.values()) {
+                hourly.put(dimension, new WindowedTopK(HOURLY_BUCKETS, SUMMARY_CAPACITY, SKETCH_WIDTH));
+                daily.put(dimension, new WindowedTopK(DAILY_BUCKETS, SUMMARY_CAPACITY, SKETCH_WIDTH));
+            }
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeInt(hourly.size());
+            for (AnalyticsDimension dimension : hourly.keySet()) {
+                out.writeUTF(dimension.name());
+                hourly.get(dimension).writeTo(out);
+                daily.get(dimension).writeTo(out);
+            }
+        }
+
+        private static State readFrom(DataInput in) throws IOException {
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("not an analytics checkpoint");
+            }
+            int version = in.readInt();
+            if (version != CHECKPOINT_VERSION) {
+                throw new IOException("unsupported checkpoint format version " + version);
+            }
+            State state = new State();
+            int dimensions = in.readInt();
+            for (int i = 0; i < dimensions; i++) {
+                AnalyticsDimension dimension = AnalyticsDimension.valueOf(in.readUTF());
+                state.hourly.put(dimension, WindowedTopK.readFrom(in, HOURLY_BUCKETS, SUMMARY_CAPACITY, SKETCH_WIDTH));
+                state.daily.put(dimension, WindowedTopK.readFrom(in, DAILY_BUCKETS, SUMMARY_CAPACITY, SKETCH_WIDTH));
+            }
+            return state;
+        }
+    }
+}
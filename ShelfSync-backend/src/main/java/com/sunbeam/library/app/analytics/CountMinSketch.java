@@ -0,0 +1,133 @@
+package com.sunbeam.library.app.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Fixed-size frequency sketch. Estimates never undercount; they overcount by
+ * at most ~2N/width with high probability, where N is the total added.
+ * <p>
+ * That bound needs the rows to hash independently. Each key is hashed once
+ * with 128-bit MurmurHash3, and row {@code i} uses {@code h1 + i * h2} of the
+ * two 64-bit halves (Kirsch-Mitzenmacher), so two keys that collide in one
+ * row are unlikely to collide in the others.
+ */
+final class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private final int width;
+    private final int[][] counts;
+
+    CountMinSketch(int width) {
+        this.width = width;
+        this.counts = new int[DEPTH][width];
+    }
+
+    void add(String key) {
+        long[] hash = murmur3(key.getBytes(StandardCharsets.UTF_8));
+        for (int row = 0; row < DEPTH; row++) {
+            counts[row][index(hash, row)]++;
+        }
+    }
+
+    int estimate(String key) {
+        long[] hash = murmur3(key.getBytes(StandardCharsets.UTF_8));
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counts[row][index(hash, row)]);
+        }
+        return min;
+    }
+
+    void clear() {
+        for (int[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(DEPTH);
+        out.writeInt(width);
+        for (int[] row : counts) {
+            for (int count : row) {
+                out.writeInt(count);
+            }
+        }
+    }
+
+    static CountMinSketch readFrom(DataInput in, int width) throws IOException {
+        if (in.readInt() != DEPTH || in.readInt() != width) {
+            throw new IOException("Count-Min sketch size differs from the configured one");
+        }
+        CountMinSketch sketch = new CountMinSketch(width);
+        for (int[] row : sketch.counts) {
+            for (int i = 0; i < width; i++) {
+                row[i] = in.readInt();
+            }
+        }
+        return sketch;
+    }
+
+    private int index(long[] hash, int row) {
+        return (int) Long.remainderUnsigned(hash[0] + row * hash[1], width);
+    }
+
+    // MurmurHash3 x64 128-bit, seed 0
+    static long[] murmur3(byte[] data) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = 0;
+        long h2 = 0;
+        int blocks = data.length / 16;
+        for (int i = 0; i < blocks; i++) {
+            long k1 = littleEndian(data, i * 16, 8);
+            long k2 = littleEndian(data, i * 16 + 8, 8);
+            h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = blocks * 16;
+        int remaining = data.length - tail;
+        if (remaining > 8) {
+            long k2 = littleEndian(data, tail + 8, remaining - 8);
+            h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+        }
+        if (remaining > 0) {
+            long k1 = littleEndian(data, tail, Math.min(remaining, 8));
+            h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+        }
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[]{h1, h2};
+    }
+
+    private static long littleEndian(byte[] data, int offset, int length) {
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
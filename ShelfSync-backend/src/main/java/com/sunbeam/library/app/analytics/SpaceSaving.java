@@ -0,0 +1,76 @@
+package com.sunbeam.library.app.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Space-Saving heavy-hitter summary (Metwally et al.) holding at most
+ * {@code capacity} counters. Any item whose true frequency exceeds
+ * N/capacity is guaranteed to be present.
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<String, long[]> counters = new HashMap<>();
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(String key) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0]++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[]{1});
+            return;
+        }
+        // Replace the smallest counter; the newcomer inherits its count as error
+        String minKey = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> e : counters.entrySet()) {
+            if (e.getValue()[0] < min) {
+                min = e.getValue()[0];
+                minKey = e.getKey();
+            }
+        }
+        long[] reused = counters.remove(minKey);
+        reused[0] = min + 1;
+        counters.put(key, reused);
+    }
+
+    Set<String> candidates() {
+        return counters.keySet();
+    }
+
+    void clear() {
+        counters.clear();
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(capacity);
+        out.writeInt(counters.size());
+        for (Map.Entry<String, long[]> e : counters.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeLong(e.getValue()[0]);
+        }
+    }
+
+    static SpaceSaving readFrom(DataInput in, int capacity) throws IOException {
+        int size;
+        if (in.readInt() != capacity || (size = in.readInt()) < 0 || size > capacity) {
+            throw new IOException("Space-Saving summary size differs from the configured one");
+        }
+        SpaceSaving summary = new SpaceSaving(capacity);
+        for (int i = 0; i < size; i++) {
+            summary.counters.put(in.readUTF(), new long[]{in.readLong()});
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,95 @@
+package com.sunbeam.library.app.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sliding-window heavy hitters over a ring of time buckets. Each bucket keeps
+ * a Space-Saving summary (which keys are candidates) and a Count-Min sketch
+ * (how often each occurred); a query unions the candidates of the buckets in
+ * the window and ranks them by their summed Count-Min estimates. Memory is
+ * fixed by the ring size, summary capacity and sketch width.
+ */
+final class WindowedTopK {
+
+    private final long[] bucketIds;
+    private final SpaceSaving[] summaries;
+    private final CountMinSketch[] sketches;
+
+    WindowedTopK(int buckets, int summaryCapacity, int sketchWidth) {
+        bucketIds = new long[buckets];
+        summaries = new SpaceSaving[buckets];
+        sketches = new CountMinSketch[buckets];
+        for (int i = 0; i < buckets; i++) {
+            bucketIds[i] = -1;
+            summaries[i] = new SpaceSaving(summaryCapacity);
+            sketches[i] = new CountMinSketch(sketchWidth);
+        }
+    }
+
+    void add(String key, long bucketId) {
+        int slot = (int) Math.floorMod(bucketId, (long) bucketIds.length);
+        if (bucketIds[slot] != bucketId) {
+            if (bucketIds[slot] > bucketId) {
+                return; // Older than anything the ring still covers
+            }
+            bucketIds[slot] = bucketId;
+            summaries[slot].clear();
+            sketches[slot].clear();
+        }
+        summaries[slot].add(key);
+        sketches[slot].add(key);
+    }
+
+    /** Top {@code k} keys over the {@code windowBuckets} buckets ending at {@code currentBucket}. */
+    List<Map.Entry<String, Long>> top(int k, long currentBucket, int windowBuckets) {
+        long oldest = currentBucket - Math.min(windowBuckets, bucketIds.length) + 1;
+        List<Integer> slots = new ArrayList<>();
+        Set<String> candidates = new HashSet<>();
+        for (int slot = 0; slot < bucketIds.length; slot++) {
+            if (bucketIds[slot] >= oldest && bucketIds[slot] <= currentBucket) {
+                slots.add(slot);
+                candidates.addAll(summaries[slot].candidates());
+            }
+        }
+
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(candidates.size());
+        for (String key : candidates) {
+            long total = 0;
+            for (int slot : slots) {
+                total += sketches[slot].estimate(key);
+            }
+            ranked.add(Map.entry(key, total));
+        }
+        ranked.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return ranked.size() > k ? new ArrayList<>(ranked.subList(0, k)) : ranked;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(bucketIds.length);
+        for (int slot = 0; slot < bucketIds.length; slot++) {
+            out.writeLong(bucketIds[slot]);
+            summaries[slot].writeTo(out);
+            sketches[slot].writeTo(out);
+        }
+    }
+
+    static WindowedTopK readFrom(DataInput in, int buckets, int summaryCapacity, int sketchWidth) throws IOException {
+        if (in.readInt() != buckets) {
+            throw new IOException("Ring size differs from the configured one");
+        }
+        WindowedTopK ring = new WindowedTopK(buckets, summaryCapacity, sketchWidth);
+        for (int slot = 0; slot < buckets; slot++) {
+            ring.bucketIds[slot] = in.readLong();
+            ring.summaries[slot] = SpaceSaving.readFrom(in, summaryCapacity);
+            ring.sketches[slot] = CountMinSketch.readFrom(in, sketchWidth);
+        }
+        return ring;
+    }
+}
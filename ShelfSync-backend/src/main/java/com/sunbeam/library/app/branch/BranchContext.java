@@ -0,0 +1,53 @@
+package com.sunbeam.library.app.branch;
+
+import java.util.function.Supplier;
+
+/**
+ * The branch the current thread is working for. Set from the caller's token by
+ * {@code JwtAuthenticationFilter}, and switched explicitly by jobs and fan-out
+ * reads; {@link BranchRoutingDataSource} hands out connections for it.
+ */
+public final class BranchContext {
+
+    public static final String DEFAULT = "main";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private BranchContext() {
+    }
+
+    public static String current() {
+        String branch = CURRENT.get();
+        return branch != null ? branch : DEFAULT;
+    }
+
+    public static void set(String branch) {
+        if (branch == null || DEFAULT.equals(branch)) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(branch);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /** Runs {@code action} as {@code branch}, restoring the previous branch afterwards. */
+    public static <T> T callIn(String branch, Supplier<T> action) {
+        String previous = CURRENT.get();
+        set(branch);
+        try {
+            return action.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void runIn(String branch, Runnable action) {
+        callIn(branch, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
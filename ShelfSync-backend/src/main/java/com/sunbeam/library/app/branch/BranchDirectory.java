@@ -0,0 +1,114 @@
+package com.sunbeam.library.app.branch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The branches this node serves, default branch first, with the id each is
+ * configured with, plus a small bounded pool for reads that fan out to every
+ * branch database at once.
+ */
+public class BranchDirectory implements AutoCloseable {
+
+    private final List<String> branches;
+    private final Map<String, Integer> ids;
+    private final ExecutorService fanOutPool;
+
+    /**
+     * @param branches in configuration order, the default branch first
+     * @param ids the id of every branch, 0 for the default one
+     */
+    public BranchDirectory(List<String> branches, Map<String, Integer> ids, int fanOutThreads) {
+        if (!ids.keySet().equals(Set.copyOf(branches))) {
+            throw new IllegalArgumentException("Branches " + branches + " and their ids " + ids + " do not match");
+        }
+        this.branches = List.copyOf(branches);
+        this.ids = Map.copyOf(ids);
+        AtomicInteger counter = new AtomicInteger();
+        this.fanOutPool = new ThreadPoolExecutor(fanOutThreads, fanOutThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(256), r -> {
+                    Thread thread = new Thread(r, "branch-fan-out-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public List<String> branches() {
+        return branches;
+    }
+
+    public boolean isPartitioned() {
+        return branches.size() > 1;
+    }
+
+    public boolean contains(String branch) {
+        return branches.contains(branch);
+    }
+
+    /** The branch's configured id ({@code branches.ids.<name>}); the default branch is 0. */
+    public int id(String branch) {
+        Integer id = ids.get(branch);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown branch: " + branch);
+        }
+        return id;
+    }
+
+    /** Runs {@code action} once per branch, in order, on the calling thread. */
+    public void forEachBranch(Runnable action) {
+        for (String branch : branches) {
+            BranchContext.runIn(branch, action);
+        }
+    }
+
+    /**
+     * Runs {@code read} against every branch in parallel and returns the results
+     * with the caller's own branch first. With a single branch this stays on the
+     * calling thread.
+     */
+    public <T> List<T> fanOut(Supplier<T> read) {
+        String home = BranchContext.current();
+        List<String> order = new ArrayList<>(branches.size());
+        order.add(home);
+        for (String branch : branches) {
+            if (!branch.equals(home)) {
+                order.add(branch);
+            }
+        }
+        if (order.size() == 1) {
+            return List.of(read.get());
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(order.size());
+        for (String branch : order) {
+            futures.add(CompletableFuture.supplyAsync(() -> BranchContext.callIn(branch, read), fanOutPool));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        fanOutPool.shutdown();
+    }
+}
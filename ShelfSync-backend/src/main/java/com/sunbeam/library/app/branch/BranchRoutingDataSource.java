@@ -0,0 +1,26 @@
+package com.sunbeam.library.app.branch;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Picks the branch's own database for every new connection. A transaction keeps
+ * the connection it started with, so the branch must be set before it begins.
+ */
+public class BranchRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return BranchContext.current();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource target : getResolvedDataSources().values()) {
+            if (target instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
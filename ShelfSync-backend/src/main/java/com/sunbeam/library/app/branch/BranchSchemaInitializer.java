@@ -0,0 +1,104 @@
+package com.sunbeam.library.app.branch;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Brings every non-default branch database up to the mapped schema while the
+ * session factory starts (Hibernate only manages the default one itself), and
+ * moves each branch's identity columns into a range of its own.
+ *
+ * <p>The branch configured with id {@code n} ({@code branches.ids.<name>})
+ * allocates ids from {@code n << 40}, so ids stay unique across branches and
+ * the node-local state keyed by book, member or event id (hold queues,
+ * analytics, recommendations, the journal) never mixes rows from two branch
+ * databases.
+ */
+public class BranchSchemaInitializer implements Integrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BranchSchemaInitializer.class);
+    public static final int ID_RANGE_BITS = 40;
+
+    private final BranchDirectory branchDirectory;
+
+    public BranchSchemaInitializer(BranchDirectory branchDirectory) {
+        this.branchDirectory = branchDirectory;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        Map<String, Object> settings = sessionFactory.getProperties();
+        ConnectionProvider connections = sessionFactory.getServiceRegistry().getService(ConnectionProvider.class);
+        for (String branch : branchDirectory.branches()) {
+            int id = branchDirectory.id(branch);
+            if (id == 0) {
+                continue;
+            }
+            BranchContext.runIn(branch, () -> {
+                SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(), settings, action -> { });
+                reserveIdRange(metadata, connections, branch, (long) id << ID_RANGE_BITS);
+            });
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private static void reserveIdRange(Metadata metadata, ConnectionProvider connections, String branch, long base) {
+        Set<String> tables = new TreeSet<>();
+        for (PersistentClass entity : metadata.getEntityBindings()) {
+            tables.add(entity.getTable().getName());
+        }
+        try {
+            Connection connection = connections.getConnection();
+            try (Statement statement = connection.createStatement()) {
+                DatabaseMetaData meta = connection.getMetaData();
+                boolean h2 = meta.getDatabaseProductName().toLowerCase().contains("h2");
+                for (String table : tables) {
+                    if (!isAutoIncrementId(meta, connection.getCatalog(), table)) {
+                        continue;
+                    }
+                    long maxId;
+                    try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                        rs.next();
+                        maxId = rs.getLong(1);
+                    }
+                    if (maxId < base) {
+                        statement.execute(h2
+                                ? "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (base + 1)
+                                : "ALTER TABLE " + table + " AUTO_INCREMENT = " + (base + 1));
+                    }
+                }
+            } finally {
+                connections.closeConnection(connection);
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not reserve the id range of branch " + branch, ex);
+        }
+        log.info("Branch {} schema ready, ids allocated from {}", branch, base + 1);
+    }
+
+    private static boolean isAutoIncrementId(DatabaseMetaData meta, String catalog, String table) throws SQLException {
+        try (ResultSet columns = meta.getColumns(catalog, null, table, "id")) {
+            return columns.next() && "YES".equalsIgnoreCase(columns.getString("IS_AUTOINCREMENT"));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.sunbeam.library.app.branch;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Gives every Hibernate session the current branch as its tenant. Connections
+ * are still routed by {@link BranchRoutingDataSource}; the tenant only scopes
+ * second-level and query cache keys, so one branch never reads another's rows
+ * or query results from the cache.
+ */
+public class BranchTenantResolver implements CurrentTenantIdentifierResolver<String> {
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return BranchContext.current();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
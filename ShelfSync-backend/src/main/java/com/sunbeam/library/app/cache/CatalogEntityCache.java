@@ -0,0 +1,120 @@
+package com.sunbeam.library.app.cache;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.entity.Book;
+import com.sunbeam.library.app.entity.BookCopy;
+import com.sunbeam.library.app.enums.CacheRegion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.spi.access.CachedDomainDataAccess;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Hibernate's second-level cache for the catalog ({@code Book}, {@code BookCopy},
+ * {@code Book.copies} and the availability queries). Hibernate keeps it current
+ * for changes made on this node; changes made on other nodes arrive through
+ * {@link InvalidationBus} and evict just the book, its copy list and the changed
+ * copy, in the changed branch, along with the availability query results.
+ * Hit ratios are published as {@code catalog.l2.hit-ratio}.
+ */
+@Component
+public class CatalogEntityCache implements InvalidationListener {
+
+    public static final String BOOK_REGION = "catalog.book";
+    public static final String COPY_REGION = "catalog.copy";
+    public static final String BOOK_COPIES_REGION = "catalog.book-copies";
+    public static final String AVAILABILITY_REGION = "catalog.availability";
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final EntityPersister books;
+    private final EntityPersister copies;
+    private final CollectionPersister bookCopies;
+
+    public CatalogEntityCache(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.books = sessionFactory.getMappingMetamodel().getEntityDescriptor(Book.class);
+        this.copies = sessionFactory.getMappingMetamodel().getEntityDescriptor(BookCopy.class);
+        this.bookCopies = sessionFactory.getMappingMetamodel().getCollectionDescriptor(Book.class.getName() + ".copies");
+
+        Statistics statistics = sessionFactory.getStatistics();
+        for (String region : List.of(BOOK_REGION, COPY_REGION, BOOK_COPIES_REGION)) {
+            hitRatio(meterRegistry, region, statistics, s -> s.getDomainDataRegionStatistics(region));
+        }
+        hitRatio(meterRegistry, AVAILABILITY_REGION, statistics, s -> s.getQueryRegionStatistics(AVAILABILITY_REGION));
+    }
+
+    // Hibernate has already updated the entries a local change touched, and the
+    // timestamp it left keeps a load that read the old row from caching it. Evicting
+    // after commit would drop that timestamp and let such a load put the old row back.
+    @Override
+    public boolean remoteOnly() {
+        return true;
+    }
+
+    @Override
+    public void invalidate(CacheRegion region, String key) {
+        switch (region) {
+            case CATALOG -> {
+                if (key == null) {
+                    evictAll();
+                    return;
+                }
+                Long bookId = Long.valueOf(key);
+                evict(books.getCacheAccessStrategy(),
+                        books.getCacheAccessStrategy().generateCacheKey(bookId, books, sessionFactory, BranchContext.current()));
+                evict(bookCopies.getCacheAccessStrategy(),
+                        bookCopies.getCacheAccessStrategy().generateCacheKey(bookId, bookCopies, sessionFactory, BranchContext.current()));
+                sessionFactory.getCache().evictQueryRegion(AVAILABILITY_REGION);
+            }
+            case COPY -> {
+                if (key == null) {
+                    evictAll();
+                    return;
+                }
+                EntityDataAccess access = copies.getCacheAccessStrategy();
+                evict(access, access.generateCacheKey(Long.valueOf(key), copies, sessionFactory, BranchContext.current()));
+                sessionFactory.getCache().evictQueryRegion(AVAILABILITY_REGION);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void evictAll() {
+        sessionFactory.getCache().evictEntityData(Book.class);
+        sessionFactory.getCache().evictEntityData(BookCopy.class);
+        sessionFactory.getCache().evictCollectionData(bookCopies.getRole());
+        sessionFactory.getCache().evictQueryRegion(AVAILABILITY_REGION);
+    }
+
+    private static void evict(CachedDomainDataAccess access, Object cacheKey) {
+        if (access != null) {
+            access.evict(cacheKey);
+        }
+    }
+
+    // Share of lookups served from the cache since startup; NaN until the region is first used
+    private static void hitRatio(MeterRegistry meterRegistry, String region, Statistics statistics,
+                                 Function<Statistics, CacheRegionStatistics> regionStatistics) {
+        Gauge.builder("catalog.l2.hit-ratio", statistics, s -> {
+                    CacheRegionStatistics current = regionStatistics.apply(s);
+                    if (current == null) {
+                        return Double.NaN;
+                    }
+                    long lookups = current.getHitCount() + current.getMissCount();
+                    return lookups == 0 ? Double.NaN : (double) current.getHitCount() / lookups;
+                })
+                .tag("region", region)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,139 @@
+package com.sunbeam.library.app.cache;
+
+import com.sunbeam.library.app.enums.CacheRegion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived, size-bounded cache for catalog reads (search and browse).
+ * Concurrent callers asking for the same key share one in-flight computation
+ * instead of each hitting the database. Evicted through {@link InvalidationBus}.
+ */
+@Component
+public class CatalogQueryCache implements InvalidationListener {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public CatalogQueryCache(@Value("${catalog.cache.ttl-ms:2000}") long ttlMillis,
+                             @Value("${catalog.cache.max-entries:500}") int maxEntries,
+                             MeterRegistry meterRegistry) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("catalog.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("catalog.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.coalesced = Counter.builder("catalog.cache.requests").tag("result", "coalesced").register(meterRegistry);
+        Gauge.builder("catalog.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached value for {@code key}, joining an in-flight load if one
+     * is running, or runs {@code loader} on the calling thread otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        long now = System.nanoTime();
+        Entry[] created = new Entry[1];
+        Entry entry = entries.compute(key, (k, current) -> {
+            if (current != null && !current.isExpired(now)) {
+                return current;
+            }
+            created[0] = new Entry();
+            return created[0];
+        });
+
+        if (entry != created[0]) {
+            (entry.future.isDone() ? hits : coalesced).increment();
+            return (T) await(entry);
+        }
+
+        misses.increment();
+        evictIfFull();
+        try {
+            T value = loader.get();
+            entry.expiresAt = System.nanoTime() + ttlNanos;
+            entry.future.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            // Errors too: an entry left with a future that never completes would block
+            // every later caller for the key, and never expire
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    // Every catalog change can affect any search or browse result, so the key is ignored.
+    @Override
+    public void invalidate(CacheRegion region, String key) {
+        if (region == CacheRegion.CATALOG) {
+            invalidateAll();
+        }
+    }
+
+    public static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.values().removeIf(e -> e.isExpired(now));
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            if (it.next().future.isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static Object await(Entry entry) {
+        try {
+            return entry.future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private boolean isExpired(long now) {
+            return future.isDone() && now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.sunbeam.library.app.cache;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.cluster.ClusterNode;
+import com.sunbeam.library.app.cluster.ClusterScheduler;
+import com.sunbeam.library.app.cluster.JobSchedule;
+import com.sunbeam.library.app.entity.CacheInvalidation;
+import com.sunbeam.library.app.enums.CacheRegion;
+import com.sunbeam.library.app.repository.CacheInvalidationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the in-process caches of every node coherent. A mutation calls
+ * {@link #publish} inside its transaction, so the invalidation record commits
+ * (or not) with the change; this node evicts after commit (except in
+ * {@link InvalidationListener#remoteOnly()} caches) and every other node
+ * evicts when its poller next reads {@code cache_invalidations}.
+ *
+ * <p>While the bus is healthy a remote node is stale for at most one
+ * {@code cache.bus.poll-interval-ms} plus the poll itself. If polling stalls
+ * for longer than {@code cache.bus.max-lag-ms}, each cache's own TTL bounds
+ * staleness until the bus recovers, and every region is flushed then.
+ *
+ * <p>A record that commits more than {@code cache.bus.gap-timeout-ms} after
+ * taking its id has already been stepped over by the cursor; its id is looked
+ * up again on every poll until {@code cache.bus.retention-minutes} have passed,
+ * so it is still applied, only later. When more ids are missing than one batch
+ * can look up, the bus flushes every region rather than track them.
+ */
+@Component
+public class InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+    private static final String PENDING = InvalidationBus.class.getName() + ".pending";
+
+    @Autowired private CacheInvalidationRepository cacheInvalidationRepository;
+    @Autowired private List<InvalidationListener> listeners;
+    @Autowired private BranchDirectory branchDirectory;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ClusterScheduler clusterScheduler;
+
+    private final String nodeId;
+    private final long pollIntervalMs;
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final long maxLagNanos;
+    private final long retentionMinutes;
+    private final long retentionNanos;
+
+    @Value("${cache.bus.purge-interval-ms:600000}")
+    private long purgeIntervalMs;
+
+    private final Map<String, Tail> tails = new HashMap<>(); // poller thread only
+    private volatile long lastPollAt = System.nanoTime();
+    private volatile boolean failing;
+    private ScheduledExecutorService poller;
+
+    private final Counter published;
+    private final Counter received;
+
+    public InvalidationBus(ClusterNode clusterNode,
+                           @Value("${cache.bus.poll-interval-ms:200}") long pollIntervalMs,
+                           @Value("${cache.bus.batch-size:500}") int batchSize,
+                           @Value("${cache.bus.gap-timeout-ms:5000}") long gapTimeoutMs,
+                           @Value("${cache.bus.max-lag-ms:10000}") long maxLagMs,
+                           @Value("${cache.bus.retention-minutes:60}") long retentionMinutes,
+                           MeterRegistry meterRegistry) {
+        this.nodeId = clusterNode.id();
+        this.pollIntervalMs = pollIntervalMs;
+        this.batchSize = batchSize;
+        this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMs);
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMs);
+        this.retentionMinutes = retentionMinutes;
+        this.retentionNanos = TimeUnit.MINUTES.toNanos(retentionMinutes);
+        this.published = Counter.builder("cache.bus.records").tag("direction", "published").register(meterRegistry);
+        this.received = Counter.builder("cache.bus.records").tag("direction", "received").register(meterRegistry);
+        Gauge.builder("cache.bus.lag", this, bus -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bus.lastPollAt))
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records that {@code key} in {@code region} changed (null: the whole region).
+     * Repeats of the same record within one transaction are written once.
+     */
+    public void publish(CacheRegion region, Object key) {
+        String cacheKey = key != null ? key.toString() : null;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(region, cacheKey);
+            dispatch(region, cacheKey, false);
+            return;
+        }
+        if (!pendingInTransaction().add(region + ":" + cacheKey)) {
+            return;
+        }
+        write(region, cacheKey);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(region, cacheKey, false);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        lastPollAt = System.nanoTime();
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-bus-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Cache invalidation bus started as node {}", nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    @PostConstruct
+    void schedulePurge() {
+        clusterScheduler.register("cache-bus-purge", JobSchedule.fixedDelay(purgeIntervalMs), context -> {
+            Integer removed = transactionTemplate.execute(status ->
+                    cacheInvalidationRepository.deleteCreatedBefore(LocalDateTime.now().minusMinutes(retentionMinutes)));
+            context.addRows(removed != null ? removed : 0);
+        });
+    }
+
+    private void poll() {
+        try {
+            boolean lagged = System.nanoTime() - lastPollAt > maxLagNanos;
+            branchDirectory.forEachBranch(this::pollBranch);
+            if (lagged) {
+                log.warn("Cache invalidation bus fell behind; flushing all caches");
+                for (CacheRegion region : CacheRegion.values()) {
+                    dispatch(region, null, true);
+                }
+            } else if (failing) {
+                log.info("Cache invalidation bus recovered");
+            }
+            failing = false;
+            lastPollAt = System.nanoTime();
+        } catch (RuntimeException ex) {
+            if (!failing) {
+                log.warn("Cache invalidation poll failed; retrying every {} ms", pollIntervalMs, ex);
+            }
+            failing = true;
+        }
+    }
+
+    private void pollBranch() {
+        String branch = BranchContext.current();
+        Tail tail = tails.get(branch);
+        if (tail == null) {
+            // Nothing is cached yet, so start from the end of the log
+            tails.put(branch, new Tail(cacheInvalidationRepository.findLatestId()));
+            return;
+        }
+        // Pages through everything after the cursor: behind an open gap that includes
+        // records already applied, which are read again but not dispatched twice
+        long from = tail.cursor;
+        List<CacheInvalidation> batch;
+        do {
+            batch = cacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc(from, PageRequest.of(0, batchSize));
+            for (CacheInvalidation record : batch) {
+                if (tail.seen.add(record.getId()) && !nodeId.equals(record.getOrigin())) {
+                    received.increment();
+                    dispatch(record.getRegion(), record.getCacheKey(), true);
+                }
+            }
+            if (!batch.isEmpty()) {
+                from = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == batchSize);
+        long now = System.nanoTime();
+        recheckSkipped(tail, now);
+        if (!tail.advance(now, gapTimeoutNanos, batchSize)) {
+            log.warn("Cache invalidation log of branch {} has more missing ids than can be tracked; flushing all caches", branch);
+            for (CacheRegion region : CacheRegion.values()) {
+                dispatch(region, null, true);
+            }
+        }
+    }
+
+    // Ids the cursor stepped over: most were rollbacks, but one may have committed since
+    private void recheckSkipped(Tail tail, long now) {
+        tail.skipped.values().removeIf(skippedAt -> now - skippedAt > retentionNanos);
+        if (tail.skipped.isEmpty()) {
+            return;
+        }
+        for (CacheInvalidation record : cacheInvalidationRepository.findAllById(List.copyOf(tail.skipped.keySet()))) {
+            tail.skipped.remove(record.getId());
+            if (!nodeId.equals(record.getOrigin())) {
+                received.increment();
+                dispatch(record.getRegion(), record.getCacheKey(), true);
+            }
+        }
+    }
+
+    private void write(CacheRegion region, String cacheKey) {
+        CacheInvalidation record = new CacheInvalidation();
+        record.setRegion(region);
+        record.setCacheKey(cacheKey);
+        record.setOrigin(nodeId);
+        record.setCreatedAt(LocalDateTime.now());
+        cacheInvalidationRepository.save(record);
+        published.increment();
+    }
+
+    private void dispatch(CacheRegion region, String cacheKey, boolean remote) {
+        for (InvalidationListener listener : listeners) {
+            if (!remote && listener.remoteOnly()) {
+                continue;
+            }
+            try {
+                listener.invalidate(region, cacheKey);
+            } catch (RuntimeException ex) {
+                log.warn("Cache invalidation of {} {} failed in {}", region, cacheKey,
+                        listener.getClass().getSimpleName(), ex);
+            }
+        }
+    }
+
+    private static Set<String> pendingInTransaction() {
+        @SuppressWarnings("unchecked")
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(PENDING);
+        if (pending == null) {
+            Set<String> created = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(PENDING, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    /**
+     * Read position in one branch's log. Identity values are handed out at
+     * insert but become visible at commit, so a missing id may still show up;
+     * the cursor waits on it for {@code cache.bus.gap-timeout-ms} while later
+     * records are applied as they arrive, then moves past it and leaves it in
+     * {@code skipped} to be looked up again.
+     */
+    private static final class Tail {
+        private long cursor;
+        private long gapSince;
+        private final TreeSet<Long> seen = new TreeSet<>();
+        private final Map<Long, Long> skipped = new HashMap<>(); // id -> when the cursor moved past it
+
+        private Tail(long cursor) {
+            this.cursor = cursor;
+        }
+
+        /**
+         * Moves the cursor over every contiguous or timed-out id; false if that
+         * left more than {@code maxSkipped} ids to look up again, which are then
+         * dropped.
+         */
+        private boolean advance(long now, long gapTimeoutNanos, int maxSkipped) {
+            boolean tracked = true;
+            while (!seen.isEmpty()) {
+                long next = seen.first();
+                if (next == cursor + 1) {
+                    cursor = seen.pollFirst();
+                    gapSince = 0;
+                } else if (gapSince == 0) {
+                    gapSince = now;
+                    break;
+                } else if (now - gapSince < gapTimeoutNanos) {
+                    break;
+                } else {
+                    if (next - cursor - 1 > maxSkipped - skipped.size()) {
+                        skipped.clear();
+                        tracked = false;
+                    } else {
+                        for (long id = cursor + 1; id < next; id++) {
+                            skipped.put(id, now);
+                        }
+                    }
+                    cursor = next - 1;
+                    gapSince = 0;
+                }
+            }
+            return tracked;
+        }
+    }
+}
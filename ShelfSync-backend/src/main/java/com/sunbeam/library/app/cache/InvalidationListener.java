@@ -0,0 +1,22 @@
+package com.sunbeam.library.app.cache;
+
+import com.sunbeam.library.app.enums.CacheRegion;
+
+/**
+ * An in-process cache that {@link InvalidationBus} keeps coherent across nodes.
+ * Called on the bus thread, with the branch of the change as the current branch.
+ */
+public interface InvalidationListener {
+
+    /** Drops the entries for {@code key} in {@code region}; a null key means the whole region. */
+    void invalidate(CacheRegion region, String key);
+
+    /**
+     * Whether only changes made on other nodes (and the flush after the bus
+     * lagged) are passed on, for a cache that its owner already keeps current
+     * for this node's own changes.
+     */
+    default boolean remoteOnly() {
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.sunbeam.library.app.cache;
+
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.CacheRegion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Members by e-mail for authentication, which otherwise reads the member row
+ * on every request. Kept coherent by {@link InvalidationBus} (password changes,
+ * registrations, membership payments); the TTL bounds staleness if the bus
+ * falls behind.
+ */
+@Component
+public class MemberDetailsCache implements InvalidationListener {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public MemberDetailsCache(@Value("${cache.members.ttl-ms:60000}") long ttlMillis,
+                              @Value("${cache.members.max-entries:10000}") int maxEntries,
+                              MeterRegistry meterRegistry) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("member.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("member.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("member.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    public Optional<Member> get(String email, Supplier<Optional<Member>> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(email);
+        if (entry != null && now - entry.expiresAt < 0) {
+            hits.increment();
+            return Optional.of(entry.member);
+        }
+
+        misses.increment();
+        long loadedAtGeneration = generation.get();
+        Optional<Member> loaded = loader.get();
+        // An invalidation that lands while we read may describe a newer row than
+        // the one we got, so only cache when nothing was invalidated meanwhile.
+        if (loaded.isPresent() && generation.get() == loadedAtGeneration) {
+            if (entries.size() >= maxEntries) {
+                entries.values().removeIf(e -> now - e.expiresAt >= 0);
+            }
+            if (entries.size() < maxEntries) {
+                entries.put(email, new Entry(loaded.get(), now + ttlNanos));
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public void invalidate(CacheRegion region, String key) {
+        if (region != CacheRegion.MEMBER) {
+            return;
+        }
+        generation.incrementAndGet();
+        if (key == null) {
+            entries.clear();
+        } else {
+            entries.remove(key);
+        }
+    }
+
+    private record Entry(Member member, long expiresAt) {
+    }
+}
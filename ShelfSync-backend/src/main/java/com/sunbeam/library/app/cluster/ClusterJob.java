@@ -0,0 +1,11 @@
+package com.sunbeam.library.app.cluster;
+
+/**
+ * A background job run by {@link ClusterScheduler}: on one node at a time,
+ * once per branch, with the branch set as the current one.
+ */
+@FunctionalInterface
+public interface ClusterJob {
+
+    void run(JobContext context);
+}
@@ -0,0 +1,35 @@
+package com.sunbeam.library.app.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * This instance's identity among the nodes sharing a database: the owner of
+ * job leases and the origin of cache invalidations. Defaults to host name
+ * and process id.
+ */
+@Component
+public class ClusterNode {
+
+    private final String id;
+
+    public ClusterNode(@Value("${cluster.node-id:}") String id) {
+        this.id = id.isBlank() ? defaultId() : id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    private static String defaultId() {
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + ProcessHandle.current().pid();
+        } catch (UnknownHostException ex) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
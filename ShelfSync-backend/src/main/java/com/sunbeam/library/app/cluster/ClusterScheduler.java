@@ -0,0 +1,277 @@
+package com.sunbeam.library.app.cluster;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.entity.JobLease;
+import com.sunbeam.library.app.repository.JobLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs background jobs on exactly one node of a cluster sharing a database.
+ * Before each run a node takes the job's lease in {@code job_leases} (per
+ * branch database); the holder keeps it between runs by renewing it, and
+ * other nodes take over once it expires or is released at shutdown.
+ *
+ * <p>Jobs run on a small pool of low-priority worker threads
+ * ({@code cluster.jobs.threads}), separate from request threads and bounded,
+ * so at most that many database connections are ever busy with background
+ * work. Jobs registered with {@link #registerDedicated} get a thread of their
+ * own instead, so a long archival or snapshot run cannot hold them up. Each run starts after a random jitter of up to
+ * {@code cluster.jobs.max-jitter-ms}, a tenth of the delay for short
+ * fixed-delay jobs, so nodes do not all hit the database at the same instant.
+ */
+@Component
+public class ClusterScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterScheduler.class);
+
+    @Autowired private JobLeaseRepository jobLeaseRepository;
+    @Autowired private BranchDirectory branchDirectory;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ClusterNode clusterNode;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${cluster.jobs.threads:2}")
+    private int threads;
+
+    @Value("${cluster.jobs.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${cluster.jobs.max-jitter-ms:5000}")
+    private long maxJitterMs;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private ScheduledExecutorService timer;
+    private ThreadPoolExecutor workers;
+
+    public void register(String name, JobSchedule schedule, ClusterJob task) {
+        register(new Job(name, schedule, task, false));
+    }
+
+    /** Like {@link #register}, but the job runs on a thread of its own rather than the shared pool. */
+    public void registerDedicated(String name, JobSchedule schedule, ClusterJob task) {
+        register(new Job(name, schedule, task, true));
+    }
+
+    private void register(Job job) {
+        String name = job.name;
+        if (jobs.putIfAbsent(name, job) != null) {
+            throw new IllegalStateException("Job " + name + " is already registered");
+        }
+        if (timer != null) {
+            startDedicated(job);
+            scheduleNext(job);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "cluster-scheduler"));
+        AtomicInteger counter = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(jobs.size(), 1)),
+                r -> {
+                    Thread thread = daemon(r, "cluster-job-" + counter.incrementAndGet());
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        jobs.values().forEach(this::startDedicated);
+        jobs.values().forEach(this::scheduleNext);
+        log.info("Cluster scheduler started on node {} with {} jobs", clusterNode.id(), jobs.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (timer == null) {
+            return;
+        }
+        timer.shutdownNow();
+        workers.shutdown();
+        jobs.values().stream().filter(job -> job.thread != null).forEach(job -> job.thread.shutdown());
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        for (Job job : jobs.values()) {
+            if (job.thread != null && !job.thread.awaitTermination(1, TimeUnit.SECONDS)) {
+                job.thread.shutdownNow();
+            }
+        }
+        // Hand the leases over now rather than making the other nodes wait for them to expire
+        try {
+            branchDirectory.forEachBranch(() -> transactionTemplate.executeWithoutResult(status ->
+                    jobLeaseRepository.releaseAll(clusterNode.id(), LocalDateTime.now())));
+        } catch (DataAccessException | TransactionException ex) {
+            // e.g. an embedded database already closed by its own shutdown hook
+            log.info("Could not release job leases ({}); they expire within {} s", ex.getMessage(), leaseSeconds);
+        }
+    }
+
+    long leaseNanos() {
+        return TimeUnit.SECONDS.toNanos(leaseSeconds);
+    }
+
+    void saveCheckpoint(JobContext context, String checkpoint) {
+        Integer updated = transactionTemplate.execute(status -> jobLeaseRepository.saveCheckpoint(context.job(),
+                clusterNode.id(), checkpoint, LocalDateTime.now().plusSeconds(leaseSeconds)));
+        if (updated == null || updated == 0) {
+            throw new LeaseLostException(context.job(), context.branch());
+        }
+    }
+
+    private void scheduleNext(Job job) {
+        if (timer.isShutdown()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        job.slot = job.schedule.nextSlot(now);
+        long delay = job.schedule.delayMillis(now, job.slot);
+        long jitterBound = job.slot != null ? maxJitterMs : Math.min(maxJitterMs, job.schedule.fixedDelayMs() / 10);
+        long jitter = jitterBound > 0 ? ThreadLocalRandom.current().nextLong(jitterBound) : 0;
+        try {
+            timer.schedule(() -> submit(job), delay + jitter, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // shutting down
+        }
+    }
+
+    private void startDedicated(Job job) {
+        if (job.dedicated && job.thread == null) {
+            job.thread = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = daemon(r, "cluster-job-" + job.name);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+        }
+    }
+
+    private void submit(Job job) {
+        try {
+            (job.thread != null ? job.thread : workers).execute(() -> runInEveryBranch(job));
+        } catch (RejectedExecutionException ex) {
+            log.warn("No free worker for job {}; trying again at its next run", job.name);
+            scheduleNext(job);
+        }
+    }
+
+    private void runInEveryBranch(Job job) {
+        try {
+            for (String branch : branchDirectory.branches()) {
+                BranchContext.runIn(branch, () -> runInBranch(job, branch));
+            }
+        } finally {
+            scheduleNext(job);
+        }
+    }
+
+    private void runInBranch(Job job, String branch) {
+        JobLease lease = acquire(job);
+        if (lease == null) {
+            job.outcome("not-leader").increment();
+            return;
+        }
+
+        JobContext context = new JobContext(this, job.name, branch, lease.getCheckpoint(), job.rows);
+        if (context.checkpoint() != null) {
+            log.info("Resuming job {} in branch {} from checkpoint {}", job.name, branch, context.checkpoint());
+        }
+        long start = System.nanoTime();
+        try {
+            job.task.run(context);
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> jobLeaseRepository.complete(job.name, clusterNode.id(),
+                    now.plusSeconds(leaseSeconds), now, durationMs, context.rows()));
+            job.outcome("success").increment();
+        } catch (LeaseLostException ex) {
+            log.warn("Job {} in branch {} stopped: {}", job.name, branch, ex.getMessage());
+            job.outcome("lease-lost").increment();
+        } catch (RuntimeException ex) {
+            log.error("Job {} failed in branch {}; the next run resumes from checkpoint {}",
+                    job.name, branch, context.checkpoint(), ex);
+            job.outcome("failure").increment();
+        } finally {
+            job.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private JobLease acquire(Job job) {
+        if (tryAcquire(job) == 0) {
+            if (jobLeaseRepository.existsById(job.name)) {
+                return null;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jobLeaseRepository.save(new JobLease(job.name)));
+            } catch (DataIntegrityViolationException ex) {
+                return null; // another node created it first
+            }
+            if (tryAcquire(job) == 0) {
+                return null;
+            }
+        }
+        return jobLeaseRepository.findById(job.name).orElse(null);
+    }
+
+    private int tryAcquire(Job job) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(status -> jobLeaseRepository.acquire(job.name, clusterNode.id(),
+                now, now.plusSeconds(leaseSeconds), job.slot));
+        return updated != null ? updated : 0;
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private final class Job {
+        private final String name;
+        private final JobSchedule schedule;
+        private final ClusterJob task;
+        private final boolean dedicated;
+        private final Timer duration;
+        private final Counter rows;
+        private volatile LocalDateTime slot;
+        private ExecutorService thread;
+
+        private Job(String name, JobSchedule schedule, ClusterJob task, boolean dedicated) {
+            this.name = name;
+            this.schedule = schedule;
+            this.task = task;
+            this.dedicated = dedicated;
+            this.duration = Timer.builder("cluster.job.duration").tag("job", name).register(meterRegistry);
+            this.rows = Counter.builder("cluster.job.rows").tag("job", name).register(meterRegistry);
+        }
+
+        private Counter outcome(String outcome) {
+            return Counter.builder("cluster.job.runs").tag("job", name).tag("outcome", outcome).register(meterRegistry);
+        }
+    }
+}
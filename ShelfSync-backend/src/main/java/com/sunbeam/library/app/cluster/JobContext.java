@@ -0,0 +1,65 @@
+package com.sunbeam.library.app.cluster;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * One run of a job in one branch. Jobs that work in chunks call
+ * {@link #checkpoint(String)} after each committed chunk; a run that stops
+ * early (crash, error, lost lease) is resumed from the last checkpoint,
+ * possibly on another node. Jobs with nothing to checkpoint that may run
+ * longer than the lease call {@link #keepAlive()} as they go instead.
+ */
+public class JobContext {
+
+    private final ClusterScheduler scheduler;
+    private final String job;
+    private final String branch;
+    private final Counter rowsCounter;
+    private String checkpoint;
+    private long rows;
+    private long renewedAt = System.nanoTime();
+
+    JobContext(ClusterScheduler scheduler, String job, String branch, String checkpoint, Counter rowsCounter) {
+        this.scheduler = scheduler;
+        this.job = job;
+        this.branch = branch;
+        this.checkpoint = checkpoint;
+        this.rowsCounter = rowsCounter;
+    }
+
+    public String job() {
+        return job;
+    }
+
+    public String branch() {
+        return branch;
+    }
+
+    /** Where the previous, unfinished run stopped; null when starting fresh. */
+    public String checkpoint() {
+        return checkpoint;
+    }
+
+    /** Saves progress and renews the lease; throws {@link LeaseLostException} if it was lost. */
+    public void checkpoint(String value) {
+        scheduler.saveCheckpoint(this, value);
+        checkpoint = value;
+        renewedAt = System.nanoTime();
+    }
+
+    /** Renews the lease once a third of it has passed; throws {@link LeaseLostException} if it was lost. */
+    public void keepAlive() {
+        if (System.nanoTime() - renewedAt > scheduler.leaseNanos() / 3) {
+            checkpoint(checkpoint);
+        }
+    }
+
+    public void addRows(long count) {
+        rows += count;
+        rowsCounter.increment(count);
+    }
+
+    public long rows() {
+        return rows;
+    }
+}
@@ -0,0 +1,27 @@
+package com.sunbeam.library.app.cluster;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/** When a {@link ClusterJob} runs: a fixed delay between runs, or a cron expression. */
+public record JobSchedule(long fixedDelayMs, CronExpression cron) {
+
+    public static JobSchedule fixedDelay(long millis) {
+        return new JobSchedule(millis, null);
+    }
+
+    public static JobSchedule cron(String expression) {
+        return new JobSchedule(0, CronExpression.parse(expression));
+    }
+
+    /** The cron firing after {@code now}; fixed-delay jobs have no slots. */
+    LocalDateTime nextSlot(LocalDateTime now) {
+        return cron != null ? cron.next(now) : null;
+    }
+
+    long delayMillis(LocalDateTime now, LocalDateTime slot) {
+        return slot != null ? Math.max(0, Duration.between(now, slot).toMillis()) : fixedDelayMs;
+    }
+}
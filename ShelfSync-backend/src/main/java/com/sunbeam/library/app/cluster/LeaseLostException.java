@@ -0,0 +1,12 @@
+package com.sunbeam.library.app.cluster;
+
+/**
+ * The node no longer holds a job's lease (it expired and another node took
+ * it), so the run must stop without committing further chunks.
+ */
+public class LeaseLostException extends RuntimeException {
+
+    public LeaseLostException(String job, String branch) {
+        super("Lease on job " + job + " in branch " + branch + " was lost");
+    }
+}
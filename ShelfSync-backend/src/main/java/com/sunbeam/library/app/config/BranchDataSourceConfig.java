@@ -0,0 +1,175 @@
+package com.sunbeam.library.app.config;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.branch.BranchRoutingDataSource;
+import com.sunbeam.library.app.branch.BranchSchemaInitializer;
+import com.sunbeam.library.app.enums.RequestClass;
+import com.sunbeam.library.app.limit.ConnectionShareDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One database per branch. The default branch uses {@code spring.datasource.*};
+ * every name in {@code branches.names} needs its own
+ * {@code branches.datasources.<name>.url/username/password} and a
+ * {@code branches.ids.<name>}, which fixes the range its ids are allocated
+ * from; a branch keeps its id for good and no two branches share one, so the
+ * list can be reordered or shortened without moving anyone's rows. The routing
+ * data source is wrapped in a {@link ConnectionShareDataSource} so each request
+ * class gets its own share of every branch pool.
+ */
+@Configuration
+public class BranchDataSourceConfig {
+
+    // Ids are allocated from id << 40, which has to stay a positive long
+    private static final int MAX_BRANCH_ID = (1 << (63 - BranchSchemaInitializer.ID_RANGE_BITS)) - 1;
+
+    @Bean
+    public BranchDirectory branchDirectory(Environment environment) {
+        List<String> branches = new ArrayList<>();
+        branches.add(BranchContext.DEFAULT);
+        Map<String, Integer> branchIds = new HashMap<>();
+        branchIds.put(BranchContext.DEFAULT, 0);
+        Map<String, Integer> configured = Binder.get(environment)
+                .bind("branches.ids", Bindable.mapOf(String.class, Integer.class))
+                .orElse(Map.of());
+        for (String branch : branchDataSources(environment).keySet()) {
+            Integer id = configured.get(branch);
+            if (id == null || id < 1 || id > MAX_BRANCH_ID) {
+                throw new IllegalStateException("Branch '" + branch + "' needs a branches.ids." + branch
+                        + " between 1 and " + MAX_BRANCH_ID);
+            }
+            if (branchIds.containsValue(id)) {
+                throw new IllegalStateException("Branch '" + branch + "' has the same branches.ids value as another branch: " + id);
+            }
+            branches.add(branch);
+            branchIds.put(branch, id);
+        }
+        int fanOutThreads = environment.getProperty("branches.fan-out-threads", Integer.class,
+                Math.min(branches.size() * 2, 16));
+        return new BranchDirectory(branches, branchIds, fanOutThreads);
+    }
+
+    @Bean
+    public ConnectionShareDataSource dataSource(DataSourceProperties properties, Environment environment) {
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        HikariDataSource main = pool(properties, environment);
+        targets.put(BranchContext.DEFAULT, main);
+        branchDataSources(environment).forEach((branch, branchProperties) -> {
+            HikariDataSource pool = pool(branchProperties, environment);
+            pool.setPoolName("branch-" + branch);
+            targets.put(branch, pool);
+        });
+
+        BranchRoutingDataSource routing = new BranchRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(main);
+        routing.afterPropertiesSet();
+        return new ConnectionShareDataSource(routing, connectionShares(environment),
+                environment.getProperty("admission.connection-wait-ms", Long.class, 1000L));
+    }
+
+    // Each request class may hold admission.<class>.connection-share of a branch's pool,
+    // never fewer than two connections so a nested REQUIRES_NEW transaction still fits.
+    private static Map<RequestClass, Integer> connectionShares(Environment environment) {
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        Map<RequestClass, Integer> shares = new EnumMap<>(RequestClass.class);
+        for (RequestClass requestClass : RequestClass.values()) {
+            double share = environment.getProperty("admission." + requestClass.key() + ".connection-share", Double.class, 0.5);
+            shares.put(requestClass, Math.max(2, (int) Math.round(share * poolSize)));
+        }
+        return shares;
+    }
+
+    // Hibernate only creates/updates the default branch's schema; the other branch
+    // databases are brought up to date while the session factory starts.
+    @Bean
+    public HibernatePropertiesCustomizer branchSchemaCustomizer(BranchDirectory branchDirectory) {
+        return properties -> properties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(new BranchSchemaInitializer(branchDirectory)));
+    }
+
+    // Where Flyway owns the schema (prod profile) it migrates every branch database in turn,
+    // through the routing data source, before the session factory validates them. A database
+    // that ddl-auto=update built (tables but no history) is refused: what Hibernate left
+    // there depends on the entities of whichever release built it, and none of the data
+    // migrations ran, so no version can be assumed. An operator compares it with the
+    // migrations and baselines it by hand.
+    @Bean
+    public FlywayMigrationStrategy branchMigrationStrategy(BranchDirectory branchDirectory) {
+        return flyway -> branchDirectory.forEachBranch(() -> {
+            if (builtByHibernate(flyway)) {
+                throw new IllegalStateException("The database of branch " + BranchContext.current()
+                        + " has tables but no " + flyway.getConfiguration().getTable() + " history, so it was built by"
+                        + " ddl-auto=update; bring it in line with db/migration and run flyway baseline with the"
+                        + " version it matches before starting with the prod profile");
+            }
+            flyway.migrate();
+        });
+    }
+
+    // No migration applied yet, but tables other than Flyway's own history
+    private static boolean builtByHibernate(Flyway flyway) {
+        if (flyway.info().applied().length > 0) {
+            return false;
+        }
+        String historyTable = flyway.getConfiguration().getTable();
+        try (Connection connection = flyway.getConfiguration().getDataSource().getConnection();
+             ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), connection.getSchema(),
+                     "%", new String[] {"TABLE"})) {
+            while (tables.next()) {
+                if (!historyTable.equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not list the tables of branch " + BranchContext.current(), ex);
+        }
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        return dataSource;
+    }
+
+    private static Map<String, DataSourceProperties> branchDataSources(Environment environment) {
+        Binder binder = Binder.get(environment);
+        List<String> names = binder.bind("branches.names", Bindable.listOf(String.class)).orElse(List.of());
+        Map<String, DataSourceProperties> byName = binder
+                .bind("branches.datasources", Bindable.mapOf(String.class, DataSourceProperties.class))
+                .orElse(Map.of());
+
+        Map<String, DataSourceProperties> result = new LinkedHashMap<>();
+        for (String name : names) {
+            DataSourceProperties properties = byName.get(name);
+            if (BranchContext.DEFAULT.equals(name) || properties == null || properties.getUrl() == null) {
+                throw new IllegalStateException("Branch '" + name + "' needs its own branches.datasources." + name + ".url");
+            }
+            result.put(name, properties);
+        }
+        return result;
+    }
+}
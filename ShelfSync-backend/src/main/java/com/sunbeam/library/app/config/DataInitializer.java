@@ -3,13 +3,31 @@ package com.sunbeam.library.app.config;
 import com.sunbeam.library.app.entity.Member;
 import com.sunbeam.library.app.enums.Role;
 import com.sunbeam.library.app.repository.MemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the owner and librarian accounts on a fresh database. Runs on the
+ * main thread once the application is ready, before it reports ready for
+ * traffic, so it is finished (or has failed) before shutdown can begin. On a
+ * database that already has both accounts it is a single query, and BCrypt
+ * runs only for a missing account.
+ */
 @Component
-public class DataInitializer implements CommandLineRunner {
+public class DataInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+    private static final String OWNER_EMAIL = "owner@lib.com";
+    private static final String LIBRARIAN_EMAIL = "admin@lib.com";
 
     @Autowired
     private MemberRepository memberRepository;
@@ -17,30 +35,37 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    @Override
-    public void run(String... args) throws Exception {
-        // --- Create Owner User if not exists ---
-        if (memberRepository.findByEmail("owner@lib.com").isEmpty()) {
-            Member owner = new Member();
-            owner.setName("Owner");
-            owner.setEmail("owner@lib.com");
-            owner.setPassword(passwordEncoder.encode("owpassword"));
-            owner.setPhone("0000000000");
-            owner.setRole(Role.ROLE_OWNER);
-            memberRepository.save(owner);
-            System.out.println("====== Created OWNER user ======");
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            Set<String> existing = memberRepository.findExistingEmails(List.of(OWNER_EMAIL, LIBRARIAN_EMAIL));
+
+            // --- Create Owner User if not exists ---
+            if (!existing.contains(OWNER_EMAIL)) {
+                create("Owner", OWNER_EMAIL, "owpassword", "0000000000", Role.ROLE_OWNER);
+            }
+
+            // --- Create Librarian User if not exists ---
+            if (!existing.contains(LIBRARIAN_EMAIL)) {
+                create("Admin", LIBRARIAN_EMAIL, "adpassword", "1111111111", Role.ROLE_LIBRARIAN);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Could not create the initial accounts", ex);
         }
+    }
 
-        // --- Create Librarian User if not exists ---
-        if (memberRepository.findByEmail("admin@lib.com").isEmpty()) {
-            Member librarian = new Member();
-            librarian.setName("Admin");
-            librarian.setEmail("admin@lib.com");
-            librarian.setPassword(passwordEncoder.encode("adpassword"));
-            librarian.setPhone("1111111111");
-            librarian.setRole(Role.ROLE_LIBRARIAN);
-            memberRepository.save(librarian);
-            System.out.println("====== Created LIBRARIAN user ======");
+    private void create(String name, String email, String password, String phone, Role role) {
+        Member member = new Member();
+        member.setName(name);
+        member.setEmail(email);
+        member.setPassword(passwordEncoder.encode(password));
+        member.setPhone(phone);
+        member.setRole(role);
+        try {
+            memberRepository.save(member);
+            log.info("Created {} account {}", role, email);
+        } catch (DataIntegrityViolationException ex) {
+            log.info("Account {} was created by another node", email); // nodes starting together
         }
     }
-}
\ No newline at end of file
+}
@@ -5,12 +5,43 @@ import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 @Configuration
 public class OpenApiConfig {
 
+    /**
+     * With {@code docs.lazy-init=true} (prod profile) the springdoc and Swagger UI
+     * beans, and the API description below, are created on the first docs request
+     * instead of at startup.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazyApiDocs(Environment environment) {
+        boolean lazy = environment.getProperty("docs.lazy-init", Boolean.class, false);
+        return beanFactory -> {
+            if (!lazy) {
+                return;
+            }
+            // Only the @Bean methods: the configuration classes themselves stay eager, as
+            // SpringDocUIConfiguration sets up the Swagger UI resource handler when created
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (definition.getFactoryBeanName() == null) {
+                    continue;
+                }
+                String declaringClass = beanFactory.getBeanDefinition(definition.getFactoryBeanName()).getBeanClassName();
+                if (declaringClass != null && (declaringClass.startsWith("org.springdoc.")
+                        || declaringClass.startsWith(OpenApiConfig.class.getName()))) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
     @Bean
     public OpenAPI customOpenAPI() {
         final String securitySchemeName = "bearerAuth";
@@ -0,0 +1,70 @@
+package com.sunbeam.library.app.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.sunbeam.library.app.branch.BranchTenantResolver;
+import com.sunbeam.library.app.cache.CatalogEntityCache;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate's second-level cache: bounded in-process Caffeine caches, one per
+ * region in {@link CatalogEntityCache}, sized by {@code cache.l2.*}. Entries are
+ * held by reference (Hibernate caches disassembled state, never live entities)
+ * and expire after {@code cache.l2.ttl-ms}, which bounds staleness should an
+ * invalidation from another node be missed. The update-timestamps region backs
+ * query-cache invalidation and is never bounded or expired, as Hibernate
+ * requires.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(Environment environment) {
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(environment.getProperty("cache.l2.ttl-ms", Long.class, 60_000L));
+        // A manager of its own rather than the provider's shared default, so each application context starts empty
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("shelfsync-l2-" + UUID.randomUUID()),
+                getClass().getClassLoader());
+        cacheManager.createCache(CatalogEntityCache.BOOK_REGION,
+                bounded(environment.getProperty("cache.l2.books.max-entries", Long.class, 10_000L), ttlNanos));
+        cacheManager.createCache(CatalogEntityCache.COPY_REGION,
+                bounded(environment.getProperty("cache.l2.copies.max-entries", Long.class, 50_000L), ttlNanos));
+        cacheManager.createCache(CatalogEntityCache.BOOK_COPIES_REGION,
+                bounded(environment.getProperty("cache.l2.book-copies.max-entries", Long.class, 10_000L), ttlNanos));
+        long queryEntries = environment.getProperty("cache.l2.queries.max-entries", Long.class, 20_000L);
+        cacheManager.createCache(CatalogEntityCache.AVAILABILITY_REGION, bounded(queryEntries, ttlNanos));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded(queryEntries, ttlNanos));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>().setStoreByValue(false));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new BranchTenantResolver());
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxEntries, long ttlNanos) {
+        return new CaffeineConfiguration<>()
+                .setStoreByValue(false)
+                .setMaximumSize(OptionalLong.of(maxEntries))
+                .setExpireAfterWrite(OptionalLong.of(ttlNanos));
+    }
+}
@@ -1,5 +1,7 @@
 package com.sunbeam.library.app.config;
 
+import com.sunbeam.library.app.idempotency.IdempotencyFilter;
+import com.sunbeam.library.app.limit.RateLimitFilter;
 import com.sunbeam.library.app.security.JwtAuthenticationEntryPoint;
 import com.sunbeam.library.app.security.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +27,10 @@ public class SecurityConfig {
     private JwtAuthenticationEntryPoint point;
     @Autowired
     private JwtAuthenticationFilter filter;
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -44,6 +50,10 @@ public class SecurityConfig {
                     // Public endpoints
                     .requestMatchers("/api/auth/**").permitAll()
                     .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                    .requestMatchers("/actuator/health/**").permitAll()
+                    
+                    // Operational metrics (cache hit ratios etc.)
+                    .requestMatchers("/actuator/**").hasRole("OWNER")
                     
                     // Member-specific endpoints
                     .requestMatchers("/api/member/**").hasRole("MEMBER")
@@ -61,6 +71,8 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
         http.addFilterBefore(filter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
+        http.addFilterAfter(idempotencyFilter, RateLimitFilter.class);
         return http.build();
     }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.sunbeam.library.app.dto.AuthRequestDTO;
 import com.sunbeam.library.app.dto.AuthResponseDTO;
 import com.sunbeam.library.app.dto.RegisterRequestDTO;
 import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
 import com.sunbeam.library.app.security.JwtHelper;
 import com.sunbeam.library.app.service.AuthService;
 import jakarta.validation.Valid;
@@ -46,7 +48,7 @@ public class AuthController {
         try {
             manager.authenticate(authentication);
         } catch (BadCredentialsException e) {
-            throw new RuntimeException("Invalid Username or Password!");
+            throw new BusinessRuleException(ErrorCode.INVALID_CREDENTIALS);
         }
     }
 
@@ -2,10 +2,12 @@ package com.sunbeam.library.app.controller;
 
 import com.sunbeam.library.app.dto.AddBookRequestDTO;
 import com.sunbeam.library.app.dto.AddCopyRequestDTO;
+import com.sunbeam.library.app.dto.BookCopyDTO;
+import com.sunbeam.library.app.dto.BookDTO;
+import com.sunbeam.library.app.dto.IssueRecordDTO;
 import com.sunbeam.library.app.dto.IssueRequestDTO;
-import com.sunbeam.library.app.entity.Book;
-import com.sunbeam.library.app.entity.BookCopy;
-import com.sunbeam.library.app.entity.IssueRecord;
+import com.sunbeam.library.app.dto.MemberLookupDTO;
+import com.sunbeam.library.app.lookup.MemberLookupService;
 import com.sunbeam.library.app.service.LibrarianService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
@@ -25,31 +27,42 @@ public class LibrarianController {
     @Autowired
     private LibrarianService librarianService;
 
+    @Autowired
+    private MemberLookupService memberLookupService;
+
     @PostMapping("/books")
     @Operation(summary = "Add a new book title to the library catalog", description = "Requires LIBRARIAN role.")
-    public ResponseEntity<Book> addBook(@Valid @RequestBody AddBookRequestDTO bookDTO) {
-        Book newBook = librarianService.addBook(bookDTO);
+    public ResponseEntity<BookDTO> addBook(@Valid @RequestBody AddBookRequestDTO bookDTO) {
+        BookDTO newBook = librarianService.addBook(bookDTO);
         return new ResponseEntity<>(newBook, HttpStatus.CREATED);
     }
 
     @PostMapping("/copies")
     @Operation(summary = "Add one or more copies of an existing book", description = "Requires LIBRARIAN role.")
-    public ResponseEntity<List<BookCopy>> addCopies(@Valid @RequestBody AddCopyRequestDTO copyDTO) {
-        List<BookCopy> newCopies = librarianService.addCopies(copyDTO);
+    public ResponseEntity<List<BookCopyDTO>> addCopies(@Valid @RequestBody AddCopyRequestDTO copyDTO) {
+        List<BookCopyDTO> newCopies = librarianService.addCopies(copyDTO);
         return new ResponseEntity<>(newCopies, HttpStatus.CREATED);
     }
 
+    @GetMapping("/members")
+    @Operation(summary = "Find members by e-mail, phone number or name prefix",
+            description = "Requires LIBRARIAN role. Returns up to `limit` members (at most 50), for picking the member id to issue to.")
+    public ResponseEntity<List<MemberLookupDTO>> findMembers(@RequestParam String query,
+                                                             @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(memberLookupService.search(query, limit));
+    }
+
     @PostMapping("/issue")
     @Operation(summary = "Issue a book copy to a member", description = "Requires LIBRARIAN role.")
-    public ResponseEntity<IssueRecord> issueBook(@RequestBody IssueRequestDTO issueRequest) {
-        IssueRecord record = librarianService.issueBook(issueRequest.getMemberId(), issueRequest.getCopyId());
+    public ResponseEntity<IssueRecordDTO> issueBook(@RequestBody IssueRequestDTO issueRequest) {
+        IssueRecordDTO record = librarianService.issueBook(issueRequest.getMemberId(), issueRequest.getCopyId());
         return ResponseEntity.ok(record);
     }
 
     @PostMapping("/return/{copyId}")
     @Operation(summary = "Process the return of a book copy", description = "Requires LIBRARIAN role.")
-    public ResponseEntity<IssueRecord> returnBook(@PathVariable Long copyId) {
-        IssueRecord record = librarianService.returnBook(copyId);
+    public ResponseEntity<IssueRecordDTO> returnBook(@PathVariable Long copyId) {
+        IssueRecordDTO record = librarianService.returnBook(copyId);
         return ResponseEntity.ok(record);
     }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.sunbeam.library.app.controller;
 
 import com.sunbeam.library.app.dto.*;
+import com.sunbeam.library.app.enums.MemberHomeSection;
+import com.sunbeam.library.app.service.HoldService;
+import com.sunbeam.library.app.service.MemberHomeService;
 import com.sunbeam.library.app.service.MemberService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,8 +14,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import java.security.Principal;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/member")
@@ -20,9 +25,17 @@ import java.util.Map;
 @Tag(name = "Member Controller", description = "APIs for library members for self-service actions.")
 public class MemberController {
 
+    public static final String CATALOG_VERSION_HEADER = "Catalog-Version";
+
     @Autowired
     private MemberService memberService;
 
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private MemberHomeService memberHomeService;
+
     // --- DASHBOARD ENDPOINT ---
     @GetMapping("/dashboard")
     @Operation(summary = "Get all aggregated data for the member's dashboard", description = "Requires MEMBER role.")
@@ -30,6 +43,14 @@ public class MemberController {
         return ResponseEntity.ok(memberService.getMemberDashboard(principal.getName()));
     }
 
+    @GetMapping("/home")
+    @Operation(summary = "Get several member sections in one call",
+            description = "Requires MEMBER role. 'fields' lists the sections to load (DASHBOARD, PROFILE, BORROWED, CART, HOLDS); all of them when omitted.")
+    public ResponseEntity<MemberHomeDTO> getHome(@RequestParam(required = false) Set<MemberHomeSection> fields, Principal principal) {
+        Set<MemberHomeSection> sections = fields == null || fields.isEmpty() ? EnumSet.allOf(MemberHomeSection.class) : fields;
+        return ResponseEntity.ok(memberHomeService.getMemberHome(principal.getName(), sections));
+    }
+
     // --- SELF-SERVICE CART & BORROW ENDPOINTS ---
     @PostMapping("/cart/add/{copyId}")
     @Operation(summary = "Add a book copy to the member's cart", description = "Requires MEMBER role.")
@@ -68,9 +89,48 @@ public class MemberController {
     }
 
     @GetMapping("/books/all")
-    @Operation(summary = "Get a list of all book titles in the library", description = "Requires MEMBER role.")
+    @Operation(summary = "Get a list of all book titles in the library", description = "Requires MEMBER role. The Catalog-Version header is the version to delta-sync on from.")
     public ResponseEntity<List<BookDTO>> getAllBooks() {
-        return ResponseEntity.ok(memberService.getAllBooks());
+        // Read before the books, so the version never covers a change the list misses
+        long version = memberService.getCatalogVersion();
+        return ResponseEntity.ok()
+                .header(CATALOG_VERSION_HEADER, String.valueOf(version))
+                .body(memberService.getAllBooks());
+    }
+
+    @GetMapping("/books/changes")
+    @Operation(summary = "Get books added or changed since a catalog version (delta sync)", description = "Requires MEMBER role. Start from the Catalog-Version of /books/all. While hasMore is set, call again with the same since and after=next; then keep the last version.")
+    public ResponseEntity<CatalogChangesDTO> getCatalogChanges(@RequestParam(defaultValue = "0") long since,
+                                                               @RequestParam(defaultValue = "0") long after,
+                                                               @RequestParam(defaultValue = "200") int limit) {
+        return ResponseEntity.ok(memberService.getCatalogChanges(since, after, Math.max(1, Math.min(limit, 500))));
+    }
+
+    @GetMapping("/books/{bookId}/recommendations")
+    @Operation(summary = "Get books frequently borrowed together with this one", description = "Requires MEMBER role.")
+    public ResponseEntity<List<BookDTO>> getRecommendations(@PathVariable Long bookId,
+                                                            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(memberService.getRecommendations(bookId, Math.max(1, Math.min(limit, 10))));
+    }
+
+    // --- HOLD / WAITLIST ENDPOINTS ---
+    @PostMapping("/books/{bookId}/hold")
+    @Operation(summary = "Join the waitlist for a book with no available copies", description = "Requires MEMBER role. The next returned copy is reserved for the member at the head of the queue.")
+    public ResponseEntity<HoldDTO> placeHold(@PathVariable Long bookId, Principal principal) {
+        return new ResponseEntity<>(holdService.placeHold(principal.getName(), bookId), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/me/holds")
+    @Operation(summary = "Get the active holds of the logged-in member", description = "Requires MEMBER role.")
+    public ResponseEntity<List<HoldDTO>> getMyHolds(Principal principal) {
+        return ResponseEntity.ok(holdService.getMyHolds(principal.getName()));
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    @Operation(summary = "Cancel a hold, releasing any copy reserved for it", description = "Requires MEMBER role.")
+    public ResponseEntity<Map<String, String>> cancelHold(@PathVariable Long holdId, Principal principal) {
+        holdService.cancelHold(principal.getName(), holdId);
+        return ResponseEntity.ok(Map.of("message", "Hold cancelled successfully."));
     }
 
     // --- PERSONAL ACCOUNT & HISTORY ENDPOINTS ---
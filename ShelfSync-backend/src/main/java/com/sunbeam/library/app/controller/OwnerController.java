@@ -1,14 +1,29 @@
 package com.sunbeam.library.app.controller;
 
 import com.sunbeam.library.app.dto.DashboardKpiDTO;
+import com.sunbeam.library.app.dto.FinancialReportDTO;
+import com.sunbeam.library.app.dto.TopItemDTO;
+import com.sunbeam.library.app.enums.AnalyticsDimension;
+import com.sunbeam.library.app.enums.AnalyticsWindow;
+import com.sunbeam.library.app.journal.JournalRecord;
+import com.sunbeam.library.app.service.FinancialRollupService;
 import com.sunbeam.library.app.service.OwnerService;
+import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/owner")
 @PreAuthorize("hasRole('OWNER')")
@@ -17,12 +32,46 @@ public class OwnerController {
     @Autowired
     private OwnerService ownerService;
 
+    @Autowired
+    private FinancialRollupService financialRollupService;
+
     @GetMapping("/dashboard/kpi")
     public ResponseEntity<DashboardKpiDTO> getDashboardKpis() {
         return ResponseEntity.ok(ownerService.getDashboardKpis());
     }
 
+    @GetMapping("/reports/financial")
+    @Operation(summary = "Revenue, fines and new memberships of every branch for a date range (inclusive)", description = "Requires OWNER role.")
+    public ResponseEntity<FinancialReportDTO> getFinancialReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(ownerService.getFinancialReport(from, to));
+    }
+
+    @PostMapping("/reports/rollups/backfill")
+    @Operation(summary = "Rebuild the financial rollups of the caller's branch from its payments table (up to yesterday; 400 when from is after to, 409 while payment events of the range are still in the outbox)", description = "Requires OWNER role.")
+    public ResponseEntity<Map<String, Object>> backfillRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int payments = financialRollupService.backfill(from, to);
+        return ResponseEntity.ok(Map.of("paymentsAggregated", payments));
+    }
+
+    @GetMapping("/analytics/top")
+    @Operation(summary = "Most borrowed books, authors or subjects over a sliding window (approximate)", description = "Requires OWNER role.")
+    public ResponseEntity<List<TopItemDTO>> getTopCirculating(
+            @RequestParam(defaultValue = "BOOK") AnalyticsDimension dimension,
+            @RequestParam(defaultValue = "WEEK") AnalyticsWindow window,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(ownerService.getTopCirculating(dimension, window, Math.max(1, Math.min(limit, 50))));
+    }
+
+    @GetMapping("/audit/members/{memberId}/journal")
+    @Operation(summary = "Audit trail of a member's issues, returns, fines and payments from the circulation journal", description = "Requires OWNER role.")
+    public ResponseEntity<List<JournalRecord>> getMemberJournal(@PathVariable Long memberId) {
+        return ResponseEntity.ok(ownerService.getMemberJournal(memberId));
+    }
+
     // Additional endpoints for detailed reports would go here
-    // e.g., @GetMapping("/reports/financial")
     // e.g., @GetMapping("/reports/assets")
 }
\ No newline at end of file
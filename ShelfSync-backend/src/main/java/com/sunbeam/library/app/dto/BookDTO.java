@@ -13,4 +13,7 @@ public class BookDTO {
     private BigDecimal price;
     private long totalCopies;
     private long availableCopies;
+    // Branch the entry comes from; in a merged catalog a title only other branches
+    // hold has no id, since holds, carts and copy lookups only see the caller's branch
+    private String branch;
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.sunbeam.library.app.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@Builder
+public class CatalogChangesDTO {
+    private long version;          // Pass back as 'since' on the next sync
+    private long next;             // Pass back as 'after' to get the next page of this sync
+    private boolean hasMore;       // The page is full; call again immediately for the next one
+    private boolean resetRequired; // Client version is unknown to the server; re-download the catalog
+    private List<BookDTO> books;   // Current state of every book changed since 'since' (may come again next sync)
+}
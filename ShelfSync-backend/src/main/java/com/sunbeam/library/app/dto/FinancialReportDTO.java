@@ -0,0 +1,19 @@
+package com.sunbeam.library.app.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class FinancialReportDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal membershipRevenue;
+    private BigDecimal fineRevenue;
+    private BigDecimal totalRevenue;
+    private BigDecimal finesAssessed;
+    private BigDecimal finesCollected;
+    private long newMemberships;
+}
@@ -0,0 +1,22 @@
+package com.sunbeam.library.app.dto;
+
+import com.sunbeam.library.app.enums.HoldStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class HoldDTO {
+    private Long id;
+    private Long bookId;
+    private String bookName;
+    private HoldStatus status;
+    private LocalDateTime requestedAt;
+    private Integer queuePosition; // only while WAITING
+    // Set once READY
+    private Long copyId;
+    private String rack;
+    private LocalDateTime pickupDeadline;
+}
@@ -6,6 +6,7 @@ import java.time.LocalDate;
 @Data
 public class IssueRecordDTO {
 private Long id;
+private Long memberId;
 private String bookName;
 private String bookAuthor;
 private Long copyId;
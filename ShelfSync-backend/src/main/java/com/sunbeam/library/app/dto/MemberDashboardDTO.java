@@ -21,4 +21,7 @@ public class MemberDashboardDTO {
 
     // Recent Activity Data (simplified version)
     private List<IssueRecordDTO> recentActivity;
+
+    // "Members also borrowed" suggestions based on recent activity
+    private List<BookDTO> recommendations;
 }
\ No newline at end of file
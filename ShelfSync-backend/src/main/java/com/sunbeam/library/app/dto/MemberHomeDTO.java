@@ -0,0 +1,18 @@
+package com.sunbeam.library.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+
+// Only the sections the client asked for are set; the rest are left out of the JSON
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MemberHomeDTO {
+    private MemberDashboardDTO dashboard;
+    private MemberProfileDTO profile;
+    private List<IssueRecordDTO> borrowed;
+    private List<CartItemDTO> cart;
+    private List<HoldDTO> holds;
+}
@@ -0,0 +1,12 @@
+package com.sunbeam.library.app.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberLookupDTO {
+    private Long id;
+    private String name;
+    private String email;
+    private String phone;
+    private String branch;
+}
@@ -18,4 +18,7 @@ public class RegisterRequestDTO {
     
     @NotBlank @Size(min = 6)
     private String password;
+
+    // Optional; members join the default branch when omitted
+    private String branch;
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.sunbeam.library.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TopItemDTO {
+    private String key;          // Book id, author name or subject
+    private String label;        // Display name (book title for BOOK, otherwise same as key)
+    private long estimatedIssues;
+}
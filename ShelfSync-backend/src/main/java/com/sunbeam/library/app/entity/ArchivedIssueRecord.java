@@ -0,0 +1,55 @@
+package com.sunbeam.library.app.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cold copy of a closed loan. Keeps the original id and denormalises the book
+ * details so history reads never join back to the catalog.
+ */
+@Entity
+@Table(name = "issue_records_archive", indexes = {
+        @Index(name = "idx_issue_archive_member", columnList = "member_id, issue_date"),
+        @Index(name = "idx_issue_archive_book", columnList = "book_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ArchivedIssueRecord {
+    @Id
+    private Long id;
+
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "copy_id", nullable = false)
+    private Long copyId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    private String bookName;
+
+    private String bookAuthor;
+
+    @Column(name = "issue_date", nullable = false)
+    private LocalDate issueDate;
+
+    @Column(nullable = false)
+    private LocalDate dueDate;
+
+    @Column(nullable = false)
+    private LocalDate returnDate;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal fine;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,45 @@
+package com.sunbeam.library.app.entity;
+
+import com.sunbeam.library.app.enums.PaymentType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cold copy of an old payment, keyed by the original payment id.
+ */
+@Entity
+@Table(name = "payments_archive", indexes = {
+        @Index(name = "idx_payment_archive_member", columnList = "member_id, transaction_time"),
+        @Index(name = "idx_payment_archive_time", columnList = "transaction_time")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ArchivedPayment {
+    @Id
+    private Long id;
+
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentType type;
+
+    @Column(name = "transaction_time", nullable = false)
+    private LocalDateTime transactionTime;
+
+    private LocalDate dueDate;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -1,16 +1,22 @@
 package com.sunbeam.library.app.entity;
 
+import com.sunbeam.library.app.cache.CatalogEntityCache;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
 
+// Rarely edited, so a change just evicts the entry (see CatalogEntityCache)
 @Entity
 @Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CatalogEntityCache.BOOK_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,6 +39,7 @@ public class Book {
     @Column(precision = 10, scale = 2)
     private BigDecimal price;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogEntityCache.BOOK_COPIES_REGION)
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private Set<BookCopy> copies = new HashSet<>();
 }
\ No newline at end of file
@@ -1,13 +1,21 @@
 package com.sunbeam.library.app.entity;
 
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.cache.CatalogEntityCache;
 import com.sunbeam.library.app.enums.BookStatus;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+// Status changes on every issue, return and reservation: cached read-write, so a
+// transaction never reads a status older than the last committed one
 @Entity
-@Table(name = "copies")
+@Table(name = "copies", indexes = @Index(name = "idx_copy_book_status", columnList = "book_id, status"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogEntityCache.COPY_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -26,4 +34,15 @@ public class BookCopy {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private BookStatus status;
-}
\ No newline at end of file
+
+    // Owning branch; rows written before branches existed have none and belong to the default branch.
+    @Column(length = 32)
+    private String branch;
+
+    @PrePersist
+    void assignBranch() {
+        if (branch == null) {
+            branch = BranchContext.current();
+        }
+    }
+}
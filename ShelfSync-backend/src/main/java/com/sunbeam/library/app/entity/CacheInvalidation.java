@@ -0,0 +1,39 @@
+package com.sunbeam.library.app.entity;
+
+import com.sunbeam.library.app.enums.CacheRegion;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One record on the cache-invalidation bus: "entries for {@code cacheKey} in
+ * {@code region} are stale" (no key means the whole region). Written in the
+ * same transaction as the change it describes and tailed by every node.
+ */
+@Entity
+@Table(name = "cache_invalidations", indexes = @Index(name = "idx_cache_invalidation_created", columnList = "created_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class CacheInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CacheRegion region;
+
+    @Column(name = "cache_key", length = 255)
+    private String cacheKey;
+
+    // Node that made the change; it has already evicted locally and skips the record
+    @Column(nullable = false, length = 64)
+    private String origin;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,38 @@
+package com.sunbeam.library.app.entity;
+
+import com.sunbeam.library.app.enums.CatalogChangeType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the catalog change-log. The id doubles as the catalog version
+ * that mobile clients pass back as {@code since} when they sync. Ids are taken
+ * in insert order but become visible in commit order, so a lower id can appear
+ * after a higher one; {@code MemberService.getCatalogChanges} allows for that.
+ */
+@Entity
+@Table(name = "catalog_changes", indexes = {
+        @Index(name = "idx_catalog_change_book", columnList = "book_id, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CatalogChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CatalogChangeType type;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+}
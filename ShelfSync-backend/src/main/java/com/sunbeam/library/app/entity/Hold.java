@@ -0,0 +1,52 @@
+package com.sunbeam.library.app.entity;
+
+import com.sunbeam.library.app.enums.HoldStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A member's place in the waitlist for a title. Queue order is the id order
+ * of WAITING holds for the same book.
+ */
+@Entity
+@Table(name = "holds", indexes = {
+        @Index(name = "idx_holds_book_status", columnList = "book_id, status, id"),
+        @Index(name = "idx_holds_status_deadline", columnList = "status, pickup_deadline")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class Hold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id", nullable = false)
+    private Member member;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    // The reserved copy, set once the hold becomes READY
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "copy_id")
+    private BookCopy copy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HoldStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime requestedAt;
+
+    private LocalDateTime readyAt;
+
+    @Column(name = "pickup_deadline")
+    private LocalDateTime pickupDeadline;
+}
@@ -0,0 +1,58 @@
+package com.sunbeam.library.app.entity;
+
+import com.sunbeam.library.app.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * The outcome of a POST sent with an {@code Idempotency-Key}, replayed to
+ * retries of the same request until it expires. Keys and request fingerprints
+ * are stored as SHA-256 hex digests.
+ */
+@Entity
+@Table(name = "idempotency_records", indexes = @Index(name = "idx_idempotency_expires", columnList = "expiresAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+    // Digest of the caller (member or IP) and the key they sent
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    // Digest of method, path, query and body; a reused key must match it
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private IdempotencyStatus status;
+
+    private Integer responseStatus;
+
+    @Column(length = 100)
+    private String contentType;
+
+    // Up to idempotency.max-response-bytes (64 KiB); this length maps to mediumblob on MySQL
+    @Lob
+    @Column(length = 65536)
+    private byte[] responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // While in progress: when the executing node is presumed dead. Once completed: end of the replay window.
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Rows are created only by a claim, which must INSERT (and fail on a duplicate key) rather than merge
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
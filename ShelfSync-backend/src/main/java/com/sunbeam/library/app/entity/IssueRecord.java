@@ -1,5 +1,6 @@
 package com.sunbeam.library.app.entity;
 
+import com.sunbeam.library.app.branch.BranchContext;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -9,7 +10,11 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "issue_records")
+@Table(name = "issue_records", indexes = {
+        @Index(name = "idx_issue_member_return", columnList = "member_id, return_date"),
+        @Index(name = "idx_issue_copy_return", columnList = "copy_id, return_date"),
+        @Index(name = "idx_issue_due_return", columnList = "due_date, return_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,4 +41,15 @@ public class IssueRecord {
 
     @Column(precision = 10, scale = 2)
     private BigDecimal fine;
-}
\ No newline at end of file
+
+    // Owning branch; rows written before branches existed have none and belong to the default branch.
+    @Column(length = 32)
+    private String branch;
+
+    @PrePersist
+    void assignBranch() {
+        if (branch == null) {
+            branch = BranchContext.current();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.sunbeam.library.app.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which node may run a background job, until when, and where its last
+ * unfinished run stopped. One row per job in every branch database.
+ */
+@Entity
+@Table(name = "job_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+public class JobLease {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(length = 64)
+    private String owner;
+
+    private LocalDateTime leasedUntil;
+
+    @Column(length = 255)
+    private String checkpoint;
+
+    // Cron firing the job last ran for, so each firing runs on one node only
+    private LocalDateTime lastSlot;
+
+    private LocalDateTime lastFinishedAt;
+
+    private Long lastDurationMs;
+
+    private Long lastRows;
+
+    public JobLease(String name) {
+        this.name = name;
+    }
+}
@@ -1,5 +1,6 @@
 package com.sunbeam.library.app.entity;
 
+import com.sunbeam.library.app.branch.BranchContext;
 import com.sunbeam.library.app.enums.Role;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -40,12 +41,23 @@ public class Member implements UserDetails {
     @Column(nullable = false)
     private Role role;
 
+    // Owning branch; rows written before branches existed have none and belong to the default branch.
+    @Column(length = 32)
+    private String branch;
+
     @OneToMany(mappedBy = "member", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Payment> payments = new HashSet<>();
 
     @OneToMany(mappedBy = "member", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<IssueRecord> issueRecords = new HashSet<>();
 
+    @PrePersist
+    void assignBranch() {
+        if (branch == null) {
+            branch = BranchContext.current();
+        }
+    }
+
     // UserDetails implementation
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -0,0 +1,41 @@
+package com.sunbeam.library.app.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A registered e-mail address and the branch its member belongs to. Kept in the
+ * default branch database only, where the primary key makes addresses unique
+ * across branches; each branch database only sees its own members.
+ */
+@Entity
+@Table(name = "member_emails")
+@Getter
+@Setter
+@NoArgsConstructor
+public class MemberEmail implements Persistable<String> {
+    @Id
+    private String email;
+
+    @Column(nullable = false, length = 32)
+    private String branch;
+
+    @Column(nullable = false)
+    private LocalDateTime claimedAt;
+
+    @Override
+    public String getId() {
+        return email;
+    }
+
+    // Rows are created only by a claim, which must INSERT (and fail on a duplicate key) rather than merge
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package com.sunbeam.library.app.entity;
+
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_status_id", columnList = "status, id"),
+       uniqueConstraints = @UniqueConstraint(name = "uk_outbox_relay_seq", columnNames = "relay_seq"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DomainEventType type;
+
+    // Events sharing a key are delivered strictly in id order
+    @Column(nullable = false, length = 64)
+    private String aggregateKey;
+
+    private Long memberId;
+    private Long bookId;
+    private Long copyId;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    private int attempts;
+
+    private LocalDateTime processedAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    // Order in which the relay finished with the event (processed or given up), without gaps;
+    // OutboxTail follows it on every node
+    private Long relaySeq;
+}
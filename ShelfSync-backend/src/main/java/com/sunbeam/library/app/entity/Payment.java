@@ -11,7 +11,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payment_member_type_due", columnList = "member_id, type, due_date"),
+        @Index(name = "idx_payment_member_time", columnList = "member_id, transaction_time")
+})
 @Getter
 @Setter
 @NoArgsConstructor
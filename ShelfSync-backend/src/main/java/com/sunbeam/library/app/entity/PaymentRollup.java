@@ -0,0 +1,47 @@
+package com.sunbeam.library.app.entity;
+
+import com.sunbeam.library.app.enums.RollupGranularity;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated revenue for one day or one calendar month, so owner reports
+ * read a handful of rows instead of scanning {@code payments}.
+ */
+@Entity
+@Table(name = "payment_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_rollup_period", columnNames = {"granularity", "period_start"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class PaymentRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RollupGranularity granularity;
+
+    // First day of the period (the day itself, or the 1st of the month)
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal membershipRevenue = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal fineRevenue = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal finesAssessed = BigDecimal.ZERO;
+
+    private int membershipCount;
+
+    private int fineCount;
+}
@@ -0,0 +1,7 @@
+package com.sunbeam.library.app.enums;
+
+public enum AnalyticsWindow {
+    DAY,   // last 24 hours
+    WEEK,  // last 7 days
+    MONTH  // last 30 days
+}
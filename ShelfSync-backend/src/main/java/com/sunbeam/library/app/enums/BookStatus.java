@@ -3,6 +3,7 @@ package com.sunbeam.library.app.enums;
 public enum BookStatus {
     AVAILABLE,
     ISSUED,
+    RESERVED,
     DAMAGED,
     RETIRED
 }
\ No newline at end of file
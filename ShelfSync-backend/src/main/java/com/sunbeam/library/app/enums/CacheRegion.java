@@ -0,0 +1,8 @@
+package com.sunbeam.library.app.enums;
+
+public enum CacheRegion {
+    CATALOG,
+    COPY,
+    MEMBER,
+    HOLD_QUEUE
+}
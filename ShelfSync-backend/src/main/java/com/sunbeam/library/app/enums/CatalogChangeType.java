@@ -0,0 +1,7 @@
+package com.sunbeam.library.app.enums;
+
+public enum CatalogChangeType {
+    BOOK_ADDED,
+    COPIES_ADDED,
+    AVAILABILITY_CHANGED
+}
@@ -0,0 +1,8 @@
+package com.sunbeam.library.app.enums;
+
+public enum DomainEventType {
+    COPY_ISSUED,
+    COPY_RETURNED,
+    FINE_ASSESSED,
+    MEMBERSHIP_PAID
+}
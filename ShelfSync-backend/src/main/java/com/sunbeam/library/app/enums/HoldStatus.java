@@ -0,0 +1,9 @@
+package com.sunbeam.library.app.enums;
+
+public enum HoldStatus {
+    WAITING,    // in the queue for the next returned copy
+    READY,      // a copy is reserved, waiting for pickup
+    FULFILLED,
+    CANCELLED,
+    EXPIRED     // pickup window passed, or the member could not borrow when a copy came up
+}
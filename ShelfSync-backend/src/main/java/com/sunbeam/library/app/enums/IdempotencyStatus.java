@@ -0,0 +1,6 @@
+package com.sunbeam.library.app.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
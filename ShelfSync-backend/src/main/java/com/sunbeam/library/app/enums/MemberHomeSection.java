@@ -0,0 +1,10 @@
+package com.sunbeam.library.app.enums;
+
+/** Sections a client can ask for from {@code GET /api/member/home}. */
+public enum MemberHomeSection {
+    DASHBOARD,
+    PROFILE,
+    BORROWED,
+    CART,
+    HOLDS
+}
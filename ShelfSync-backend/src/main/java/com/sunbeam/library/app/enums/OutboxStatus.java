@@ -0,0 +1,7 @@
+package com.sunbeam.library.app.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSED,
+    FAILED
+}
@@ -0,0 +1,35 @@
+package com.sunbeam.library.app.enums;
+
+import java.util.Locale;
+
+/**
+ * Admission classes, one per route family secured in {@code SecurityConfig}.
+ * Each gets its own concurrency bulkhead and share of the connection pool.
+ */
+public enum RequestClass {
+    AUTH("/api/auth/"),
+    MEMBER("/api/member/"),
+    LIBRARIAN("/api/librarian/"),
+    OWNER("/api/owner/"),
+    OTHER(null);
+
+    private final String pathPrefix;
+
+    RequestClass(String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+
+    public static RequestClass of(String path) {
+        for (RequestClass requestClass : values()) {
+            if (requestClass.pathPrefix != null && path.startsWith(requestClass.pathPrefix)) {
+                return requestClass;
+            }
+        }
+        return OTHER;
+    }
+
+    /** Property and metric tag name, e.g. {@code admission.owner.max-concurrency}. */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,6 @@
+package com.sunbeam.library.app.enums;
+
+public enum RollupGranularity {
+    DAY,
+    MONTH
+}
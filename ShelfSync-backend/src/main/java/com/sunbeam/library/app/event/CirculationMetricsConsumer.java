@@ -0,0 +1,26 @@
+package com.sunbeam.library.app.event;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circulation counters (issues, returns, fines, memberships), updated off the
+ * request path. Redelivery may over-count slightly; these are trend metrics.
+ * Counted on the node relaying the event, so the cluster figure is the sum
+ * over nodes.
+ */
+@Component
+public class CirculationMetricsConsumer implements DomainEventConsumer {
+
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        meterRegistry.counter("library.circulation.events", "type", event.type().name()).increment();
+        if (event.amount() != null) {
+            meterRegistry.counter("library.circulation.amount", "type", event.type().name())
+                    .increment(event.amount().doubleValue());
+        }
+    }
+}
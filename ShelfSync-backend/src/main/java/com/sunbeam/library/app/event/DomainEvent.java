@@ -0,0 +1,20 @@
+package com.sunbeam.library.app.event;
+
+import com.sunbeam.library.app.entity.OutboxEvent;
+import com.sunbeam.library.app.enums.DomainEventType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable view of an outbox row handed to consumers. Fields that do not
+ * apply to an event type are null (e.g. {@code copyId} for MEMBERSHIP_PAID).
+ */
+public record DomainEvent(long id, DomainEventType type, String key, Long memberId, Long bookId, Long copyId,
+                          BigDecimal amount, LocalDateTime occurredAt) {
+
+    static DomainEvent from(OutboxEvent e) {
+        return new DomainEvent(e.getId(), e.getType(), e.getAggregateKey(), e.getMemberId(), e.getBookId(),
+                e.getCopyId(), e.getAmount(), e.getOccurredAt());
+    }
+}
@@ -0,0 +1,16 @@
+package com.sunbeam.library.app.event;
+
+/**
+ * In-process subscriber fed by {@link OutboxRelay}, or by {@link OutboxTail}
+ * on every node for a {@link NodeLocalEventConsumer}.
+ * <p>
+ * Delivery is at-least-once: if any consumer fails, every consumer sees the
+ * event again on the next attempt, so handlers must tolerate duplicates
+ * (e.g. dedupe on {@link DomainEvent#id()}). Relay handlers run inside the
+ * relay's transaction, so database writes commit atomically with the
+ * "processed" mark.
+ */
+public interface DomainEventConsumer {
+
+    void onEvent(DomainEvent event);
+}
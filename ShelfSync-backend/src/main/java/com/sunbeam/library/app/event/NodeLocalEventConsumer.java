@@ -0,0 +1,10 @@
+package com.sunbeam.library.app.event;
+
+/**
+ * A {@link DomainEventConsumer} whose state lives in this node's memory or
+ * files (analytics, the journal, recommendations), so every node needs every
+ * event. Fed by {@link OutboxTail} once the relay has finished with an event,
+ * rather than by the relay, which runs on one node only.
+ */
+public interface NodeLocalEventConsumer extends DomainEventConsumer {
+}
@@ -0,0 +1,62 @@
+package com.sunbeam.library.app.event;
+
+import com.sunbeam.library.app.entity.IssueRecord;
+import com.sunbeam.library.app.entity.OutboxEvent;
+import com.sunbeam.library.app.entity.Payment;
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.enums.OutboxStatus;
+import com.sunbeam.library.app.repository.OutboxEventRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Writes domain events to the outbox table. Must be called inside the
+ * business transaction, so an event exists if and only if its change committed.
+ */
+@Service
+@Transactional(Transactional.TxType.MANDATORY)
+public class OutboxPublisher {
+
+    @Autowired private OutboxEventRepository outboxEventRepository;
+
+    public void copyIssued(IssueRecord record) {
+        append(DomainEventType.COPY_ISSUED, "copy:" + record.getBookCopy().getId(), record.getMember().getId(),
+                record.getBookCopy().getBook().getId(), record.getBookCopy().getId(), null, LocalDateTime.now());
+    }
+
+    public void copyReturned(IssueRecord record) {
+        append(DomainEventType.COPY_RETURNED, "copy:" + record.getBookCopy().getId(), record.getMember().getId(),
+                record.getBookCopy().getBook().getId(), record.getBookCopy().getId(), null, LocalDateTime.now());
+    }
+
+    // Payment events occur at the payment's transaction time, the timestamp rollup backfills count by
+    public void fineAssessed(IssueRecord record, Payment finePayment) {
+        append(DomainEventType.FINE_ASSESSED, "member:" + record.getMember().getId(), record.getMember().getId(),
+                record.getBookCopy().getBook().getId(), record.getBookCopy().getId(), finePayment.getAmount(),
+                finePayment.getTransactionTime());
+    }
+
+    public void membershipPaid(Payment membershipPayment) {
+        Long memberId = membershipPayment.getMember().getId();
+        append(DomainEventType.MEMBERSHIP_PAID, "member:" + memberId, memberId, null, null,
+                membershipPayment.getAmount(), membershipPayment.getTransactionTime());
+    }
+
+    private void append(DomainEventType type, String key, Long memberId, Long bookId, Long copyId, BigDecimal amount,
+                        LocalDateTime occurredAt) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setAggregateKey(key);
+        event.setMemberId(memberId);
+        event.setBookId(bookId);
+        event.setCopyId(copyId);
+        event.setAmount(amount);
+        event.setOccurredAt(occurredAt);
+        event.setStatus(OutboxStatus.PENDING);
+        outboxEventRepository.save(event);
+    }
+}
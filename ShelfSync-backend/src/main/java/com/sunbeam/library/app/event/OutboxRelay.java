@@ -0,0 +1,129 @@
+package com.sunbeam.library.app.event;
+
+import com.sunbeam.library.app.cluster.ClusterScheduler;
+import com.sunbeam.library.app.cluster.JobContext;
+import com.sunbeam.library.app.cluster.JobSchedule;
+import com.sunbeam.library.app.entity.OutboxEvent;
+import com.sunbeam.library.app.enums.OutboxStatus;
+import com.sunbeam.library.app.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Polls the outbox in id order and hands each pending event to every
+ * {@link DomainEventConsumer} except the node-local ones. Runs as a cluster job
+ * on a thread of its own, so each branch's outbox is relayed by one node and one
+ * thread at a time, which is what gives per-key ordering: when an event fails,
+ * later events with the same key are held back until it succeeds or is given up
+ * on. Each event it finishes with gets the next {@code relay_seq}, which
+ * {@link OutboxTail} follows to feed the {@link NodeLocalEventConsumer}s of
+ * every node.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired private OutboxEventRepository outboxEventRepository;
+    @Autowired private List<DomainEventConsumer> allConsumers;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ClusterScheduler clusterScheduler;
+
+    @Value("${outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.retention-hours:72}")
+    private long retentionHours;
+
+    @Value("${outbox.relay.interval-ms:500}")
+    private long relayIntervalMs;
+
+    @Value("${outbox.purge-cron:0 30 3 * * *}")
+    private String purgeCron;
+
+    private List<DomainEventConsumer> consumers;
+
+    @PostConstruct
+    void scheduleJobs() {
+        consumers = allConsumers.stream().filter(consumer -> !(consumer instanceof NodeLocalEventConsumer)).toList();
+        clusterScheduler.registerDedicated("outbox-relay", JobSchedule.fixedDelay(relayIntervalMs), this::relay);
+        clusterScheduler.register("outbox-purge", JobSchedule.cron(purgeCron), this::purgeFinished);
+    }
+
+    // Each branch database has its own outbox; ids are unique across branches
+    // (see BranchSchemaInitializer), so consumers can still dedupe on them.
+    void relay(JobContext context) {
+        List<OutboxEvent> batch = outboxEventRepository.findByStatusOrderByIdAsc(OutboxStatus.PENDING,
+                PageRequest.of(0, batchSize));
+        Set<String> blockedKeys = new HashSet<>();
+        long relaySeq = outboxEventRepository.findLatestRelaySeq();
+        for (OutboxEvent event : batch) {
+            if (blockedKeys.contains(event.getAggregateKey())) {
+                continue;
+            }
+            // A batch of slow deliveries can outlast the lease; another node must not take it meanwhile
+            context.keepAlive();
+            switch (deliver(event, relaySeq + 1)) {
+                case PROCESSED -> {
+                    relaySeq++;
+                    context.addRows(1);
+                }
+                case FAILED -> relaySeq++;
+                default -> blockedKeys.add(event.getAggregateKey());
+            }
+        }
+    }
+
+    // Given-up events are kept as long as processed ones, for their lastError, then purged too
+    void purgeFinished(JobContext context) {
+        Integer removed = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteFinishedBefore(LocalDateTime.now().minusHours(retentionHours)));
+        context.addRows(removed != null ? removed : 0);
+        log.info("Purged {} processed and failed outbox events in branch {}", removed, context.branch());
+    }
+
+    // Returns the event's new status: PENDING while it is still to be retried
+    private OutboxStatus deliver(OutboxEvent event, long relaySeq) {
+        DomainEvent domainEvent = DomainEvent.from(event);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (DomainEventConsumer consumer : consumers) {
+                    consumer.onEvent(domainEvent);
+                }
+                outboxEventRepository.finishDelivery(event.getId(), OutboxStatus.PROCESSED, LocalDateTime.now(),
+                        event.getAttempts() + 1, null, relaySeq);
+            });
+            return OutboxStatus.PROCESSED;
+        } catch (RuntimeException ex) {
+            int attempts = event.getAttempts() + 1;
+            boolean giveUp = attempts >= maxAttempts;
+            log.warn("Delivery of outbox event {} ({}) failed, attempt {}{}", event.getId(), event.getType(),
+                    attempts, giveUp ? "; giving up" : "", ex);
+            String message = String.valueOf(ex.getMessage());
+            String error = message.length() > 500 ? message.substring(0, 500) : message;
+            if (!giveUp) {
+                transactionTemplate.executeWithoutResult(status -> outboxEventRepository.updateDelivery(event.getId(),
+                        OutboxStatus.PENDING, null, attempts, error));
+                return OutboxStatus.PENDING;
+            }
+            // Given up on here, but it did happen: node-local consumers still get it
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.finishDelivery(event.getId(),
+                    OutboxStatus.FAILED, LocalDateTime.now(), attempts, error, relaySeq));
+            return OutboxStatus.FAILED;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.sunbeam.library.app.event;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.entity.OutboxEvent;
+import com.sunbeam.library.app.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds the {@link NodeLocalEventConsumer}s of this node. Every node follows
+ * each branch's outbox in the order the relay finished with the events
+ * ({@code relay_seq}) and hands them on, so analytics, the journal and
+ * recommendations are complete on every node, not just the one relaying.
+ *
+ * <p>The position reached in each branch is saved to
+ * {@code outbox.tail.position-file}, so a restarted node catches up on what it
+ * missed while those events are still retained ({@code outbox.retention-hours});
+ * a node without the file starts at the end. Delivery is at-least-once: an event
+ * whose consumer fails is offered again on the next poll, up to
+ * {@code outbox.tail.max-attempts} times; then it is written to
+ * {@code outbox.tail.dead-letter-file} and the tail moves on, so one event no
+ * consumer can take does not stop every consumer on the node.
+ */
+@Component
+public class OutboxTail {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxTail.class);
+
+    @Autowired private OutboxEventRepository outboxEventRepository;
+    @Autowired private List<DomainEventConsumer> allConsumers;
+    @Autowired private BranchDirectory branchDirectory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.tail.interval-ms:500}")
+    private long intervalMs;
+
+    @Value("${outbox.tail.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.tail.position-file:${journal.directory:data/journal}/outbox-tail.properties}")
+    private String positionFile;
+
+    @Value("${outbox.tail.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.tail.dead-letter-file:${journal.directory:data/journal}/outbox-tail-dead-letters.log}")
+    private String deadLetterFile;
+
+    private final Map<String, Long> positions = new HashMap<>(); // poller thread only, after start
+    private final Map<String, Integer> failedAttempts = new HashMap<>(); // of the next event, per branch
+    private List<NodeLocalEventConsumer> consumers;
+    private ScheduledExecutorService poller;
+    private boolean dirty;
+    private boolean failing;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        consumers = allConsumers.stream()
+                .filter(NodeLocalEventConsumer.class::isInstance)
+                .map(NodeLocalEventConsumer.class::cast)
+                .toList();
+        restorePositions();
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-tail");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (poller == null) {
+            return;
+        }
+        poller.shutdown();
+        if (poller.awaitTermination(5, TimeUnit.SECONDS)) {
+            savePositions();
+        } else {
+            poller.shutdownNow();
+        }
+    }
+
+    private void poll() {
+        try {
+            branchDirectory.forEachBranch(this::pollBranch);
+            if (failing) {
+                log.info("Outbox tail recovered");
+            }
+            failing = false;
+        } catch (RuntimeException ex) {
+            if (!failing) {
+                log.warn("Outbox tail stopped at {}; retrying every {} ms", positions, intervalMs, ex);
+            }
+            failing = true;
+        } finally {
+            savePositions();
+        }
+    }
+
+    private void pollBranch() {
+        String branch = BranchContext.current();
+        Long position = positions.get(branch);
+        if (position == null) {
+            positions.put(branch, outboxEventRepository.findLatestRelaySeq());
+            dirty = true;
+            return;
+        }
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.findByRelaySeqGreaterThanOrderByRelaySeqAsc(position, PageRequest.of(0, batchSize));
+            for (OutboxEvent event : batch) {
+                if (!deliver(branch, event)) {
+                    return; // from this event on the next poll
+                }
+                position = event.getRelaySeq();
+                positions.put(branch, position);
+                dirty = true;
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    // False while the event is still to be retried
+    private boolean deliver(String branch, OutboxEvent event) {
+        DomainEvent domainEvent = DomainEvent.from(event);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (NodeLocalEventConsumer consumer : consumers) {
+                    consumer.onEvent(domainEvent);
+                }
+            });
+            failedAttempts.remove(branch);
+            return true;
+        } catch (RuntimeException ex) {
+            int attempts = failedAttempts.merge(branch, 1, Integer::sum);
+            if (attempts < maxAttempts) {
+                log.warn("Node-local delivery of outbox event {} ({}) failed, attempt {}", event.getId(), event.getType(),
+                        attempts, ex);
+                return false;
+            }
+            log.error("Node-local delivery of outbox event {} ({}) failed {} times; skipping it, recorded in {}",
+                    event.getId(), event.getType(), attempts, deadLetterFile, ex);
+            failedAttempts.remove(branch);
+            recordDeadLetter(branch, event, ex);
+            return true;
+        }
+    }
+
+    private void recordDeadLetter(String branch, OutboxEvent event, RuntimeException ex) {
+        String line = String.format("%s branch=%s id=%d relaySeq=%d type=%s key=%s error=%s%n", LocalDateTime.now(),
+                branch, event.getId(), event.getRelaySeq(), event.getType(), event.getAggregateKey(), ex);
+        try {
+            Path target = Path.of(deadLetterFile).toAbsolutePath();
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException io) {
+            log.warn("Could not record skipped outbox event {} in {}", event.getId(), deadLetterFile, io);
+        }
+    }
+
+    private void restorePositions() {
+        Path path = Path.of(positionFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        Properties saved = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            saved.load(in);
+            for (String branch : saved.stringPropertyNames()) {
+                positions.put(branch, Long.valueOf(saved.getProperty(branch)));
+            }
+            log.info("Resuming outbox tail at {}", positions);
+        } catch (IOException | NumberFormatException ex) {
+            log.warn("Ignoring unreadable outbox tail positions {}: {}", path, ex.toString());
+            positions.clear();
+        }
+    }
+
+    private void savePositions() {
+        if (!dirty) {
+            return;
+        }
+        Properties saved = new Properties();
+        positions.forEach((branch, position) -> saved.setProperty(branch, String.valueOf(position)));
+        try {
+            Path target = Path.of(positionFile).toAbsolutePath();
+            Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                saved.store(out, "Last relay_seq handed to node-local consumers, per branch");
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException ex) {
+            log.warn("Could not save outbox tail positions to {}", positionFile, ex);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.sunbeam.library.app.exception;
+
+/**
+ * Thrown when a request is well-formed but breaks a library rule
+ * (copy unavailable, membership unpaid, wrong password, ...).
+ */
+public class BusinessRuleException extends LibraryException {
+
+    public BusinessRuleException(ErrorCode code) {
+        super(code);
+    }
+
+    public BusinessRuleException(ErrorCode code, String message) {
+        super(code, message);
+    }
+}
@@ -0,0 +1,67 @@
+package com.sunbeam.library.app.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Stable, client-visible codes for every business rejection. The names are part
+ * of the API contract, so existing constants must not be renamed.
+ */
+public enum ErrorCode {
+    // --- Lookups ---
+    MEMBER_NOT_FOUND(HttpStatus.NOT_FOUND, "Member not found"),
+    BOOK_NOT_FOUND(HttpStatus.NOT_FOUND, "Book not found"),
+    COPY_NOT_FOUND(HttpStatus.NOT_FOUND, "Book copy not found."),
+    CART_ITEM_NOT_FOUND(HttpStatus.NOT_FOUND, "Cart item not found."),
+
+    // --- Circulation rules ---
+    COPY_NOT_AVAILABLE(HttpStatus.CONFLICT, "This book copy is not available."),
+    COPY_ALREADY_IN_CART(HttpStatus.CONFLICT, "This book copy is already in someone's cart."),
+    CART_EMPTY(HttpStatus.UNPROCESSABLE_ENTITY, "Your cart is empty."),
+    NOT_CART_OWNER(HttpStatus.FORBIDDEN, "You are not authorized to remove this item."),
+    MEMBERSHIP_UNPAID(HttpStatus.PAYMENT_REQUIRED, "Member has not paid the membership fee."),
+    NO_ACTIVE_ISSUE(HttpStatus.CONFLICT, "No active issue record found for this copy."),
+
+    // --- Holds ---
+    HOLD_NOT_FOUND(HttpStatus.NOT_FOUND, "Hold not found."),
+    HOLD_NOT_NEEDED(HttpStatus.CONFLICT, "A copy of this book is available right now."),
+    HOLD_ALREADY_PLACED(HttpStatus.CONFLICT, "You already have an active hold on this book."),
+    HOLD_NOT_ACTIVE(HttpStatus.CONFLICT, "This hold is no longer active."),
+    NOT_HOLD_OWNER(HttpStatus.FORBIDDEN, "You are not authorized to cancel this hold."),
+
+    // --- Accounts ---
+    EMAIL_ALREADY_REGISTERED(HttpStatus.CONFLICT, "Email is already registered"),
+    INVALID_CREDENTIALS(HttpStatus.UNAUTHORIZED, "Invalid Username or Password!"),
+    INCORRECT_PASSWORD(HttpStatus.BAD_REQUEST, "Incorrect old password"),
+    UNKNOWN_BRANCH(HttpStatus.BAD_REQUEST, "Unknown branch."),
+
+    // --- Reports ---
+    INVALID_DATE_RANGE(HttpStatus.BAD_REQUEST, "'from' must not be after 'to'."),
+    ROLLUP_EVENTS_PENDING(HttpStatus.CONFLICT, "Payments in this range are still being relayed, please retry shortly."),
+
+    // --- Idempotency keys ---
+    IDEMPOTENCY_KEY_INVALID(HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1 to 255 characters."),
+    IDEMPOTENCY_KEY_REUSED(HttpStatus.UNPROCESSABLE_ENTITY, "This Idempotency-Key was already used for a different request."),
+    IDEMPOTENCY_KEY_IN_PROGRESS(HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed."),
+    IDEMPOTENT_REQUEST_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large for an Idempotency-Key."),
+
+    // --- Load shedding ---
+    TOO_MANY_REQUESTS(HttpStatus.TOO_MANY_REQUESTS, "Too many requests right now, please retry shortly."),
+    SERVER_BUSY(HttpStatus.SERVICE_UNAVAILABLE, "The server is busy, please retry shortly."),
+    RATE_LIMITED(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded, please slow down.");
+
+    private final HttpStatus status;
+    private final String defaultMessage;
+
+    ErrorCode(HttpStatus status, String defaultMessage) {
+        this.status = status;
+        this.defaultMessage = defaultMessage;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getDefaultMessage() {
+        return defaultMessage;
+    }
+}
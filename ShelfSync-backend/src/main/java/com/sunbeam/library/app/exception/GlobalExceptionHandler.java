@@ -1,7 +1,10 @@
 package com.sunbeam.library.app.exception;
 
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -10,8 +13,32 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(LibraryException.class)
+    public ResponseEntity<Map<String, String>> handleLibraryException(LibraryException ex) {
+        ErrorCode code = ex.getCode();
+        return new ResponseEntity<>(Map.of("error", ex.getMessage(), "code", code.name()), code.getStatus());
+    }
+
+    /**
+     * No connection to be had: the request class has used its connection share
+     * ({@link com.sunbeam.library.app.limit.ConnectionShareDataSource} gives up
+     * after a short wait), the pool is exhausted or the database is unreachable.
+     * Spring reports these as {@link CannotCreateTransactionException} when a
+     * transaction starts and as {@link DataAccessResourceFailureException} on a
+     * call outside one. None of them is the client's fault, so they answer 503
+     * with {@code Retry-After}, like a request shed at admission, instead of the
+     * catch-all's 400.
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Map<String, String>> handleConnectionUnavailable(RuntimeException ex) {
+        ErrorCode code = ErrorCode.SERVER_BUSY;
+        return ResponseEntity.status(code.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", code.getDefaultMessage(), "code", code.name()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException ex) {
         return new ResponseEntity<>(Map.of("error", ex.getMessage()), HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+}
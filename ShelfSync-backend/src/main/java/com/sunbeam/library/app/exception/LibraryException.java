@@ -0,0 +1,26 @@
+package com.sunbeam.library.app.exception;
+
+/**
+ * Base class for expected business rejections.
+ * <p>
+ * These are control flow, not bugs, so they skip stack-trace capture and
+ * suppression bookkeeping: constructing one costs about as much as any other
+ * small object.
+ */
+public abstract class LibraryException extends RuntimeException {
+
+    private final ErrorCode code;
+
+    protected LibraryException(ErrorCode code) {
+        this(code, code.getDefaultMessage());
+    }
+
+    protected LibraryException(ErrorCode code, String message) {
+        super(message, null, false, false);
+        this.code = code;
+    }
+
+    public ErrorCode getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,12 @@
+package com.sunbeam.library.app.exception;
+
+public class ResourceNotFoundException extends LibraryException {
+
+    public ResourceNotFoundException(ErrorCode code) {
+        super(code);
+    }
+
+    public ResourceNotFoundException(ErrorCode code, String message) {
+        super(code, message);
+    }
+}
@@ -0,0 +1,249 @@
+package com.sunbeam.library.app.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sunbeam.library.app.entity.IdempotencyRecord;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.exception.LibraryException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Makes a POST safe to retry when the client sends an {@code Idempotency-Key}:
+ * the first request runs, and retries of the same request (same caller, key,
+ * path and body) get its stored response back with
+ * {@code Idempotent-Replayed: true}, without running again. Reusing a key for a
+ * different request is rejected with 422; a retry that arrives while the first
+ * is still running waits for it. Server errors are not stored, so the client
+ * can retry those with the same key.
+ *
+ * <p>Only the circulation writes a client may need to retry are covered: cart
+ * add, checkout, issue and return. Anything else, in particular the auth
+ * endpoints whose responses carry a token, runs as if no key was sent.
+ * Authentication and authorization failures are not stored either, and a body
+ * over {@code idempotency.max-request-bytes} is turned away with 413.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Pattern IDEMPOTENT_PATHS = Pattern.compile(
+            "/api/member/cart/(add/\\d+|checkout)|/api/librarian/(issue|return/\\d+)");
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    @Autowired private IdempotencyStore idempotencyStore;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Value("${idempotency.max-response-bytes:65536}")
+    private int maxResponseBytes;
+
+    @Value("${idempotency.max-request-bytes:16384}")
+    private int maxRequestBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null
+                || !IDEMPOTENT_PATHS.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, ErrorCode.IDEMPOTENCY_KEY_INVALID, ErrorCode.IDEMPOTENCY_KEY_INVALID.getDefaultMessage());
+            return;
+        }
+
+        // One byte past the cap is enough to tell it was exceeded, whatever Content-Length says
+        byte[] body = request.getInputStream().readNBytes(maxRequestBytes + 1);
+        if (body.length > maxRequestBytes) {
+            writeError(response, ErrorCode.IDEMPOTENT_REQUEST_TOO_LARGE, ErrorCode.IDEMPOTENT_REQUEST_TOO_LARGE.getDefaultMessage());
+            return;
+        }
+        String id = sha256(caller(request) + "\n" + key);
+        String fingerprint = sha256(request.getRequestURI() + "?" + request.getQueryString() + "\n", body);
+
+        IdempotencyRecord completed;
+        try {
+            completed = idempotencyStore.acquire(id, fingerprint);
+        } catch (LibraryException ex) {
+            writeError(response, ex.getCode(), ex.getMessage());
+            return;
+        }
+        if (completed != null) {
+            replay(response, completed);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), wrapper);
+            if (isReplayable(wrapper.getStatus()) && wrapper.getContentSize() <= maxResponseBytes) {
+                idempotencyStore.complete(id, wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray());
+                stored = true;
+            } else if (wrapper.getContentSize() > maxResponseBytes) {
+                log.warn("Response to {} is {} bytes, over idempotency.max-response-bytes; not stored",
+                        request.getRequestURI(), wrapper.getContentSize());
+            }
+        } finally {
+            if (!stored) {
+                idempotencyStore.abandon(id);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    // Server errors, throttling and a missing or expired login say nothing about the request itself
+    private static boolean isReplayable(int status) {
+        return status < 500 && status != HttpStatus.REQUEST_TIMEOUT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value()
+                && status != HttpStatus.UNAUTHORIZED.value() && status != HttpStatus.FORBIDDEN.value();
+    }
+
+    private static String caller(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return "ip:" + request.getRemoteAddr();
+        }
+        return "member:" + authentication.getName();
+    }
+
+    private static void replay(HttpServletResponse response, IdempotencyRecord record) throws IOException {
+        response.setStatus(record.getResponseStatus());
+        response.setHeader("Idempotent-Replayed", "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        byte[] body = record.getResponseBody();
+        if (body != null && body.length > 0) {
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private void writeError(HttpServletResponse response, ErrorCode code, String message) throws IOException {
+        response.setStatus(code.getStatus().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", message, "code", code.name()));
+    }
+
+    private static String sha256(String text, byte[]... more) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            for (byte[] bytes : more) {
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /** Hands the already-read body to the rest of the chain. */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            ServletInputStream original = getRequest().getInputStream();
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The container still checks for async mode and calls back on its own thread;
+                // the body is all here already, so the listener gets it in one go
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    original.setReadListener(new ReadListener() {
+                        private boolean notified;
+
+                        @Override
+                        public void onDataAvailable() throws IOException {
+                            notifyOnce();
+                        }
+
+                        @Override
+                        public void onAllDataRead() throws IOException {
+                            notifyOnce();
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            listener.onError(t);
+                        }
+
+                        private void notifyOnce() throws IOException {
+                            if (notified) {
+                                return;
+                            }
+                            notified = true;
+                            if (!isFinished()) {
+                                listener.onDataAvailable();
+                            }
+                            listener.onAllDataRead();
+                        }
+                    });
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
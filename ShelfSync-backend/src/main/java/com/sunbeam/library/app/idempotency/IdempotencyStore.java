@@ -0,0 +1,179 @@
+package com.sunbeam.library.app.idempotency;
+
+import com.sunbeam.library.app.cluster.ClusterScheduler;
+import com.sunbeam.library.app.cluster.JobSchedule;
+import com.sunbeam.library.app.entity.IdempotencyRecord;
+import com.sunbeam.library.app.enums.IdempotencyStatus;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency records in the caller's branch database. The first request with
+ * a key inserts an in-progress row and runs; duplicates arriving meanwhile wait
+ * for it to finish, on the owner's in-memory future when it runs on this node
+ * and by polling the row when it runs on another. A completed row is replayed
+ * for {@code idempotency.ttl-hours}; a failed run deletes its row so a retry
+ * runs again, and a row left behind by a dead node is taken over once it
+ * expires.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final long POLL_MILLIS = 50;
+
+    @Autowired private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ClusterScheduler clusterScheduler;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-progress-timeout-seconds:60}")
+    private long inProgressTimeoutSeconds;
+
+    @Value("${idempotency.wait-ms:10000}")
+    private long waitMillis;
+
+    @Value("${idempotency.purge-interval-ms:600000}")
+    private long purgeIntervalMs;
+
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void schedulePurge() {
+        clusterScheduler.register("idempotency-purge", JobSchedule.fixedDelay(purgeIntervalMs), context -> {
+            Integer removed = transactionTemplate.execute(status ->
+                    idempotencyRecordRepository.deleteAllExpired(LocalDateTime.now()));
+            context.addRows(removed != null ? removed : 0);
+        });
+    }
+
+    /**
+     * Claims {@code id} for the calling request. Returns null if the caller now
+     * owns it and must {@link #complete} or {@link #abandon} it, or the completed
+     * record to replay.
+     *
+     * @throws BusinessRuleException if the key was used for a different request,
+     *         or the first request is still running after {@code idempotency.wait-ms}
+     */
+    public IdempotencyRecord acquire(String id, String fingerprint) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        while (true) {
+            // A duplicate of a request running on this node just waits for it; otherwise look before
+            // inserting, so replays do not go through a failed insert
+            IdempotencyRecord existing = null;
+            if (!inFlight.containsKey(id)) {
+                existing = idempotencyRecordRepository.findById(id).orElse(null);
+                if (existing == null) {
+                    if (tryClaim(id, fingerprint)) {
+                        return null;
+                    }
+                    existing = idempotencyRecordRepository.findById(id).orElse(null);
+                }
+            }
+            if (existing != null) {
+                if (!existing.getFingerprint().equals(fingerprint)) {
+                    throw new BusinessRuleException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+                }
+                if (existing.getStatus() == IdempotencyStatus.COMPLETED) {
+                    return existing;
+                }
+                LocalDateTime now = LocalDateTime.now();
+                if (existing.getExpiresAt().isBefore(now)) {
+                    transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.deleteExpired(id, now));
+                    continue;
+                }
+            }
+            // Either still running, or the owner is between claiming and inserting
+            awaitOwner(id, deadline);
+        }
+    }
+
+    public void complete(String id, int responseStatus, String contentType, byte[] body) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.complete(id,
+                    IdempotencyStatus.COMPLETED, responseStatus, contentType, body,
+                    LocalDateTime.now().plusHours(ttlHours)));
+        } finally {
+            finish(id);
+        }
+    }
+
+    public void abandon(String id) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    idempotencyRecordRepository.deleteByIdAndStatus(id, IdempotencyStatus.IN_PROGRESS));
+        } finally {
+            finish(id);
+        }
+    }
+
+    private boolean tryClaim(String id, String fingerprint) {
+        if (inFlight.putIfAbsent(id, new CompletableFuture<>()) != null) {
+            return false;
+        }
+        if (insert(id, fingerprint)) {
+            return true;
+        }
+        finish(id);
+        return false;
+    }
+
+    private boolean insert(String id, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setFingerprint(fingerprint);
+        record.setStatus(IdempotencyStatus.IN_PROGRESS);
+        record.setCreatedAt(now);
+        record.setExpiresAt(now.plusSeconds(inProgressTimeoutSeconds));
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.save(record));
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            return false; // claimed first by another node
+        }
+    }
+
+    private void awaitOwner(String id, long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new BusinessRuleException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+        CompletableFuture<Void> owner = inFlight.get(id);
+        try {
+            if (owner != null) {
+                owner.get(remaining, TimeUnit.NANOSECONDS);
+            } else {
+                Thread.sleep(Math.min(POLL_MILLIS, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+            }
+        } catch (TimeoutException | ExecutionException ex) {
+            // checked again on the next pass
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BusinessRuleException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+    }
+
+    private void finish(String id) {
+        CompletableFuture<Void> owner = inFlight.remove(id);
+        if (owner != null) {
+            owner.complete(null);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.sunbeam.library.app.journal;
+
+import com.sunbeam.library.app.event.DomainEvent;
+import com.sunbeam.library.app.event.NodeLocalEventConsumer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Append-only audit trail of circulation and payment events on local disk.
+ * <p>
+ * Fed by the outbox relay, so it stays off the request path; an append is a
+ * few puts into a memory-mapped segment plus a CRC. Durability is group
+ * commit: a background flusher forces dirty segments every
+ * {@code journal.flush-interval-ms}, so a crash loses at most that window,
+ * and the outbox still holds those events for the database-side consumers.
+ * <p>
+ * A member's trail is read through an in-memory index of the sequence numbers
+ * of their records (built by one pass over the segments at start-up, then kept
+ * up to date by appends; about 8 bytes per record), so it costs one positional
+ * read per record instead of a scan of the whole journal.
+ */
+@Component
+public class CirculationJournal implements NodeLocalEventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationJournal.class);
+
+    private final String directory;
+    private final int segmentSizeMb;
+    private final long flushIntervalMs;
+
+    private final Object appendLock = new Object();
+    private JournalSegment active;   // guarded by appendLock
+    private boolean dirty;           // guarded by appendLock
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();   // by first sequence, guarded by appendLock
+    private final Map<Long, Sequences> byMember = new HashMap<>();       // guarded by appendLock
+    private ScheduledExecutorService flusher;
+
+    public CirculationJournal(@Value("${journal.directory:data/journal}") String directory,
+                              @Value("${journal.segment-size-mb:16}") int segmentSizeMb,
+                              @Value("${journal.flush-interval-ms:50}") long flushIntervalMs) {
+        if (segmentSizeMb < 1 || segmentSizeMb > 2047) {
+            // A segment is mapped as one buffer, which int-indexes its bytes
+            throw new IllegalArgumentException("journal.segment-size-mb must be between 1 and 2047, was " + segmentSizeMb);
+        }
+        this.directory = directory;
+        this.segmentSizeMb = segmentSizeMb;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path dir = Path.of(directory);
+        Files.createDirectories(dir);
+        List<Path> files = JournalSegment.list(dir);
+        Path last = files.isEmpty() ? JournalSegment.fileFor(dir, 1) : files.get(files.size() - 1);
+        synchronized (appendLock) {
+            for (Path file : files.subList(0, Math.max(0, files.size() - 1))) {
+                segments.put(JournalSegment.firstSequenceOf(file), file);
+                JournalSegment.read(file, this::index);
+            }
+            segments.put(JournalSegment.firstSequenceOf(last), last);
+            active = JournalSegment.openForAppend(last, segmentSize(), this::index);
+        }
+        log.info("Circulation journal open at {} (next sequence {})", active.path(), active.nextSequence());
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        append(event);
+    }
+
+    public long append(DomainEvent event) {
+        synchronized (appendLock) {
+            if (!active.hasRoom()) {
+                roll();
+            }
+            dirty = true;
+            long sequence = active.append(event.id(), event.type(), event.memberId(), event.bookId(), event.copyId(),
+                    event.amount(), event.occurredAt());
+            if (event.memberId() != null) {
+                byMember.computeIfAbsent(event.memberId(), id -> new Sequences()).add(sequence);
+            }
+            return sequence;
+        }
+    }
+
+    /** Forces everything appended so far to disk. */
+    public void flush() {
+        JournalSegment segment;
+        synchronized (appendLock) {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            segment = active;
+        }
+        segment.force();
+    }
+
+    /** Every record of {@code memberId}, oldest first. Safe to call while appends continue. */
+    public List<JournalRecord> memberRecords(long memberId) throws IOException {
+        // Each sequence with the first sequence of the segment holding it, taken under the lock
+        long[] sequences;
+        long[] segmentStarts;
+        synchronized (appendLock) {
+            Sequences indexed = byMember.get(memberId);
+            if (indexed == null) {
+                return List.of();
+            }
+            sequences = Arrays.copyOf(indexed.values, indexed.size);
+            segmentStarts = new long[sequences.length];
+            for (int i = 0; i < sequences.length; i++) {
+                segmentStarts[i] = segments.floorKey(sequences[i]);
+            }
+        }
+
+        List<JournalRecord> records = new ArrayList<>(sequences.length);
+        FileChannel channel = null;
+        long openSegment = -1;
+        try {
+            for (int i = 0; i < sequences.length; i++) {
+                if (segmentStarts[i] != openSegment) {
+                    if (channel != null) {
+                        channel.close();
+                    }
+                    openSegment = segmentStarts[i];
+                    channel = FileChannel.open(JournalSegment.fileFor(Path.of(directory), openSegment),
+                            StandardOpenOption.READ);
+                }
+                JournalRecord record = JournalSegment.readAt(channel, openSegment, sequences[i]);
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+        return records;
+    }
+
+    /** Streams every valid record, oldest first. Safe to call while appends continue. */
+    public void replay(Consumer<JournalRecord> consumer) throws IOException {
+        JournalSegment.readAll(Path.of(directory), consumer);
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        synchronized (appendLock) {
+            active.force();
+        }
+    }
+
+    private void roll() {
+        active.force();
+        Path next = JournalSegment.fileFor(active.path().getParent(), active.nextSequence());
+        try {
+            active = JournalSegment.openForAppend(next, segmentSize(), null);
+            segments.put(JournalSegment.firstSequenceOf(next), next);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open journal segment " + next, ex);
+        }
+        log.info("Rolled circulation journal to {}", next);
+    }
+
+    private int segmentSize() {
+        return (int) (segmentSizeMb * 1024L * 1024L);
+    }
+
+    private void index(JournalRecord record) {
+        if (record.memberId() != null) {
+            byMember.computeIfAbsent(record.memberId(), id -> new Sequences()).add(record.sequence());
+        }
+    }
+
+    // Growable array of one member's sequence numbers, ascending
+    private static final class Sequences {
+        private long[] values = new long[4];
+        private int size;
+
+        private void add(long sequence) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = sequence;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.sunbeam.library.app.journal;
+
+import com.sunbeam.library.app.enums.DomainEventType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One decoded journal entry. {@code eventId} is the outbox id of the source
+ * event; because delivery is at-least-once the same id can appear twice, so
+ * readers that aggregate should de-duplicate on it.
+ */
+public record JournalRecord(long sequence, long eventId, DomainEventType type, Long memberId, Long bookId,
+                            Long copyId, BigDecimal amount, LocalDateTime occurredAt) {
+}
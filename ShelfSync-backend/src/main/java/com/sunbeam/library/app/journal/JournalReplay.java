@@ -0,0 +1,56 @@
+package com.sunbeam.library.app.journal;
+
+import com.sunbeam.library.app.enums.DomainEventType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline replay of a journal directory, for audits and for rebuilding
+ * counters without the database:
+ * <pre>
+ *   java -cp target/classes com.sunbeam.library.app.journal.JournalReplay counters data/journal
+ *   java -cp target/classes com.sunbeam.library.app.journal.JournalReplay member data/journal 42
+ * </pre>
+ * Duplicate deliveries of the same outbox event are skipped.
+ */
+public final class JournalReplay {
+
+    private JournalReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || ("member".equals(args[0]) && args.length < 3)) {
+            System.err.println("usage: JournalReplay counters <dir> | member <dir> <memberId>");
+            System.exit(2);
+        }
+        Path dir = Path.of(args[1]);
+        Set<Long> seen = new HashSet<>();
+        if ("counters".equals(args[0])) {
+            Map<DomainEventType, long[]> counts = new EnumMap<>(DomainEventType.class);
+            Map<DomainEventType, BigDecimal> amounts = new EnumMap<>(DomainEventType.class);
+            JournalSegment.readAll(dir, record -> {
+                if (seen.add(record.eventId())) {
+                    counts.computeIfAbsent(record.type(), t -> new long[1])[0]++;
+                    if (record.amount() != null) {
+                        amounts.merge(record.type(), record.amount(), BigDecimal::add);
+                    }
+                }
+            });
+            counts.forEach((type, count) -> System.out.printf("%-16s %10d %14s%n", type, count[0], amounts.getOrDefault(type, BigDecimal.ZERO)));
+        } else {
+            long memberId = Long.parseLong(args[2]);
+            JournalSegment.readAll(dir, record -> {
+                if (Long.valueOf(memberId).equals(record.memberId()) && seen.add(record.eventId())) {
+                    System.out.printf("%s  #%-8d %-16s book=%s copy=%s amount=%s%n", record.occurredAt(),
+                            record.sequence(), record.type(), record.bookId(), record.copyId(), record.amount());
+                }
+            });
+        }
+    }
+}
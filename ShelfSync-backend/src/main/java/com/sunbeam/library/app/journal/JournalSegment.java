@@ -0,0 +1,292 @@
+package com.sunbeam.library.app.journal;
+
+import com.sunbeam.library.app.enums.DomainEventType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * A fixed-size, memory-mapped journal file.
+ * <p>
+ * The file starts with an {@value #FILE_HEADER_SIZE}-byte header: int magic
+ * "JRNL", int format version. A segment of another version is refused rather
+ * than misread. Version 1 is the layout below, with Long.MIN_VALUE as the
+ * absent amount.
+ * <p>
+ * Record layout (little-endian, {@value #RECORD_SIZE} bytes), records back to
+ * back after the header, so a sequence number gives a record's offset:
+ * <pre>
+ *   int  length      payload length, 0 marks the end of written data
+ *   int  crc         CRC32C over the payload
+ *   long sequence    global, gap-free          -- payload starts here
+ *   long eventId | byte type | long memberId | long bookId | long copyId
+ *   long amount (minor units) | long occurredAt (epoch millis of the local time)
+ * </pre>
+ * The type is a fixed code per event type (see {@link #typeCode}), not the
+ * enum's position, so reordering or adding event types leaves old segments
+ * readable. Ids use 0 and the amount uses Long.MIN_VALUE for "not applicable".
+ * Reading stops at the first record whose length, checksum or sequence does
+ * not line up, which is how a torn tail left by a crash is discarded.
+ */
+final class JournalSegment {
+
+    static final int FILE_HEADER_SIZE = 4 + 4;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 4 + 4;
+    static final int PAYLOAD_SIZE = 8 + 8 + 1 + 8 + 8 + 8 + 8 + 8;
+    static final int RECORD_SIZE = HEADER_SIZE + PAYLOAD_SIZE;
+
+    private static final long NO_AMOUNT = Long.MIN_VALUE;
+    private static final int MAGIC = 0x4C4E524A; // "JRNL" little-endian
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    private long nextSequence;
+
+    private JournalSegment(Path path, long firstSequence, ByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        this.nextSequence = firstSequence;
+    }
+
+    static Path fileFor(Path directory, long firstSequence) {
+        return directory.resolve(String.format("segment-%020d.log", firstSequence));
+    }
+
+    static long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+
+    /**
+     * Maps (creating if needed) a segment and positions it after its last valid
+     * record, handing the records already in it to {@code consumer} if not null.
+     * Whatever follows that record (a torn tail, or records behind a corrupt one)
+     * is zeroed, so it cannot line up again once appends refill the gap.
+     */
+    static JournalSegment openForAppend(Path file, int size, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) == 0 && buffer.getInt(FILE_HEADER_SIZE) == 0) {
+                // New, or created but never written to
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT_VERSION);
+            }
+            checkHeader(file, buffer);
+            JournalSegment segment = new JournalSegment(file, firstSequenceOf(file), buffer);
+            segment.scan(consumer);
+            segment.truncateTail();
+            return segment;
+        }
+    }
+
+    /** Reads the valid records of a segment file without keeping it open or mapped. */
+    static long read(Path file, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until full or end of file
+            }
+            buffer.flip();
+            checkHeader(file, buffer);
+            JournalSegment segment = new JournalSegment(file, firstSequenceOf(file), buffer);
+            segment.scan(consumer);
+            return segment.nextSequence;
+        }
+    }
+
+    /**
+     * Reads the record with {@code sequence} from a segment opened for reading,
+     * or returns null if it is not there (yet) or does not check out.
+     */
+    static JournalRecord readAt(FileChannel channel, long firstSequence, long sequence) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long position = FILE_HEADER_SIZE + (sequence - firstSequence) * RECORD_SIZE;
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) {
+                return null;
+            }
+        }
+        if (record.getInt(0) != PAYLOAD_SIZE) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(HEADER_SIZE, PAYLOAD_SIZE));
+        if (record.getInt(4) != (int) crc.getValue()) {
+            return null;
+        }
+        ByteBuffer payload = record.slice(HEADER_SIZE, PAYLOAD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        return payload.getLong() == sequence ? decode(sequence, payload) : null;
+    }
+
+    /** Reads every segment in {@code dir}, oldest first. */
+    static void readAll(Path dir, Consumer<JournalRecord> consumer) throws IOException {
+        for (Path segment : list(dir)) {
+            read(segment, consumer);
+        }
+    }
+
+    static List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("segment-\\d{20}\\.log"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    boolean hasRoom() {
+        return buffer.remaining() >= RECORD_SIZE;
+    }
+
+    long nextSequence() {
+        return nextSequence;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /** Caller must hold the journal's append lock and have checked {@link #hasRoom()}. */
+    long append(long eventId, DomainEventType type, Long memberId, Long bookId, Long copyId,
+                BigDecimal amount, LocalDateTime occurredAt) {
+        int start = buffer.position();
+        long sequence = nextSequence++;
+        buffer.position(start + HEADER_SIZE);
+        buffer.putLong(sequence);
+        buffer.putLong(eventId);
+        buffer.put(typeCode(type));
+        buffer.putLong(memberId == null ? 0 : memberId);
+        buffer.putLong(bookId == null ? 0 : bookId);
+        buffer.putLong(copyId == null ? 0 : copyId);
+        buffer.putLong(amount == null ? NO_AMOUNT : amount.movePointRight(2).longValue());
+        buffer.putLong(occurredAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        int end = buffer.position();
+
+        crc.reset();
+        crc.update(buffer.slice(start + HEADER_SIZE, PAYLOAD_SIZE));
+        // The length goes in last, so a reader never sees a complete-looking record with stale payload.
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, PAYLOAD_SIZE);
+        buffer.position(end);
+        return sequence;
+    }
+
+    void force() {
+        ((MappedByteBuffer) buffer).force();
+    }
+
+    private static void checkHeader(Path file, ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < FILE_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a journal segment (no header): " + file);
+        }
+        int version = buffer.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Journal segment " + file + " has format version " + version
+                    + ", this build reads version " + FORMAT_VERSION);
+        }
+    }
+
+    private void scan(Consumer<JournalRecord> consumer) {
+        buffer.position(FILE_HEADER_SIZE);
+        while (buffer.remaining() >= RECORD_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length != PAYLOAD_SIZE) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(start + HEADER_SIZE, PAYLOAD_SIZE));
+            if (buffer.getInt(start + 4) != (int) crc.getValue()) {
+                break;
+            }
+            ByteBuffer record = buffer.slice(start + HEADER_SIZE, PAYLOAD_SIZE).order(buffer.order());
+            long sequence = record.getLong();
+            if (sequence != nextSequence) {
+                break;
+            }
+            if (consumer != null) {
+                consumer.accept(decode(sequence, record));
+            }
+            nextSequence++;
+            buffer.position(start + RECORD_SIZE);
+        }
+    }
+
+    // Records are written back to back, so the first all-zero slot ends what was ever written
+    private void truncateTail() {
+        byte[] zeros = new byte[RECORD_SIZE];
+        boolean truncated = false;
+        for (int start = buffer.position(); start + RECORD_SIZE <= buffer.limit(); start += RECORD_SIZE) {
+            if (buffer.slice(start, RECORD_SIZE).mismatch(ByteBuffer.wrap(zeros)) < 0) {
+                break;
+            }
+            buffer.put(start, zeros);
+            truncated = true;
+        }
+        if (truncated) {
+            force();
+        }
+    }
+
+    private static JournalRecord decode(long sequence, ByteBuffer record) {
+        long eventId = record.getLong();
+        DomainEventType type = typeOf(record.get(), sequence);
+        long memberId = record.getLong();
+        long bookId = record.getLong();
+        long copyId = record.getLong();
+        long amount = record.getLong();
+        long occurredAt = record.getLong();
+        return new JournalRecord(sequence, eventId, type, nullIfZero(memberId), nullIfZero(bookId), nullIfZero(copyId),
+                amount == NO_AMOUNT ? null : BigDecimal.valueOf(amount, 2),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(occurredAt), ZoneOffset.UTC));
+    }
+
+    /**
+     * The on-disk code of each event type. These match the enum order version 1
+     * was first written with and must never change; a new type gets the next
+     * unused code. The switch has no default, so a new type does not compile
+     * until it has one.
+     */
+    static byte typeCode(DomainEventType type) {
+        return switch (type) {
+            case COPY_ISSUED -> 0;
+            case COPY_RETURNED -> 1;
+            case FINE_ASSESSED -> 2;
+            case MEMBERSHIP_PAID -> 3;
+        };
+    }
+
+    private static DomainEventType typeOf(byte code, long sequence) {
+        return switch (code) {
+            case 0 -> DomainEventType.COPY_ISSUED;
+            case 1 -> DomainEventType.COPY_RETURNED;
+            case 2 -> DomainEventType.FINE_ASSESSED;
+            case 3 -> DomainEventType.MEMBERSHIP_PAID;
+            default -> throw new IllegalStateException("Journal record " + sequence + " has unknown type code " + code);
+        };
+    }
+
+    private static Long nullIfZero(long value) {
+        return value == 0 ? null : value;
+    }
+}
@@ -0,0 +1,103 @@
+package com.sunbeam.library.app.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sunbeam.library.app.enums.RequestClass;
+import com.sunbeam.library.app.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admits each request against the bulkhead of its {@link RequestClass}, ahead
+ * of security so a shed request costs no token parsing or user lookup. A full
+ * bulkhead answers 429; a limit pulled down by rising latency answers 503.
+ * Both carry {@code Retry-After}.
+ *
+ * <p>Per class: {@code admission.<class>.max-concurrency} (bulkhead size) and
+ * {@code admission.<class>.min-concurrency} (floor of the adaptive limit).
+ * Exported as {@code admission.limit}, {@code admission.in-flight} and
+ * {@code admission.rejected}, tagged by class.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private final Map<RequestClass, GradientLimiter> limiters = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, Counter> bulkheadFull = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, Counter> limitReached = new EnumMap<>(RequestClass.class);
+    private final ObjectMapper objectMapper;
+
+    public AdmissionFilter(Environment environment, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        double tolerance = environment.getProperty("admission.latency-tolerance", Double.class, 1.5);
+        for (RequestClass requestClass : RequestClass.values()) {
+            String prefix = "admission." + requestClass.key();
+            int max = environment.getProperty(prefix + ".max-concurrency", Integer.class, 20);
+            int min = environment.getProperty(prefix + ".min-concurrency", Integer.class, Math.min(2, max));
+            GradientLimiter limiter = new GradientLimiter(min, max, tolerance);
+            limiters.put(requestClass, limiter);
+
+            Gauge.builder("admission.limit", limiter, GradientLimiter::limit)
+                    .tag("class", requestClass.key()).register(meterRegistry);
+            Gauge.builder("admission.in-flight", limiter, GradientLimiter::inFlight)
+                    .tag("class", requestClass.key()).register(meterRegistry);
+            bulkheadFull.put(requestClass, Counter.builder("admission.rejected")
+                    .tag("class", requestClass.key()).tag("reason", "bulkhead").register(meterRegistry));
+            limitReached.put(requestClass, Counter.builder("admission.rejected")
+                    .tag("class", requestClass.key()).tag("reason", "latency").register(meterRegistry));
+        }
+    }
+
+    // Health probes must answer even when everything else is being shed
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator/health");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestClass requestClass = RequestClass.of(request.getRequestURI());
+        GradientLimiter limiter = limiters.get(requestClass);
+
+        int inFlightAtStart = limiter.tryAcquire();
+        if (inFlightAtStart < 0) {
+            reject(response, requestClass, limiter.isShedding());
+            return;
+        }
+
+        long start = System.nanoTime();
+        RequestClassContext.set(requestClass);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestClassContext.clear();
+            limiter.release(System.nanoTime() - start, inFlightAtStart);
+        }
+    }
+
+    private void reject(HttpServletResponse response, RequestClass requestClass, boolean shedding) throws IOException {
+        ErrorCode code = shedding ? ErrorCode.SERVER_BUSY : ErrorCode.TOO_MANY_REQUESTS;
+        (shedding ? limitReached : bulkheadFull).get(requestClass).increment();
+
+        response.setStatus(code.getStatus().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", code.getDefaultMessage(), "code", code.name()));
+    }
+}
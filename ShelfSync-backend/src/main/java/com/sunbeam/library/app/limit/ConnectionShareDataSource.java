@@ -0,0 +1,163 @@
+package com.sunbeam.library.app.limit;
+
+import com.sunbeam.library.app.enums.RequestClass;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many pooled connections each {@link RequestClass} holds at once, so
+ * a run of heavy owner reports cannot take the connections member checkouts
+ * need. Shares are caps, not reservations, and may add up to more than the
+ * pool. A request that cannot get a connection within the wait fails fast
+ * instead of queueing for the pool's full connection timeout. Threads outside
+ * a request (jobs, fan-out workers) are not capped.
+ *
+ * <p>A request takes one permit however many connections it holds at once: a
+ * connection opened while the thread already holds one (a REQUIRES_NEW
+ * transaction inside open-in-view or an outer transaction) rides on the same
+ * permit, which is given back when the last of them closes. Otherwise a share
+ * full of such requests would have each wait on a permit held by itself.
+ */
+public class ConnectionShareDataSource extends DelegatingDataSource implements AutoCloseable, MeterBinder {
+
+    private final Map<RequestClass, Semaphore> shares;
+    private final Map<RequestClass, Integer> sizes;
+    private final long waitMillis;
+    private final ThreadLocal<Permit> held = new ThreadLocal<>();
+
+    public ConnectionShareDataSource(DataSource target, Map<RequestClass, Integer> sizes, long waitMillis) {
+        super(target);
+        this.sizes = Map.copyOf(sizes);
+        this.shares = new EnumMap<>(RequestClass.class);
+        sizes.forEach((requestClass, size) -> shares.put(requestClass, new Semaphore(size)));
+        this.waitMillis = waitMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        RequestClass requestClass = RequestClassContext.current();
+        if (requestClass == null) {
+            return super.getConnection();
+        }
+        Permit permit = acquire(requestClass);
+        try {
+            return releasingOnClose(super.getConnection(), permit);
+        } catch (SQLException | RuntimeException ex) {
+            release(permit);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        RequestClass requestClass = RequestClassContext.current();
+        if (requestClass == null) {
+            return super.getConnection(username, password);
+        }
+        Permit permit = acquire(requestClass);
+        try {
+            return releasingOnClose(super.getConnection(username, password), permit);
+        } catch (SQLException | RuntimeException ex) {
+            release(permit);
+            throw ex;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        shares.forEach((requestClass, share) ->
+                Gauge.builder("admission.connections.in-use", share, s -> sizes.get(requestClass) - s.availablePermits())
+                        .tag("class", requestClass.key())
+                        .register(registry));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Permit acquire(RequestClass requestClass) throws SQLException {
+        Permit permit = held.get();
+        if (permit != null && permit.enter()) {
+            return permit;
+        }
+        Semaphore share = shares.get(requestClass);
+        try {
+            if (!share.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        requestClass.key() + " requests are using their whole connection share");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a connection", ex);
+        }
+        permit = new Permit(share);
+        held.set(permit);
+        return permit;
+    }
+
+    private void release(Permit permit) {
+        if (permit.release() && held.get() == permit) {
+            held.remove();
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection, Permit permit) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                        release(permit);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+
+    /** A permit of a share and the number of open connections riding on it. */
+    private static final class Permit {
+        private final Semaphore share;
+        private int connections = 1;
+
+        private Permit(Semaphore share) {
+            this.share = share;
+        }
+
+        // False once the permit has gone back, e.g. its last connection was closed on another thread
+        private synchronized boolean enter() {
+            if (connections == 0) {
+                return false;
+            }
+            connections++;
+            return true;
+        }
+
+        // True when this was the last connection and the permit went back to the share
+        private synchronized boolean release() {
+            if (--connections > 0) {
+                return false;
+            }
+            share.release();
+            return true;
+        }
+    }
+}
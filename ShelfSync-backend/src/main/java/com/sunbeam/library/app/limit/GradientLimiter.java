@@ -0,0 +1,93 @@
+package com.sunbeam.library.app.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows latency, after the gradient limiter in
+ * Netflix's concurrency-limits. A short and a long moving average of request
+ * latency are compared: while they agree the limit creeps up towards
+ * {@code maxLimit}, and once the short one rises past {@code tolerance} times
+ * the long one the limit is cut in proportion, so requests are turned away
+ * before they pile up in the connection pool. {@code maxLimit} is the fixed
+ * bulkhead size.
+ */
+public class GradientLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 500;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public GradientLimiter(int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit, got " + minLimit + " and " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = maxLimit;
+    }
+
+    /** Takes a slot and returns the number of requests in flight before it, or -1 when over the limit. */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    /** Frees the slot of a request admitted with {@code inFlightAtStart} others running, learning from its latency. */
+    public void release(long latencyNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        update(latencyNanos, inFlightAtStart);
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** Whether the limit has been pulled below the bulkhead size because latency rose. */
+    public boolean isShedding() {
+        return (int) limit < maxLimit;
+    }
+
+    private synchronized void update(long latencyNanos, int inFlightAtStart) {
+        if (longRtt == 0) {
+            shortRtt = latencyNanos;
+            longRtt = latencyNanos;
+            return;
+        }
+        shortRtt += (latencyNanos - shortRtt) / SHORT_WINDOW;
+        longRtt += (latencyNanos - longRtt) / LONG_WINDOW;
+
+        // After an overload the long average lags far behind; let it catch up so the limit can grow back
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        // Only a class using its limit learns anything about whether it could take more
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
@@ -0,0 +1,127 @@
+package com.sunbeam.library.app.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sunbeam.library.app.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-endpoint token-bucket limits, keyed by the authenticated member or by
+ * the client IP. Runs in the security chain right after
+ * {@code JwtAuthenticationFilter}, so the member is known. A request over any
+ * matching rule gets 429 with {@code Retry-After}.
+ *
+ * <p>Rules are {@code ratelimit.rules.<name>.*}: {@code path} (exact, or a
+ * prefix ending in {@code /**}), {@code per} ({@code member} or {@code ip}),
+ * {@code capacity} (burst) and {@code refill-per-second}. Behind a proxy, set
+ * {@code server.forward-headers-strategy} so the IP is the client's.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final List<Limit> limits = new ArrayList<>();
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(Environment environment, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        Binder binder = Binder.get(environment);
+        int maxKeys = binder.bind("ratelimit.max-keys-per-rule", Integer.class).orElse(100_000);
+        Map<String, Rule> rules = binder.bind("ratelimit.rules", Bindable.mapOf(String.class, Rule.class)).orElse(Map.of());
+        rules.forEach((name, rule) -> {
+            Limit limit = new Limit(rule, new TokenBuckets(rule.capacity(), rule.refillPerSecond(), maxKeys),
+                    Counter.builder("ratelimit.rejected").tag("rule", name).register(meterRegistry));
+            limits.add(limit);
+            Gauge.builder("ratelimit.keys", limit.buckets, TokenBuckets::size).tag("rule", name).register(meterRegistry);
+            FunctionCounter.builder("ratelimit.evicted", limit.buckets, TokenBuckets::evicted)
+                    .tag("rule", name).register(meterRegistry);
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return limits.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        for (Limit limit : limits) {
+            if (!limit.rule.matches(path)) {
+                continue;
+            }
+            String key = limit.rule.perMember() ? member() : request.getRemoteAddr();
+            if (key == null) {
+                continue; // not signed in; security turns the request away anyway
+            }
+            long waitNanos = limit.buckets.tryTake(key);
+            if (waitNanos > 0) {
+                limit.rejected.increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static String member() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        ErrorCode code = ErrorCode.RATE_LIMITED;
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(code.getStatus().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", code.getDefaultMessage(), "code", code.name()));
+    }
+
+    public record Rule(String path, String per, int capacity, double refillPerSecond) {
+
+        public Rule {
+            if (path == null || !("member".equals(per) || "ip".equals(per))) {
+                throw new IllegalArgumentException("A rate-limit rule needs a path and per=member|ip");
+            }
+        }
+
+        boolean perMember() {
+            return "member".equals(per);
+        }
+
+        boolean matches(String requestPath) {
+            return path.endsWith("/**")
+                    ? requestPath.startsWith(path.substring(0, path.length() - 2))
+                    : requestPath.equals(path);
+        }
+    }
+
+    private record Limit(Rule rule, TokenBuckets buckets, Counter rejected) {
+    }
+}
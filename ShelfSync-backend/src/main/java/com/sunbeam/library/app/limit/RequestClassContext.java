@@ -0,0 +1,46 @@
+package com.sunbeam.library.app.limit;
+
+import com.sunbeam.library.app.enums.RequestClass;
+
+import java.util.function.Supplier;
+
+/**
+ * The admission class of the request the current thread is serving, set by
+ * {@link AdmissionFilter}. Null on threads outside a request (jobs, fan-out
+ * workers), which {@link ConnectionShareDataSource} leaves uncapped; work handed
+ * to a pool on behalf of a request carries it over with {@link #callIn}.
+ */
+public final class RequestClassContext {
+
+    private static final ThreadLocal<RequestClass> CURRENT = new ThreadLocal<>();
+
+    private RequestClassContext() {
+    }
+
+    public static RequestClass current() {
+        return CURRENT.get();
+    }
+
+    static void set(RequestClass requestClass) {
+        CURRENT.set(requestClass);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /** Runs {@code action} as {@code requestClass}, restoring the previous class afterwards. */
+    public static <T> T callIn(RequestClass requestClass, Supplier<T> action) {
+        RequestClass previous = CURRENT.get();
+        CURRENT.set(requestClass);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.sunbeam.library.app.limit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One token bucket per key (a member or an IP address), held in a fixed number
+ * of stripes with a bounded number of keys each.
+ *
+ * <p>Each bucket is a single {@code long}: the time at which it will be full
+ * again (the generic cell rate algorithm). Taking a token is one CAS that moves
+ * that time forward by the refill interval, and is refused if it would end up
+ * more than {@code capacity} intervals ahead of now. A bucket whose time has
+ * passed is full, so dropping it changes nothing: that is what a stripe over
+ * its bound drops first. Only if every key in the stripe is active are live
+ * buckets dropped, which briefly lets those keys start over with a full bucket
+ * ({@link #evicted()}).
+ */
+public class TokenBuckets {
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeysPerStripe;
+    private final LongAdder evicted = new LongAdder();
+
+    public TokenBuckets(int capacity, double refillPerSecond, int maxKeys) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Need capacity >= 1 and refillPerSecond > 0");
+        }
+        this.intervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.burstNanos = intervalNanos * capacity;
+        this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /** Takes a token for {@code key}; returns 0 if granted, otherwise the nanoseconds until one is free. */
+    public long tryTake(String key) {
+        Stripe stripe = stripes[(key.hashCode() ^ (key.hashCode() >>> 16)) & (STRIPES - 1)];
+        long now = System.nanoTime();
+        AtomicLong fullAt = stripe.buckets.get(key);
+        if (fullAt == null) {
+            // Trimmed before the insert: a new bucket is full at now and would be the first to go
+            if (stripe.buckets.size() >= maxKeysPerStripe) {
+                stripe.trim(key, now, maxKeysPerStripe, evicted);
+            }
+            fullAt = stripe.buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.buckets.size();
+        }
+        return size;
+    }
+
+    public long evicted() {
+        return evicted.sum();
+    }
+
+    private static final class Stripe {
+        private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+        // Trims to three quarters of the bound, so a flood of new keys sweeps a stripe
+        // once per quarter of its size rather than on every insert.
+        // Never drops keep, which a concurrent caller may just have inserted.
+        private void trim(String keep, long now, int maxKeys, LongAdder evicted) {
+            int target = maxKeys - Math.max(1, maxKeys / 4);
+            buckets.entrySet().removeIf(e -> e.getValue().get() - now <= 0 && !e.getKey().equals(keep));
+            Iterator<String> it = buckets.keySet().iterator();
+            while (buckets.size() > target && it.hasNext()) {
+                if (!it.next().equals(keep)) {
+                    it.remove();
+                    evicted.increment();
+                }
+            }
+        }
+    }
+}
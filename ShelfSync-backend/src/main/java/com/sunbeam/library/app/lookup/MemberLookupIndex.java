@@ -0,0 +1,153 @@
+package com.sunbeam.library.app.lookup;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Members by prefix of their e-mail, phone number or name, in three sorted maps.
+ * A search walks each map from the first key at or after the prefix and stops at
+ * the first key that no longer starts with it, so its cost depends on the number
+ * of results asked for, not on the number of members.
+ *
+ * <ul>
+ *   <li>e-mails are lower-cased, and unique;</li>
+ *   <li>phone numbers keep their digits only, and one with a country code is also
+ *       keyed by its last ten digits: "+91 98765-43210" is found by "9198" and "98765";</li>
+ *   <li>names are folded to lower-case letters and digits without accents, and each
+ *       word starts a key of its own, so "Zoë Ann Smith" is found by "zoe a", "ann"
+ *       and "smi".</li>
+ * </ul>
+ * Phone and name keys are suffixed with the member id to keep namesakes apart.
+ * Updates are serialized; searches never block, and one that overlaps an update
+ * sees the member before or after it. A member takes about 650 bytes of heap
+ * (625 MB for a million, measured by MemberLookupBenchmark).
+ */
+public class MemberLookupIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern PHONE_QUERY = Pattern.compile("[\\d\\s()+.-]+");
+    private static final char ID_SEPARATOR = '\u0000';
+    private static final int NATIONAL_DIGITS = 10;
+
+    /** What a lookup shows for a member. */
+    public record Entry(long id, String name, String email, String phone, String branch) {
+    }
+
+    private final NavigableMap<String, Entry> byEmail = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Entry> byPhone = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Entry> byName = new ConcurrentSkipListMap<>();
+
+    /** Adds {@code entry}, replacing what was indexed for its e-mail address. */
+    public synchronized void put(Entry entry) {
+        String email = entry.email().toLowerCase(Locale.ROOT);
+        Entry previous = byEmail.put(email, entry);
+        if (previous != null) {
+            removeKeys(previous);
+        }
+        for (String key : phoneKeys(entry.phone())) {
+            byPhone.put(key + ID_SEPARATOR + entry.id(), entry);
+        }
+        for (String key : nameKeys(entry.name())) {
+            byName.put(key + ID_SEPARATOR + entry.id(), entry);
+        }
+    }
+
+    public synchronized void remove(String email) {
+        Entry previous = byEmail.remove(email.toLowerCase(Locale.ROOT));
+        if (previous != null) {
+            removeKeys(previous);
+        }
+    }
+
+    public int size() {
+        return byEmail.size();
+    }
+
+    /**
+     * Up to {@code limit} members whose e-mail, phone number or a name word starts
+     * with {@code query}: e-mail matches first, then phone, then name, each in key order.
+     */
+    public List<Entry> search(String query, int limit) {
+        String trimmed = query.trim();
+        if (trimmed.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<Long, Entry> found = new LinkedHashMap<>();
+        if (trimmed.indexOf(' ') < 0) {
+            collect(byEmail, trimmed.toLowerCase(Locale.ROOT), limit, found);
+        }
+        if (PHONE_QUERY.matcher(trimmed).matches()) {
+            collect(byPhone, digits(trimmed), limit, found);
+        }
+        collect(byName, normalizeName(trimmed), limit, found);
+        return new ArrayList<>(found.values());
+    }
+
+    private static void collect(NavigableMap<String, Entry> map, String prefix, int limit, Map<Long, Entry> found) {
+        if (prefix.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Entry> e : map.tailMap(prefix, true).entrySet()) {
+            if (found.size() >= limit || !e.getKey().startsWith(prefix)) {
+                return;
+            }
+            found.putIfAbsent(e.getValue().id(), e.getValue());
+        }
+    }
+
+    private void removeKeys(Entry entry) {
+        for (String key : phoneKeys(entry.phone())) {
+            byPhone.remove(key + ID_SEPARATOR + entry.id());
+        }
+        for (String key : nameKeys(entry.name())) {
+            byName.remove(key + ID_SEPARATOR + entry.id());
+        }
+    }
+
+    private static List<String> phoneKeys(String phone) {
+        String digits = digits(phone);
+        if (digits.length() > NATIONAL_DIGITS) {
+            return List.of(digits, digits.substring(digits.length() - NATIONAL_DIGITS));
+        }
+        return digits.isEmpty() ? List.of() : List.of(digits);
+    }
+
+    // "zoe ann smith", "ann smith", "smith"
+    private static List<String> nameKeys(String name) {
+        String normalized = normalizeName(name);
+        List<String> keys = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    static String normalizeName(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        String folded = MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(folded).replaceAll(" ").trim();
+    }
+
+    static String digits(String phone) {
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+}
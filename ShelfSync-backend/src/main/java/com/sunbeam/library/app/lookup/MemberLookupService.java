@@ -0,0 +1,174 @@
+package com.sunbeam.library.app.lookup;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.cache.InvalidationBus;
+import com.sunbeam.library.app.cache.InvalidationListener;
+import com.sunbeam.library.app.dto.MemberLookupDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.CacheRegion;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.repository.MemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Finds members for librarians by e-mail, phone number or name prefix, from a
+ * {@link MemberLookupIndex} over every branch's members instead of LIKE scans.
+ * <p>
+ * The index is built in the background at startup and nightly. Between builds,
+ * every member change published on the {@link InvalidationBus} (registrations
+ * through AuthService, on this node or another) re-reads that member into it.
+ * Changes that land while a build is reading are re-read once the new index is
+ * in place, so the build cannot lose them. Readiness waits for the first build.
+ */
+@Service
+public class MemberLookupService implements InvalidationListener, HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberLookupService.class);
+
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private BranchDirectory branchDirectory;
+
+    @Value("${members.lookup.max-results:50}")
+    private int maxResults;
+
+    private volatile MemberLookupIndex index; // null until the first build
+    private Map<String, String> changedDuringBuild; // e-mail -> branch; non-null while building, guarded by this
+    private boolean buildAgain; // guarded by this
+
+    public List<MemberLookupDTO> search(String query, int limit) {
+        MemberLookupIndex current = index;
+        if (current == null) {
+            throw new BusinessRuleException(ErrorCode.SERVER_BUSY);
+        }
+        return current.search(query, Math.min(limit, maxResults)).stream().map(MemberLookupService::toDTO).toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildAsync();
+    }
+
+    @Scheduled(cron = "${members.lookup.rebuild-cron:0 30 2 * * *}")
+    public void rebuildAsync() {
+        synchronized (this) {
+            if (changedDuringBuild != null) {
+                buildAgain = true;
+                return;
+            }
+            changedDuringBuild = new HashMap<>();
+        }
+        Thread thread = new Thread(this::rebuild, "member-lookup-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void invalidate(CacheRegion region, String key) {
+        if (region != CacheRegion.MEMBER) {
+            return;
+        }
+        if (key == null) {
+            rebuildAsync();
+            return;
+        }
+        MemberLookupIndex current;
+        synchronized (this) {
+            if (changedDuringBuild != null) {
+                changedDuringBuild.put(key, BranchContext.current());
+            }
+            current = index;
+        }
+        if (current != null) {
+            refresh(current, key);
+        }
+    }
+
+    @Override
+    public Health health() {
+        MemberLookupIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                return (changedDuringBuild != null ? Health.outOfService() : Health.up()).withDetail("members", 0).build();
+            }
+        }
+        return Health.up().withDetail("members", current.size()).build();
+    }
+
+    private void rebuild() {
+        boolean again = true;
+        while (again) {
+            MemberLookupIndex built = build();
+            Map<String, String> changed;
+            synchronized (this) {
+                if (built != null) {
+                    index = built;
+                }
+                changed = changedDuringBuild;
+                again = buildAgain;
+                buildAgain = false;
+                changedDuringBuild = again ? new HashMap<>() : null;
+            }
+            if (built != null) {
+                changed.forEach((email, branch) -> BranchContext.runIn(branch, () -> refresh(built, email)));
+            }
+        }
+    }
+
+    // Null if the build failed: the previous index, if any, stays in use until the next one
+    private MemberLookupIndex build() {
+        long start = System.nanoTime();
+        try {
+            MemberLookupIndex built = new MemberLookupIndex();
+            // Member ids are unique across branches, so every branch feeds one index
+            branchDirectory.forEachBranch(() -> {
+                String branch = BranchContext.current();
+                for (Object[] row : memberRepository.findLookupRows(Role.ROLE_MEMBER)) {
+                    built.put(new MemberLookupIndex.Entry((Long) row[0], (String) row[1], (String) row[2], (String) row[3], branch));
+                }
+            });
+            log.info("Built member lookup index for {} members in {} ms", built.size(), (System.nanoTime() - start) / 1_000_000);
+            return built;
+        } catch (RuntimeException ex) {
+            log.error("Member lookup index build failed", ex);
+            return null;
+        }
+    }
+
+    // Called with the member's branch as the current branch
+    private void refresh(MemberLookupIndex target, String email) {
+        Optional<Member> member = memberRepository.findByEmail(email);
+        if (member.isPresent() && member.get().getRole() == Role.ROLE_MEMBER) {
+            Member m = member.get();
+            target.put(new MemberLookupIndex.Entry(m.getId(), m.getName(), m.getEmail(), m.getPhone(), BranchContext.current()));
+        } else {
+            target.remove(email);
+        }
+    }
+
+    private static MemberLookupDTO toDTO(MemberLookupIndex.Entry entry) {
+        MemberLookupDTO dto = new MemberLookupDTO();
+        dto.setId(entry.id());
+        dto.setName(entry.name());
+        dto.setEmail(entry.email());
+        dto.setPhone(entry.phone());
+        dto.setBranch(entry.branch());
+        return dto;
+    }
+}
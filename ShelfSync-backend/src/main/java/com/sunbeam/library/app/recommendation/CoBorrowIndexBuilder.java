@@ -0,0 +1,92 @@
+package com.sunbeam.library.app.recommendation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel co-occurrence count: "how many members borrowed both A and B".
+ * Members are split recursively across a fork-join pool; each leaf counts the
+ * pairs of its members into a primitive map and the partial maps are merged
+ * on the way back up.
+ */
+final class CoBorrowIndexBuilder {
+
+    private static final int LEAF_MEMBERS = 512;
+
+    private CoBorrowIndexBuilder() {
+    }
+
+    /**
+     * @param memberBooks one array of distinct book ids per member
+     * @return pair counts keyed by {@link #pack(long, long)} with the smaller id first
+     */
+    static LongIntHashMap countPairs(List<long[]> memberBooks, ForkJoinPool pool) {
+        return pool.invoke(new PairCountTask(memberBooks, 0, memberBooks.size()));
+    }
+
+    /** Expands pair counts into a per-book neighbour map (both directions). */
+    static Map<Long, LongIntHashMap> toAdjacency(LongIntHashMap pairCounts) {
+        Map<Long, LongIntHashMap> adjacency = new HashMap<>();
+        pairCounts.forEach((key, count) -> {
+            long a = key >>> 32;
+            long b = key & 0xFFFFFFFFL;
+            adjacency.computeIfAbsent(a, id -> new LongIntHashMap(16)).addTo(b, count);
+            adjacency.computeIfAbsent(b, id -> new LongIntHashMap(16)).addTo(a, count);
+        });
+        return adjacency;
+    }
+
+    static long pack(long a, long b) {
+        if (a > b) {
+            long t = a;
+            a = b;
+            b = t;
+        }
+        if (b > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Book id out of range for pair packing: " + b);
+        }
+        return (a << 32) | b;
+    }
+
+    private static final class PairCountTask extends RecursiveTask<LongIntHashMap> {
+        private final List<long[]> memberBooks;
+        private final int from;
+        private final int to;
+
+        private PairCountTask(List<long[]> memberBooks, int from, int to) {
+            this.memberBooks = memberBooks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LongIntHashMap compute() {
+            if (to - from <= LEAF_MEMBERS) {
+                LongIntHashMap counts = new LongIntHashMap(1024);
+                for (int m = from; m < to; m++) {
+                    long[] books = memberBooks.get(m);
+                    for (int i = 0; i < books.length; i++) {
+                        for (int j = i + 1; j < books.length; j++) {
+                            counts.addTo(pack(books[i], books[j]), 1);
+                        }
+                    }
+                }
+                return counts;
+            }
+            int mid = (from + to) >>> 1;
+            PairCountTask left = new PairCountTask(memberBooks, from, mid);
+            left.fork();
+            LongIntHashMap right = new PairCountTask(memberBooks, mid, to).compute();
+            LongIntHashMap merged = left.join();
+            if (merged.size() < right.size()) {
+                right.addAll(merged);
+                return right;
+            }
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
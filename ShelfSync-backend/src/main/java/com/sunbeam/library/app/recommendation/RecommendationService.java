@@ -0,0 +1,245 @@
+package com.sunbeam.library.app.recommendation;
+
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.event.DomainEvent;
+import com.sunbeam.library.app.event.NodeLocalEventConsumer;
+import com.sunbeam.library.app.repository.ArchivedIssueRecordRepository;
+import com.sunbeam.library.app.repository.IssueRecordRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * "Members who borrowed this also borrowed" recommendations.
+ * <p>
+ * The full co-borrowing index is rebuilt in the background at startup and
+ * nightly from the issue history, on its own fork-join pool so the scheduler
+ * thread (which also drives the outbox relay) is never blocked. Between
+ * rebuilds, COPY_ISSUED events bump the affected pair counts and republish
+ * only the touched rows. Issues that arrive while a rebuild runs are applied
+ * to the old index and replayed onto the new one when it is swapped in, so
+ * none is lost; one the rebuild already read from the history is then counted
+ * twice until the next rebuild, which rankings tolerate.
+ */
+@Service
+public class RecommendationService implements NodeLocalEventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    @Autowired private IssueRecordRepository issueRecordRepository;
+    @Autowired private ArchivedIssueRecordRepository archivedIssueRecordRepository;
+    @Autowired private BranchDirectory branchDirectory;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Value("${recommendations.per-book:10}")
+    private int perBook;
+
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile RecommendationTable table = RecommendationTable.EMPTY;
+    private final Map<Long, long[]> updatedRows = new ConcurrentHashMap<>();
+    private Map<Long, LongIntHashMap> adjacency = new HashMap<>(); // guarded by this
+    private List<Issue> issuedDuringRebuild; // guarded by this; null while no rebuild runs
+
+    /** Recommended book ids for {@code bookId}, most co-borrowed first. */
+    public long[] recommend(long bookId) {
+        long[] row = updatedRows.get(bookId);
+        return row != null ? row : table.lookup(bookId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildAsync();
+    }
+
+    @Scheduled(cron = "${recommendations.rebuild-cron:0 0 2 * * *}")
+    public void rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        pool.execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException ex) {
+                log.error("Recommendation rebuild failed", ex);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            issuedDuringRebuild = new ArrayList<>();
+        }
+        List<long[]> memberBooks;
+        try {
+            memberBooks = readMemberBooks();
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                issuedDuringRebuild = null;
+            }
+            throw ex;
+        }
+        LongIntHashMap pairCounts = CoBorrowIndexBuilder.countPairs(memberBooks, pool);
+        Map<Long, LongIntHashMap> newAdjacency = CoBorrowIndexBuilder.toAdjacency(pairCounts);
+        RecommendationTable newTable = RecommendationTable.build(newAdjacency, perBook);
+
+        synchronized (this) {
+            adjacency = newAdjacency;
+            table = newTable;
+            updatedRows.clear();
+            for (Issue issue : issuedDuringRebuild) {
+                apply(issue);
+            }
+            issuedDuringRebuild = null;
+        }
+        log.info("Rebuilt recommendations for {} books from {} members ({} pairs) in {} ms",
+                newTable.size(), memberBooks.size(), pairCounts.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event.type() != DomainEventType.COPY_ISSUED || event.memberId() == null || event.bookId() == null) {
+            return;
+        }
+        long bookId = event.bookId();
+        // A repeat borrow of the same title adds no new pairs.
+        if (issueRecordRepository.countByMemberIdAndBookId(event.memberId(), bookId)
+                + archivedIssueRecordRepository.countByMemberIdAndBookId(event.memberId(), bookId) > 1) {
+            return;
+        }
+        Set<Long> otherBooks = new HashSet<>(issueRecordRepository.findDistinctBookIdsByMemberId(event.memberId()));
+        otherBooks.addAll(archivedIssueRecordRepository.findDistinctBookIdsByMemberId(event.memberId()));
+        Issue issue = new Issue(bookId, otherBooks);
+        synchronized (this) {
+            apply(issue);
+            if (issuedDuringRebuild != null) {
+                issuedDuringRebuild.add(issue);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Caller holds the monitor
+    private void apply(Issue issue) {
+        for (Long other : issue.otherBooks()) {
+            if (other == issue.bookId()) {
+                continue;
+            }
+            neighbours(issue.bookId()).addTo(other, 1);
+            neighbours(other).addTo(issue.bookId(), 1);
+            updatedRows.put(other, RecommendationTable.topN(neighbours(other), perBook));
+        }
+        updatedRows.put(issue.bookId(), RecommendationTable.topN(neighbours(issue.bookId()), perBook));
+    }
+
+    private LongIntHashMap neighbours(long bookId) {
+        return adjacency.computeIfAbsent(bookId, id -> new LongIntHashMap(16));
+    }
+
+    /**
+     * Streams the [member, book] pairs of every branch and tier, one member's
+     * rows at a time, into one array of distinct book ids per member. A member
+     * whose history sits in both tiers (or, after a move, in two branches) gets
+     * the arrays merged, since member ids are unique across branches.
+     */
+    private List<long[]> readMemberBooks() {
+        Map<Long, long[]> byMember = new HashMap<>();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        branchDirectory.forEachBranch(() -> readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = issueRecordRepository.streamDistinctMemberBookPairs()) {
+                groupByMember(rows, byMember);
+            }
+            try (Stream<Object[]> rows = archivedIssueRecordRepository.streamDistinctMemberBookPairs()) {
+                groupByMember(rows, byMember);
+            }
+        }));
+        List<long[]> result = new ArrayList<>(byMember.size());
+        for (long[] books : byMember.values()) {
+            addDistinct(result, books);
+        }
+        return result;
+    }
+
+    // Rows must be ordered by member
+    private static void groupByMember(Stream<Object[]> rows, Map<Long, long[]> byMember) {
+        long[] buffer = new long[16];
+        int count = 0;
+        Long currentMember = null;
+        for (Iterator<Object[]> it = rows.iterator(); it.hasNext(); ) {
+            Object[] row = it.next();
+            Long memberId = (Long) row[0];
+            if (!memberId.equals(currentMember)) {
+                collect(byMember, currentMember, buffer, count);
+                currentMember = memberId;
+                count = 0;
+            }
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count * 2);
+            }
+            buffer[count++] = (Long) row[1];
+        }
+        collect(byMember, currentMember, buffer, count);
+    }
+
+    private static void collect(Map<Long, long[]> byMember, Long memberId, long[] buffer, int count) {
+        if (count == 0) {
+            return;
+        }
+        byMember.merge(memberId, Arrays.copyOf(buffer, count), (seen, more) -> {
+            long[] merged = Arrays.copyOf(seen, seen.length + more.length);
+            System.arraycopy(more, 0, merged, seen.length, more.length);
+            return merged;
+        });
+    }
+
+    // A title may appear once per tier, so each member's books are de-duplicated
+    private static void addDistinct(List<long[]> result, long[] books) {
+        if (books.length < 2) {
+            return;
+        }
+        Arrays.sort(books);
+        int distinct = 1;
+        for (int i = 1; i < books.length; i++) {
+            if (books[i] != books[distinct - 1]) {
+                books[distinct++] = books[i];
+            }
+        }
+        if (distinct > 1) {
+            result.add(distinct == books.length ? books : Arrays.copyOf(books, distinct));
+        }
+    }
+
+    private record Issue(long bookId, Set<Long> otherBooks) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.sunbeam.library.app.recommendation;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable top-N-per-book table: a sorted array of book ids and, at the same
+ * index, the recommended book ids in descending co-borrow count. A lookup is
+ * one binary search with no boxing.
+ */
+final class RecommendationTable {
+
+    static final RecommendationTable EMPTY = new RecommendationTable(new long[0], new long[0][]);
+    private static final long[] NONE = new long[0];
+
+    private final long[] bookIds;
+    private final long[][] recommendations;
+
+    private RecommendationTable(long[] bookIds, long[][] recommendations) {
+        this.bookIds = bookIds;
+        this.recommendations = recommendations;
+    }
+
+    static RecommendationTable build(Map<Long, LongIntHashMap> adjacency, int perBook) {
+        long[] ids = adjacency.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        long[][] recs = new long[ids.length][];
+        for (int i = 0; i < ids.length; i++) {
+            recs[i] = topN(adjacency.get(ids[i]), perBook);
+        }
+        return new RecommendationTable(ids, recs);
+    }
+
+    long[] lookup(long bookId) {
+        int index = Arrays.binarySearch(bookIds, bookId);
+        return index >= 0 ? recommendations[index] : NONE;
+    }
+
+    int size() {
+        return bookIds.length;
+    }
+
+    /** Highest-count neighbours first; ties go to the lower book id. */
+    static long[] topN(LongIntHashMap neighbours, int n) {
+        long[] ids = new long[n];
+        int[] counts = new int[n];
+        int[] filled = {0};
+        neighbours.forEach((id, count) -> {
+            int size = filled[0];
+            if (size == n && !better(count, id, counts[n - 1], ids[n - 1])) {
+                return;
+            }
+            int pos = Math.min(size, n - 1);
+            while (pos > 0 && better(count, id, counts[pos - 1], ids[pos - 1])) {
+                ids[pos] = ids[pos - 1];
+                counts[pos] = counts[pos - 1];
+                pos--;
+            }
+            ids[pos] = id;
+            counts[pos] = count;
+            if (size < n) {
+                filled[0]++;
+            }
+        });
+        return filled[0] == n ? ids : Arrays.copyOf(ids, filled[0]);
+    }
+
+    private static boolean better(int count, long id, int otherCount, long otherId) {
+        return count > otherCount || (count == otherCount && id < otherId);
+    }
+}
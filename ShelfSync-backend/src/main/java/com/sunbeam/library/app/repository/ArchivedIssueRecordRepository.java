@@ -0,0 +1,27 @@
+package com.sunbeam.library.app.repository;
+
+import com.sunbeam.library.app.entity.ArchivedIssueRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedIssueRecordRepository extends JpaRepository<ArchivedIssueRecord, Long> {
+    List<ArchivedIssueRecord> findByMemberIdOrderByIssueDateDesc(Long memberId);
+    long countByMemberId(Long memberId);
+    long countByMemberIdAndBookId(Long memberId, Long bookId);
+
+    @Query("SELECT DISTINCT a.bookId FROM ArchivedIssueRecord a WHERE a.memberId = :memberId")
+    List<Long> findDistinctBookIdsByMemberId(@Param("memberId") Long memberId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT DISTINCT a.memberId, a.bookId FROM ArchivedIssueRecord a ORDER BY a.memberId")
+    Stream<Object[]> streamDistinctMemberBookPairs();
+}
@@ -0,0 +1,14 @@
+package com.sunbeam.library.app.repository;
+
+import com.sunbeam.library.app.entity.ArchivedPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedPaymentRepository extends JpaRepository<ArchivedPayment, Long> {
+    List<ArchivedPayment> findByMemberIdOrderByTransactionTimeDesc(Long memberId);
+    List<ArchivedPayment> findByTransactionTimeBetween(LocalDateTime from, LocalDateTime to);
+}
@@ -1,16 +1,50 @@
 package com.sunbeam.library.app.repository;
 
+import com.sunbeam.library.app.cache.CatalogEntityCache;
 import com.sunbeam.library.app.entity.Book;
 import com.sunbeam.library.app.entity.BookCopy;
+import com.sunbeam.library.app.entity.Member;
 import com.sunbeam.library.app.enums.BookStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
     List<BookCopy> findByBook(Book book);
+
+    // Availability lookups behind every book card and copy list; results are invalidated
+    // whenever any copy changes (Hibernate's update timestamps, CatalogEntityCache for other nodes)
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogEntityCache.AVAILABILITY_REGION)})
     long countByBookAndStatus(Book book, BookStatus status);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogEntityCache.AVAILABILITY_REGION)})
     List<BookCopy> findByBookAndStatus(Book book, BookStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM BookCopy c WHERE c.id = :id")
+    Optional<BookCopy> findByIdForUpdate(@Param("id") Long id);
+
+    // Locked in id order, so two checkouts sharing copies queue instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM BookCopy c WHERE c.id IN (SELECT ci.bookCopy.id FROM CartItem ci WHERE ci.member = :member) " +
+           "ORDER BY c.id")
+    List<BookCopy> findInCartForUpdate(@Param("member") Member member);
+
+    // Copies sitting on the shelf while someone is waiting for the title
+    @Query("SELECT c.id FROM BookCopy c WHERE c.status = com.sunbeam.library.app.enums.BookStatus.AVAILABLE " +
+           "AND EXISTS (SELECT h FROM Hold h WHERE h.book = c.book " +
+           "AND h.status = com.sunbeam.library.app.enums.HoldStatus.WAITING)")
+    List<Long> findAvailableIdsWithWaitingHolds();
 }
\ No newline at end of file
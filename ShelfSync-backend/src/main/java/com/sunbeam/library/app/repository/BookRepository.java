@@ -15,6 +15,6 @@ public interface BookRepository extends JpaRepository<Book, Long> {
            "LOWER(b.name) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(b.author) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(b.subject) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "b.isbn LIKE CONCAT('%', :query, '%')")
+           "LOWER(b.isbn) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Book> searchBooks(@Param("query") String query);
 }
\ No newline at end of file
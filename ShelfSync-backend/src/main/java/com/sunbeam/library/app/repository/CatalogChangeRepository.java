@@ -0,0 +1,32 @@
+package com.sunbeam.library.app.repository;
+
+import com.sunbeam.library.app.entity.CatalogChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    // One row per changed book: [bookId, latest change id], oldest change first
+    @Query("SELECT c.bookId, MAX(c.id) FROM CatalogChange c WHERE c.id > :since " +
+           "GROUP BY c.bookId ORDER BY MAX(c.id)")
+    List<Object[]> findChangedBooksSince(@Param("since") long since, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CatalogChange c")
+    long findLatestVersion();
+
+    // Newest entry written at or before the cutoff; walks the primary key down from the end
+    Optional<CatalogChange> findFirstByChangedAtLessThanEqualOrderByIdDesc(LocalDateTime cutoff);
+
+    // Entries that a newer entry for the same book makes redundant
+    @Query("SELECT c.id FROM CatalogChange c WHERE c.id < " +
+           "(SELECT MAX(c2.id) FROM CatalogChange c2 WHERE c2.bookId = c.bookId)")
+    List<Long> findSupersededIds(Pageable pageable);
+}
@@ -0,0 +1,56 @@
+package com.sunbeam.library.app.repository;
+
+import com.sunbeam.library.app.entity.Book;
+import com.sunbeam.library.app.entity.BookCopy;
+import com.sunbeam.library.app.entity.Hold;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.HoldStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.id = :id")
+    Optional<Hold> findByIdForUpdate(@Param("id") Long id);
+
+    boolean existsByMemberAndBookAndStatusIn(Member member, Book book, Collection<HoldStatus> statuses);
+
+    // The member's READY hold on a copy, for issuing it; the caller has already locked the copy
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.copy = :copy AND h.member = :member " +
+           "AND h.status = com.sunbeam.library.app.enums.HoldStatus.READY")
+    Optional<Hold> findReadyForUpdate(@Param("copy") BookCopy copy, @Param("member") Member member);
+
+    // Read without loading the hold, so the copy can be locked before it
+    @Query("SELECT c.id FROM Hold h JOIN h.copy c WHERE h.id = :id")
+    Optional<Long> findCopyIdById(@Param("id") Long id);
+
+    List<Hold> findByMemberAndStatusInOrderByRequestedAtDesc(Member member, Collection<HoldStatus> statuses);
+
+    // [bookId, holdId] of every waiting hold, in queue order
+    @Query("SELECT h.book.id, h.id FROM Hold h WHERE h.status = com.sunbeam.library.app.enums.HoldStatus.WAITING ORDER BY h.id")
+    List<Object[]> findWaitingQueueEntries();
+
+    @Query("SELECT h.id FROM Hold h WHERE h.book.id = :bookId " +
+           "AND h.status = com.sunbeam.library.app.enums.HoldStatus.WAITING ORDER BY h.id")
+    List<Long> findWaitingIdsByBookId(@Param("bookId") Long bookId);
+
+    @Query("SELECT COUNT(h) FROM Hold h WHERE h.book.id = :bookId " +
+           "AND h.status = com.sunbeam.library.app.enums.HoldStatus.WAITING AND h.id <= :holdId")
+    long countWaitingAhead(@Param("bookId") Long bookId, @Param("holdId") Long holdId);
+
+    @Query("SELECT h.id FROM Hold h WHERE h.status = com.sunbeam.library.app.enums.HoldStatus.READY " +
+           "AND h.pickupDeadline < :now")
+    List<Long> findExpiredReadyIds(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,34 @@
+package com.sunbeam.library.app.repository;
+
+import com.sunbeam.library.app.entity.IdempotencyRecord;
+import com.sunbeam.library.app.enums.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.responseStatus = :responseStatus, " +
+           "r.contentType = :contentType, r.responseBody = :body, r.expiresAt = :expiresAt WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("status") IdempotencyStatus status,
+                 @Param("responseStatus") int responseStatus, @Param("contentType") String contentType,
+                 @Param("body") byte[] body, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = :status")
+    int deleteByIdAndStatus(@Param("id") String id, @Param("status") IdempotencyStatus status);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt < :now")
+    int deleteExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteAllExpired(@Param("now") LocalDateTime now);
+}
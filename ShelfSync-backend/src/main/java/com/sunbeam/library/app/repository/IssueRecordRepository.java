@@ -3,12 +3,21 @@ package com.sunbeam.library.app.repository;
 import com.sunbeam.library.app.entity.BookCopy;
 import com.sunbeam.library.app.entity.IssueRecord;
 import com.sunbeam.library.app.entity.Member;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface IssueRecordRepository extends JpaRepository<IssueRecord, Long> {
@@ -16,4 +25,27 @@ public interface IssueRecordRepository extends JpaRepository<IssueRecord, Long>
     List<IssueRecord> findByDueDateBeforeAndReturnDateIsNull(LocalDate date);
     List<IssueRecord> findByMemberOrderByIssueDateDesc(Member member);
     List<IssueRecord> findByMemberAndReturnDateIsNull(Member member);
+    long countByReturnDateIsNull();
+
+    // [memberId, bookId] pairs, grouped by member, for the co-borrowing index; read inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT DISTINCT ir.member.id, ir.bookCopy.book.id FROM IssueRecord ir ORDER BY ir.member.id")
+    Stream<Object[]> streamDistinctMemberBookPairs();
+
+    @Query("SELECT DISTINCT ir.bookCopy.book.id FROM IssueRecord ir WHERE ir.member.id = :memberId")
+    List<Long> findDistinctBookIdsByMemberId(@Param("memberId") Long memberId);
+
+    @Query("SELECT COUNT(ir) FROM IssueRecord ir WHERE ir.member.id = :memberId AND ir.bookCopy.book.id = :bookId")
+    long countByMemberIdAndBookId(@Param("memberId") Long memberId, @Param("bookId") Long bookId);
+
+    // --- Archival (see ArchivalService) ---
+    @Query("SELECT ir.id FROM IssueRecord ir WHERE ir.returnDate < :cutoff ORDER BY ir.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    @Query("SELECT ir FROM IssueRecord ir JOIN FETCH ir.bookCopy c JOIN FETCH c.book WHERE ir.id IN :ids")
+    List<IssueRecord> findWithBookByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM IssueRecord ir WHERE ir.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }   
\ No newline at end of file
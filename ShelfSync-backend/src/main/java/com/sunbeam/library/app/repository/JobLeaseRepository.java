@@ -0,0 +1,40 @@
+package com.sunbeam.library.app.repository;
+
+import com.sunbeam.library.app.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    // Takes (or renews) the lease if it is free, expired or already ours and,
+    // for cron jobs, nobody has run this firing yet.
+    @Modifying
+    @Query("UPDATE JobLease j SET j.owner = :owner, j.leasedUntil = :until, j.lastSlot = COALESCE(:slot, j.lastSlot) " +
+           "WHERE j.name = :name AND (j.owner = :owner OR j.leasedUntil IS NULL OR j.leasedUntil < :now) " +
+           "AND (:slot IS NULL OR j.lastSlot IS NULL OR j.lastSlot < :slot)")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                @Param("until") LocalDateTime until, @Param("slot") LocalDateTime slot);
+
+    @Modifying
+    @Query("UPDATE JobLease j SET j.checkpoint = :checkpoint, j.leasedUntil = :until " +
+           "WHERE j.name = :name AND j.owner = :owner")
+    int saveCheckpoint(@Param("name") String name, @Param("owner") String owner,
+                       @Param("checkpoint") String checkpoint, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE JobLease j SET j.checkpoint = NULL, j.leasedUntil = :until, j.lastFinishedAt = :finishedAt, " +
+           "j.lastDurationMs = :durationMs, j.lastRows = :rows WHERE j.name = :name AND j.owner = :owner")
+    int complete(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until,
+                 @Param("finishedAt") LocalDateTime finishedAt, @Param("durationMs") long durationMs,
+                 @Param("rows") long rows);
+
+    @Modifying
+    @Query("UPDATE JobLease j SET j.leasedUntil = :now WHERE j.owner = :owner AND j.leasedUntil > :now")
+    int releaseAll(@Param("owner") String owner, @Param("now") LocalDateTime now);
+}
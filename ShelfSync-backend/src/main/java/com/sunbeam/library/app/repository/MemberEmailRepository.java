@@ -0,0 +1,22 @@
+package com.sunbeam.library.app.repository;
+
+import com.sunbeam.library.app.entity.MemberEmail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface MemberEmailRepository extends JpaRepository<MemberEmail, String> {
+
+    @Modifying
+    @Query("DELETE FROM MemberEmail e WHERE e.email = :email")
+    int release(@Param("email") String email);
+
+    @Modifying
+    @Query("DELETE FROM MemberEmail e WHERE e.email = :email AND e.claimedAt < :before")
+    int releaseClaimedBefore(@Param("email") String email, @Param("before") LocalDateTime before);
+}
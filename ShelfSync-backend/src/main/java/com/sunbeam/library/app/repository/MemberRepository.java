@@ -1,12 +1,29 @@
 package com.sunbeam.library.app.repository;
 
 import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface MemberRepository extends JpaRepository<Member, Long> {
     Optional<Member> findByEmail(String email);
+
+    Optional<Member> findFirstByRoleOrderByIdAsc(Role role);
+
+    Optional<Member> findFirstByOrderByIdAsc();
+
+    @Query("SELECT m.email FROM Member m WHERE m.email IN :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // [id, name, email, phone] of every member with the role, for the librarians' lookup index
+    @Query("SELECT m.id, m.name, m.email, m.phone FROM Member m WHERE m.role = :role")
+    List<Object[]> findLookupRows(@Param("role") Role role);
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.sunbeam.library.app.repository;
+
+import com.sunbeam.library.app.entity.OutboxEvent;
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.enums.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByStatusOrderByIdAsc(OutboxStatus status, Pageable pageable);
+
+    List<OutboxEvent> findByRelaySeqGreaterThanOrderByRelaySeqAsc(long relaySeq, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(e.relaySeq), 0) FROM OutboxEvent e")
+    long findLatestRelaySeq();
+
+    boolean existsByTypeInAndStatusAndOccurredAtBetween(Collection<DomainEventType> types, OutboxStatus status,
+                                                        LocalDateTime from, LocalDateTime to);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.processedAt = :at, e.attempts = :attempts, " +
+           "e.lastError = :error WHERE e.id = :id")
+    int updateDelivery(@Param("id") Long id, @Param("status") OutboxStatus status, @Param("at") LocalDateTime at,
+                       @Param("attempts") int attempts, @Param("error") String error);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.processedAt = :at, e.attempts = :attempts, " +
+           "e.lastError = :error, e.relaySeq = :relaySeq WHERE e.id = :id")
+    int finishDelivery(@Param("id") Long id, @Param("status") OutboxStatus status, @Param("at") LocalDateTime at,
+                       @Param("attempts") int attempts, @Param("error") String error, @Param("relaySeq") long relaySeq);
+
+    // Events the relay finished with, processed or given up on; pending ones are never removed
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status <> com.sunbeam.library.app.enums.OutboxStatus.PENDING " +
+           "AND e.processedAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
@@ -3,9 +3,15 @@ package com.sunbeam.library.app.repository;
 import com.sunbeam.library.app.entity.Member;
 import com.sunbeam.library.app.entity.Payment;
 import com.sunbeam.library.app.enums.PaymentType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +19,17 @@ import java.util.Optional;
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findTopByMemberAndTypeOrderByDueDateDesc(Member member, PaymentType type);
     List<Payment> findByMemberOrderByTransactionTimeDesc(Member member);
+    List<Payment> findByTransactionTimeBetween(LocalDateTime from, LocalDateTime to);
+
+    // --- Archival (see ArchivalService) ---
+    // A member's latest membership payment stays hot: it drives the "membership active" checks.
+    @Query("SELECT p.id FROM Payment p WHERE p.transactionTime < :cutoff " +
+           "AND (p.type <> com.sunbeam.library.app.enums.PaymentType.MEMBERSHIP OR p.id <> " +
+           "(SELECT MAX(p2.id) FROM Payment p2 WHERE p2.member = p.member " +
+           "AND p2.type = com.sunbeam.library.app.enums.PaymentType.MEMBERSHIP)) ORDER BY p.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Payment p WHERE p.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
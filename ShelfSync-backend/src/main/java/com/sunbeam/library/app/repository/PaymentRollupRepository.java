@@ -0,0 +1,24 @@
+package com.sunbeam.library.app.repository;
+
+import com.sunbeam.library.app.entity.PaymentRollup;
+import com.sunbeam.library.app.enums.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentRollupRepository extends JpaRepository<PaymentRollup, Long> {
+    Optional<PaymentRollup> findByGranularityAndPeriodStart(RollupGranularity granularity, LocalDate periodStart);
+    List<PaymentRollup> findByGranularityAndPeriodStartBetween(RollupGranularity granularity, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM PaymentRollup r WHERE r.granularity = :granularity AND r.periodStart BETWEEN :from AND :to")
+    int deletePeriods(@Param("granularity") RollupGranularity granularity, @Param("from") LocalDate from,
+                      @Param("to") LocalDate to);
+}
@@ -1,5 +1,8 @@
 package com.sunbeam.library.app.security;
 
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.cache.MemberDetailsCache;
+import com.sunbeam.library.app.entity.Member;
 import com.sunbeam.library.app.repository.MemberRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -7,15 +10,35 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private BranchDirectory branchDirectory;
+
+    @Autowired
+    private MemberDetailsCache memberDetailsCache;
+
+    // Looks in the current branch first; at sign-in the caller's branch is not known
+    // yet, so the other branches are searched too (JwtHelper pins it from then on).
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return memberRepository.findByEmail(username)
+        return memberDetailsCache.get(username, () -> findMember(username))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
     }
+
+    private Optional<Member> findMember(String email) {
+        Optional<Member> member = memberRepository.findByEmail(email);
+        if (member.isEmpty() && branchDirectory.isPartitioned()) {
+            member = branchDirectory.fanOut(() -> memberRepository.findByEmail(email)).stream()
+                    .flatMap(Optional::stream)
+                    .findFirst();
+        }
+        return member;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.sunbeam.library.app.security;
 
+import com.sunbeam.library.app.branch.BranchContext;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import jakarta.servlet.FilterChain;
@@ -29,27 +30,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        String requestHeader = request.getHeader("Authorization");
-        String username = null;
-        String token = null;
+        try {
+            String requestHeader = request.getHeader("Authorization");
+            String username = null;
+            String token = null;
+            String branch = null;
 
-        if (requestHeader != null && requestHeader.startsWith("Bearer ")) {
-            token = requestHeader.substring(7);
-            try {
-                username = this.jwtHelper.getUsernameFromToken(token);
-            } catch (IllegalArgumentException | ExpiredJwtException | MalformedJwtException e) {
-                logger.warn("JWT token is invalid or has expired: " + e.getMessage());
+            if (requestHeader != null && requestHeader.startsWith("Bearer ")) {
+                token = requestHeader.substring(7);
+                try {
+                    username = this.jwtHelper.getUsernameFromToken(token);
+                    branch = this.jwtHelper.getBranchFromToken(token);
+                } catch (IllegalArgumentException | ExpiredJwtException | MalformedJwtException e) {
+                    logger.warn("JWT token is invalid or has expired: " + e.getMessage());
+                }
             }
-        }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (this.jwtHelper.validateToken(token, userDetails)) {
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            // Everything this request touches, from the user lookup on, goes to the member's branch database
+            BranchContext.set(branch);
+
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                if (this.jwtHelper.validateToken(token, userDetails)) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
+            filterChain.doFilter(request, response);
+        } finally {
+            BranchContext.clear();
         }
-        filterChain.doFilter(request, response);
     }
 }
\ No newline at end of file
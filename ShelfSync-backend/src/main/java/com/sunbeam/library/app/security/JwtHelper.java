@@ -1,5 +1,7 @@
 package com.sunbeam.library.app.security;
 
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.entity.Member;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -31,6 +33,11 @@ public class JwtHelper {
         return getClaimFromToken(token, Claims::getSubject);
     }
 
+    public String getBranchFromToken(String token) {
+        String branch = getClaimFromToken(token, claims -> claims.get("branch", String.class));
+        return branch != null ? branch : BranchContext.DEFAULT;
+    }
+
     public Date getExpirationDateFromToken(String token) {
         return getClaimFromToken(token, Claims::getExpiration);
     }
@@ -56,9 +63,18 @@ public class JwtHelper {
                 .map(grantedAuthority -> grantedAuthority.getAuthority())
                 .collect(Collectors.joining(","));
         claims.put("roles", roles);
+        // The member's branch decides which database serves their requests
+        claims.put("branch", homeBranch(userDetails));
         return doGenerateToken(claims, userDetails.getUsername());
     }
 
+    private static String homeBranch(UserDetails userDetails) {
+        if (userDetails instanceof Member member && member.getBranch() != null) {
+            return member.getBranch();
+        }
+        return BranchContext.DEFAULT;
+    }
+
     private String doGenerateToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -71,6 +87,7 @@ public class JwtHelper {
 
     public Boolean validateToken(String token, UserDetails userDetails) {
         final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token)
+                && getBranchFromToken(token).equals(homeBranch(userDetails)));
     }
 }
\ No newline at end of file
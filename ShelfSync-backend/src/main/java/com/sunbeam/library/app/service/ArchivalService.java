@@ -0,0 +1,158 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.cluster.ClusterScheduler;
+import com.sunbeam.library.app.cluster.JobContext;
+import com.sunbeam.library.app.cluster.JobSchedule;
+import com.sunbeam.library.app.entity.ArchivedIssueRecord;
+import com.sunbeam.library.app.entity.ArchivedPayment;
+import com.sunbeam.library.app.entity.Book;
+import com.sunbeam.library.app.entity.IssueRecord;
+import com.sunbeam.library.app.entity.Payment;
+import com.sunbeam.library.app.repository.ArchivedIssueRecordRepository;
+import com.sunbeam.library.app.repository.ArchivedPaymentRepository;
+import com.sunbeam.library.app.repository.IssueRecordRepository;
+import com.sunbeam.library.app.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves closed loans and old payments from the hot tables into their
+ * {@code *_archive} counterparts, one batch per transaction, so the tables
+ * hit by open-loan lookups and dashboards only hold recent rows. Archived
+ * rows keep their original ids, and history reads merge both tiers. Each
+ * batch copies and deletes together, so a run that stops part way (or runs
+ * again) just carries on with what is left; the lease is renewed between
+ * batches so a long first run is not taken over by another node.
+ */
+@Service
+public class ArchivalService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivalService.class);
+    private static final String PAYMENTS_PHASE = "payments";
+
+    @Autowired private IssueRecordRepository issueRecordRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private ArchivedIssueRecordRepository archivedIssueRecordRepository;
+    @Autowired private ArchivedPaymentRepository archivedPaymentRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ClusterScheduler clusterScheduler;
+
+    @Value("${archive.loans-closed-days:180}")
+    private int loansClosedDays;
+
+    @Value("${archive.payments-older-than-days:365}")
+    private int paymentsOlderThanDays;
+
+    @Value("${archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${archive.cron:0 0 4 * * *}")
+    private String cron;
+
+    @PostConstruct
+    void scheduleArchival() {
+        clusterScheduler.register("archival", JobSchedule.cron(cron), this::archive);
+    }
+
+    // Loans first, then payments; the checkpoint records the finished phase so a
+    // resumed run goes straight to the payments.
+    void archive(JobContext context) {
+        int loans = 0;
+        if (!PAYMENTS_PHASE.equals(context.checkpoint())) {
+            loans = archiveIssueRecords(LocalDate.now().minusDays(loansClosedDays), context);
+            context.checkpoint(PAYMENTS_PHASE);
+        }
+        int payments = archivePayments(LocalDateTime.now().minusDays(paymentsOlderThanDays), context);
+        log.info("Archived {} closed loans and {} payments in branch {}", loans, payments, context.branch());
+    }
+
+    int archiveIssueRecords(LocalDate returnedBefore, JobContext context) {
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Long> ids = issueRecordRepository.findArchivableIds(returnedBefore, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                LocalDateTime now = LocalDateTime.now();
+                List<ArchivedIssueRecord> archived = new ArrayList<>(ids.size());
+                for (IssueRecord record : issueRecordRepository.findWithBookByIdIn(ids)) {
+                    archived.add(toArchived(record, now));
+                }
+                archivedIssueRecordRepository.saveAll(archived);
+                issueRecordRepository.deleteByIdIn(ids);
+                return ids.size();
+            });
+            total += moved;
+            context.addRows(moved);
+            context.keepAlive();
+        } while (moved == batchSize);
+        return total;
+    }
+
+    int archivePayments(LocalDateTime before, JobContext context) {
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Long> ids = paymentRepository.findArchivableIds(before, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                LocalDateTime now = LocalDateTime.now();
+                List<ArchivedPayment> archived = new ArrayList<>(ids.size());
+                for (Payment payment : paymentRepository.findAllById(ids)) {
+                    archived.add(toArchived(payment, now));
+                }
+                archivedPaymentRepository.saveAll(archived);
+                paymentRepository.deleteByIdIn(ids);
+                return ids.size();
+            });
+            total += moved;
+            context.addRows(moved);
+            context.keepAlive();
+        } while (moved == batchSize);
+        return total;
+    }
+
+    private static ArchivedIssueRecord toArchived(IssueRecord record, LocalDateTime archivedAt) {
+        Book book = record.getBookCopy().getBook();
+        ArchivedIssueRecord archived = new ArchivedIssueRecord();
+        archived.setId(record.getId());
+        archived.setMemberId(record.getMember().getId());
+        archived.setCopyId(record.getBookCopy().getId());
+        archived.setBookId(book.getId());
+        archived.setBookName(book.getName());
+        archived.setBookAuthor(book.getAuthor());
+        archived.setIssueDate(record.getIssueDate());
+        archived.setDueDate(record.getDueDate());
+        archived.setReturnDate(record.getReturnDate());
+        archived.setFine(record.getFine());
+        archived.setArchivedAt(archivedAt);
+        return archived;
+    }
+
+    private static ArchivedPayment toArchived(Payment payment, LocalDateTime archivedAt) {
+        ArchivedPayment archived = new ArchivedPayment();
+        archived.setId(payment.getId());
+        archived.setMemberId(payment.getMember().getId());
+        archived.setAmount(payment.getAmount());
+        archived.setType(payment.getType());
+        archived.setTransactionTime(payment.getTransactionTime());
+        archived.setDueDate(payment.getDueDate());
+        archived.setArchivedAt(archivedAt);
+        return archived;
+    }
+}
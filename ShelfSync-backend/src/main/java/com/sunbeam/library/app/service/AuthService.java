@@ -1,25 +1,65 @@
 package com.sunbeam.library.app.service;
 
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.cache.InvalidationBus;
 import com.sunbeam.library.app.dto.RegisterRequestDTO;
 import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.entity.MemberEmail;
+import com.sunbeam.library.app.enums.CacheRegion;
 import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.repository.MemberEmailRepository;
 import com.sunbeam.library.app.repository.MemberRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 @Service
 public class AuthService {
 
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(1);
+
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private MemberEmailRepository memberEmailRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private BranchDirectory branchDirectory;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     public Member registerNewMember(RegisterRequestDTO request) {
-        if (memberRepository.findByEmail(request.getEmail()).isPresent()) {
-            throw new RuntimeException("Email is already registered");
+        String branch = request.getBranch() != null ? request.getBranch() : BranchContext.DEFAULT;
+        if (!branchDirectory.contains(branch)) {
+            throw new BusinessRuleException(ErrorCode.UNKNOWN_BRANCH, "Unknown branch: " + branch);
+        }
+        // Emails identify members library-wide, so they must be unique across every branch. The
+        // lookup finds existing members; the claim settles registrations racing each other.
+        if (branchDirectory.fanOut(() -> memberRepository.findByEmail(request.getEmail()).isPresent()).contains(true)) {
+            throw new BusinessRuleException(ErrorCode.EMAIL_ALREADY_REGISTERED);
+        }
+        boolean claimed = branchDirectory.isPartitioned();
+        if (claimed) {
+            claimEmail(request.getEmail(), branch);
         }
 
         Member member = new Member();
@@ -29,7 +69,50 @@ public class AuthService {
         member.setPassword(passwordEncoder.encode(request.getPassword()));
         // By default, new registrations are Members
         member.setRole(Role.ROLE_MEMBER); 
+        member.setBranch(branch);
+
+        // A new transaction, so the insert gets a connection to the member's branch
+        // rather than the one already bound to this request
+        try {
+            return inNewTransaction(branch, () -> {
+                Member saved = memberRepository.save(member);
+                invalidationBus.publish(CacheRegion.MEMBER, saved.getEmail());
+                return saved;
+            });
+        } catch (RuntimeException ex) {
+            if (claimed) {
+                inNewTransaction(BranchContext.DEFAULT, () -> memberEmailRepository.release(request.getEmail()));
+            }
+            throw ex;
+        }
+    }
+
+    private void claimEmail(String email, String branch) {
+        MemberEmail claim = new MemberEmail();
+        claim.setEmail(email);
+        claim.setBranch(branch);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            claim.setClaimedAt(LocalDateTime.now());
+            try {
+                inNewTransaction(BranchContext.DEFAULT, () -> memberEmailRepository.save(claim));
+                return;
+            } catch (DataIntegrityViolationException ex) {
+                // The lookup above found no member, so a claim this old is from a registration
+                // that died between claiming and inserting; anything newer may still be running
+                LocalDateTime staleBefore = LocalDateTime.now().minus(CLAIM_TIMEOUT);
+                Integer released = inNewTransaction(BranchContext.DEFAULT,
+                        () -> memberEmailRepository.releaseClaimedBefore(email, staleBefore));
+                if (released == null || released == 0) {
+                    break;
+                }
+            }
+        }
+        throw new BusinessRuleException(ErrorCode.EMAIL_ALREADY_REGISTERED);
+    }
 
-        return memberRepository.save(member);
+    private <T> T inNewTransaction(String branch, Supplier<T> work) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return BranchContext.callIn(branch, () -> template.execute(status -> work.get()));
     }
-}
\ No newline at end of file
+}
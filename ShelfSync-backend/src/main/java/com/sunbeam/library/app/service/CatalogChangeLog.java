@@ -0,0 +1,69 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.cluster.ClusterScheduler;
+import com.sunbeam.library.app.cluster.JobContext;
+import com.sunbeam.library.app.cluster.JobSchedule;
+import com.sunbeam.library.app.entity.CatalogChange;
+import com.sunbeam.library.app.enums.CatalogChangeType;
+import com.sunbeam.library.app.repository.CatalogChangeRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Append-only log of catalog and availability mutations, read by the
+ * delta-sync endpoint. Writers call {@link #record} inside their own
+ * transaction so the log entry commits (or rolls back) with the change.
+ */
+@Service
+public class CatalogChangeLog {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeLog.class);
+    private static final int COMPACTION_BATCH_SIZE = 1000;
+
+    @Autowired private CatalogChangeRepository catalogChangeRepository;
+    @Autowired private ClusterScheduler clusterScheduler;
+
+    @Value("${catalog.changes.compaction-interval-ms:600000}")
+    private long compactionIntervalMs;
+
+    @PostConstruct
+    void scheduleCompaction() {
+        clusterScheduler.register("catalog-change-compaction", JobSchedule.fixedDelay(compactionIntervalMs), this::compact);
+    }
+
+    public void record(Long bookId, CatalogChangeType type) {
+        CatalogChange change = new CatalogChange();
+        change.setBookId(bookId);
+        change.setType(type);
+        change.setChangedAt(LocalDateTime.now());
+        catalogChangeRepository.save(change);
+    }
+
+    /**
+     * Keeps only the newest entry per book. Clients sync on "books whose latest
+     * change is after my version", so older entries for the same book carry no
+     * information and the log stays bounded by the size of the catalog.
+     */
+    void compact(JobContext context) {
+        int removed = 0;
+        List<Long> superseded;
+        do {
+            superseded = catalogChangeRepository.findSupersededIds(PageRequest.of(0, COMPACTION_BATCH_SIZE));
+            catalogChangeRepository.deleteAllByIdInBatch(superseded);
+            removed += superseded.size();
+            context.addRows(superseded.size());
+        } while (superseded.size() == COMPACTION_BATCH_SIZE);
+
+        if (removed > 0) {
+            log.info("Compacted catalog change-log: removed {} superseded entries", removed);
+        }
+    }
+}
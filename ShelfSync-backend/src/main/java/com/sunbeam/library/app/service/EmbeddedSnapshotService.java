@@ -0,0 +1,83 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.cluster.ClusterScheduler;
+import com.sunbeam.library.app.cluster.JobContext;
+import com.sunbeam.library.app.cluster.JobSchedule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Periodic online snapshots of the embedded database (H2 {@code BACKUP TO}),
+ * keeping the newest {@code embedded.snapshot.retain} archives. Only active
+ * with the {@code embedded} profile.
+ */
+@Service
+@Profile("embedded")
+public class EmbeddedSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedSnapshotService.class);
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ClusterScheduler clusterScheduler;
+
+    @Value("${embedded.snapshot.directory:data/embedded/snapshots}")
+    private String directory;
+
+    @Value("${embedded.snapshot.retain:24}")
+    private int retain;
+
+    @Value("${embedded.snapshot.interval-ms:3600000}")
+    private long intervalMs;
+
+    @PostConstruct
+    void scheduleSnapshots() {
+        clusterScheduler.register("embedded-snapshot", JobSchedule.fixedDelay(intervalMs), this::snapshot);
+    }
+
+    // Runs once per branch database; the default branch keeps the plain name
+    void snapshot(JobContext context) {
+        String branch = context.branch();
+        String prefix = BranchContext.DEFAULT.equals(branch) ? "shelfsync-" : "shelfsync-" + branch + "-";
+        try {
+            Path dir = Path.of(directory).toAbsolutePath();
+            Files.createDirectories(dir);
+            Path target = dir.resolve(prefix + LocalDateTime.now().format(STAMP) + ".zip");
+            long start = System.nanoTime();
+            jdbcTemplate.execute("BACKUP TO '" + target.toString().replace("'", "''") + "'");
+            log.info("Embedded database snapshot written to {} in {} ms", target, (System.nanoTime() - start) / 1_000_000);
+            prune(dir, prefix);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void prune(Path dir, String prefix) throws IOException {
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(dir)) {
+            snapshots = files.filter(p -> p.getFileName().toString().matches(Pattern.quote(prefix) + "\\d{8}-\\d{6}\\.zip"))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < snapshots.size() - retain; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+}
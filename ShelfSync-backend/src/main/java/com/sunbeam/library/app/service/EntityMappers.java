@@ -0,0 +1,86 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.dto.BookCopyDTO;
+import com.sunbeam.library.app.dto.BookDTO;
+import com.sunbeam.library.app.dto.IssueRecordDTO;
+import com.sunbeam.library.app.entity.ArchivedIssueRecord;
+import com.sunbeam.library.app.entity.Book;
+import com.sunbeam.library.app.entity.BookCopy;
+import com.sunbeam.library.app.entity.IssueRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entity-to-DTO mappers shared by the services. They only read columns and
+ * association ids, so they never trigger a lazy load beyond what the caller
+ * has already fetched, and list mapping pre-sizes its result instead of
+ * going through a stream collector.
+ */
+final class EntityMappers {
+
+    private EntityMappers() {
+    }
+
+    static BookDTO toBookDTO(Book book, long totalCopies, long availableCopies) {
+        BookDTO dto = new BookDTO();
+        dto.setId(book.getId());
+        dto.setName(book.getName());
+        dto.setAuthor(book.getAuthor());
+        dto.setSubject(book.getSubject());
+        dto.setIsbn(book.getIsbn());
+        dto.setPrice(book.getPrice());
+        dto.setTotalCopies(totalCopies);
+        dto.setAvailableCopies(availableCopies);
+        return dto;
+    }
+
+    static BookCopyDTO toBookCopyDTO(BookCopy copy) {
+        Book book = copy.getBook();
+        BookCopyDTO dto = new BookCopyDTO();
+        dto.setId(copy.getId());
+        dto.setBookId(book.getId());
+        dto.setBookName(book.getName());
+        dto.setRack(copy.getRack());
+        dto.setStatus(copy.getStatus());
+        return dto;
+    }
+
+    static List<BookCopyDTO> toBookCopyDTOs(List<BookCopy> copies) {
+        List<BookCopyDTO> dtos = new ArrayList<>(copies.size());
+        for (BookCopy copy : copies) {
+            dtos.add(toBookCopyDTO(copy));
+        }
+        return dtos;
+    }
+
+    static IssueRecordDTO toIssueRecordDTO(IssueRecord record) {
+        BookCopy copy = record.getBookCopy();
+        Book book = copy.getBook();
+        IssueRecordDTO dto = new IssueRecordDTO();
+        dto.setId(record.getId());
+        dto.setMemberId(record.getMember().getId());
+        dto.setBookName(book.getName());
+        dto.setBookAuthor(book.getAuthor());
+        dto.setCopyId(copy.getId());
+        dto.setIssueDate(record.getIssueDate());
+        dto.setDueDate(record.getDueDate());
+        dto.setReturnDate(record.getReturnDate());
+        dto.setFine(record.getFine());
+        return dto;
+    }
+
+    static IssueRecordDTO toIssueRecordDTO(ArchivedIssueRecord record) {
+        IssueRecordDTO dto = new IssueRecordDTO();
+        dto.setId(record.getId());
+        dto.setMemberId(record.getMemberId());
+        dto.setBookName(record.getBookName());
+        dto.setBookAuthor(record.getBookAuthor());
+        dto.setCopyId(record.getCopyId());
+        dto.setIssueDate(record.getIssueDate());
+        dto.setDueDate(record.getDueDate());
+        dto.setReturnDate(record.getReturnDate());
+        dto.setFine(record.getFine());
+        return dto;
+    }
+}
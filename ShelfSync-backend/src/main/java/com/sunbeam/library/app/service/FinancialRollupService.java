@@ -0,0 +1,163 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.entity.ArchivedPayment;
+import com.sunbeam.library.app.entity.Payment;
+import com.sunbeam.library.app.entity.PaymentRollup;
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.enums.OutboxStatus;
+import com.sunbeam.library.app.enums.PaymentType;
+import com.sunbeam.library.app.enums.RollupGranularity;
+import com.sunbeam.library.app.event.DomainEvent;
+import com.sunbeam.library.app.event.DomainEventConsumer;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.repository.ArchivedPaymentRepository;
+import com.sunbeam.library.app.repository.OutboxEventRepository;
+import com.sunbeam.library.app.repository.PaymentRepository;
+import com.sunbeam.library.app.repository.PaymentRollupRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Maintains the daily and monthly {@link PaymentRollup} rows.
+ * <p>
+ * Day rows are updated incrementally from MEMBERSHIP_PAID / FINE_ASSESSED
+ * outbox events (in the relay transaction, so each event is counted once).
+ * Fines are collected at the moment they are assessed (on return), so today
+ * "assessed" and "collected" move together; they are kept apart so reports
+ * stay correct once deferred fine payment exists.
+ */
+@Service
+public class FinancialRollupService implements DomainEventConsumer {
+
+    @Autowired private PaymentRollupRepository paymentRollupRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private ArchivedPaymentRepository archivedPaymentRepository;
+    @Autowired private OutboxEventRepository outboxEventRepository;
+
+    private static final Set<DomainEventType> PAYMENT_EVENTS =
+            EnumSet.of(DomainEventType.MEMBERSHIP_PAID, DomainEventType.FINE_ASSESSED);
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        LocalDate day = event.occurredAt().toLocalDate();
+        switch (event.type()) {
+            case MEMBERSHIP_PAID -> {
+                addMembership(rollupFor(RollupGranularity.DAY, day), event.amount());
+                addMembership(rollupFor(RollupGranularity.MONTH, day.withDayOfMonth(1)), event.amount());
+            }
+            case FINE_ASSESSED -> {
+                addFine(rollupFor(RollupGranularity.DAY, day), event.amount());
+                addFine(rollupFor(RollupGranularity.MONTH, day.withDayOfMonth(1)), event.amount());
+            }
+            default -> { }
+        }
+    }
+
+    /**
+     * Rebuilds day rows in [from, to] from the payments table, then re-derives
+     * the monthly rows of every month touched from their day rows. {@code to}
+     * is capped at yesterday: today's row belongs to the incremental path.
+     * A payment event still pending in the outbox would be added again on top
+     * of the rebuilt row, so the backfill is refused until the relay has
+     * delivered every payment event of the range. Re-running it over the same
+     * range gives the same rows.
+     *
+     * @return number of payments aggregated
+     */
+    @Transactional
+    public int backfill(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BusinessRuleException(ErrorCode.INVALID_DATE_RANGE);
+        }
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        if (to.isAfter(yesterday)) {
+            to = yesterday;
+        }
+        if (from.isAfter(to)) {
+            return 0;
+        }
+
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay().minusNanos(1);
+        List<Payment> payments = paymentRepository.findByTransactionTimeBetween(start, end);
+        List<ArchivedPayment> archived = archivedPaymentRepository.findByTransactionTimeBetween(start, end);
+        // Checked after the reads: the event of every payment read above committed with it, so is seen here
+        if (outboxEventRepository.existsByTypeInAndStatusAndOccurredAtBetween(PAYMENT_EVENTS, OutboxStatus.PENDING,
+                start, end)) {
+            throw new BusinessRuleException(ErrorCode.ROLLUP_EVENTS_PENDING);
+        }
+
+        TreeMap<LocalDate, PaymentRollup> days = new TreeMap<>();
+        for (Payment payment : payments) {
+            addToDay(days, payment.getTransactionTime(), payment.getType(), payment.getAmount());
+        }
+        for (ArchivedPayment payment : archived) {
+            addToDay(days, payment.getTransactionTime(), payment.getType(), payment.getAmount());
+        }
+        paymentRollupRepository.deletePeriods(RollupGranularity.DAY, from, to);
+        paymentRollupRepository.saveAll(days.values());
+
+        for (LocalDate month = from.withDayOfMonth(1); !month.isAfter(to); month = month.plusMonths(1)) {
+            PaymentRollup total = newRollup(RollupGranularity.MONTH, month);
+            for (PaymentRollup day : paymentRollupRepository.findByGranularityAndPeriodStartBetween(
+                    RollupGranularity.DAY, month, month.with(TemporalAdjusters.lastDayOfMonth()))) {
+                merge(total, day);
+            }
+            paymentRollupRepository.deletePeriods(RollupGranularity.MONTH, month, month);
+            paymentRollupRepository.save(total);
+        }
+        return payments.size() + archived.size();
+    }
+
+    private static void addToDay(TreeMap<LocalDate, PaymentRollup> days, LocalDateTime time, PaymentType type,
+                                 BigDecimal amount) {
+        PaymentRollup rollup = days.computeIfAbsent(time.toLocalDate(), d -> newRollup(RollupGranularity.DAY, d));
+        if (type == PaymentType.MEMBERSHIP) {
+            addMembership(rollup, amount);
+        } else {
+            addFine(rollup, amount);
+        }
+    }
+
+    static void merge(PaymentRollup into, PaymentRollup from) {
+        into.setMembershipRevenue(into.getMembershipRevenue().add(from.getMembershipRevenue()));
+        into.setFineRevenue(into.getFineRevenue().add(from.getFineRevenue()));
+        into.setFinesAssessed(into.getFinesAssessed().add(from.getFinesAssessed()));
+        into.setMembershipCount(into.getMembershipCount() + from.getMembershipCount());
+        into.setFineCount(into.getFineCount() + from.getFineCount());
+    }
+
+    private PaymentRollup rollupFor(RollupGranularity granularity, LocalDate periodStart) {
+        return paymentRollupRepository.findByGranularityAndPeriodStart(granularity, periodStart)
+                .orElseGet(() -> paymentRollupRepository.save(newRollup(granularity, periodStart)));
+    }
+
+    private static PaymentRollup newRollup(RollupGranularity granularity, LocalDate periodStart) {
+        PaymentRollup rollup = new PaymentRollup();
+        rollup.setGranularity(granularity);
+        rollup.setPeriodStart(periodStart);
+        return rollup;
+    }
+
+    private static void addMembership(PaymentRollup rollup, BigDecimal amount) {
+        rollup.setMembershipRevenue(rollup.getMembershipRevenue().add(amount));
+        rollup.setMembershipCount(rollup.getMembershipCount() + 1);
+    }
+
+    private static void addFine(PaymentRollup rollup, BigDecimal amount) {
+        rollup.setFinesAssessed(rollup.getFinesAssessed().add(amount));
+        rollup.setFineRevenue(rollup.getFineRevenue().add(amount));
+        rollup.setFineCount(rollup.getFineCount() + 1);
+    }
+}
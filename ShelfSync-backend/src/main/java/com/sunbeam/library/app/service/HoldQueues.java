@@ -0,0 +1,133 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.cache.InvalidationListener;
+import com.sunbeam.library.app.enums.CacheRegion;
+import com.sunbeam.library.app.repository.HoldRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory mirror of the WAITING holds, one FIFO per book, so a return can
+ * pick the next member without scanning the holds table. A book's queue is
+ * reloaded on every node when a hold is placed on it. The database stays
+ * the source of truth: a polled hold is re-checked under a row lock, and
+ * polls made by a transaction that rolls back are pushed back to the front.
+ * A book's deque is never replaced, and every change to it is made while
+ * holding the deque's monitor, so a reload cannot drop a concurrent change.
+ */
+@Component
+class HoldQueues implements InvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldQueues.class);
+
+    @Autowired private HoldRepository holdRepository;
+    @Autowired private BranchDirectory branchDirectory;
+
+    private final Map<Long, Deque<Long>> queues = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        // Book ids are unique across branches, so one map serves every branch
+        branchDirectory.forEachBranch(() -> {
+            List<Object[]> entries = holdRepository.findWaitingQueueEntries();
+            for (Object[] entry : entries) {
+                Deque<Long> queue = queue((Long) entry[0]);
+                synchronized (queue) {
+                    queue.offerLast((Long) entry[1]);
+                }
+            }
+            log.info("Loaded {} waiting holds for branch {}", entries.size(), BranchContext.current());
+        });
+    }
+
+    /** Replaces a book's queue with the waiting holds in the database, when a hold is placed on any node. */
+    @Override
+    public void invalidate(CacheRegion region, String key) {
+        if (region != CacheRegion.HOLD_QUEUE || key == null) {
+            return;
+        }
+        Long bookId = Long.valueOf(key);
+        List<Long> waiting = holdRepository.findWaitingIdsByBookId(bookId);
+        Deque<Long> queue = queue(bookId);
+        synchronized (queue) {
+            queue.clear();
+            queue.addAll(waiting);
+        }
+    }
+
+    void removeAfterCommit(Long bookId, Long holdId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Deque<Long> queue = queue(bookId);
+                synchronized (queue) {
+                    queue.remove(holdId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Takes the head of the book's queue for the current transaction. Every hold
+     * polled by a transaction is restored, in order, if that transaction rolls back.
+     */
+    Long poll(Long bookId) {
+        Deque<Long> queue = queue(bookId);
+        Long holdId;
+        synchronized (queue) {
+            holdId = queue.pollFirst();
+        }
+        if (holdId != null) {
+            pollsOf(bookId).add(holdId);
+        }
+        return holdId;
+    }
+
+    private List<Long> pollsOf(Long bookId) {
+        String resourceKey = HoldQueues.class.getName() + ".polls." + bookId;
+        @SuppressWarnings("unchecked")
+        List<Long> polls = (List<Long>) TransactionSynchronizationManager.getResource(resourceKey);
+        if (polls == null) {
+            List<Long> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(resourceKey, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(resourceKey);
+                    if (status == STATUS_ROLLED_BACK) {
+                        Deque<Long> queue = queue(bookId);
+                        synchronized (queue) {
+                            // A reload since the poll may already have put them back
+                            for (int i = created.size() - 1; i >= 0; i--) {
+                                if (!queue.contains(created.get(i))) {
+                                    queue.offerFirst(created.get(i));
+                                }
+                            }
+                        }
+                    }
+                }
+            });
+            polls = created;
+        }
+        return polls;
+    }
+
+    private Deque<Long> queue(Long bookId) {
+        return queues.computeIfAbsent(bookId, id -> new ArrayDeque<>());
+    }
+}
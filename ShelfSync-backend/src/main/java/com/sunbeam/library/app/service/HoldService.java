@@ -0,0 +1,263 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.cache.InvalidationBus;
+import com.sunbeam.library.app.cluster.ClusterScheduler;
+import com.sunbeam.library.app.cluster.JobContext;
+import com.sunbeam.library.app.cluster.JobSchedule;
+import com.sunbeam.library.app.dto.HoldDTO;
+import com.sunbeam.library.app.entity.Book;
+import com.sunbeam.library.app.entity.BookCopy;
+import com.sunbeam.library.app.entity.Hold;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.BookStatus;
+import com.sunbeam.library.app.enums.CacheRegion;
+import com.sunbeam.library.app.enums.CatalogChangeType;
+import com.sunbeam.library.app.enums.HoldStatus;
+import com.sunbeam.library.app.enums.PaymentType;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.exception.ResourceNotFoundException;
+import com.sunbeam.library.app.repository.BookCopyRepository;
+import com.sunbeam.library.app.repository.BookRepository;
+import com.sunbeam.library.app.repository.HoldRepository;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Per-title waitlists. A returned copy goes straight to the next waiting
+ * member as RESERVED and is held for them for a pickup window; if they do not
+ * collect it in time (or cancel), it moves on to the next in line. A member
+ * who could not borrow it when their turn comes (membership not paid) has the
+ * hold expired and is passed over.
+ * <p>
+ * Every path that moves a reserved copy on (issue, checkout, return, cancel,
+ * expiry) locks the copy's row before the hold's, so an issue racing a cancel
+ * or an expiry waits for it and then sees its outcome.
+ */
+@Service
+public class HoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldService.class);
+    private static final Set<HoldStatus> ACTIVE = EnumSet.of(HoldStatus.WAITING, HoldStatus.READY);
+
+    @Autowired private HoldRepository holdRepository;
+    @Autowired private BookRepository bookRepository;
+    @Autowired private BookCopyRepository bookCopyRepository;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private HoldQueues holdQueues;
+    @Autowired private CatalogChangeLog catalogChangeLog;
+    @Autowired private InvalidationBus invalidationBus;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ClusterScheduler clusterScheduler;
+
+    @Value("${holds.pickup-window-hours:48}")
+    private long pickupWindowHours;
+
+    @Value("${holds.sweep-interval-ms:60000}")
+    private long sweepIntervalMs;
+
+    @PostConstruct
+    void scheduleSweep() {
+        clusterScheduler.register("hold-sweep", JobSchedule.fixedDelay(sweepIntervalMs), this::sweep);
+    }
+
+    @Transactional
+    public HoldDTO placeHold(String email, Long bookId) {
+        Member member = getMemberByEmail(email);
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.BOOK_NOT_FOUND, "Book not found with ID: " + bookId));
+
+        if (bookCopyRepository.countByBookAndStatus(book, BookStatus.AVAILABLE) > 0) {
+            throw new BusinessRuleException(ErrorCode.HOLD_NOT_NEEDED);
+        }
+        if (holdRepository.existsByMemberAndBookAndStatusIn(member, book, ACTIVE)) {
+            throw new BusinessRuleException(ErrorCode.HOLD_ALREADY_PLACED);
+        }
+
+        Hold hold = new Hold();
+        hold.setMember(member);
+        hold.setBook(book);
+        hold.setStatus(HoldStatus.WAITING);
+        hold.setRequestedAt(LocalDateTime.now());
+        Hold saved = holdRepository.save(hold);
+        // Every node's queue for the book is reloaded once this commits
+        invalidationBus.publish(CacheRegion.HOLD_QUEUE, bookId);
+        return mapToHoldDTO(saved);
+    }
+
+    public List<HoldDTO> getMyHolds(String email) {
+        return getMyHolds(getMemberByEmail(email));
+    }
+
+    List<HoldDTO> getMyHolds(Member member) {
+        return holdRepository.findByMemberAndStatusInOrderByRequestedAtDesc(member, ACTIVE).stream()
+                .map(this::mapToHoldDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void cancelHold(String email, Long holdId) {
+        Member member = getMemberByEmail(email);
+        Hold hold = lockHold(holdId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.HOLD_NOT_FOUND));
+        if (!hold.getMember().getId().equals(member.getId())) {
+            throw new BusinessRuleException(ErrorCode.NOT_HOLD_OWNER);
+        }
+
+        HoldStatus previous = hold.getStatus();
+        if (!ACTIVE.contains(previous)) {
+            throw new BusinessRuleException(ErrorCode.HOLD_NOT_ACTIVE);
+        }
+        hold.setStatus(HoldStatus.CANCELLED);
+        if (previous == HoldStatus.WAITING) {
+            holdQueues.removeAfterCommit(hold.getBook().getId(), holdId);
+        } else {
+            releaseCopy(hold.getCopy());
+        }
+    }
+
+    /**
+     * Hands {@code copy} to the next waiting member, if any. Must run inside the
+     * caller's transaction (the return, cancellation or expiry that freed it).
+     *
+     * @return true if the copy is now RESERVED for someone
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public boolean allocate(BookCopy copy) {
+        Long bookId = copy.getBook().getId();
+        Long holdId;
+        while ((holdId = holdQueues.poll(bookId)) != null) {
+            Hold hold = holdRepository.findByIdForUpdate(holdId).orElse(null);
+            if (hold == null || hold.getStatus() != HoldStatus.WAITING) {
+                continue; // cancelled since it was queued
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (!canBorrow(hold.getMember())) {
+                // Reserving the copy would only keep it off the shelf until the pickup window ran out
+                hold.setStatus(HoldStatus.EXPIRED);
+                log.info("Expired hold {}: member {} cannot borrow", holdId, hold.getMember().getId());
+                continue;
+            }
+            hold.setStatus(HoldStatus.READY);
+            hold.setCopy(copy);
+            hold.setReadyAt(now);
+            hold.setPickupDeadline(now.plusHours(pickupWindowHours));
+            copy.setStatus(BookStatus.RESERVED);
+            invalidationBus.publish(CacheRegion.COPY, copy.getId());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether {@code copy} is reserved for {@code member} and may be borrowed by
+     * them. The caller has locked the copy ({@code findByIdForUpdate}); the hold
+     * stays locked until its transaction ends.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public boolean isReservedFor(BookCopy copy, Member member) {
+        return copy.getStatus() == BookStatus.RESERVED
+                && holdRepository.findReadyForUpdate(copy, member).isPresent();
+    }
+
+    /** Marks the member's READY hold on {@code copy} as picked up; called when the copy is issued. */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void fulfil(BookCopy copy, Member member) {
+        holdRepository.findReadyForUpdate(copy, member)
+                .ifPresent(hold -> hold.setStatus(HoldStatus.FULFILLED));
+    }
+
+    /**
+     * Expires uncollected reservations and hands their copies on, then catches
+     * any copy that went back on the shelf while a hold was being placed.
+     */
+    void sweep(JobContext context) {
+        for (Long holdId : holdRepository.findExpiredReadyIds(LocalDateTime.now())) {
+            transactionTemplate.executeWithoutResult(status -> {
+                Hold hold = lockHold(holdId).orElse(null);
+                if (hold == null || hold.getStatus() != HoldStatus.READY
+                        || !hold.getPickupDeadline().isBefore(LocalDateTime.now())) {
+                    return;
+                }
+                hold.setStatus(HoldStatus.EXPIRED);
+                releaseCopy(hold.getCopy());
+                context.addRows(1);
+            });
+        }
+
+        for (Long copyId : bookCopyRepository.findAvailableIdsWithWaitingHolds()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                BookCopy copy = bookCopyRepository.findByIdForUpdate(copyId).orElse(null);
+                if (copy != null && copy.getStatus() == BookStatus.AVAILABLE && allocate(copy)) {
+                    catalogChangeLog.record(copy.getBook().getId(), CatalogChangeType.AVAILABILITY_CHANGED);
+                    invalidationBus.publish(CacheRegion.CATALOG, copy.getBook().getId());
+                    log.info("Reserved shelved copy {} for a waiting hold", copyId);
+                    context.addRows(1);
+                }
+            });
+        }
+    }
+
+    // The reserved copy first, then the hold, as on the issue path
+    private Optional<Hold> lockHold(Long holdId) {
+        holdRepository.findCopyIdById(holdId).ifPresent(bookCopyRepository::findByIdForUpdate);
+        return holdRepository.findByIdForUpdate(holdId);
+    }
+
+    // A reserved copy that nobody took: next in line, or back on the shelf.
+    private void releaseCopy(BookCopy copy) {
+        if (allocate(copy)) {
+            return;
+        }
+        copy.setStatus(BookStatus.AVAILABLE);
+        invalidationBus.publish(CacheRegion.COPY, copy.getId());
+        catalogChangeLog.record(copy.getBook().getId(), CatalogChangeType.AVAILABILITY_CHANGED);
+        invalidationBus.publish(CacheRegion.CATALOG, copy.getBook().getId());
+    }
+
+    // Same rule as issuing at the counter
+    private boolean canBorrow(Member member) {
+        return paymentRepository.findTopByMemberAndTypeOrderByDueDateDesc(member, PaymentType.MEMBERSHIP)
+                .map(payment -> payment.getDueDate().isAfter(LocalDate.now()))
+                .orElse(false);
+    }
+
+    private Member getMemberByEmail(String email) {
+        return memberRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.MEMBER_NOT_FOUND, "Member not found with email: " + email));
+    }
+
+    private HoldDTO mapToHoldDTO(Hold hold) {
+        HoldDTO.HoldDTOBuilder builder = HoldDTO.builder()
+                .id(hold.getId())
+                .bookId(hold.getBook().getId())
+                .bookName(hold.getBook().getName())
+                .status(hold.getStatus())
+                .requestedAt(hold.getRequestedAt());
+        if (hold.getStatus() == HoldStatus.WAITING) {
+            builder.queuePosition((int) holdRepository.countWaitingAhead(hold.getBook().getId(), hold.getId()));
+        } else if (hold.getCopy() != null) {
+            builder.copyId(hold.getCopy().getId())
+                    .rack(hold.getCopy().getRack())
+                    .pickupDeadline(hold.getPickupDeadline());
+        }
+        return builder.build();
+    }
+}
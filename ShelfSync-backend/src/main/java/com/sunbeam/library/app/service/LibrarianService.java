@@ -1,20 +1,29 @@
 package com.sunbeam.library.app.service;
 
+import com.sunbeam.library.app.cache.InvalidationBus;
 import com.sunbeam.library.app.dto.AddBookRequestDTO;
 import com.sunbeam.library.app.dto.AddCopyRequestDTO;
+import com.sunbeam.library.app.dto.BookCopyDTO;
+import com.sunbeam.library.app.dto.BookDTO;
+import com.sunbeam.library.app.dto.IssueRecordDTO;
 import com.sunbeam.library.app.entity.Book;
 import com.sunbeam.library.app.entity.BookCopy;
 import com.sunbeam.library.app.entity.IssueRecord;
 import com.sunbeam.library.app.entity.Member;
 import com.sunbeam.library.app.entity.Payment;
 import com.sunbeam.library.app.enums.BookStatus;
+import com.sunbeam.library.app.enums.CacheRegion;
+import com.sunbeam.library.app.enums.CatalogChangeType;
 import com.sunbeam.library.app.enums.PaymentType;
+import com.sunbeam.library.app.event.OutboxPublisher;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.exception.ResourceNotFoundException;
 import com.sunbeam.library.app.repository.BookCopyRepository;
 import com.sunbeam.library.app.repository.BookRepository;
 import com.sunbeam.library.app.repository.IssueRecordRepository;
 import com.sunbeam.library.app.repository.MemberRepository;
 import com.sunbeam.library.app.repository.PaymentRepository;
-import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -34,25 +43,32 @@ public class LibrarianService {
     @Autowired private BookCopyRepository bookCopyRepository;
     @Autowired private IssueRecordRepository issueRecordRepository;
     @Autowired private PaymentRepository paymentRepository;
+    @Autowired private InvalidationBus invalidationBus;
+    @Autowired private CatalogChangeLog catalogChangeLog;
+    @Autowired private OutboxPublisher outboxPublisher;
+    @Autowired private HoldService holdService;
 
     private static final int LENDING_PERIOD_DAYS = 7;
     private static final BigDecimal FINE_PER_DAY = new BigDecimal("5.00");
 
     @Transactional
-    public Book addBook(AddBookRequestDTO requestDTO) {
+    public BookDTO addBook(AddBookRequestDTO requestDTO) {
         Book book = new Book();
         book.setName(requestDTO.getName());
         book.setAuthor(requestDTO.getAuthor());
         book.setSubject(requestDTO.getSubject());
         book.setIsbn(requestDTO.getIsbn());
         book.setPrice(requestDTO.getPrice());
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        catalogChangeLog.record(saved.getId(), CatalogChangeType.BOOK_ADDED);
+        invalidationBus.publish(CacheRegion.CATALOG, saved.getId());
+        return EntityMappers.toBookDTO(saved, 0, 0);
     }
 
     @Transactional
-    public List<BookCopy> addCopies(AddCopyRequestDTO requestDTO) {
+    public List<BookCopyDTO> addCopies(AddCopyRequestDTO requestDTO) {
         Book book = bookRepository.findById(requestDTO.getBookId())
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with ID: " + requestDTO.getBookId()));
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.BOOK_NOT_FOUND, "Book not found with ID: " + requestDTO.getBookId()));
 
         List<BookCopy> newCopies = new ArrayList<>();
         for (int i = 0; i < requestDTO.getNumberOfCopies(); i++) {
@@ -63,20 +79,24 @@ public class LibrarianService {
             newCopies.add(copy);
         }
 
-        return bookCopyRepository.saveAll(newCopies);
+        catalogChangeLog.record(book.getId(), CatalogChangeType.COPIES_ADDED);
+        invalidationBus.publish(CacheRegion.CATALOG, book.getId());
+        return EntityMappers.toBookCopyDTOs(bookCopyRepository.saveAll(newCopies));
     }
 
     @Transactional
-    public IssueRecord issueBook(long memberId, long copyId) {
+    public IssueRecordDTO issueBook(long memberId, long copyId) {
         Member member = memberRepository.findById(memberId)
-                .orElseThrow(() -> new EntityNotFoundException("Member not found"));
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.MEMBER_NOT_FOUND));
 
-        BookCopy copy = bookCopyRepository.findById(copyId)
-                .orElseThrow(() -> new EntityNotFoundException("Book Copy not found"));
+        // Locked before its hold (see HoldService), so a cancel or expiry of the reservation waits for this issue
+        BookCopy copy = bookCopyRepository.findByIdForUpdate(copyId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.COPY_NOT_FOUND));
 
-        // Rule 1: Check if copy is available
-        if (copy.getStatus() != BookStatus.AVAILABLE) {
-            throw new RuntimeException("Book copy is not available for issue.");
+        // Rule 1: Check if copy is available (or reserved for this member's hold)
+        boolean reservedForMember = holdService.isReservedFor(copy, member);
+        if (copy.getStatus() != BookStatus.AVAILABLE && !reservedForMember) {
+            throw new BusinessRuleException(ErrorCode.COPY_NOT_AVAILABLE);
         }
 
         // Rule 2: Check if member is a paid user
@@ -85,11 +105,18 @@ public class LibrarianService {
                 .orElse(false);
 
         if (!isPaid) {
-            throw new RuntimeException("Member has not paid the membership fee.");
+            throw new BusinessRuleException(ErrorCode.MEMBERSHIP_UNPAID);
         }
 
         // Process the issue
+        if (reservedForMember) {
+            holdService.fulfil(copy, member);
+        } else {
+            catalogChangeLog.record(copy.getBook().getId(), CatalogChangeType.AVAILABILITY_CHANGED);
+            invalidationBus.publish(CacheRegion.CATALOG, copy.getBook().getId());
+        }
         copy.setStatus(BookStatus.ISSUED);
+        invalidationBus.publish(CacheRegion.COPY, copy.getId());
         bookCopyRepository.save(copy);
 
         IssueRecord issueRecord = new IssueRecord();
@@ -98,19 +125,26 @@ public class LibrarianService {
         issueRecord.setIssueDate(LocalDate.now());
         issueRecord.setDueDate(LocalDate.now().plusDays(LENDING_PERIOD_DAYS));
 
-        return issueRecordRepository.save(issueRecord);
+        IssueRecord saved = issueRecordRepository.save(issueRecord);
+        outboxPublisher.copyIssued(saved);
+        return EntityMappers.toIssueRecordDTO(saved);
     }
 
     @Transactional
-    public IssueRecord returnBook(long copyId) {
-        BookCopy copy = bookCopyRepository.findById(copyId)
-                .orElseThrow(() -> new EntityNotFoundException("Book Copy not found"));
+    public IssueRecordDTO returnBook(long copyId) {
+        BookCopy copy = bookCopyRepository.findByIdForUpdate(copyId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.COPY_NOT_FOUND));
 
         IssueRecord issueRecord = issueRecordRepository.findByBookCopyAndReturnDateIsNull(copy)
-                .orElseThrow(() -> new RuntimeException("No active issue record found for this copy."));
+                .orElseThrow(() -> new BusinessRuleException(ErrorCode.NO_ACTIVE_ISSUE));
 
-        // Process the return
-        copy.setStatus(BookStatus.AVAILABLE);
+        // Process the return: the next member on the waitlist gets it, otherwise it goes back on the shelf
+        if (!holdService.allocate(copy)) {
+            copy.setStatus(BookStatus.AVAILABLE);
+            invalidationBus.publish(CacheRegion.COPY, copy.getId());
+            catalogChangeLog.record(copy.getBook().getId(), CatalogChangeType.AVAILABILITY_CHANGED);
+            invalidationBus.publish(CacheRegion.CATALOG, copy.getBook().getId());
+        }
         bookCopyRepository.save(copy);
         
         issueRecord.setReturnDate(LocalDate.now());
@@ -128,10 +162,13 @@ public class LibrarianService {
             finePayment.setType(PaymentType.FINE);
             finePayment.setTransactionTime(LocalDateTime.now());
             paymentRepository.save(finePayment);
+            outboxPublisher.fineAssessed(issueRecord, finePayment);
         } else {
             issueRecord.setFine(BigDecimal.ZERO);
         }
         
-        return issueRecordRepository.save(issueRecord);
+        IssueRecord saved = issueRecordRepository.save(issueRecord);
+        outboxPublisher.copyReturned(saved);
+        return EntityMappers.toIssueRecordDTO(saved);
     }
 }
\ No newline at end of file
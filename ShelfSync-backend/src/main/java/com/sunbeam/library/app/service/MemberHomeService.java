@@ -0,0 +1,121 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.dto.CartItemDTO;
+import com.sunbeam.library.app.dto.HoldDTO;
+import com.sunbeam.library.app.dto.IssueRecordDTO;
+import com.sunbeam.library.app.dto.MemberDashboardDTO;
+import com.sunbeam.library.app.dto.MemberHomeDTO;
+import com.sunbeam.library.app.dto.MemberProfileDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.MemberHomeSection;
+import com.sunbeam.library.app.enums.RequestClass;
+import com.sunbeam.library.app.limit.RequestClassContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Everything the app's home and profile screens need in one call. The member and
+ * profile are looked up once, then each other requested section loads in its own
+ * read-only transaction on a small bounded pool, in the caller's branch and
+ * admission class (so sections count against the member connection share like
+ * any other member query). When the pool is saturated a section runs on the request
+ * thread instead, so the endpoint degrades to the sequential calls it replaces.
+ */
+@Service
+public class MemberHomeService {
+
+    private final MemberService memberService;
+    private final HoldService holdService;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService sectionPool;
+
+    public MemberHomeService(MemberService memberService, HoldService holdService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${member.home.threads:8}") int threads) {
+        this.memberService = memberService;
+        this.holdService = holdService;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        AtomicInteger counter = new AtomicInteger();
+        this.sectionPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(256), r -> {
+                    Thread thread = new Thread(r, "member-home-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public MemberHomeDTO getMemberHome(String email, Set<MemberHomeSection> sections) {
+        // Nothing touches the database on the request thread: with open-in-view it would keep that
+        // connection for the whole request while the sections wait for theirs from the same share
+        boolean needsProfile = sections.contains(MemberHomeSection.PROFILE) || sections.contains(MemberHomeSection.DASHBOARD);
+        MemberAndProfile resolved = join(load(() -> {
+            Member member = memberService.getMemberByEmail(email);
+            return new MemberAndProfile(member, needsProfile ? memberService.getMyProfile(member) : null);
+        }));
+        Member member = resolved.member();
+        MemberProfileDTO profile = resolved.profile();
+
+        CompletableFuture<MemberDashboardDTO> dashboard = sections.contains(MemberHomeSection.DASHBOARD)
+                ? load(() -> memberService.getMemberDashboard(member, profile)) : null;
+        CompletableFuture<List<IssueRecordDTO>> borrowed = sections.contains(MemberHomeSection.BORROWED)
+                ? load(() -> memberService.getMyBorrowedBooks(member)) : null;
+        CompletableFuture<List<CartItemDTO>> cart = sections.contains(MemberHomeSection.CART)
+                ? load(() -> memberService.viewCart(member)) : null;
+        CompletableFuture<List<HoldDTO>> holds = sections.contains(MemberHomeSection.HOLDS)
+                ? load(() -> holdService.getMyHolds(member)) : null;
+
+        return MemberHomeDTO.builder()
+                .dashboard(join(dashboard))
+                .profile(sections.contains(MemberHomeSection.PROFILE) ? profile : null)
+                .borrowed(join(borrowed))
+                .cart(join(cart))
+                .holds(join(holds))
+                .build();
+    }
+
+    private <T> CompletableFuture<T> load(Supplier<T> section) {
+        String branch = BranchContext.current();
+        RequestClass requestClass = RequestClassContext.current();
+        return CompletableFuture.supplyAsync(() -> BranchContext.callIn(branch,
+                () -> RequestClassContext.callIn(requestClass,
+                        () -> readOnly.execute(status -> section.get()))), sectionPool);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record MemberAndProfile(Member member, MemberProfileDTO profile) {
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sectionPool.shutdown();
+    }
+}
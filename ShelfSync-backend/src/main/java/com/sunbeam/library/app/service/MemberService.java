@@ -1,23 +1,47 @@
 package com.sunbeam.library.app.service;
 
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.cache.CatalogQueryCache;
+import com.sunbeam.library.app.cache.InvalidationBus;
 import com.sunbeam.library.app.dto.*;
 import com.sunbeam.library.app.entity.*;
 import com.sunbeam.library.app.enums.BookStatus;
+import com.sunbeam.library.app.enums.CacheRegion;
+import com.sunbeam.library.app.enums.CatalogChangeType;
 import com.sunbeam.library.app.enums.PaymentType;
+import com.sunbeam.library.app.event.OutboxPublisher;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.exception.ResourceNotFoundException;
+import com.sunbeam.library.app.recommendation.RecommendationService;
 import com.sunbeam.library.app.repository.*;
-import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,22 +54,38 @@ public class MemberService {
     @Autowired private PaymentRepository paymentRepository;
     @Autowired private CartItemRepository cartItemRepository;
     @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private CatalogQueryCache catalogQueryCache;
+    @Autowired private InvalidationBus invalidationBus;
+    @Autowired private CatalogChangeRepository catalogChangeRepository;
+    @Autowired private CatalogChangeLog catalogChangeLog;
+    @Autowired private OutboxPublisher outboxPublisher;
+    @Autowired private RecommendationService recommendationService;
+    @Autowired private HoldService holdService;
+    @Autowired private ArchivedIssueRecordRepository archivedIssueRecordRepository;
+    @Autowired private ArchivedPaymentRepository archivedPaymentRepository;
+    @Autowired private BranchDirectory branchDirectory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Value("${catalog.changes.visibility-lag-ms:30000}")
+    private long catalogChangeVisibilityLagMs;
 
     private static final int LENDING_PERIOD_DAYS = 7;
     private static final BigDecimal MEMBERSHIP_FEE = new BigDecimal("500.00");
     private static final BigDecimal FINE_PER_DAY = new BigDecimal("5.00");
+    private static final int DASHBOARD_RECOMMENDATIONS = 5;
 
-    private Member getMemberByEmail(String email) {
+    Member getMemberByEmail(String email) {
         return memberRepository.findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Member not found with email: " + email));
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.MEMBER_NOT_FOUND, "Member not found with email: " + email));
     }
 
     // --- MEMBER DASHBOARD ---
     public MemberDashboardDTO getMemberDashboard(String email) {
         Member member = getMemberByEmail(email);
+        return getMemberDashboard(member, mapToMemberProfileDTO(member));
+    }
 
-        MemberProfileDTO profile = mapToMemberProfileDTO(member);
-
+    MemberDashboardDTO getMemberDashboard(Member member, MemberProfileDTO profile) {
         List<IssueRecord> borrowingHistory = issueRecordRepository.findByMemberOrderByIssueDateDesc(member);
         List<IssueRecord> currentlyBorrowed = borrowingHistory.stream()
                 .filter(record -> record.getReturnDate() == null)
@@ -64,14 +104,27 @@ public class MemberService {
                 .map(this::mapToIssueRecordDTO)
                 .collect(Collectors.toList());
 
+        // Seed from the most recent borrows, skipping titles the member has already read.
+        Set<Long> alreadyBorrowed = new HashSet<>(archivedIssueRecordRepository.findDistinctBookIdsByMemberId(member.getId()));
+        borrowingHistory.forEach(record -> alreadyBorrowed.add(record.getBookCopy().getBook().getId()));
+        Set<Long> suggested = new LinkedHashSet<>();
+        for (IssueRecord record : borrowingHistory.subList(0, Math.min(3, borrowingHistory.size()))) {
+            for (long id : recommendationService.recommend(record.getBookCopy().getBook().getId())) {
+                if (suggested.size() < DASHBOARD_RECOMMENDATIONS && !alreadyBorrowed.contains(id)) {
+                    suggested.add(id);
+                }
+            }
+        }
+
         return MemberDashboardDTO.builder()
                 .memberName(profile.getName())
                 .isMembershipActive(profile.isMembershipActive())
                 .membershipDueDate(profile.getMembershipDueDate())
                 .currentlyBorrowedCount(currentlyBorrowed.size())
-                .totalBooksReadCount(borrowingHistory.size())
+                .totalBooksReadCount(borrowingHistory.size() + (int) archivedIssueRecordRepository.countByMemberId(member.getId()))
                 .outstandingFines(outstandingFines)
                 .recentActivity(recentActivity)
+                .recommendations(loadBooksInOrder(suggested))
                 .build();
     }
 
@@ -80,13 +133,13 @@ public class MemberService {
     public CartItemDTO addToCart(String email, Long copyId) {
         Member member = getMemberByEmail(email);
         BookCopy copy = bookCopyRepository.findById(copyId)
-                .orElseThrow(() -> new EntityNotFoundException("Book copy not found."));
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.COPY_NOT_FOUND));
 
-        if (copy.getStatus() != BookStatus.AVAILABLE) {
-            throw new RuntimeException("This book copy is not available.");
+        if (copy.getStatus() != BookStatus.AVAILABLE && !holdService.isReservedFor(copy, member)) {
+            throw new BusinessRuleException(ErrorCode.COPY_NOT_AVAILABLE);
         }
         if (cartItemRepository.findByBookCopyId(copyId).isPresent()) {
-            throw new RuntimeException("This book copy is already in someone's cart.");
+            throw new BusinessRuleException(ErrorCode.COPY_ALREADY_IN_CART);
         }
 
         CartItem cartItem = new CartItem();
@@ -99,7 +152,10 @@ public class MemberService {
     }
 
     public List<CartItemDTO> viewCart(String email) {
-        Member member = getMemberByEmail(email);
+        return viewCart(getMemberByEmail(email));
+    }
+
+    List<CartItemDTO> viewCart(Member member) {
         return cartItemRepository.findByMember(member).stream()
                 .map(this::mapToCartItemDTO)
                 .collect(Collectors.toList());
@@ -109,10 +165,10 @@ public class MemberService {
     public void removeFromCart(String email, Long cartItemId) {
         Member member = getMemberByEmail(email);
         CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new EntityNotFoundException("Cart item not found."));
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.CART_ITEM_NOT_FOUND));
 
         if (!cartItem.getMember().getId().equals(member.getId())) {
-            throw new SecurityException("You are not authorized to remove this item.");
+            throw new BusinessRuleException(ErrorCode.NOT_CART_OWNER);
         }
         cartItemRepository.delete(cartItem);
     }
@@ -121,10 +177,12 @@ public class MemberService {
     @Transactional
     public CheckoutResponseDTO checkoutAndBorrowFromCart(String email) {
         Member member = getMemberByEmail(email);
+        // Copies locked before their holds (see HoldService), and before the cart items reference them
+        bookCopyRepository.findInCartForUpdate(member);
         List<CartItem> cartItems = cartItemRepository.findByMember(member);
 
         if (cartItems.isEmpty()) {
-            throw new RuntimeException("Your cart is empty.");
+            throw new BusinessRuleException(ErrorCode.CART_EMPTY);
         }
 
         BigDecimal totalAmountToPay = BigDecimal.ZERO;
@@ -144,15 +202,24 @@ public class MemberService {
             membershipPayment.setTransactionTime(LocalDateTime.now());
             membershipPayment.setDueDate(LocalDate.now().plusMonths(1));
             paymentRepository.save(membershipPayment);
+            outboxPublisher.membershipPaid(membershipPayment);
+            invalidationBus.publish(CacheRegion.MEMBER, member.getEmail());
         }
 
         List<IssueRecord> newIssues = new ArrayList<>();
         for (CartItem item : cartItems) {
             BookCopy copy = item.getBookCopy();
-            if(copy.getStatus() != BookStatus.AVAILABLE) {
-                throw new RuntimeException("Book '" + copy.getBook().getName() + "' (Copy ID: " + copy.getId() + ") is no longer available.");
+            boolean reservedForMember = holdService.isReservedFor(copy, member);
+            if(copy.getStatus() != BookStatus.AVAILABLE && !reservedForMember) {
+                throw new BusinessRuleException(ErrorCode.COPY_NOT_AVAILABLE, "Book '" + copy.getBook().getName() + "' (Copy ID: " + copy.getId() + ") is no longer available.");
+            }
+            if (reservedForMember) {
+                holdService.fulfil(copy, member);
+            } else {
+                catalogChangeLog.record(copy.getBook().getId(), CatalogChangeType.AVAILABILITY_CHANGED);
             }
             copy.setStatus(BookStatus.ISSUED);
+            invalidationBus.publish(CacheRegion.COPY, copy.getId());
             bookCopyRepository.save(copy);
             
             IssueRecord issueRecord = new IssueRecord();
@@ -161,10 +228,13 @@ public class MemberService {
             issueRecord.setIssueDate(LocalDate.now());
             issueRecord.setDueDate(LocalDate.now().plusDays(LENDING_PERIOD_DAYS));
             issueRecord.setFine(BigDecimal.ZERO);
-            newIssues.add(issueRecordRepository.save(issueRecord));
+            IssueRecord savedIssue = issueRecordRepository.save(issueRecord);
+            outboxPublisher.copyIssued(savedIssue);
+            newIssues.add(savedIssue);
         }
 
         cartItemRepository.deleteByMember(member);
+        invalidationBus.publish(CacheRegion.CATALOG, null);
 
         List<IssueRecordDTO> borrowedBookDTOs = newIssues.stream().map(this::mapToIssueRecordDTO).collect(Collectors.toList());
 
@@ -177,47 +247,190 @@ public class MemberService {
     }
     
     // --- BOOK DISCOVERY SERVICES ---
+    // Catalog reads go to every branch database in parallel; see mergeByIsbn.
     public List<BookDTO> searchBooks(String query) {
-        List<Book> books = bookRepository.searchBooks(query);
-        return books.stream().map(this::mapToBookDTO).collect(Collectors.toList());
+        String normalizedQuery = CatalogQueryCache.normalize(query);
+        return catalogQueryCache.get("search:" + BranchContext.current() + ":" + normalizedQuery,
+                () -> mergeByIsbn(branchDirectory.fanOut(() -> branchCatalog(() -> bookRepository.searchBooks(normalizedQuery)))));
     }
 
     public List<BookDTO> getAllBooks() {
-        List<Book> books = bookRepository.findAll();
-        return books.stream().map(this::mapToBookDTO).collect(Collectors.toList());
+        return catalogQueryCache.get("all:" + BranchContext.current(),
+                () -> mergeByIsbn(branchDirectory.fanOut(() -> branchCatalog(bookRepository::findAll))));
+    }
+
+    private List<BookDTO> branchCatalog(Supplier<List<Book>> query) {
+        String branch = BranchContext.current();
+        return transactionTemplate.execute(status -> query.get().stream()
+                .map(book -> {
+                    BookDTO dto = mapToBookDTO(book);
+                    dto.setBranch(branch);
+                    return dto;
+                })
+                .toList());
+    }
+
+    /**
+     * One entry per title across branches, matched by ISBN, with copy counts summed.
+     * The caller's branch comes first, so a title it holds keeps that branch's id;
+     * a title only other branches hold is listed without an id, as nothing the
+     * caller can do with a book (holds, cart, copy lookups) reaches another branch.
+     */
+    private static List<BookDTO> mergeByIsbn(List<List<BookDTO>> perBranch) {
+        if (perBranch.size() == 1) {
+            return perBranch.get(0);
+        }
+        Map<String, BookDTO> merged = new LinkedHashMap<>();
+        for (int i = 0; i < perBranch.size(); i++) {
+            for (BookDTO book : perBranch.get(i)) {
+                String key = book.getIsbn() != null ? book.getIsbn() : book.getBranch() + ":" + book.getId();
+                BookDTO existing = merged.putIfAbsent(key, book);
+                if (existing != null) {
+                    existing.setTotalCopies(existing.getTotalCopies() + book.getTotalCopies());
+                    existing.setAvailableCopies(existing.getAvailableCopies() + book.getAvailableCopies());
+                } else if (i > 0) {
+                    book.setId(null);
+                }
+            }
+        }
+        return List.copyOf(merged.values());
+    }
+    
+    /**
+     * The version to sync on from after a full catalog download. Taken before the
+     * download, it is at most what the download shows; changes after it are
+     * returned by the next sync, possibly again.
+     */
+    public long getCatalogVersion() {
+        return settledCatalogVersion();
+    }
+
+    /**
+     * Books changed after {@code since}, a page at a time. While {@code hasMore} is
+     * set the client asks again with the same {@code since} and {@code after} set to
+     * {@code next}, and keeps the {@code version} of the last page for its next sync.
+     */
+    public CatalogChangesDTO getCatalogChanges(long since, long after, int limit) {
+        long latestVersion = catalogChangeRepository.findLatestVersion();
+        if (since > latestVersion) {
+            return CatalogChangesDTO.builder()
+                    .version(latestVersion)
+                    .next(latestVersion)
+                    .resetRequired(true)
+                    .books(List.of())
+                    .build();
+        }
+
+        long pageStart = Math.max(since, after);
+        List<Object[]> changed = catalogChangeRepository.findChangedBooksSince(pageStart, PageRequest.of(0, limit));
+        long pageVersion = pageStart;
+        List<Long> bookIds = new ArrayList<>(changed.size());
+        for (Object[] row : changed) {
+            bookIds.add((Long) row[0]);
+            pageVersion = (Long) row[1];
+        }
+        long version = Math.max(since, Math.min(pageVersion, settledCatalogVersion()));
+
+        List<BookDTO> books = bookRepository.findAllById(bookIds).stream()
+                .map(this::mapToBookDTO)
+                .collect(Collectors.toList());
+
+        return CatalogChangesDTO.builder()
+                .version(version)
+                .next(pageVersion)
+                .hasMore(changed.size() == limit)
+                .books(books)
+                .build();
+    }
+
+    // A change takes its id when it is inserted but is only seen once its transaction
+    // commits, so a lower id can still show up after a read. A version only moves past
+    // changes older than the visibility lag, when every lower id has committed or rolled
+    // back; newer changes are returned now and again on the next sync.
+    private long settledCatalogVersion() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(catalogChangeVisibilityLagMs));
+        return catalogChangeRepository.findFirstByChangedAtLessThanEqualOrderByIdDesc(cutoff)
+                .map(CatalogChange::getId)
+                .orElse(0L);
+    }
+    
+    public List<BookDTO> getRecommendations(Long bookId, int limit) {
+        if (!bookRepository.existsById(bookId)) {
+            throw new ResourceNotFoundException(ErrorCode.BOOK_NOT_FOUND, "Book not found with ID: " + bookId);
+        }
+        long[] recommended = recommendationService.recommend(bookId);
+        List<Long> ids = new ArrayList<>(Math.min(limit, recommended.length));
+        for (int i = 0; i < recommended.length && i < limit; i++) {
+            ids.add(recommended[i]);
+        }
+        return loadBooksInOrder(ids);
+    }
+
+    private List<BookDTO> loadBooksInOrder(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Book> byId = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToBookDTO)
+                .collect(Collectors.toList());
     }
     
     // --- ACCOUNT & HISTORY SERVICES ---
     public List<IssueRecordDTO> getMyBorrowedBooks(String email) {
-        Member member = getMemberByEmail(email);
+        return getMyBorrowedBooks(getMemberByEmail(email));
+    }
+
+    List<IssueRecordDTO> getMyBorrowedBooks(Member member) {
         return issueRecordRepository.findByMemberAndReturnDateIsNull(member)
                 .stream().map(this::mapToIssueRecordDTO).collect(Collectors.toList());
     }
 
+    // History spans the hot tables and the archive (see ArchivalService).
     public List<IssueRecordDTO> getMyBorrowingHistory(String email) {
         Member member = getMemberByEmail(email);
-        return issueRecordRepository.findByMemberOrderByIssueDateDesc(member)
+        List<IssueRecordDTO> history = issueRecordRepository.findByMemberOrderByIssueDateDesc(member)
                 .stream().map(this::mapToIssueRecordDTO).collect(Collectors.toList());
+        List<ArchivedIssueRecord> archived = archivedIssueRecordRepository.findByMemberIdOrderByIssueDateDesc(member.getId());
+        if (!archived.isEmpty()) {
+            archived.forEach(record -> history.add(EntityMappers.toIssueRecordDTO(record)));
+            history.sort(Comparator.comparing(IssueRecordDTO::getIssueDate).reversed());
+        }
+        return history;
     }
 
     public List<PaymentDTO> getMyPaymentHistory(String email) {
         Member member = getMemberByEmail(email);
-        return paymentRepository.findByMemberOrderByTransactionTimeDesc(member)
+        List<PaymentDTO> history = paymentRepository.findByMemberOrderByTransactionTimeDesc(member)
                 .stream().map(this::mapToPaymentDTO).collect(Collectors.toList());
+        List<ArchivedPayment> archived = archivedPaymentRepository.findByMemberIdOrderByTransactionTimeDesc(member.getId());
+        if (!archived.isEmpty()) {
+            archived.forEach(payment -> history.add(mapToPaymentDTO(payment)));
+            history.sort(Comparator.comparing(PaymentDTO::getTransactionTime).reversed());
+        }
+        return history;
     }
     
     public MemberProfileDTO getMyProfile(String email) {
-        Member member = getMemberByEmail(email);
+        return getMyProfile(getMemberByEmail(email));
+    }
+
+    MemberProfileDTO getMyProfile(Member member) {
         return mapToMemberProfileDTO(member);
     }
     
+    @Transactional
     public void changeMyPassword(String email, String oldPassword, String newPassword) {
         Member member = getMemberByEmail(email);
         if (!passwordEncoder.matches(oldPassword, member.getPassword())) {
-            throw new RuntimeException("Incorrect old password");
+            throw new BusinessRuleException(ErrorCode.INCORRECT_PASSWORD);
         }
         member.setPassword(passwordEncoder.encode(newPassword));
         memberRepository.save(member);
+        invalidationBus.publish(CacheRegion.MEMBER, email);
     }
 
     // --- PRIVATE MAPPERS ---
@@ -233,29 +446,12 @@ public class MemberService {
     }
 
     private BookDTO mapToBookDTO(Book book) {
-        BookDTO dto = new BookDTO();
-        dto.setId(book.getId());
-        dto.setName(book.getName());
-        dto.setAuthor(book.getAuthor());
-        dto.setSubject(book.getSubject());
-        dto.setIsbn(book.getIsbn());
-        dto.setPrice(book.getPrice());
-        dto.setTotalCopies(book.getCopies().size());
-        dto.setAvailableCopies(bookCopyRepository.countByBookAndStatus(book, BookStatus.AVAILABLE));
-        return dto;
+        return EntityMappers.toBookDTO(book, book.getCopies().size(),
+                bookCopyRepository.countByBookAndStatus(book, BookStatus.AVAILABLE));
     }
 
     private IssueRecordDTO mapToIssueRecordDTO(IssueRecord record) {
-        IssueRecordDTO dto = new IssueRecordDTO();
-        dto.setId(record.getId());
-        dto.setBookName(record.getBookCopy().getBook().getName());
-        dto.setBookAuthor(record.getBookCopy().getBook().getAuthor());
-        dto.setCopyId(record.getBookCopy().getId());
-        dto.setIssueDate(record.getIssueDate());
-        dto.setDueDate(record.getDueDate());
-        dto.setReturnDate(record.getReturnDate());
-        dto.setFine(record.getFine());
-        return dto;
+        return EntityMappers.toIssueRecordDTO(record);
     }
 
     private PaymentDTO mapToPaymentDTO(Payment payment) {
@@ -268,6 +464,16 @@ public class MemberService {
         return dto;
     }
 
+    private PaymentDTO mapToPaymentDTO(ArchivedPayment payment) {
+        PaymentDTO dto = new PaymentDTO();
+        dto.setId(payment.getId());
+        dto.setAmount(payment.getAmount());
+        dto.setType(payment.getType());
+        dto.setTransactionTime(payment.getTransactionTime());
+        dto.setDueDate(payment.getDueDate());
+        return dto;
+    }
+
     private MemberProfileDTO mapToMemberProfileDTO(Member member) {
         MemberProfileDTO dto = new MemberProfileDTO();
         dto.setId(member.getId());
@@ -285,7 +491,7 @@ public class MemberService {
 
     public List<BookCopyDTO> getAvailableCopiesForBook(Long bookId) {
     Book book = bookRepository.findById(bookId)
-            .orElseThrow(() -> new EntityNotFoundException("Book not found with ID: " + bookId));
+            .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.BOOK_NOT_FOUND, "Book not found with ID: " + bookId));
 
     return bookCopyRepository.findByBookAndStatus(book, BookStatus.AVAILABLE)
             .stream()
@@ -295,12 +501,6 @@ public class MemberService {
 
     // Add this new private mapper to the service
     private BookCopyDTO mapToBookCopyDTO(BookCopy copy) {
-        BookCopyDTO dto = new BookCopyDTO();
-        dto.setId(copy.getId());
-        dto.setBookId(copy.getBook().getId());
-        dto.setBookName(copy.getBook().getName());
-        dto.setRack(copy.getRack());
-        dto.setStatus(copy.getStatus());
-        return dto;
+        return EntityMappers.toBookCopyDTO(copy);
     }
 }
\ No newline at end of file
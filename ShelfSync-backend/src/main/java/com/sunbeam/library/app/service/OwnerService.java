@@ -1,14 +1,36 @@
 package com.sunbeam.library.app.service;
 
+import com.sunbeam.library.app.analytics.CirculationAnalytics;
+import com.sunbeam.library.app.branch.BranchDirectory;
 import com.sunbeam.library.app.dto.DashboardKpiDTO;
+import com.sunbeam.library.app.dto.FinancialReportDTO;
+import com.sunbeam.library.app.dto.TopItemDTO;
 import com.sunbeam.library.app.entity.Book;
+import com.sunbeam.library.app.entity.PaymentRollup;
+import com.sunbeam.library.app.enums.AnalyticsDimension;
+import com.sunbeam.library.app.enums.AnalyticsWindow;
+import com.sunbeam.library.app.enums.RollupGranularity;
+import com.sunbeam.library.app.journal.CirculationJournal;
+import com.sunbeam.library.app.journal.JournalRecord;
 import com.sunbeam.library.app.repository.BookCopyRepository;
 import com.sunbeam.library.app.repository.BookRepository;
 import com.sunbeam.library.app.repository.IssueRecordRepository;
 import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.repository.PaymentRollupRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OwnerService {
@@ -17,15 +39,28 @@ public class OwnerService {
     @Autowired private BookRepository bookRepository;
     @Autowired private BookCopyRepository bookCopyRepository;
     @Autowired private IssueRecordRepository issueRecordRepository;
-    // PaymentRepository would be used for financial reports
+    @Autowired private PaymentRollupRepository paymentRollupRepository;
+    @Autowired private CirculationAnalytics circulationAnalytics;
+    @Autowired private CirculationJournal circulationJournal;
+    @Autowired private BranchDirectory branchDirectory;
 
+    /** Library-wide figures: every branch database is counted and the results added up. */
     public DashboardKpiDTO getDashboardKpis() {
+        List<DashboardKpiDTO> perBranch = branchDirectory.fanOut(this::branchKpis);
+        return DashboardKpiDTO.builder()
+                .totalMembers(perBranch.stream().mapToLong(DashboardKpiDTO::getTotalMembers).sum())
+                .totalBooks(perBranch.stream().mapToLong(DashboardKpiDTO::getTotalBooks).sum())
+                .totalCopies(perBranch.stream().mapToLong(DashboardKpiDTO::getTotalCopies).sum())
+                .issuedCopies(perBranch.stream().mapToLong(DashboardKpiDTO::getIssuedCopies).sum())
+                .totalAssetValue(perBranch.stream().map(DashboardKpiDTO::getTotalAssetValue).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .build();
+    }
+
+    private DashboardKpiDTO branchKpis() {
         long totalMembers = memberRepository.count();
         long totalBooks = bookRepository.count();
         long totalCopies = bookCopyRepository.count();
-        long issuedCopies = issueRecordRepository.findAll().stream()
-                .filter(ir -> ir.getReturnDate() == null)
-                .count();
+        long issuedCopies = issueRecordRepository.countByReturnDateIsNull();
 
         // Calculate total asset value
         BigDecimal totalAssetValue = bookRepository.findAll().stream()
@@ -41,6 +76,88 @@ public class OwnerService {
                 .build();
     }
     
-    // In a real application, each report would have its own complex service method
-    // For example: public FinancialReportDTO getFinancialReport(DateRange range) { ... }
-}
\ No newline at end of file
+    /** Every journalled circulation and payment event for a member, oldest first. */
+    public List<JournalRecord> getMemberJournal(Long memberId) {
+        List<JournalRecord> records = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        try {
+            for (JournalRecord record : circulationJournal.memberRecords(memberId)) {
+                if (seen.add(record.eventId())) {
+                    records.add(record);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return records;
+    }
+
+    public List<TopItemDTO> getTopCirculating(AnalyticsDimension dimension, AnalyticsWindow window, int limit) {
+        List<Map.Entry<String, Long>> top = circulationAnalytics.top(dimension, window, limit);
+        if (dimension != AnalyticsDimension.BOOK) {
+            return top.stream()
+                    .map(e -> new TopItemDTO(e.getKey(), e.getKey(), e.getValue()))
+                    .collect(Collectors.toList());
+        }
+
+        // Analytics count issues of every branch, and ids are unique across branches
+        List<Long> bookIds = top.stream().map(e -> Long.valueOf(e.getKey())).collect(Collectors.toList());
+        Map<Long, Book> books = branchDirectory.fanOut(() -> bookRepository.findAllById(bookIds)).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return top.stream()
+                .map(e -> {
+                    Book book = books.get(Long.valueOf(e.getKey()));
+                    return new TopItemDTO(e.getKey(), book != null ? book.getName() : e.getKey(), e.getValue());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Answers from rollups only: whole calendar months inside the range come from
+     * MONTH rows, the partial months at either edge from DAY rows, so any range
+     * reads at most ~62 day rows plus one row per full month in each branch.
+     * Every branch database keeps rollups of its own payments; they are added up.
+     */
+    public FinancialReportDTO getFinancialReport(LocalDate from, LocalDate to) {
+        PaymentRollup total = new PaymentRollup();
+        branchDirectory.fanOut(() -> rollupRows(from, to))
+                .forEach(rows -> rows.forEach(row -> FinancialRollupService.merge(total, row)));
+
+        return FinancialReportDTO.builder()
+                .from(from)
+                .to(to)
+                .membershipRevenue(total.getMembershipRevenue())
+                .fineRevenue(total.getFineRevenue())
+                .totalRevenue(total.getMembershipRevenue().add(total.getFineRevenue()))
+                .finesAssessed(total.getFinesAssessed())
+                .finesCollected(total.getFineRevenue())
+                .newMemberships(total.getMembershipCount())
+                .build();
+    }
+
+    private List<PaymentRollup> rollupRows(LocalDate from, LocalDate to) {
+        List<PaymentRollup> rows = new ArrayList<>();
+        LocalDate cursor = from;
+        LocalDate firstFullMonth = null;
+        LocalDate lastFullMonth = null;
+        while (!cursor.isAfter(to)) {
+            LocalDate monthEnd = cursor.with(TemporalAdjusters.lastDayOfMonth());
+            if (cursor.getDayOfMonth() == 1 && !monthEnd.isAfter(to)) {
+                if (firstFullMonth == null) {
+                    firstFullMonth = cursor;
+                }
+                lastFullMonth = cursor;
+            } else {
+                LocalDate end = monthEnd.isAfter(to) ? to : monthEnd;
+                rows.addAll(paymentRollupRepository.findByGranularityAndPeriodStartBetween(RollupGranularity.DAY, cursor, end));
+            }
+            cursor = monthEnd.plusDays(1);
+        }
+        if (firstFullMonth != null) {
+            rows.addAll(paymentRollupRepository.findByGranularityAndPeriodStartBetween(
+                    RollupGranularity.MONTH, firstFullMonth, lastFullMonth));
+        }
+        return rows;
+    }
+}
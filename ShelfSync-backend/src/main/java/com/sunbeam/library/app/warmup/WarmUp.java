@@ -0,0 +1,219 @@
+package com.sunbeam.library.app.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sunbeam.library.app.analytics.CirculationAnalytics;
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.dto.BookDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.AnalyticsDimension;
+import com.sunbeam.library.app.enums.AnalyticsWindow;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.exception.ResourceNotFoundException;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.service.MemberService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Warms a freshly started node before the load balancer sends it traffic. The
+ * {@code readiness} health group includes this indicator, so
+ * {@code /actuator/health/readiness} answers 503 until the warm-up is over.
+ *
+ * <p>Every branch's connection pool is filled first. Then, {@code warmup.rounds}
+ * times per branch, the hot member paths run through the same services the
+ * controllers call, with their results serialized as a response would be:
+ * <ul>
+ *   <li>catalog browse and search, which fills the catalog read cache and the
+ *       second-level cache for books;</li>
+ *   <li>availability of the most borrowed books of the week (the first
+ *       {@code warmup.hot-books} books when there is no history yet), which fills
+ *       the availability query cache and the copy region;</li>
+ *   <li>the reads of the checkout and dashboard paths (member, membership,
+ *       cart, loans) for an existing account, in a read-only transaction, so the
+ *       warm-up never writes to a production table.</li>
+ * </ul>
+ * The node reports ready when the rounds are done, or at {@code warmup.deadline-ms}
+ * after startup whatever is left; a failing warm-up is logged and never keeps the
+ * node out of rotation.
+ */
+@Component
+public class WarmUp implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUp.class);
+
+    private enum State { PENDING, RUNNING, COMPLETED, DEADLINE_PASSED, FAILED, DISABLED }
+
+    @Autowired private MemberService memberService;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private CirculationAnalytics circulationAnalytics;
+    @Autowired private BranchDirectory branchDirectory;
+    @Autowired private DataSource dataSource;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.rounds:200}")
+    private int rounds;
+
+    @Value("${warmup.deadline-ms:60000}")
+    private long deadlineMs;
+
+    @Value("${warmup.hot-books:100}")
+    private int hotBooks;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    private volatile State state = State.PENDING;
+    private volatile int roundsDone;
+    private volatile long deadline;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        deadline = System.nanoTime() + deadlineMs * 1_000_000;
+        state = State.RUNNING;
+        Thread thread = new Thread(this::run, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public Health health() {
+        State current = state;
+        if (current == State.RUNNING && System.nanoTime() - deadline >= 0) {
+            current = State.DEADLINE_PASSED;
+        }
+        Health.Builder builder = switch (current) {
+            case PENDING, RUNNING -> Health.outOfService();
+            default -> Health.up();
+        };
+        return builder.withDetail("state", current.name()).withDetail("rounds", roundsDone).build();
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            branchDirectory.forEachBranch(this::fillPool);
+            for (int round = 0; round < rounds; round++) {
+                if (System.nanoTime() - deadline >= 0) {
+                    state = State.DEADLINE_PASSED;
+                    log.warn("Warm-up stopped at its deadline after {} of {} rounds", roundsDone, rounds);
+                    return;
+                }
+                int index = round;
+                branchDirectory.forEachBranch(() -> round(index));
+                roundsDone = round + 1;
+            }
+            state = State.COMPLETED;
+            log.info("Warm-up finished: {} rounds in {} ms", rounds, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            state = State.FAILED;
+            log.error("Warm-up failed after {} rounds; reporting ready anyway", roundsDone, ex);
+        }
+    }
+
+    // Opens every connection the pool may hold, so no request waits for one to be established
+    private void fillPool() {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } catch (SQLException ex) {
+            log.warn("Connection pool of branch {} only filled to {}: {}", BranchContext.current(), connections.size(), ex.toString());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // returned to the pool or discarded by it either way
+                }
+            }
+        }
+    }
+
+    private void round(int index) {
+        memberPaths();
+        List<BookDTO> catalog = memberService.getAllBooks();
+        serialize(catalog);
+        if (!catalog.isEmpty()) {
+            String name = catalog.get(index % catalog.size()).getName();
+            serialize(memberService.searchBooks(name.split("\\s+")[0]));
+        }
+        for (Long bookId : hotBookIds(catalog)) {
+            try {
+                serialize(transactionTemplate.execute(status -> memberService.getAvailableCopiesForBook(bookId)));
+            } catch (ResourceNotFoundException ex) {
+                // a hot book of another branch
+            }
+        }
+    }
+
+    private Set<Long> hotBookIds(List<BookDTO> catalog) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Map.Entry<String, Long> entry : circulationAnalytics.top(AnalyticsDimension.BOOK, AnalyticsWindow.WEEK, hotBooks)) {
+            ids.add(Long.valueOf(entry.getKey()));
+        }
+        for (int i = 0; i < catalog.size() && ids.size() < hotBooks; i++) {
+            if (catalog.get(i).getId() != null) { // null: held by another branch only
+                ids.add(catalog.get(i).getId());
+            }
+        }
+        return ids;
+    }
+
+    // Prefers a member, whose loans and cart exercise more of the path, over the seeded staff accounts
+    private void memberPaths() {
+        Optional<Member> member = memberRepository.findFirstByRoleOrderByIdAsc(Role.ROLE_MEMBER)
+                .or(memberRepository::findFirstByOrderByIdAsc);
+        if (member.isEmpty()) {
+            return; // a branch with no accounts yet
+        }
+        String email = member.get().getEmail();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            serialize(memberService.getMemberDashboard(email));
+            serialize(memberService.viewCart(email));
+            serialize(memberService.getMyBorrowedBooks(email));
+        });
+    }
+
+    private void serialize(Object response) {
+        try {
+            objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+-- Baseline schema: the tables Hibernate's ddl-auto=update created before Flyway owned the DDL.
+-- Databases that already have them are baselined at this version (spring.flyway.baseline-on-migrate)
+-- and skip it. Runs on MySQL 8 and on H2 in MySQL mode.
+
+create table books (
+    price decimal(10,2),
+    id bigint not null auto_increment,
+    author varchar(255) not null,
+    isbn varchar(255) not null,
+    name varchar(255) not null,
+    subject varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table cache_invalidations (
+    created_at datetime(6) not null,
+    id bigint not null auto_increment,
+    origin varchar(64) not null,
+    cache_key varchar(255),
+    region enum ('CATALOG','COPY','MEMBER','HOLD_QUEUE') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table cart_items (
+    added_at datetime(6) not null,
+    copy_id bigint not null,
+    id bigint not null auto_increment,
+    member_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table catalog_changes (
+    book_id bigint not null,
+    changed_at datetime(6) not null,
+    id bigint not null auto_increment,
+    type enum ('BOOK_ADDED','COPIES_ADDED','AVAILABILITY_CHANGED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table copies (
+    book_id bigint not null,
+    id bigint not null auto_increment,
+    branch varchar(32),
+    rack varchar(255) not null,
+    status enum ('AVAILABLE','ISSUED','RESERVED','DAMAGED','RETIRED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table holds (
+    book_id bigint not null,
+    copy_id bigint,
+    id bigint not null auto_increment,
+    member_id bigint not null,
+    pickup_deadline datetime(6),
+    ready_at datetime(6),
+    requested_at datetime(6) not null,
+    status enum ('WAITING','READY','FULFILLED','CANCELLED','EXPIRED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table idempotency_records (
+    response_status integer,
+    created_at datetime(6) not null,
+    expires_at datetime(6) not null,
+    fingerprint varchar(64) not null,
+    id varchar(64) not null,
+    content_type varchar(100),
+    response_body tinyblob,
+    status enum ('IN_PROGRESS','COMPLETED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table issue_records (
+    due_date date not null,
+    fine decimal(10,2),
+    issue_date date not null,
+    return_date date,
+    copy_id bigint not null,
+    id bigint not null auto_increment,
+    member_id bigint not null,
+    branch varchar(32),
+    primary key (id)
+) engine=InnoDB;
+
+create table issue_records_archive (
+    due_date date not null,
+    fine decimal(10,2),
+    issue_date date not null,
+    return_date date not null,
+    archived_at datetime(6) not null,
+    book_id bigint not null,
+    copy_id bigint not null,
+    id bigint not null,
+    member_id bigint not null,
+    book_author varchar(255),
+    book_name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table job_leases (
+    last_duration_ms bigint,
+    last_finished_at datetime(6),
+    last_rows bigint,
+    last_slot datetime(6),
+    leased_until datetime(6),
+    name varchar(64) not null,
+    owner varchar(64),
+    checkpoint varchar(255),
+    primary key (name)
+) engine=InnoDB;
+
+create table members (
+    id bigint not null auto_increment,
+    branch varchar(32),
+    email varchar(255) not null,
+    name varchar(255) not null,
+    password varchar(255) not null,
+    phone varchar(255) not null,
+    role enum ('ROLE_MEMBER','ROLE_LIBRARIAN','ROLE_OWNER') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table outbox_events (
+    amount decimal(10,2),
+    attempts integer not null,
+    book_id bigint,
+    copy_id bigint,
+    id bigint not null auto_increment,
+    member_id bigint,
+    occurred_at datetime(6) not null,
+    processed_at datetime(6),
+    aggregate_key varchar(64) not null,
+    last_error varchar(500),
+    status enum ('PENDING','PROCESSED','FAILED') not null,
+    type enum ('COPY_ISSUED','COPY_RETURNED','FINE_ASSESSED','MEMBERSHIP_PAID') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table payment_rollups (
+    fine_count integer not null,
+    fine_revenue decimal(12,2) not null,
+    fines_assessed decimal(12,2) not null,
+    membership_count integer not null,
+    membership_revenue decimal(12,2) not null,
+    period_start date not null,
+    id bigint not null auto_increment,
+    granularity enum ('DAY','MONTH') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table payments (
+    amount decimal(10,2) not null,
+    due_date date,
+    id bigint not null auto_increment,
+    member_id bigint not null,
+    transaction_time datetime(6) not null,
+    type enum ('MEMBERSHIP','FINE') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table payments_archive (
+    amount decimal(10,2) not null,
+    due_date date,
+    archived_at datetime(6) not null,
+    id bigint not null,
+    member_id bigint not null,
+    transaction_time datetime(6) not null,
+    type enum ('MEMBERSHIP','FINE') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_cache_invalidation_created
+   on cache_invalidations (created_at);
+
+alter table cart_items
+   add constraint UK_bxuejoh59d0sqj9ka5xhqd4hw unique (copy_id);
+
+create index idx_holds_book_status
+   on holds (book_id, status, id);
+
+create index idx_holds_status_deadline
+   on holds (status, pickup_deadline);
+
+create index idx_idempotency_expires
+   on idempotency_records (expires_at);
+
+create index idx_issue_archive_member
+   on issue_records_archive (member_id, issue_date);
+
+create index idx_issue_archive_book
+   on issue_records_archive (book_id);
+
+alter table members
+   add constraint UK_9d30a9u1qpg8eou0otgkwrp5d unique (email);
+
+create index idx_outbox_status_id
+   on outbox_events (status, id);
+
+alter table payment_rollups
+   add constraint uk_rollup_period unique (granularity, period_start);
+
+create index idx_payment_archive_member
+   on payments_archive (member_id, transaction_time);
+
+create index idx_payment_archive_time
+   on payments_archive (transaction_time);
+
+alter table cart_items
+   add constraint FKlonkjslx4wajyjbwsml41lpfa
+   foreign key (copy_id)
+   references copies (id);
+
+alter table cart_items
+   add constraint FKmyrsw3rg5yxntcqv45s8q6msh
+   foreign key (member_id)
+   references members (id);
+
+alter table copies
+   add constraint FKic2xn1usf0mywohvy5thj1m3l
+   foreign key (book_id)
+   references books (id);
+
+alter table holds
+   add constraint FK321kkcta1yomy1hfrjyaa24hc
+   foreign key (book_id)
+   references books (id);
+
+alter table holds
+   add constraint FKpk1kn2q20bgoiamh92cg1ioum
+   foreign key (copy_id)
+   references copies (id);
+
+alter table holds
+   add constraint FK2yc5ycm7rp1hn95b1v4o80yyw
+   foreign key (member_id)
+   references members (id);
+
+alter table issue_records
+   add constraint FKq0ehnbykgp15ifjijod8k7ar6
+   foreign key (copy_id)
+   references copies (id);
+
+alter table issue_records
+   add constraint FKjtxl06ru0615ht8pt5opyv0d9
+   foreign key (member_id)
+   references members (id);
+
+alter table payments
+   add constraint FKtvbq19graff4nnoqpngbe762
+   foreign key (member_id)
+   references members (id);
@@ -0,0 +1,26 @@
+-- Composite indexes for the lookups behind issue, return, checkout and the dashboards, each
+-- leading with the column the repository method filters on by equality (QueryPlanTest checks
+-- that they are used). InnoDB builds them online. On MySQL the ones leading with member_id,
+-- copy_id or book_id also serve the foreign key, which drops the implicit index it had.
+
+-- Open loans of a member, and the open loan of a copy (return date still null)
+create index idx_issue_member_return
+   on issue_records (member_id, return_date);
+
+create index idx_issue_copy_return
+   on issue_records (copy_id, return_date);
+
+-- Overdue sweep: due before a date and not yet returned
+create index idx_issue_due_return
+   on issue_records (due_date, return_date);
+
+-- A member's latest payment of a type (membership checks), and payment history by time
+create index idx_payment_member_type_due
+   on payments (member_id, type, due_date);
+
+create index idx_payment_member_time
+   on payments (member_id, transaction_time);
+
+-- Available copies of a title
+create index idx_copy_book_status
+   on copies (book_id, status);
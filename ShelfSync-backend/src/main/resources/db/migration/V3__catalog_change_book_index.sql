@@ -0,0 +1,3 @@
+-- Change-log compaction looks up the newest entry of each book (CatalogChangeRepository.findSupersededIds)
+create index idx_catalog_change_book
+   on catalog_changes (book_id, id);
@@ -0,0 +1,8 @@
+-- E-mail addresses of members of every branch, kept in the default branch database
+-- so registration can enforce library-wide uniqueness (AuthService.registerNewMember)
+create table member_emails (
+    claimed_at datetime(6) not null,
+    branch varchar(32) not null,
+    email varchar(255) not null,
+    primary key (email)
+) engine=InnoDB;
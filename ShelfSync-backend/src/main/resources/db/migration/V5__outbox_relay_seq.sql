@@ -0,0 +1,3 @@
+-- Order in which the relay finished with each event; OutboxTail follows it on every node
+alter table outbox_events add column relay_seq bigint;
+alter table outbox_events add constraint uk_outbox_relay_seq unique (relay_seq);
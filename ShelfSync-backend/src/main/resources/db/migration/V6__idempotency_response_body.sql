@@ -0,0 +1,2 @@
+-- tinyblob held 255 bytes; stored responses go up to idempotency.max-response-bytes (64 KiB)
+alter table idempotency_records modify response_body mediumblob;
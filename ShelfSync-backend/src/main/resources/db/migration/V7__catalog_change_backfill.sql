@@ -0,0 +1,8 @@
+-- Books added before the change-log existed have no entry, so a client syncing from
+-- version 0 would never get them. Each gets a BOOK_ADDED entry, dated in the past:
+-- they are committed before the application starts, so the entries count as settled at once.
+insert into catalog_changes (book_id, type, changed_at)
+select b.id, 'BOOK_ADDED', timestamp '2000-01-01 00:00:00'
+from books b
+where not exists (select 1 from catalog_changes c where c.book_id = b.id)
+order by b.id;
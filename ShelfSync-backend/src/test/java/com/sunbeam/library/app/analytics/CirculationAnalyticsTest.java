@@ -0,0 +1,189 @@
+package com.sunbeam.library.app.analytics;
+
+import com.sunbeam.library.app.entity.Book;
+import com.sunbeam.library.app.enums.AnalyticsDimension;
+import com.sunbeam.library.app.enums.AnalyticsWindow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Accuracy of the Count-Min and Space-Saving sketches, windows that merge
+ * several buckets, and the analytics state surviving a checkpoint and restore.
+ */
+class CirculationAnalyticsTest {
+
+    @TempDir Path dataDirectory;
+
+    @Test
+    void countMinNeverUndercountsAndMostlyStaysWithinItsBound() {
+        int width = 64;
+        CountMinSketch sketch = new CountMinSketch(width);
+        Map<String, Integer> actual = skewedStream(200, 20_000, new Random(7)).stream()
+                .peek(sketch::add)
+                .collect(HashMap::new, (counts, key) -> counts.merge(key, 1, Integer::sum), Map::putAll);
+
+        long bound = 2L * 20_000 / width;
+        long withinBound = actual.entrySet().stream().filter(e -> {
+            int estimate = sketch.estimate(e.getKey());
+            assertThat(estimate).as(e.getKey()).isGreaterThanOrEqualTo(e.getValue());
+            return estimate - e.getValue() <= bound;
+        }).count();
+        assertThat(withinBound).isGreaterThanOrEqualTo(actual.size() * 9L / 10);
+        assertThat(sketch.estimate("never-added")).isLessThanOrEqualTo((int) bound);
+    }
+
+    @Test
+    void spaceSavingKeepsEveryKeyAboveItsThreshold() {
+        SpaceSaving summary = new SpaceSaving(20);
+        List<String> stream = new ArrayList<>();
+        for (int hot = 0; hot < 5; hot++) {
+            // 10% of the stream each, above the N/capacity = 5% guarantee
+            stream.addAll(Collections.nCopies(1_000, "hot-" + hot));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            stream.add("once-" + i);
+        }
+        Collections.shuffle(stream, new Random(11));
+        stream.forEach(summary::add);
+
+        assertThat(summary.candidates()).hasSize(20).contains("hot-0", "hot-1", "hot-2", "hot-3", "hot-4");
+    }
+
+    @Test
+    void windowSumsItsBucketsAndDropsTheOnesItNoLongerCovers() {
+        WindowedTopK ring = new WindowedTopK(4, 10, 256);
+        add(ring, 10, "dune", 3);
+        add(ring, 11, "dune", 2);
+        add(ring, 11, "emma", 4);
+        add(ring, 12, "emma", 1);
+        add(ring, 12, "ulysses", 2);
+
+        List<Map.Entry<String, Long>> top = ring.top(3, 12, 3);
+        assertThat(top).containsExactlyInAnyOrder(entry("dune", 5L), entry("emma", 5L), entry("ulysses", 2L));
+        assertThat(top.get(2)).isEqualTo(entry("ulysses", 2L));
+        assertThat(ring.top(1, 12, 1)).containsExactly(entry("ulysses", 2L));
+        assertThat(ring.top(10, 12, 2)).containsExactlyInAnyOrder(entry("dune", 2L), entry("emma", 5L), entry("ulysses", 2L));
+
+        // Bucket 14 reuses bucket 10's slot; a late add for bucket 10 is dropped
+        add(ring, 14, "emma", 1);
+        add(ring, 10, "dune", 9);
+        assertThat(ring.top(10, 14, 4)).containsExactlyInAnyOrder(entry("dune", 2L), entry("emma", 6L), entry("ulysses", 2L));
+    }
+
+    @Test
+    void ringReadBackAnswersLikeTheOriginal() throws IOException {
+        WindowedTopK ring = new WindowedTopK(24, 100, 1024);
+        List<String> stream = skewedStream(300, 5_000, new Random(3));
+        for (int i = 0; i < stream.size(); i++) {
+            ring.add(stream.get(i), 1_000 + i / 250);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ring.writeTo(new DataOutputStream(bytes));
+
+        WindowedTopK restored = WindowedTopK.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 24, 100, 1024);
+        assertThat(restored.top(20, 1_019, 24)).isEqualTo(ring.top(20, 1_019, 24));
+        assertThat(restored.top(5, 1_019, 3)).isEqualTo(ring.top(5, 1_019, 3));
+    }
+
+    @Test
+    void checkpointIsRestoredByTheNextStart() {
+        Path file = dataDirectory.resolve("analytics-checkpoint.bin");
+        CirculationAnalytics before = analytics(file);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            before.record(book(1, "Ursula K. Le Guin", "Fiction"), now);
+        }
+        before.record(book(2, "Ursula K. Le Guin", "Fiction"), now);
+        before.record(book(3, "Mary Beard", "History"), now.minusDays(3));
+        before.checkpoint();
+        assertThat(file).exists();
+        assertThat(file.resolveSibling(file.getFileName() + ".tmp")).doesNotExist();
+
+        CirculationAnalytics after = analytics(file);
+        for (AnalyticsDimension dimension : AnalyticsDimension.values()) {
+            for (AnalyticsWindow window : AnalyticsWindow.values()) {
+                assertThat(after.top(dimension, window, 10)).isEqualTo(before.top(dimension, window, 10));
+            }
+        }
+        assertThat(after.top(AnalyticsDimension.BOOK, AnalyticsWindow.DAY, 10)).containsExactly(entry("1", 3L), entry("2", 1L));
+        assertThat(after.top(AnalyticsDimension.AUTHOR, AnalyticsWindow.WEEK, 10))
+                .containsExactly(entry("Ursula K. Le Guin", 4L), entry("Mary Beard", 1L));
+    }
+
+    @Test
+    void unreadableCheckpointStartsEmpty() throws IOException {
+        Path file = dataDirectory.resolve("analytics-checkpoint.bin");
+        CirculationAnalytics before = analytics(file);
+        before.record(book(1, "Ursula K. Le Guin", "Fiction"), LocalDateTime.now());
+        before.checkpoint();
+        byte[] written = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(written, written.length / 2));
+
+        assertThat(analytics(file).top(AnalyticsDimension.BOOK, AnalyticsWindow.MONTH, 10)).isEmpty();
+
+        Files.writeString(file, "not a checkpoint");
+        assertThat(analytics(file).top(AnalyticsDimension.BOOK, AnalyticsWindow.MONTH, 10)).isEmpty();
+    }
+
+    private CirculationAnalytics analytics(Path checkpointFile) {
+        CirculationAnalytics analytics = new CirculationAnalytics();
+        ReflectionTestUtils.setField(analytics, "checkpointFile", checkpointFile.toString());
+        analytics.restore();
+        return analytics;
+    }
+
+    private static void add(WindowedTopK ring, long bucket, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            ring.add(key, bucket);
+        }
+    }
+
+    // Key i drawn with weight 1/(i+1), so a few keys dominate and most are rare
+    private static List<String> skewedStream(int keys, int length, Random random) {
+        double[] cumulative = new double[keys];
+        double total = 0;
+        for (int i = 0; i < keys; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+        List<String> stream = new ArrayList<>(length);
+        for (int n = 0; n < length; n++) {
+            double draw = random.nextDouble() * total;
+            int key = 0;
+            while (cumulative[key] < draw) {
+                key++;
+            }
+            stream.add("key-" + key);
+        }
+        return stream;
+    }
+
+    private static Book book(long id, String author, String subject) {
+        Book book = new Book();
+        book.setId(id);
+        book.setAuthor(author);
+        book.setSubject(subject);
+        return book;
+    }
+}
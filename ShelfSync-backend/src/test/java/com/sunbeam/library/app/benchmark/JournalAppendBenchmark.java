@@ -0,0 +1,54 @@
+package com.sunbeam.library.app.benchmark;
+
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.event.DomainEvent;
+import com.sunbeam.library.app.journal.CirculationJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of one journal append (mmap put + CRC). The flusher runs on its usual
+ * interval, so the numbers include group-commit interference but not fsync.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalAppendBenchmark {
+
+    private Path directory;
+    private CirculationJournal journal;
+    private long eventId;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        journal = new CirculationJournal(directory.toString(), 64, 50);
+        journal.open();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long append() {
+        long id = ++eventId;
+        return journal.append(new DomainEvent(id, DomainEventType.FINE_ASSESSED, "copy:7", 42L, 3L, 7L,
+                new BigDecimal("15.00"), LocalDateTime.now()));
+    }
+}
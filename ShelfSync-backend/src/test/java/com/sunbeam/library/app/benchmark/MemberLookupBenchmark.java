@@ -0,0 +1,96 @@
+package com.sunbeam.library.app.benchmark;
+
+import com.sunbeam.library.app.lookup.MemberLookupIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Librarian member lookup over a million members: a page of 20 results for a
+ * two-letter name prefix (thousands of matches), a surname, the first digits of a
+ * phone number, the start of an e-mail address and a prefix nothing matches; and
+ * indexing one new registration. The heap the index takes is printed once per
+ * trial (used heap after a full GC, before and after building it).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MemberLookupBenchmark {
+
+    private static final int MEMBERS = 1_000_000;
+    private static final int PAGE = 20;
+    private static final String[] FIRST = {"Aarav", "Ananya", "Rohan", "Priya", "Vikram", "Sneha", "Arjun", "Isha",
+            "Kabir", "Meera", "José", "Zoë", "Liam", "Olivia", "Noah", "Emma", "Lucas", "Mia", "Ethan", "Chloé"};
+    private static final String[] LAST = {"Sharma", "Patel", "Iyer", "Kulkarni", "Deshpande", "Nair", "Reddy", "Gupta",
+            "Smith", "Müller", "García", "O'Brien", "Dubois", "Rossi", "Nakamura", "Kowalski", "Silva", "Jensen"};
+
+    private MemberLookupIndex index;
+    private String[] phones;
+    private long nextId = MEMBERS;
+
+    @Setup
+    public void setUp() {
+        long heapBefore = usedHeapAfterGc();
+        Random random = new Random(42);
+        index = new MemberLookupIndex();
+        phones = new String[1024];
+        for (int id = 0; id < MEMBERS; id++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            String phone = "+91 " + (7_000_000_000L + random.nextInt(1_000_000_000));
+            if (id < phones.length) {
+                phones[id] = phone;
+            }
+            index.put(new MemberLookupIndex.Entry(id, first + " " + last, first.toLowerCase() + "." + id + "@mail.com", phone, "main"));
+        }
+        long heap = usedHeapAfterGc() - heapBefore;
+        System.out.printf("%nmember lookup index heap: %d MB for %d members, %d bytes per member%n",
+                heap >> 20, index.size(), heap / index.size());
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public List<MemberLookupIndex.Entry> shortNamePrefix() {
+        return index.search("ro", PAGE);
+    }
+
+    @Benchmark
+    public List<MemberLookupIndex.Entry> surname() {
+        return index.search("kulk", PAGE);
+    }
+
+    @Benchmark
+    public List<MemberLookupIndex.Entry> phonePrefix() {
+        return index.search(phones[ThreadLocalRandom.current().nextInt(phones.length)].substring(0, 9), PAGE);
+    }
+
+    @Benchmark
+    public List<MemberLookupIndex.Entry> emailPrefix() {
+        return index.search("meera." + ThreadLocalRandom.current().nextInt(MEMBERS / 10), PAGE);
+    }
+
+    @Benchmark
+    public List<MemberLookupIndex.Entry> noMatch() {
+        return index.search("xq", PAGE);
+    }
+
+    @Benchmark
+    public int register() {
+        long id = nextId++;
+        index.put(new MemberLookupIndex.Entry(id, "Aarav Sharma", "new." + id + "@mail.com", "+91 9876543210", "main"));
+        return index.size();
+    }
+}
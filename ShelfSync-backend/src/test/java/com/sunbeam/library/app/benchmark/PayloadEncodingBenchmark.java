@@ -0,0 +1,122 @@
+package com.sunbeam.library.app.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sunbeam.library.app.dto.BookDTO;
+import com.sunbeam.library.app.dto.IssueRecordDTO;
+import com.sunbeam.library.app.dto.MemberDashboardDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Server-side encode cost of the member dashboard, catalog and borrowing
+ * history payloads in JSON, CBOR and Smile. Encoded sizes (raw and gzipped)
+ * are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadEncodingBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private MemberDashboardDTO dashboard;
+    private List<BookDTO> catalog;
+    private List<IssueRecordDTO> history;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        mapper = new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        history = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            IssueRecordDTO record = new IssueRecordDTO();
+            record.setId((long) i);
+            record.setMemberId(3L);
+            record.setBookName("Book title number " + i);
+            record.setBookAuthor("Author " + (i % 37));
+            record.setCopyId(1000L + i);
+            record.setIssueDate(LocalDate.of(2024, 1, 1).plusDays(i));
+            record.setDueDate(LocalDate.of(2024, 1, 8).plusDays(i));
+            record.setReturnDate(i < 97 ? LocalDate.of(2024, 1, 6).plusDays(i) : null);
+            record.setFine(BigDecimal.ZERO);
+            history.add(record);
+        }
+        catalog = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            BookDTO book = new BookDTO();
+            book.setId((long) i);
+            book.setName("Book title number " + i);
+            book.setAuthor("Author " + (i % 37));
+            book.setSubject("Subject " + (i % 11));
+            book.setIsbn("978-0-13-" + (100000 + i));
+            book.setPrice(new BigDecimal("499.00"));
+            book.setTotalCopies(5);
+            book.setAvailableCopies(i % 5);
+            catalog.add(book);
+        }
+        dashboard = MemberDashboardDTO.builder()
+                .memberName("Asha Kulkarni")
+                .isMembershipActive(true)
+                .membershipDueDate(LocalDate.of(2024, 6, 1))
+                .currentlyBorrowedCount(3)
+                .totalBooksReadCount(history.size())
+                .outstandingFines(new BigDecimal("15.00"))
+                .recentActivity(history.subList(0, 3))
+                .build();
+
+        System.out.printf("%n[%s] bytes raw/gzip: dashboard %d/%d, catalog(500) %d/%d, history(100) %d/%d%n", format,
+                size(dashboard), gzipSize(dashboard), size(catalog), gzipSize(catalog), size(history), gzipSize(history));
+    }
+
+    @Benchmark
+    public byte[] dashboard() throws IOException {
+        return mapper.writeValueAsBytes(dashboard);
+    }
+
+    @Benchmark
+    public byte[] catalog() throws IOException {
+        return mapper.writeValueAsBytes(catalog);
+    }
+
+    @Benchmark
+    public byte[] history() throws IOException {
+        return mapper.writeValueAsBytes(history);
+    }
+
+    private int size(Object value) throws IOException {
+        return mapper.writeValueAsBytes(value).length;
+    }
+
+    private int gzipSize(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(mapper.writeValueAsBytes(value));
+        }
+        return out.size();
+    }
+}
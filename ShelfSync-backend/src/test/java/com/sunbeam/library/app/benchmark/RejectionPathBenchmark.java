@@ -0,0 +1,73 @@
+package com.sunbeam.library.app.benchmark;
+
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rejecting a request (e.g. a checkout of a copy that was just taken)
+ * with a plain RuntimeException versus the stackless {@link BusinessRuleException}.
+ * {@code depth} approximates how deep the service call sits below the servlet
+ * and Spring proxies, which is what makes stack capture expensive.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionPathBenchmark {
+
+    @Param({"20", "120"})
+    private int depth;
+
+    private String bookName = "Clean Code";
+    private long copyId = 42L;
+
+    @Benchmark
+    public String runtimeException() {
+        try {
+            descend(depth, Variant.RUNTIME);
+        } catch (RuntimeException ex) {
+            return ex.getMessage();
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String stacklessWithCode() {
+        try {
+            descend(depth, Variant.STACKLESS);
+        } catch (BusinessRuleException ex) {
+            return ex.getCode().name();
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String stacklessWithDetailMessage() {
+        try {
+            descend(depth, Variant.STACKLESS_DETAIL);
+        } catch (BusinessRuleException ex) {
+            return ex.getMessage();
+        }
+        return null;
+    }
+
+    private void descend(int remaining, Variant variant) {
+        if (remaining > 0) {
+            descend(remaining - 1, variant);
+            return;
+        }
+        switch (variant) {
+            case RUNTIME -> throw new RuntimeException("Book '" + bookName + "' (Copy ID: " + copyId + ") is no longer available.");
+            case STACKLESS -> throw new BusinessRuleException(ErrorCode.COPY_NOT_AVAILABLE);
+            case STACKLESS_DETAIL -> throw new BusinessRuleException(ErrorCode.COPY_NOT_AVAILABLE,
+                    "Book '" + bookName + "' (Copy ID: " + copyId + ") is no longer available.");
+        }
+    }
+
+    private enum Variant { RUNTIME, STACKLESS, STACKLESS_DETAIL }
+}
@@ -0,0 +1,140 @@
+package com.sunbeam.library.app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sunbeam.library.app.dto.BookCopyDTO;
+import com.sunbeam.library.app.dto.BookDTO;
+import com.sunbeam.library.app.dto.IssueRecordDTO;
+import com.sunbeam.library.app.entity.Book;
+import com.sunbeam.library.app.entity.BookCopy;
+import com.sunbeam.library.app.entity.IssueRecord;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.BookStatus;
+import com.sunbeam.library.app.enums.Role;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the LibrarianController responses, before and after they became
+ * DTOs: {@code entities} is what the endpoints used to return (a new Book, the added
+ * BookCopy list with each copy's Book, an IssueRecord with its Member and BookCopy),
+ * {@code dtos} is what they return now. Same mapper configuration as the application.
+ * The entity graphs are kept acyclic here (empty copy and loan sets); in the
+ * application an initialised collection could recurse without bound.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"entities", "dtos"})
+    private String responses;
+
+    private ObjectMapper mapper;
+    private Object addedBook;
+    private Object addedCopies;
+    private Object issueRecord;
+
+    @Setup
+    public void setUp() {
+        mapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        Book book = new Book();
+        book.setId(1L);
+        book.setName("Book title number 1");
+        book.setAuthor("Author 1");
+        book.setSubject("Subject 1");
+        book.setIsbn("978-0-13-100001");
+        book.setPrice(new BigDecimal("499.00"));
+        List<BookCopy> copies = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            BookCopy copy = new BookCopy();
+            copy.setId((long) i);
+            copy.setBook(book);
+            copy.setRack("R-" + (i % 4));
+            copy.setStatus(BookStatus.AVAILABLE);
+            copy.setBranch("main");
+            copies.add(copy);
+        }
+        Member member = new Member();
+        member.setId(3L);
+        member.setName("Member Three");
+        member.setEmail("member3@lib.com");
+        member.setPhone("9876543210");
+        member.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5kdE0Zk9j3XkKZ4LZ3G0a6e");
+        member.setRole(Role.ROLE_MEMBER);
+        member.setBranch("main");
+        IssueRecord record = new IssueRecord();
+        record.setId(7L);
+        record.setMember(member);
+        record.setBookCopy(copies.get(11));
+        record.setIssueDate(LocalDate.of(2024, 1, 1));
+        record.setDueDate(LocalDate.of(2024, 1, 8));
+        record.setFine(BigDecimal.ZERO);
+        record.setBranch("main");
+
+        if ("entities".equals(responses)) {
+            addedBook = book;
+            addedCopies = copies;
+            issueRecord = record;
+            return;
+        }
+        BookDTO bookDTO = new BookDTO();
+        bookDTO.setId(book.getId());
+        bookDTO.setName(book.getName());
+        bookDTO.setAuthor(book.getAuthor());
+        bookDTO.setSubject(book.getSubject());
+        bookDTO.setIsbn(book.getIsbn());
+        bookDTO.setPrice(book.getPrice());
+        addedBook = bookDTO;
+        List<BookCopyDTO> copyDTOs = new ArrayList<>();
+        for (BookCopy copy : copies) {
+            BookCopyDTO dto = new BookCopyDTO();
+            dto.setId(copy.getId());
+            dto.setBookId(book.getId());
+            dto.setBookName(book.getName());
+            dto.setRack(copy.getRack());
+            dto.setStatus(copy.getStatus());
+            copyDTOs.add(dto);
+        }
+        addedCopies = copyDTOs;
+        IssueRecordDTO recordDTO = new IssueRecordDTO();
+        recordDTO.setId(record.getId());
+        recordDTO.setMemberId(member.getId());
+        recordDTO.setBookName(book.getName());
+        recordDTO.setBookAuthor(book.getAuthor());
+        recordDTO.setCopyId(record.getBookCopy().getId());
+        recordDTO.setIssueDate(record.getIssueDate());
+        recordDTO.setDueDate(record.getDueDate());
+        recordDTO.setFine(record.getFine());
+        issueRecord = recordDTO;
+    }
+
+    @Benchmark
+    public byte[] addedBook() throws Exception {
+        return mapper.writeValueAsBytes(addedBook);
+    }
+
+    @Benchmark
+    public byte[] addedCopies() throws Exception {
+        return mapper.writeValueAsBytes(addedCopies);
+    }
+
+    @Benchmark
+    public byte[] issueRecord() throws Exception {
+        return mapper.writeValueAsBytes(issueRecord);
+    }
+}
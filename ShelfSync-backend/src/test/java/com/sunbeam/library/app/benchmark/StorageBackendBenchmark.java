@@ -0,0 +1,125 @@
+package com.sunbeam.library.app.benchmark;
+
+import com.sunbeam.library.app.AppApplication;
+import com.sunbeam.library.app.dto.AddBookRequestDTO;
+import com.sunbeam.library.app.dto.AddCopyRequestDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.entity.Payment;
+import com.sunbeam.library.app.enums.PaymentType;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.repository.PaymentRepository;
+import com.sunbeam.library.app.service.LibrarianService;
+import com.sunbeam.library.app.service.MemberService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end service calls against the embedded storage backend and the JPA on
+ * MySQL baseline (default profile, spring.datasource.* from application.properties).
+ * The default rows need that MySQL server; without one they fail at setup and
+ * only the embedded rows are reported (or run them alone with {@code -p profile=embedded}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBackendBenchmark {
+
+    @Param({"embedded", "default"})
+    private String profile;
+
+    private ConfigurableApplicationContext context;
+    private LibrarianService librarianService;
+    private MemberService memberService;
+    private TransactionTemplate session;
+    private long memberId;
+    private long copyId;
+    private long bookId;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path dataDir = Files.createTempDirectory("storage-bench");
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(AppApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profile);
+        context = builder.run(
+                "--spring.jpa.show-sql=false",
+                "--catalog.cache.ttl-ms=0",
+                "--warmup.enabled=false", // JMH warms up; the app's own warm-up would run during the measurement
+                "--journal.directory=" + dataDir.resolve("journal"),
+                "--analytics.checkpoint-file=" + dataDir.resolve("analytics.bin"),
+                "embedded".equals(profile)
+                        ? "--spring.datasource.url=jdbc:h2:file:" + dataDir.resolve("db") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;WRITE_DELAY=0;QUERY_CACHE_SIZE=128"
+                        : "--spring.main.banner-mode=off");
+        librarianService = context.getBean(LibrarianService.class);
+        memberService = context.getBean(MemberService.class);
+        session = context.getBean(TransactionTemplate.class);
+
+        AddBookRequestDTO book = new AddBookRequestDTO();
+        book.setName("Benchmark Book " + System.nanoTime());
+        book.setAuthor("Author");
+        book.setSubject("Subject");
+        book.setIsbn("978" + System.nanoTime());
+        book.setPrice(new BigDecimal("10.00"));
+        bookId = librarianService.addBook(book).getId();
+
+        AddCopyRequestDTO copies = new AddCopyRequestDTO();
+        copies.setBookId(bookId);
+        copies.setRack("B1");
+        copies.setNumberOfCopies(1);
+        copyId = librarianService.addCopies(copies).get(0).getId();
+
+        Member member = new Member();
+        member.setName("Bench");
+        member.setEmail("bench-" + System.nanoTime() + "@lib.com");
+        member.setPassword("x");
+        member.setPhone("0");
+        member.setRole(Role.ROLE_MEMBER);
+        member = context.getBean(MemberRepository.class).save(member);
+        memberId = member.getId();
+
+        Payment membership = new Payment();
+        membership.setMember(member);
+        membership.setAmount(new BigDecimal("500.00"));
+        membership.setType(PaymentType.MEMBERSHIP);
+        membership.setTransactionTime(LocalDateTime.now());
+        membership.setDueDate(LocalDate.now().plusMonths(1));
+        context.getBean(PaymentRepository.class).save(membership);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object issueAndReturn() {
+        librarianService.issueBook(memberId, copyId);
+        return librarianService.returnBook(copyId);
+    }
+
+    // Read paths rely on open-session-in-view in the web app, so they run in a session here.
+    @Benchmark
+    public Object searchCatalog() {
+        return session.execute(status -> memberService.searchBooks("benchmark"));
+    }
+
+    @Benchmark
+    public Object availableCopies() {
+        return session.execute(status -> memberService.getAvailableCopiesForBook(bookId));
+    }
+}
@@ -0,0 +1,47 @@
+package com.sunbeam.library.app.benchmark;
+
+import com.sunbeam.library.app.limit.TokenBuckets;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost the rate limiter adds per request: one token taken from a warm key
+ * (a returning member), and one from a never-seen key at the store's bound
+ * (IP churn, which also pays for trimming a stripe). Run with {@code -t 4}
+ * to see CAS contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBucketBenchmark {
+
+    private static final int MAX_KEYS = 100_000;
+
+    private TokenBuckets buckets;
+    private String[] members;
+
+    @Setup
+    public void setUp() {
+        buckets = new TokenBuckets(1_000_000, 1_000_000, MAX_KEYS);
+        members = new String[1024];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = "member" + i + "@lib.com";
+            buckets.tryTake(members[i]);
+        }
+    }
+
+    @Benchmark
+    public long warmKey() {
+        return buckets.tryTake(members[ThreadLocalRandom.current().nextInt(members.length)]);
+    }
+
+    @Benchmark
+    public long newKey() {
+        return buckets.tryTake("10." + ThreadLocalRandom.current().nextInt(1 << 24));
+    }
+}
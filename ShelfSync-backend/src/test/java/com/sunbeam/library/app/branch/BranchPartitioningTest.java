@@ -0,0 +1,174 @@
+package com.sunbeam.library.app.branch;
+
+import com.sunbeam.library.app.dto.AddBookRequestDTO;
+import com.sunbeam.library.app.dto.AddCopyRequestDTO;
+import com.sunbeam.library.app.dto.BookDTO;
+import com.sunbeam.library.app.dto.DashboardKpiDTO;
+import com.sunbeam.library.app.dto.RegisterRequestDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.repository.BookRepository;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.service.AuthService;
+import com.sunbeam.library.app.service.LibrarianService;
+import com.sunbeam.library.app.service.MemberService;
+import com.sunbeam.library.app.service.OwnerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A second branch ("north") with a database of its own: id ranges, routing of
+ * writes, the merged catalog, library-wide e-mail uniqueness and owner figures.
+ */
+@SpringBootTest(properties = {
+        "test.database=branch-main",
+        "branches.names=north",
+        "branches.ids.north=3",
+        "branches.datasources.north.url=jdbc:h2:mem:branch-north;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "branches.datasources.north.username=sa",
+        "branches.datasources.north.password=",
+        "catalog.cache.ttl-ms=0"
+})
+@ActiveProfiles({"embedded", "test"})
+class BranchPartitioningTest {
+
+    private static final String NORTH = "north";
+
+    @Autowired private AuthService authService;
+    @Autowired private LibrarianService librarianService;
+    @Autowired private MemberService memberService;
+    @Autowired private OwnerService ownerService;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private BookRepository bookRepository;
+
+    @Test
+    void membersAreWrittenToTheirBranchWithinItsIdRange() {
+        Member main = authService.registerNewMember(registration("routing-main@lib.com", null));
+        Member north = authService.registerNewMember(registration("routing-north@lib.com", NORTH));
+
+        assertThat(main.getId()).isLessThan(1L << BranchSchemaInitializer.ID_RANGE_BITS);
+        // From the branch's configured id, not its position in branches.names
+        assertThat(north.getId()).isBetween(3L << BranchSchemaInitializer.ID_RANGE_BITS, 4L << BranchSchemaInitializer.ID_RANGE_BITS);
+        assertThat(memberRepository.findByEmail("routing-north@lib.com")).isEmpty();
+        assertThat(BranchContext.callIn(NORTH, () -> memberRepository.findByEmail("routing-north@lib.com"))).isPresent();
+        assertThat(BranchContext.callIn(NORTH, () -> memberRepository.findByEmail("routing-main@lib.com"))).isEmpty();
+    }
+
+    @Test
+    void mergedCatalogOnlyCarriesIdsOfTheCallersBranch() {
+        long mainId = addBook("Kindred", "9780807083697", 2);
+        BranchContext.runIn(NORTH, () -> addBook("Kindred", "9780807083697", 3));
+        long northOnlyId = BranchContext.callIn(NORTH, () -> addBook("Parable of the Sower", "9781538732182", 1));
+
+        List<BookDTO> catalog = memberService.getAllBooks();
+        BookDTO shared = find(catalog, "9780807083697");
+        assertThat(shared.getId()).isEqualTo(mainId);
+        assertThat(shared.getBranch()).isEqualTo(BranchContext.DEFAULT);
+        assertThat(shared.getTotalCopies()).isEqualTo(5);
+        BookDTO remote = find(catalog, "9781538732182");
+        assertThat(remote.getId()).isNull();
+        assertThat(remote.getBranch()).isEqualTo(NORTH);
+
+        // From north, its own title is actionable and the shared one carries north's id
+        List<BookDTO> fromNorth = BranchContext.callIn(NORTH, memberService::getAllBooks);
+        assertThat(find(fromNorth, "9781538732182").getId()).isEqualTo(northOnlyId);
+        assertThat(find(fromNorth, "9780807083697").getId()).isNotEqualTo(mainId);
+    }
+
+    @Test
+    void emailIsUniqueAcrossBranches() throws Exception {
+        authService.registerNewMember(registration("taken@lib.com", null));
+        assertThatThrownBy(() -> authService.registerNewMember(registration("taken@lib.com", NORTH)))
+                .isInstanceOfSatisfying(BusinessRuleException.class,
+                        ex -> assertThat(ex.getCode()).isEqualTo(ErrorCode.EMAIL_ALREADY_REGISTERED));
+
+        // Registrations racing each other in different branches: exactly one wins
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> attempts = new ArrayList<>();
+        for (String branch : List.of(BranchContext.DEFAULT, NORTH, BranchContext.DEFAULT, NORTH)) {
+            attempts.add(CompletableFuture.supplyAsync(() -> {
+                await(start);
+                try {
+                    authService.registerNewMember(registration("raced@lib.com", branch));
+                    return true;
+                } catch (BusinessRuleException ex) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        long winners = 0;
+        for (CompletableFuture<Boolean> attempt : attempts) {
+            if (attempt.get(30, TimeUnit.SECONDS)) {
+                winners++;
+            }
+        }
+        assertThat(winners).isEqualTo(1);
+        long stored = memberRepository.findByEmail("raced@lib.com").stream().count()
+                + BranchContext.callIn(NORTH, () -> memberRepository.findByEmail("raced@lib.com")).stream().count();
+        assertThat(stored).isEqualTo(1);
+    }
+
+    @Test
+    void ownerFiguresAddUpEveryBranch() {
+        addBook("Lilith's Brood", "9780446676106", 1);
+        BranchContext.runIn(NORTH, () -> addBook("Fledgling", "9780446696166", 2));
+
+        DashboardKpiDTO kpis = ownerService.getDashboardKpis();
+        long books = bookRepository.count() + BranchContext.callIn(NORTH, bookRepository::count);
+        long members = memberRepository.count() + BranchContext.callIn(NORTH, memberRepository::count);
+        assertThat(kpis.getTotalBooks()).isEqualTo(books);
+        assertThat(kpis.getTotalMembers()).isEqualTo(members);
+    }
+
+    private long addBook(String name, String isbn, int copies) {
+        AddBookRequestDTO book = new AddBookRequestDTO();
+        book.setName(name);
+        book.setAuthor("Octavia E. Butler");
+        book.setSubject("Fiction");
+        book.setIsbn(isbn);
+        book.setPrice(new BigDecimal("350.00"));
+        long bookId = librarianService.addBook(book).getId();
+        AddCopyRequestDTO request = new AddCopyRequestDTO();
+        request.setBookId(bookId);
+        request.setRack("B2");
+        request.setNumberOfCopies(copies);
+        librarianService.addCopies(request);
+        return bookId;
+    }
+
+    private static RegisterRequestDTO registration(String email, String branch) {
+        RegisterRequestDTO request = new RegisterRequestDTO();
+        request.setName(email);
+        request.setEmail(email);
+        request.setPhone("9000000002");
+        request.setPassword("secret-password");
+        request.setBranch(branch);
+        return request;
+    }
+
+    private static BookDTO find(List<BookDTO> catalog, String isbn) {
+        return catalog.stream().filter(book -> isbn.equals(book.getIsbn())).findFirst().orElseThrow();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
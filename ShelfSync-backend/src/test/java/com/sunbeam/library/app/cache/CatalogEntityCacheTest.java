@@ -0,0 +1,125 @@
+package com.sunbeam.library.app.cache;
+
+import com.sunbeam.library.app.dto.AddBookRequestDTO;
+import com.sunbeam.library.app.dto.AddCopyRequestDTO;
+import com.sunbeam.library.app.dto.BookCopyDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.BookStatus;
+import com.sunbeam.library.app.enums.CacheRegion;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.repository.BookCopyRepository;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.service.LibrarianService;
+import com.sunbeam.library.app.service.MemberService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copy status transitions through the second-level and query cache: every read
+ * after a change sees it, whether the change was made through Hibernate on this
+ * node or behind its back on another node and delivered by the invalidation bus.
+ */
+@SpringBootTest(properties = "test.database=catalog-cache")
+@ActiveProfiles({"embedded", "test"})
+class CatalogEntityCacheTest {
+
+    private static final String EMAIL = "cache-test@lib.com";
+
+    @Autowired private LibrarianService librarianService;
+    @Autowired private MemberService memberService;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private BookCopyRepository bookCopyRepository;
+    @Autowired private CatalogEntityCache catalogEntityCache;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void statusTransitionsAreNeverServedStale() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getStatistics();
+        saveMember();
+        long bookId = addBook();
+        List<Long> copyIds = addCopies(bookId, 2);
+        long first = copyIds.get(0);
+        long second = copyIds.get(1);
+
+        // Warm both caches, and check reads are really being served from them
+        assertThat(availableIds(bookId)).containsExactlyInAnyOrderElementsOf(copyIds);
+        long queryHits = statistics.getQueryRegionStatistics(CatalogEntityCache.AVAILABILITY_REGION).getHitCount();
+        assertThat(availableIds(bookId)).containsExactlyInAnyOrderElementsOf(copyIds);
+        assertThat(statistics.getQueryRegionStatistics(CatalogEntityCache.AVAILABILITY_REGION).getHitCount())
+                .isGreaterThan(queryHits);
+        assertThat(status(first)).isEqualTo(BookStatus.AVAILABLE);
+        long copyHits = statistics.getDomainDataRegionStatistics(CatalogEntityCache.COPY_REGION).getHitCount();
+        assertThat(status(first)).isEqualTo(BookStatus.AVAILABLE);
+        assertThat(statistics.getDomainDataRegionStatistics(CatalogEntityCache.COPY_REGION).getHitCount())
+                .isGreaterThan(copyHits);
+
+        // Checkout on this node: AVAILABLE -> ISSUED
+        memberService.addToCart(EMAIL, first);
+        memberService.checkoutAndBorrowFromCart(EMAIL);
+        assertThat(status(first)).isEqualTo(BookStatus.ISSUED);
+        assertThat(availableIds(bookId)).containsExactly(second);
+
+        // Return: ISSUED -> AVAILABLE
+        librarianService.returnBook(first);
+        assertThat(status(first)).isEqualTo(BookStatus.AVAILABLE);
+        assertThat(availableIds(bookId)).containsExactlyInAnyOrder(first, second);
+
+        // Another node issues the second copy: this node only hears of it through the bus
+        jdbcTemplate.update("UPDATE copies SET status = ? WHERE id = ?", BookStatus.ISSUED.name(), second);
+        catalogEntityCache.invalidate(CacheRegion.COPY, Long.toString(second));
+        assertThat(status(second)).isEqualTo(BookStatus.ISSUED);
+        assertThat(availableIds(bookId)).containsExactly(first);
+    }
+
+    private void saveMember() {
+        Member member = new Member();
+        member.setName("Cache Test");
+        member.setEmail(EMAIL);
+        member.setPhone("9000000000");
+        member.setPassword("unused");
+        member.setRole(Role.ROLE_MEMBER);
+        memberRepository.save(member);
+    }
+
+    private long addBook() {
+        AddBookRequestDTO request = new AddBookRequestDTO();
+        request.setName("Dune");
+        request.setAuthor("Frank Herbert");
+        request.setSubject("Fiction");
+        request.setIsbn("9780441013593");
+        request.setPrice(new BigDecimal("499.00"));
+        return librarianService.addBook(request).getId();
+    }
+
+    private List<Long> addCopies(long bookId, int count) {
+        AddCopyRequestDTO request = new AddCopyRequestDTO();
+        request.setBookId(bookId);
+        request.setRack("A1");
+        request.setNumberOfCopies(count);
+        return librarianService.addCopies(request).stream().map(BookCopyDTO::getId).toList();
+    }
+
+    // In a transaction, as open-in-view would give it in a request
+    private List<Long> availableIds(long bookId) {
+        return transactionTemplate.execute(tx ->
+                memberService.getAvailableCopiesForBook(bookId).stream().map(BookCopyDTO::getId).toList());
+    }
+
+    private BookStatus status(long copyId) {
+        return transactionTemplate.execute(tx -> bookCopyRepository.findById(copyId).orElseThrow().getStatus());
+    }
+}
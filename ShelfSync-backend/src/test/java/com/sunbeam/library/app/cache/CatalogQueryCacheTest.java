@@ -0,0 +1,64 @@
+package com.sunbeam.library.app.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * A loader that fails with an Error must not leave its key behind with a load
+ * that never completes: callers already waiting get the Error, later callers load again.
+ */
+class CatalogQueryCacheTest {
+
+    private final CatalogQueryCache cache = new CatalogQueryCache(60_000, 100, new SimpleMeterRegistry());
+
+    @Test
+    void loaderErrorReachesWaitersAndIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch waiterJoined = new CountDownLatch(1);
+
+        CompletableFuture<Object> loader = CompletableFuture.supplyAsync(() -> cache.get("books", () -> {
+            loading.countDown();
+            await(waiterJoined);
+            throw new StackOverflowError("loader");
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> {
+            waiterJoined.countDown();
+            return cache.get("books", () -> "not this one");
+        });
+
+        assertThatThrownBy(() -> loader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(StackOverflowError.class);
+        // The waiter either joined the failing load, or arrived after it was removed and loaded
+        // (and cached) its own value; either way the next caller must not hang on the failed load
+        String expected;
+        try {
+            assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("not this one");
+            expected = "not this one";
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause()).isInstanceOf(StackOverflowError.class);
+            expected = "fresh";
+        }
+
+        Object value = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> cache.get("books", () -> "fresh"));
+        assertThat(value).isEqualTo(expected);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.sunbeam.library.app.cache;
+
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.cluster.ClusterNode;
+import com.sunbeam.library.app.enums.CacheRegion;
+import com.sunbeam.library.app.repository.CacheInvalidationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two bus instances sharing one invalidation log, polled by hand: a record
+ * that commits after the reader's cursor has timed out its gap is still
+ * applied, and a gap too wide to track flushes every region instead.
+ */
+@SpringBootTest(properties = "test.database=invalidation-bus")
+@ActiveProfiles({"embedded", "test"})
+class InvalidationBusTest {
+
+    private static final long GAP_TIMEOUT_MS = 50;
+
+    @Autowired private CacheInvalidationRepository cacheInvalidationRepository;
+    @Autowired private BranchDirectory branchDirectory;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void recordCommittingAfterTheGapTimeoutIsStillApplied() throws Exception {
+        InvalidationBus writer = bus("writer", new Recorder());
+        Recorder received = new Recorder();
+        InvalidationBus reader = bus("reader", received);
+        poll(reader); // starts from the end of the log
+
+        // The slow transaction takes its id first but commits last
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            writer.publish(CacheRegion.COPY, 1L);
+            written.countDown();
+            await(release);
+        }));
+        assertThat(written.await(10, TimeUnit.SECONDS)).isTrue();
+        transactionTemplate.executeWithoutResult(status -> writer.publish(CacheRegion.COPY, 2L));
+
+        poll(reader);
+        assertThat(received.events).containsExactly("COPY:2");
+        Thread.sleep(GAP_TIMEOUT_MS * 2);
+        poll(reader); // gives up waiting and moves the cursor past the slow id
+        poll(reader);
+        assertThat(received.events).containsExactly("COPY:2");
+
+        release.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        poll(reader);
+        assertThat(received.events).containsExactly("COPY:2", "COPY:1");
+        poll(reader);
+        assertThat(received.events).containsExactly("COPY:2", "COPY:1");
+    }
+
+    @Test
+    void gapWiderThanABatchFlushesEveryRegion() throws Exception {
+        InvalidationBus writer = bus("writer", new Recorder());
+        Recorder received = new Recorder();
+        InvalidationBus reader = bus("reader", received);
+        poll(reader);
+
+        long latest = cacheInvalidationRepository.findLatestId();
+        jdbcTemplate.execute("ALTER TABLE cache_invalidations ALTER COLUMN id RESTART WITH " + (latest + 100));
+        transactionTemplate.executeWithoutResult(status -> writer.publish(CacheRegion.MEMBER, "reader@lib.com"));
+
+        poll(reader);
+        Thread.sleep(GAP_TIMEOUT_MS * 2);
+        poll(reader);
+        assertThat(received.events).containsExactly("MEMBER:reader@lib.com",
+                "CATALOG:null", "COPY:null", "MEMBER:null", "HOLD_QUEUE:null");
+        poll(reader);
+        assertThat(received.events).hasSize(5);
+    }
+
+    private InvalidationBus bus(String nodeId, InvalidationListener listener) {
+        InvalidationBus bus = new InvalidationBus(new ClusterNode(nodeId), 1_000, 10, GAP_TIMEOUT_MS, 60_000, 60,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bus, "cacheInvalidationRepository", cacheInvalidationRepository);
+        ReflectionTestUtils.setField(bus, "listeners", List.of(listener));
+        ReflectionTestUtils.setField(bus, "branchDirectory", branchDirectory);
+        ReflectionTestUtils.setField(bus, "transactionTemplate", transactionTemplate);
+        return bus;
+    }
+
+    private static void poll(InvalidationBus bus) {
+        ReflectionTestUtils.invokeMethod(bus, "poll");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Recorder implements InvalidationListener {
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void invalidate(CacheRegion region, String key) {
+            events.add(region + ":" + key);
+        }
+    }
+}
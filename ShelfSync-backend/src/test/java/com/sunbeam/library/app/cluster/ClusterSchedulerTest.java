@@ -0,0 +1,187 @@
+package com.sunbeam.library.app.cluster;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.entity.JobLease;
+import com.sunbeam.library.app.repository.JobLeaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two scheduler instances sharing {@code job_leases}, with runs driven by
+ * hand: one node holds a lease until it expires, the other then takes over
+ * from the last checkpoint while the old holder can no longer save progress,
+ * keepAlive renews only once a third of the lease has passed, and each cron
+ * firing runs on one node only.
+ */
+@SpringBootTest(properties = "test.database=cluster-scheduler")
+@ActiveProfiles({"embedded", "test"})
+class ClusterSchedulerTest {
+
+    private static final LocalDateTime SLOT = LocalDateTime.of(2024, 1, 1, 4, 0);
+
+    @Autowired private JobLeaseRepository jobLeaseRepository;
+    @Autowired private BranchDirectory branchDirectory;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void leaseIsHeldByOneNodeUntilItExpires() {
+        List<String> runs = new ArrayList<>();
+        ClusterScheduler a = scheduler("node-a");
+        ClusterScheduler b = scheduler("node-b");
+        a.register("lease-test", JobSchedule.fixedDelay(1_000), context -> runs.add("a"));
+        b.register("lease-test", JobSchedule.fixedDelay(1_000), context -> runs.add("b"));
+
+        run(a, "lease-test");
+        run(b, "lease-test");
+        run(a, "lease-test"); // the holder renews its own lease
+        assertThat(runs).containsExactly("a", "a");
+        JobLease lease = lease("lease-test");
+        assertThat(lease.getOwner()).isEqualTo("node-a");
+        assertThat(lease.getLeasedUntil()).isAfter(LocalDateTime.now().plusSeconds(50));
+        assertThat(lease.getLastFinishedAt()).isNotNull();
+
+        expire("lease-test");
+        run(b, "lease-test");
+        run(a, "lease-test");
+        assertThat(runs).containsExactly("a", "a", "b");
+        assertThat(lease("lease-test").getOwner()).isEqualTo("node-b");
+    }
+
+    @Test
+    void takeoverResumesFromTheCheckpointAndTheOldHolderStops() {
+        AtomicReference<JobContext> stranded = new AtomicReference<>();
+        List<String> resumedFrom = new ArrayList<>();
+        ClusterScheduler a = scheduler("node-a");
+        ClusterScheduler b = scheduler("node-b");
+        a.register("takeover-test", JobSchedule.fixedDelay(1_000), context -> {
+            context.checkpoint("batch-10");
+            context.addRows(10);
+            stranded.set(context);
+            throw new IllegalStateException("node a dies mid-run");
+        });
+        b.register("takeover-test", JobSchedule.fixedDelay(1_000), context -> {
+            resumedFrom.add(context.checkpoint());
+            context.checkpoint("batch-20");
+            context.addRows(10);
+        });
+
+        run(a, "takeover-test");
+        assertThat(lease("takeover-test").getCheckpoint()).isEqualTo("batch-10");
+        run(b, "takeover-test");
+        assertThat(resumedFrom).isEmpty();
+
+        expire("takeover-test");
+        run(b, "takeover-test");
+        assertThat(resumedFrom).containsExactly("batch-10");
+        JobLease lease = lease("takeover-test");
+        assertThat(lease.getOwner()).isEqualTo("node-b");
+        assertThat(lease.getCheckpoint()).isNull();
+        assertThat(lease.getLastRows()).isEqualTo(10);
+
+        // Node a's run, still going, can neither save progress nor keep the lease alive
+        JobContext old = stranded.get();
+        assertThatThrownBy(() -> old.checkpoint("batch-30")).isInstanceOf(LeaseLostException.class);
+        ReflectionTestUtils.setField(old, "renewedAt", System.nanoTime() - TimeUnit.SECONDS.toNanos(30));
+        assertThatThrownBy(old::keepAlive).isInstanceOf(LeaseLostException.class);
+        assertThat(lease("takeover-test").getOwner()).isEqualTo("node-b");
+    }
+
+    @Test
+    void keepAliveRenewsOnceAThirdOfTheLeaseHasPassed() {
+        AtomicReference<LocalDateTime> before = new AtomicReference<>();
+        AtomicReference<LocalDateTime> early = new AtomicReference<>();
+        AtomicReference<JobLease> renewed = new AtomicReference<>();
+        ClusterScheduler a = scheduler("node-a");
+        a.register("keep-alive-test", JobSchedule.fixedDelay(1_000), context -> {
+            context.checkpoint("page-3");
+            jdbcTemplate.update("UPDATE job_leases SET leased_until = ? WHERE name = ?",
+                    LocalDateTime.now().plusSeconds(5), "keep-alive-test");
+            before.set(lease("keep-alive-test").getLeasedUntil());
+
+            context.keepAlive();
+            early.set(lease("keep-alive-test").getLeasedUntil());
+
+            ReflectionTestUtils.setField(context, "renewedAt", System.nanoTime() - TimeUnit.SECONDS.toNanos(21));
+            context.keepAlive();
+            renewed.set(lease("keep-alive-test"));
+        });
+
+        run(a, "keep-alive-test");
+        assertThat(early.get()).isEqualTo(before.get());
+        assertThat(renewed.get().getLeasedUntil()).isAfter(LocalDateTime.now().plusSeconds(50));
+        assertThat(renewed.get().getCheckpoint()).isEqualTo("page-3");
+    }
+
+    @Test
+    void eachCronFiringRunsOnOneNodeOnly() {
+        List<String> runs = new ArrayList<>();
+        ClusterScheduler a = scheduler("node-a");
+        ClusterScheduler b = scheduler("node-b");
+        a.register("cron-test", JobSchedule.cron("0 0 4 * * *"), context -> runs.add("a"));
+        b.register("cron-test", JobSchedule.cron("0 0 4 * * *"), context -> runs.add("b"));
+
+        run(a, "cron-test", SLOT);
+        // Node a finished and released its lease, yet node b's timer fires for the same slot
+        expire("cron-test");
+        run(b, "cron-test", SLOT);
+        run(a, "cron-test", SLOT);
+        assertThat(runs).containsExactly("a");
+        assertThat(lease("cron-test").getLastSlot()).isEqualTo(SLOT);
+
+        run(b, "cron-test", SLOT.plusDays(1));
+        run(a, "cron-test", SLOT.plusDays(1));
+        assertThat(runs).containsExactly("a", "b");
+        assertThat(lease("cron-test").getLastSlot()).isEqualTo(SLOT.plusDays(1));
+    }
+
+    private ClusterScheduler scheduler(String nodeId) {
+        ClusterScheduler scheduler = new ClusterScheduler();
+        ReflectionTestUtils.setField(scheduler, "jobLeaseRepository", jobLeaseRepository);
+        ReflectionTestUtils.setField(scheduler, "branchDirectory", branchDirectory);
+        ReflectionTestUtils.setField(scheduler, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(scheduler, "clusterNode", new ClusterNode(nodeId));
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "leaseSeconds", 60L);
+        return scheduler;
+    }
+
+    private static void run(ClusterScheduler scheduler, String name) {
+        run(scheduler, name, null);
+    }
+
+    // One pass of the job in the default branch, as the scheduler's timer would start it
+    private static void run(ClusterScheduler scheduler, String name, LocalDateTime slot) {
+        @SuppressWarnings("unchecked")
+        Object job = ((Map<String, Object>) ReflectionTestUtils.getField(scheduler, "jobs")).get(name);
+        ReflectionTestUtils.setField(job, "slot", slot);
+        BranchContext.runIn(BranchContext.DEFAULT, () ->
+                ReflectionTestUtils.invokeMethod(scheduler, "runInBranch", job, BranchContext.DEFAULT));
+    }
+
+    private void expire(String name) {
+        jdbcTemplate.update("UPDATE job_leases SET leased_until = ? WHERE name = ?",
+                LocalDateTime.now().minusSeconds(1), name);
+    }
+
+    private JobLease lease(String name) {
+        return jobLeaseRepository.findById(name).orElseThrow();
+    }
+}
@@ -0,0 +1,132 @@
+package com.sunbeam.library.app.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.sunbeam.library.app.dto.AddBookRequestDTO;
+import com.sunbeam.library.app.dto.BookDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.security.JwtHelper;
+import com.sunbeam.library.app.service.LibrarianService;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The catalog as a client gets it from the running server: JSON by default,
+ * gzipped when the client accepts it, and CBOR or Smile carrying the same books
+ * when asked for in the Accept header.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"test.database=payload-encoding", "catalog.cache.ttl-ms=0"})
+@ActiveProfiles({"embedded", "test"})
+class PayloadEncodingTest {
+
+    private static final String EMAIL = "encoding-test@lib.com";
+
+    @LocalServerPort private int port;
+    @Autowired private LibrarianService librarianService;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private JwtHelper jwtHelper;
+    @Autowired private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private String token;
+
+    @BeforeEach
+    void memberAndCatalog() {
+        Member member = memberRepository.findByEmail(EMAIL).orElseGet(() -> {
+            Member created = new Member();
+            created.setName("Encoding Test");
+            created.setEmail(EMAIL);
+            created.setPhone("9000000004");
+            created.setPassword("unused");
+            created.setRole(Role.ROLE_MEMBER);
+            for (int i = 0; i < 20; i++) {
+                AddBookRequestDTO book = new AddBookRequestDTO();
+                book.setName("Encoding Volume " + i);
+                book.setAuthor("Payload Author");
+                book.setSubject("Reference");
+                book.setIsbn("97800000100" + String.format("%02d", i));
+                book.setPrice(new BigDecimal("300.00"));
+                librarianService.addBook(book);
+            }
+            return memberRepository.save(created);
+        });
+        token = jwtHelper.generateToken(member);
+    }
+
+    @Test
+    void largeJsonIsGzippedWhenTheClientAcceptsIt() throws Exception {
+        HttpResponse<byte[]> plain = get("application/json", null);
+        HttpResponse<byte[]> gzipped = get("application/json", "gzip");
+
+        assertThat(plain.body().length).isGreaterThan(1024);
+        assertThat(plain.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(gzipped.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(gzipped.body().length).isLessThan(plain.body().length);
+        assertThat(gunzip(gzipped.body())).isEqualTo(plain.body());
+    }
+
+    @Test
+    void binaryEncodingsCarryTheSameBooksAsJson() throws Exception {
+        List<BookDTO> json = read(objectMapper, get("application/json", null).body());
+        assertThat(json).hasSize(20);
+
+        HttpResponse<byte[]> cbor = get("application/cbor", null);
+        assertThat(cbor.headers().firstValue("Content-Type")).hasValue("application/cbor");
+        assertSameBooks(read(new CBORMapper(), cbor.body()), json);
+
+        HttpResponse<byte[]> smile = get("application/x-jackson-smile", null);
+        assertThat(smile.headers().firstValue("Content-Type")).hasValue("application/x-jackson-smile");
+        assertSameBooks(read(new SmileMapper(), smile.body()), json);
+    }
+
+    // Prices are compared by value: CBOR carries a decimal as mantissa and scale, JSON as text
+    private static void assertSameBooks(List<BookDTO> actual, List<BookDTO> expected) {
+        assertThat(actual).usingRecursiveFieldByFieldElementComparator(RecursiveComparisonConfiguration.builder()
+                        .withComparatorForType(BigDecimal::compareTo, BigDecimal.class).build())
+                .containsExactlyElementsOf(expected);
+    }
+
+    private static List<BookDTO> read(ObjectMapper mapper, byte[] body) throws IOException {
+        return mapper.readValue(body, new TypeReference<List<BookDTO>>() { });
+    }
+
+    private HttpResponse<byte[]> get(String accept, String acceptEncoding) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/member/books/all"))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", accept);
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response;
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.sunbeam.library.app.config;
+
+import com.sunbeam.library.app.AppApplication;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The prod profile gets its schema from the Flyway migrations alone and Hibernate
+ * only validates it, so an entity change that comes without a migration fails
+ * here instead of at the next production start. Data migrations are checked
+ * against a database migrated up to the version before them. A database that
+ * ddl-auto=update built before the switch to Flyway stops the start untouched.
+ */
+@SpringBootTest(properties = "test.database=schema-migration")
+@ActiveProfiles({"prod", "test"})
+class SchemaMigrationTest {
+
+    @Autowired private Flyway flyway;
+
+    @Test
+    void migrationsMatchTheEntityMappings() {
+        // The context only starts once ddl-auto=validate has accepted the migrated schema
+        assertThat(flyway.info().current()).isNotNull();
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void booksAddedBeforeTheChangeLogAreBackfilled() throws Exception {
+        String url = "jdbc:h2:mem:schema-backfill;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        Flyway.configure().configuration(flyway.getConfiguration()).dataSource(url, "sa", "").target("6").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("insert into books (name, author, isbn) values ('Kindred', 'Octavia E. Butler', '9780807083697')");
+
+            Flyway.configure().configuration(flyway.getConfiguration()).dataSource(url, "sa", "").load().migrate();
+
+            ResultSet change = statement.executeQuery("select type, changed_at from catalog_changes");
+            assertThat(change.next()).isTrue();
+            assertThat(change.getString("type")).isEqualTo("BOOK_ADDED");
+            assertThat(change.getTimestamp("changed_at").toLocalDateTime()).isBefore(LocalDateTime.now().minusDays(1));
+            assertThat(change.next()).isFalse();
+        }
+    }
+
+    @Test
+    void schemaBuiltByHibernateFailsTheStart() throws Exception {
+        // The default profile's ddl-auto=update creates the tables and the entities' indexes
+        start("default").close();
+
+        assertThatThrownBy(() -> start("prod"))
+                .rootCause()
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("built by ddl-auto=update");
+        try (Connection connection = DriverManager.getConnection(
+                "jdbc:h2:mem:schema-hibernate;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+             ResultSet history = connection.getMetaData().getTables(null, null,
+                     flyway.getConfiguration().getTable(), new String[] {"TABLE"})) {
+            assertThat(history.next()).isFalse();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String profile) {
+        return new SpringApplicationBuilder(AppApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profile, "test")
+                .run("--test.database=schema-hibernate");
+    }
+}
@@ -0,0 +1,127 @@
+package com.sunbeam.library.app.controller;
+
+import com.sunbeam.library.app.dto.AddBookRequestDTO;
+import com.sunbeam.library.app.dto.AddCopyRequestDTO;
+import com.sunbeam.library.app.dto.BookCopyDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.entity.Payment;
+import com.sunbeam.library.app.enums.PaymentType;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.repository.PaymentRepository;
+import com.sunbeam.library.app.service.LibrarianService;
+import com.sunbeam.library.app.service.MemberService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code GET /api/member/home} returns the sections asked for, with their lazy
+ * associations resolved, and nothing else.
+ */
+@SpringBootTest(properties = "test.database=member-home")
+@AutoConfigureMockMvc
+@ActiveProfiles({"embedded", "test"})
+class MemberHomeTest {
+
+    private static final String EMAIL = "home-test@lib.com";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private LibrarianService librarianService;
+    @Autowired private MemberService memberService;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private PaymentRepository paymentRepository;
+
+    private Member member;
+
+    @BeforeEach
+    void memberWithALoanAndACartItem() {
+        member = memberRepository.findByEmail(EMAIL).orElseGet(() -> {
+            Member created = saveMember();
+            List<BookCopyDTO> copies = addCopies(addBook(), 2);
+            librarianService.issueBook(created.getId(), copies.get(0).getId());
+            memberService.addToCart(EMAIL, copies.get(1).getId());
+            return created;
+        });
+    }
+
+    @Test
+    void onlyTheRequestedSectionsAreReturned() throws Exception {
+        mockMvc.perform(get("/api/member/home").param("fields", "BORROWED,CART").with(user(member)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.borrowed.length()").value(1))
+                .andExpect(jsonPath("$.borrowed[0].bookName").value("Piranesi"))
+                .andExpect(jsonPath("$.cart[0].bookAuthor").value("Susanna Clarke"))
+                .andExpect(jsonPath("$.dashboard").doesNotExist())
+                .andExpect(jsonPath("$.profile").doesNotExist())
+                .andExpect(jsonPath("$.holds").doesNotExist());
+    }
+
+    @Test
+    void everySectionWhenNoneIsNamed() throws Exception {
+        mockMvc.perform(get("/api/member/home").with(user(member)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dashboard.currentlyBorrowedCount").value(1))
+                .andExpect(jsonPath("$.profile.email").value(EMAIL))
+                .andExpect(jsonPath("$.profile.membershipActive").value(true))
+                .andExpect(jsonPath("$.borrowed.length()").value(1))
+                .andExpect(jsonPath("$.cart.length()").value(1))
+                .andExpect(jsonPath("$.holds.length()").value(0));
+    }
+
+    @Test
+    void unknownSectionIsABadRequest() throws Exception {
+        mockMvc.perform(get("/api/member/home").param("fields", "DASHBOARD,FINES").with(user(member)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Member saveMember() {
+        Member created = new Member();
+        created.setName("Home Test");
+        created.setEmail(EMAIL);
+        created.setPhone("9000000005");
+        created.setPassword("unused");
+        created.setRole(Role.ROLE_MEMBER);
+        created = memberRepository.save(created);
+        Payment payment = new Payment();
+        payment.setMember(created);
+        payment.setAmount(new BigDecimal("500.00"));
+        payment.setType(PaymentType.MEMBERSHIP);
+        payment.setTransactionTime(LocalDateTime.now());
+        payment.setDueDate(LocalDate.now().plusMonths(1));
+        paymentRepository.save(payment);
+        return created;
+    }
+
+    private long addBook() {
+        AddBookRequestDTO request = new AddBookRequestDTO();
+        request.setName("Piranesi");
+        request.setAuthor("Susanna Clarke");
+        request.setSubject("Fiction");
+        request.setIsbn("9781635575637");
+        request.setPrice(new BigDecimal("399.00"));
+        return librarianService.addBook(request).getId();
+    }
+
+    private List<BookCopyDTO> addCopies(long bookId, int count) {
+        AddCopyRequestDTO request = new AddCopyRequestDTO();
+        request.setBookId(bookId);
+        request.setRack("M2");
+        request.setNumberOfCopies(count);
+        return librarianService.addCopies(request);
+    }
+}
@@ -0,0 +1,213 @@
+package com.sunbeam.library.app.event;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.cluster.JobContext;
+import com.sunbeam.library.app.entity.OutboxEvent;
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.enums.OutboxStatus;
+import com.sunbeam.library.app.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The relay's per-key ordering, the tail following the relay's order and
+ * resuming from its position file, and the tail moving past an event a
+ * node-local consumer keeps failing on.
+ */
+class OutboxDeliveryTest {
+
+    @TempDir Path dataDirectory;
+
+    // The outbox table of the default branch
+    private final List<OutboxEvent> outbox = new ArrayList<>();
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    private final BranchDirectory branchDirectory = new BranchDirectory(List.of(BranchContext.DEFAULT), Map.of(BranchContext.DEFAULT, 0), 1);
+
+    @BeforeEach
+    void fakeOutboxTable() {
+        when(repository.findByStatusOrderByIdAsc(any(), any())).thenAnswer(invocation -> {
+            OutboxStatus status = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return outbox.stream().filter(event -> event.getStatus() == status)
+                    .sorted(Comparator.comparing(OutboxEvent::getId)).limit(page.getPageSize()).toList();
+        });
+        when(repository.findByRelaySeqGreaterThanOrderByRelaySeqAsc(anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return outbox.stream().filter(event -> event.getRelaySeq() != null && event.getRelaySeq() > after)
+                    .sorted(Comparator.comparing(OutboxEvent::getRelaySeq)).limit(page.getPageSize()).toList();
+        });
+        when(repository.findLatestRelaySeq()).thenAnswer(invocation -> outbox.stream()
+                .filter(event -> event.getRelaySeq() != null).mapToLong(OutboxEvent::getRelaySeq).max().orElse(0));
+        when(repository.updateDelivery(anyLong(), any(), any(), anyInt(), any())).thenAnswer(invocation -> {
+            OutboxEvent event = event(invocation.getArgument(0));
+            event.setStatus(invocation.getArgument(1));
+            event.setAttempts(invocation.getArgument(3));
+            return 1;
+        });
+        when(repository.finishDelivery(anyLong(), any(), any(), anyInt(), any(), anyLong())).thenAnswer(invocation -> {
+            OutboxEvent event = event(invocation.getArgument(0));
+            event.setStatus(invocation.getArgument(1));
+            event.setProcessedAt(invocation.getArgument(2));
+            event.setAttempts(invocation.getArgument(3));
+            event.setRelaySeq(invocation.getArgument(5));
+            return 1;
+        });
+    }
+
+    @AfterEach
+    void closeBranches() {
+        branchDirectory.close();
+    }
+
+    @Test
+    void failedEventHoldsBackItsKeyAndTheTailFollowsTheRelayOrder() {
+        List<Long> relayed = new CopyOnWriteArrayList<>();
+        Set<Long> failOnce = new HashSet<>(Set.of(1L));
+        OutboxRelay relay = relay(event -> {
+            if (failOnce.remove(event.id())) {
+                throw new IllegalStateException("consumer not ready");
+            }
+            relayed.add(event.id());
+        });
+        List<Long> tailed = new CopyOnWriteArrayList<>();
+        OutboxTail tail = tail(event -> tailed.add(event.id()));
+        poll(tail); // no position file: starts at the end
+
+        publish(1, "copy:1");
+        publish(2, "copy:2");
+        publish(3, "copy:1");
+        relay.relay(mock(JobContext.class));
+        // 3 waits behind 1, which shares its key; 2 goes ahead
+        assertThat(relayed).containsExactly(2L);
+        poll(tail);
+        assertThat(tailed).containsExactly(2L);
+
+        relay.relay(mock(JobContext.class));
+        assertThat(relayed).containsExactly(2L, 1L, 3L);
+        assertThat(event(1).getAttempts()).isEqualTo(2);
+        poll(tail);
+        assertThat(tailed).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void restartedTailResumesFromItsPositionFile() {
+        OutboxRelay relay = relay(event -> { });
+        List<Long> beforeRestart = new CopyOnWriteArrayList<>();
+        OutboxTail tail = tail(event -> beforeRestart.add(event.id()));
+        poll(tail);
+        publish(1, "copy:1");
+        publish(2, "copy:2");
+        relay.relay(mock(JobContext.class));
+        poll(tail);
+        assertThat(beforeRestart).containsExactly(1L, 2L);
+
+        // Relayed while the node was down
+        publish(3, "copy:1");
+        publish(4, "copy:3");
+        relay.relay(mock(JobContext.class));
+
+        List<Long> afterRestart = new CopyOnWriteArrayList<>();
+        poll(tail(event -> afterRestart.add(event.id())));
+        assertThat(afterRestart).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void eventAConsumerKeepsFailingOnIsRecordedAndSkipped() throws IOException {
+        OutboxRelay relay = relay(event -> { });
+        List<Long> tailed = new CopyOnWriteArrayList<>();
+        OutboxTail tail = tail(event -> {
+            if (event.id() == 2) {
+                throw new IllegalStateException("cannot apply event 2");
+            }
+            tailed.add(event.id());
+        });
+        poll(tail);
+        publish(1, "copy:1");
+        publish(2, "copy:2");
+        publish(3, "copy:3");
+        relay.relay(mock(JobContext.class));
+
+        poll(tail);
+        poll(tail);
+        assertThat(tailed).containsExactly(1L);
+        assertThat(dataDirectory.resolve("dead-letters.log")).doesNotExist();
+
+        // Third attempt: given up on, and the events behind it go through
+        poll(tail);
+        assertThat(tailed).containsExactly(1L, 3L);
+        assertThat(Files.readString(dataDirectory.resolve("dead-letters.log")))
+                .contains("branch=main id=2 relaySeq=2 type=COPY_RETURNED")
+                .contains("cannot apply event 2");
+        assertThat(Files.readString(dataDirectory.resolve("outbox-tail.properties"))).contains("main=3");
+    }
+
+    private OutboxRelay relay(DomainEventConsumer consumer) {
+        OutboxRelay relay = new OutboxRelay();
+        ReflectionTestUtils.setField(relay, "outboxEventRepository", repository);
+        ReflectionTestUtils.setField(relay, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(relay, "consumers", List.of(consumer));
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 10);
+        return relay;
+    }
+
+    private OutboxTail tail(NodeLocalEventConsumer consumer) {
+        OutboxTail tail = new OutboxTail();
+        ReflectionTestUtils.setField(tail, "outboxEventRepository", repository);
+        ReflectionTestUtils.setField(tail, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(tail, "consumers", List.of(consumer));
+        ReflectionTestUtils.setField(tail, "branchDirectory", branchDirectory);
+        ReflectionTestUtils.setField(tail, "batchSize", 2);
+        ReflectionTestUtils.setField(tail, "maxAttempts", 3);
+        ReflectionTestUtils.setField(tail, "positionFile", dataDirectory.resolve("outbox-tail.properties").toString());
+        ReflectionTestUtils.setField(tail, "deadLetterFile", dataDirectory.resolve("dead-letters.log").toString());
+        ReflectionTestUtils.invokeMethod(tail, "restorePositions");
+        return tail;
+    }
+
+    private static void poll(OutboxTail tail) {
+        ReflectionTestUtils.invokeMethod(tail, "poll");
+    }
+
+    private void publish(long id, String key) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setType(key.equals("copy:2") ? DomainEventType.COPY_RETURNED : DomainEventType.COPY_ISSUED);
+        event.setAggregateKey(key);
+        event.setOccurredAt(LocalDateTime.now());
+        event.setStatus(OutboxStatus.PENDING);
+        outbox.add(event);
+    }
+
+    private OutboxEvent event(long id) {
+        return outbox.stream().filter(event -> event.getId() == id).findFirst().orElseThrow();
+    }
+}
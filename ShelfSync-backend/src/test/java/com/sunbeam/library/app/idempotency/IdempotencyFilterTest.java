@@ -0,0 +1,119 @@
+package com.sunbeam.library.app.idempotency;
+
+import com.sunbeam.library.app.exception.ErrorCode;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A retried POST gets the stored response back byte for byte, on the schema the
+ * migrations build, with a body well past what a tinyblob column holds. Auth
+ * endpoints and authentication failures are never stored, and an oversized
+ * body is turned away before anything runs.
+ */
+@SpringBootTest(properties = "test.database=idempotency-filter")
+@ActiveProfiles({"prod", "test"})
+class IdempotencyFilterTest {
+
+    @Autowired private IdempotencyFilter idempotencyFilter;
+
+    @Test
+    void retryReplaysResponseLongerThan255Bytes() throws Exception {
+        String requestBody = "{\"copyIds\":[1,2,3]}";
+        String responseBody = "{\"items\":\"" + "x".repeat(4000) + "\"}";
+        AtomicInteger executions = new AtomicInteger();
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            // The body read for the fingerprint is still there for the handler
+            assertThat(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(requestBody);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(responseBody.getBytes(StandardCharsets.UTF_8));
+        };
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(checkout("checkout-7f3a", requestBody), first, chain);
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(checkout("checkout-7f3a", requestBody), retry, chain);
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getContentAsString()).isEqualTo(responseBody);
+        assertThat(retry.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(retry.getStatus()).isEqualTo(first.getStatus());
+        assertThat(retry.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(retry.getContentAsString()).isEqualTo(responseBody);
+    }
+
+    @Test
+    void loginResponseIsNeverStored() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            response.getOutputStream().write("{\"token\":\"eyJ...\"}".getBytes(StandardCharsets.UTF_8));
+        };
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest login = post("/api/auth/login", "login-1", "{\"email\":\"a@lib.com\"}");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            idempotencyFilter.doFilter(login, response, chain);
+            assertThat(response.getHeader("Idempotent-Replayed")).isNull();
+        }
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void authenticationFailureIsNotStored() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        FilterChain chain = (request, response) -> ((HttpServletResponse) response).setStatus(
+                executions.incrementAndGet() == 1 ? HttpStatus.UNAUTHORIZED.value() : HttpStatus.OK.value());
+
+        MockHttpServletResponse expired = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(checkout("checkout-401", "{}"), expired, chain);
+        MockHttpServletResponse signedIn = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(checkout("checkout-401", "{}"), signedIn, chain);
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(checkout("checkout-401", "{}"), retry, chain);
+
+        assertThat(expired.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        assertThat(signedIn.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(signedIn.getHeader("Idempotent-Replayed")).isNull();
+        assertThat(retry.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void oversizedBodyIsRejectedBeforeRunning() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(checkout("checkout-big", "x".repeat(16_385)), response,
+                (request, ignored) -> executions.incrementAndGet());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(response.getContentAsString()).contains(ErrorCode.IDEMPOTENT_REQUEST_TOO_LARGE.name());
+        assertThat(executions).hasValue(0);
+    }
+
+    private static MockHttpServletRequest checkout(String key, String body) {
+        return post("/api/member/cart/checkout", key, body);
+    }
+
+    private static MockHttpServletRequest post(String path, String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
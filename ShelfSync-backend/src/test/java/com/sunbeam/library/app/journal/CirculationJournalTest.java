@@ -0,0 +1,182 @@
+package com.sunbeam.library.app.journal;
+
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.event.DomainEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Records round-trip through a segment with their pinned type codes, a record
+ * failing its checksum or left torn by a crash ends the readable journal and
+ * is overwritten by the next append, and a full segment rolls over without
+ * breaking sequence order, member lookups or replay.
+ */
+class CirculationJournalTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2024, 5, 6, 10, 30, 15);
+
+    @TempDir Path directory;
+
+    @Test
+    void recordsRoundTripWithPinnedTypeCodes() throws IOException {
+        CirculationJournal journal = open();
+        journal.append(event(11, DomainEventType.COPY_ISSUED, 7L, 3L, 30L, null));
+        journal.append(event(12, DomainEventType.COPY_RETURNED, 7L, 3L, 30L, null));
+        journal.append(event(13, DomainEventType.FINE_ASSESSED, 7L, null, null, new BigDecimal("12.50")));
+        journal.append(event(14, DomainEventType.MEMBERSHIP_PAID, 8L, null, null, new BigDecimal("500.00")));
+        journal.close();
+
+        List<JournalRecord> records = replay(open());
+        assertThat(records).containsExactly(
+                new JournalRecord(1, 11, DomainEventType.COPY_ISSUED, 7L, 3L, 30L, null, AT),
+                new JournalRecord(2, 12, DomainEventType.COPY_RETURNED, 7L, 3L, 30L, null, AT),
+                new JournalRecord(3, 13, DomainEventType.FINE_ASSESSED, 7L, null, null, new BigDecimal("12.50"), AT),
+                new JournalRecord(4, 14, DomainEventType.MEMBERSHIP_PAID, 8L, null, null, new BigDecimal("500.00"), AT));
+
+        // Written by earlier builds; these bytes must keep decoding to the same types
+        try (RandomAccessFile file = new RandomAccessFile(firstSegment().toFile(), "r")) {
+            for (int i = 0; i < 4; i++) {
+                file.seek(offset(i + 1) + JournalSegment.HEADER_SIZE + 16);
+                assertThat(file.readByte()).isEqualTo((byte) i);
+            }
+        }
+    }
+
+    @Test
+    void recordFailingItsChecksumEndsTheReadableJournal() throws IOException {
+        CirculationJournal journal = open();
+        for (long id = 1; id <= 3; id++) {
+            journal.append(event(id, DomainEventType.COPY_ISSUED, id, 1L, 1L, null));
+        }
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(firstSegment().toFile(), "rw")) {
+            long memberId = offset(2) + JournalSegment.HEADER_SIZE + 17;
+            file.seek(memberId);
+            file.writeByte(99);
+        }
+
+        try (FileChannel channel = FileChannel.open(firstSegment(), StandardOpenOption.READ)) {
+            assertThat(JournalSegment.readAt(channel, 1, 1)).isNotNull();
+            assertThat(JournalSegment.readAt(channel, 1, 2)).isNull();
+        }
+        CirculationJournal reopened = open();
+        assertThat(replay(reopened)).extracting(JournalRecord::eventId).containsExactly(1L);
+        assertThat(reopened.memberRecords(3)).isEmpty();
+        assertThat(reopened.append(event(4, DomainEventType.COPY_RETURNED, 4L, 1L, 1L, null))).isEqualTo(2);
+        assertThat(replay(reopened)).extracting(JournalRecord::eventId).containsExactly(1L, 4L);
+        reopened.close();
+    }
+
+    @Test
+    void tornTailIsDroppedOnReopen() throws IOException {
+        CirculationJournal journal = open();
+        for (long id = 1; id <= 3; id++) {
+            journal.append(event(id, DomainEventType.COPY_ISSUED, 5L, id, id, null));
+        }
+        journal.close();
+        // A crash mid-append: the payload is written but the length, which goes in last, is not
+        try (RandomAccessFile file = new RandomAccessFile(firstSegment().toFile(), "rw")) {
+            file.seek(offset(3));
+            file.writeInt(0);
+        }
+
+        CirculationJournal reopened = open();
+        assertThat(reopened.memberRecords(5)).extracting(JournalRecord::sequence).containsExactly(1L, 2L);
+        assertThat(reopened.append(event(9, DomainEventType.COPY_RETURNED, 5L, 1L, 1L, null))).isEqualTo(3);
+        assertThat(reopened.memberRecords(5)).extracting(JournalRecord::eventId).containsExactly(1L, 2L, 9L);
+        reopened.close();
+    }
+
+    @Test
+    void fullSegmentRollsOverAndEverythingStaysReadable() throws IOException {
+        int perSegment = (1024 * 1024 - JournalSegment.FILE_HEADER_SIZE) / JournalSegment.RECORD_SIZE;
+        int total = perSegment + 50;
+        CirculationJournal journal = open();
+        for (long id = 1; id <= total; id++) {
+            journal.append(event(id, DomainEventType.COPY_ISSUED, id % 2 == 0 ? 2L : 1L, id, id, null));
+        }
+
+        assertThat(JournalSegment.list(directory)).extracting(path -> path.getFileName().toString())
+                .containsExactly(JournalSegment.fileFor(directory, 1).getFileName().toString(),
+                        JournalSegment.fileFor(directory, perSegment + 1).getFileName().toString());
+        List<JournalRecord> records = replay(journal);
+        assertThat(records).extracting(JournalRecord::sequence)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, total).boxed().toList());
+        List<Long> evenSequences = LongStream.rangeClosed(1, total).filter(s -> s % 2 == 0).boxed().toList();
+        assertThat(journal.memberRecords(2)).extracting(JournalRecord::sequence).containsExactlyElementsOf(evenSequences);
+        journal.close();
+
+        // Restarted: the index is rebuilt from both segments and appends carry on in the second
+        CirculationJournal reopened = open();
+        assertThat(reopened.memberRecords(2)).extracting(JournalRecord::sequence).containsExactlyElementsOf(evenSequences);
+        assertThat(reopened.append(event(total + 1, DomainEventType.COPY_RETURNED, 2L, 1L, 1L, null))).isEqualTo(total + 1);
+        reopened.close();
+    }
+
+    @Test
+    void offlineReplaySkipsRedeliveredEvents() throws IOException {
+        CirculationJournal journal = open();
+        journal.append(event(1, DomainEventType.FINE_ASSESSED, 7L, null, null, new BigDecimal("10.00")));
+        journal.append(event(1, DomainEventType.FINE_ASSESSED, 7L, null, null, new BigDecimal("10.00")));
+        journal.append(event(2, DomainEventType.FINE_ASSESSED, 8L, null, null, new BigDecimal("2.50")));
+        journal.close();
+
+        String counters = runReplay("counters", directory.toString());
+        assertThat(counters).containsPattern("FINE_ASSESSED\\s+2\\s+12.50");
+        String member = runReplay("member", directory.toString(), "7");
+        assertThat(member.lines()).hasSize(1);
+    }
+
+    private CirculationJournal open() throws IOException {
+        CirculationJournal journal = new CirculationJournal(directory.toString(), 1, 60_000);
+        journal.open();
+        return journal;
+    }
+
+    private static List<JournalRecord> replay(CirculationJournal journal) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+        return records;
+    }
+
+    private static String runReplay(String... args) throws IOException {
+        PrintStream original = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            JournalReplay.main(args);
+        } finally {
+            System.setOut(original);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private Path firstSegment() {
+        return JournalSegment.fileFor(directory, 1);
+    }
+
+    private static long offset(long sequence) {
+        return JournalSegment.FILE_HEADER_SIZE + (sequence - 1) * JournalSegment.RECORD_SIZE;
+    }
+
+    private static DomainEvent event(long id, DomainEventType type, Long memberId, Long bookId, Long copyId,
+                                     BigDecimal amount) {
+        return new DomainEvent(id, type, "test:" + id, memberId, bookId, copyId, amount, AT);
+    }
+}
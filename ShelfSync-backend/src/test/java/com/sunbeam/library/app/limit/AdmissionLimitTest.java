@@ -0,0 +1,131 @@
+package com.sunbeam.library.app.limit;
+
+import com.sunbeam.library.app.enums.RequestClass;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The bulkhead and adaptive limit of {@link GradientLimiter}, and the
+ * connection shares of {@link ConnectionShareDataSource}.
+ */
+class AdmissionLimitTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @AfterEach
+    void clearRequestClass() {
+        RequestClassContext.clear();
+    }
+
+    @Test
+    void bulkheadAdmitsUpToItsSize() {
+        GradientLimiter limiter = new GradientLimiter(1, 3, 1.5);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire()).isEqualTo(i);
+        }
+        assertThat(limiter.tryAcquire()).isEqualTo(-1);
+        assertThat(limiter.isShedding()).isFalse();
+
+        limiter.release(MILLIS, 2);
+        assertThat(limiter.tryAcquire()).isEqualTo(2);
+    }
+
+    @Test
+    void risingLatencyPullsTheLimitDownAndItGrowsBack() {
+        GradientLimiter limiter = new GradientLimiter(2, 100, 1.5);
+        for (int i = 0; i < 200; i++) {
+            limiter.release(MILLIS, 80);
+        }
+        assertThat(limiter.limit()).isEqualTo(100);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.release(10 * MILLIS, 80);
+        }
+        assertThat(limiter.isShedding()).isTrue();
+        assertThat(limiter.limit()).isLessThan(100);
+
+        for (int i = 0; i < 500; i++) {
+            limiter.release(MILLIS, limiter.limit());
+        }
+        assertThat(limiter.limit()).isEqualTo(100);
+    }
+
+    @Test
+    void nestedConnectionsOfOneRequestShareItsPermit() throws Exception {
+        try (ConnectionShareDataSource dataSource = dataSource(1)) {
+            RequestClassContext.set(RequestClass.AUTH);
+            Connection outer = dataSource.getConnection();
+            // A REQUIRES_NEW transaction while the request already holds a connection
+            Connection inner = dataSource.getConnection();
+
+            assertThat(otherRequestGetsConnection(dataSource)).isFalse();
+            inner.close();
+            assertThat(otherRequestGetsConnection(dataSource)).isFalse();
+            outer.close();
+            assertThat(otherRequestGetsConnection(dataSource)).isTrue();
+
+            // Closing twice does not hand the permit back twice
+            outer.close();
+            try (Connection again = dataSource.getConnection()) {
+                assertThat(otherRequestGetsConnection(dataSource)).isFalse();
+            }
+        }
+    }
+
+    @Test
+    void sharesAreSeparatePerClassAndThreadsOutsideRequestsAreUncapped() throws Exception {
+        try (ConnectionShareDataSource dataSource = dataSource(1)) {
+            RequestClassContext.set(RequestClass.OWNER);
+            try (Connection owner = dataSource.getConnection()) {
+                RequestClassContext.clear();
+                try (Connection job = dataSource.getConnection(); Connection another = dataSource.getConnection()) {
+                    assertThat(job.isValid(1)).isTrue();
+                }
+                CompletableFuture.runAsync(() -> {
+                    RequestClassContext.set(RequestClass.MEMBER);
+                    try (Connection member = dataSource.getConnection()) {
+                        assertThat(member.isValid(1)).isTrue();
+                    } catch (SQLException ex) {
+                        throw new IllegalStateException(ex);
+                    } finally {
+                        RequestClassContext.clear();
+                    }
+                }).get(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    // Whether another AUTH request, on another thread, gets a connection within the wait
+    private static boolean otherRequestGetsConnection(ConnectionShareDataSource dataSource) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            RequestClassContext.set(RequestClass.AUTH);
+            try (Connection connection = dataSource.getConnection()) {
+                return connection.isValid(1);
+            } catch (SQLTransientConnectionException ex) {
+                return false;
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            } finally {
+                RequestClassContext.clear();
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static ConnectionShareDataSource dataSource(int share) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:admission-limit;DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        return new ConnectionShareDataSource(h2, Map.of(RequestClass.AUTH, share, RequestClass.OWNER, share,
+                RequestClass.MEMBER, share), 50);
+    }
+}
@@ -0,0 +1,20 @@
+package com.sunbeam.library.app.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketsTest {
+
+    @Test
+    void newKeyInAFullStripeKeepsItsBucket() {
+        // One key per stripe, so every new key makes its stripe trim
+        TokenBuckets buckets = new TokenBuckets(1, 0.001, 64);
+        for (int i = 0; i < 1000; i++) {
+            buckets.tryTake("member-" + i);
+        }
+
+        assertThat(buckets.tryTake("new-member")).isZero();
+        assertThat(buckets.tryTake("new-member")).isPositive();
+    }
+}
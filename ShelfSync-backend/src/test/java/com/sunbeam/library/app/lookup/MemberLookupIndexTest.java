@@ -0,0 +1,84 @@
+package com.sunbeam.library.app.lookup;
+
+import com.sunbeam.library.app.lookup.MemberLookupIndex.Entry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberLookupIndexTest {
+
+    private final MemberLookupIndex index = new MemberLookupIndex();
+
+    @Test
+    void phoneIsFoundByItsDigitsAndByItsLastTenDigits() {
+        index.put(entry(1, "Rohan Iyer", "rohan@lib.com", "+91 98765-43210"));
+
+        assertThat(ids("9198")).containsExactly(1L);
+        assertThat(ids("+91 987")).containsExactly(1L);
+        assertThat(ids("98765")).containsExactly(1L);
+        assertThat(ids("(987) 654-32")).containsExactly(1L);
+        assertThat(ids("8765")).isEmpty();
+    }
+
+    @Test
+    void namesAreFoldedAndEveryWordStartsAKey() {
+        index.put(entry(1, "Zoë Ann Smith", "zoe@lib.com", "9000000001"));
+
+        assertThat(ids("zoe a")).containsExactly(1L);
+        assertThat(ids("ZOË")).containsExactly(1L);
+        assertThat(ids("ann")).containsExactly(1L);
+        assertThat(ids("smi")).containsExactly(1L);
+        assertThat(ids("ann smith")).containsExactly(1L);
+        assertThat(ids("nn")).isEmpty();
+        assertThat(MemberLookupIndex.normalizeName("  José  O'Brien-Müller ")).isEqualTo("jose o brien muller");
+    }
+
+    @Test
+    void namesakesAndSharedPhonesAreKeptApartByMemberId() {
+        index.put(entry(1, "Priya Nair", "priya.1@lib.com", "9000000001"));
+        index.put(entry(2, "Priya Nair", "priya.2@lib.com", "9000000001"));
+
+        assertThat(ids("priya nair")).containsExactly(1L, 2L);
+        assertThat(ids("9000000001")).containsExactly(1L, 2L);
+
+        index.remove("PRIYA.1@lib.com");
+        assertThat(ids("priya nair")).containsExactly(2L);
+        assertThat(ids("9000000001")).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void putForAnIndexedEmailReplacesTheOldKeys() {
+        index.put(entry(1, "Sneha Kulkarni", "sneha@lib.com", "9000000001"));
+        index.put(entry(1, "Sneha Deshpande", "Sneha@lib.com", "9111111111"));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(ids("kulk")).isEmpty();
+        assertThat(ids("900")).isEmpty();
+        assertThat(ids("desh")).containsExactly(1L);
+        assertThat(ids("911")).containsExactly(1L);
+        assertThat(index.search("sneha@", 10)).extracting(Entry::name).containsExactly("Sneha Deshpande");
+    }
+
+    @Test
+    void emailMatchesComeFirstAndTheLimitIsKept() {
+        index.put(entry(1, "Arjun Reddy", "arjun.reddy@lib.com", "9000000001"));
+        index.put(entry(2, "Arjun Gupta", "a.gupta@lib.com", "9000000002"));
+        index.put(entry(3, "Meera Arjun", "arjun@lib.com", "9000000003"));
+
+        // E-mails in key order ("arjun." sorts before "arjun@"), then the name match
+        assertThat(ids("arjun")).containsExactly(1L, 3L, 2L);
+        assertThat(index.search("arjun", 2)).hasSize(2);
+        assertThat(index.search("   ", 10)).isEmpty();
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 10).stream().map(Entry::id).toList();
+    }
+
+    private static Entry entry(long id, String name, String email, String phone) {
+        return new Entry(id, name, email, phone, "main");
+    }
+}
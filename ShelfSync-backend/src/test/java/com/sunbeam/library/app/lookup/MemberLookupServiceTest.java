@@ -0,0 +1,171 @@
+package com.sunbeam.library.app.lookup;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.dto.MemberLookupDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.enums.CacheRegion;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds of the index from every branch's members (never staff), member changes
+ * arriving from the invalidation bus, and changes that land while a build is
+ * reading, which must be replayed into the index it produces.
+ */
+class MemberLookupServiceTest {
+
+    private static final String NORTH = "north";
+
+    // Members of each branch, by e-mail, standing in for the branch databases
+    private final Map<String, Map<String, Member>> branches = Map.of(
+            BranchContext.DEFAULT, new ConcurrentHashMap<>(), NORTH, new ConcurrentHashMap<>());
+    private final AtomicLong ids = new AtomicLong();
+    private final BranchDirectory branchDirectory = new BranchDirectory(List.of(BranchContext.DEFAULT, NORTH),
+            Map.of(BranchContext.DEFAULT, 0, NORTH, 1), 1);
+    private final MemberLookupService service = new MemberLookupService();
+
+    // While set, a build holds on to the rows it has read until the latch opens
+    private volatile CountDownLatch buildRead;
+    private volatile CountDownLatch releaseBuild;
+
+    @BeforeEach
+    void wireService() {
+        MemberRepository memberRepository = mock(MemberRepository.class);
+        when(memberRepository.findLookupRows(any())).thenAnswer(invocation -> {
+            Role role = invocation.getArgument(0);
+            List<Object[]> rows = members().values().stream()
+                    .filter(member -> member.getRole() == role)
+                    .map(member -> new Object[] {member.getId(), member.getName(), member.getEmail(), member.getPhone()})
+                    .toList();
+            CountDownLatch release = releaseBuild;
+            if (release != null) {
+                buildRead.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return rows;
+        });
+        when(memberRepository.findByEmail(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(members().get(invocation.<String>getArgument(0))));
+        ReflectionTestUtils.setField(service, "memberRepository", memberRepository);
+        ReflectionTestUtils.setField(service, "branchDirectory", branchDirectory);
+        ReflectionTestUtils.setField(service, "maxResults", 50);
+    }
+
+    @AfterEach
+    void closeBranches() {
+        branchDirectory.close();
+    }
+
+    @Test
+    void buildIndexesMembersOfEveryBranchButNotStaff() throws InterruptedException {
+        save(BranchContext.DEFAULT, "reader-main@lib.com", Role.ROLE_MEMBER);
+        save(NORTH, "reader-north@lib.com", Role.ROLE_MEMBER);
+        save(BranchContext.DEFAULT, "reader-librarian@lib.com", Role.ROLE_LIBRARIAN);
+        assertThat(service.health().getStatus()).isEqualTo(Status.UP);
+
+        service.rebuildAsync();
+        awaitTrue(() -> service.health().getDetails().get("members").equals(2));
+
+        assertThat(service.search("reader-", 10)).extracting(MemberLookupDTO::getEmail, MemberLookupDTO::getBranch)
+                .containsExactly(tuple("reader-main@lib.com", BranchContext.DEFAULT),
+                        tuple("reader-north@lib.com", NORTH));
+    }
+
+    @Test
+    void invalidationRereadsTheMemberInItsBranch() throws InterruptedException {
+        buildAndWait();
+        Member member = save(NORTH, "bus-member@lib.com", Role.ROLE_MEMBER);
+        assertThat(emails("bus-")).isEmpty();
+
+        BranchContext.runIn(NORTH, () -> service.invalidate(CacheRegion.MEMBER, member.getEmail()));
+        assertThat(service.search("bus-", 10)).extracting(MemberLookupDTO::getBranch).containsExactly(NORTH);
+
+        // Promoted to staff: no longer offered to librarians
+        member.setRole(Role.ROLE_LIBRARIAN);
+        BranchContext.runIn(NORTH, () -> service.invalidate(CacheRegion.MEMBER, member.getEmail()));
+        assertThat(emails("bus-")).isEmpty();
+
+        // Other regions are not about members
+        save(BranchContext.DEFAULT, "bus-other@lib.com", Role.ROLE_MEMBER);
+        service.invalidate(CacheRegion.CATALOG, "bus-other@lib.com");
+        assertThat(emails("bus-")).isEmpty();
+    }
+
+    @Test
+    void changeDuringABuildIsReplayedIntoTheNewIndex() throws InterruptedException {
+        buildAndWait();
+        // Only the second build can have indexed this one: it tells when that index is in place
+        save(BranchContext.DEFAULT, "replay-marker@lib.com", Role.ROLE_MEMBER);
+        buildRead = new CountDownLatch(1);
+        releaseBuild = new CountDownLatch(1);
+        try {
+            service.rebuildAsync();
+            assertThat(buildRead.await(10, TimeUnit.SECONDS)).isTrue();
+            // Registered after the build read its branch, published while it is still running
+            Member late = save(BranchContext.DEFAULT, "replay-late@lib.com", Role.ROLE_MEMBER);
+            service.invalidate(CacheRegion.MEMBER, late.getEmail());
+        } finally {
+            CountDownLatch release = releaseBuild;
+            releaseBuild = null;
+            release.countDown();
+        }
+
+        awaitTrue(() -> emails("replay-").contains("replay-marker@lib.com"));
+        awaitTrue(() -> emails("replay-").contains("replay-late@lib.com"));
+    }
+
+    private void buildAndWait() throws InterruptedException {
+        service.rebuildAsync();
+        awaitTrue(() -> service.health().getDetails().containsKey("members")
+                && ReflectionTestUtils.getField(service, "index") != null);
+    }
+
+    private Member save(String branch, String email, Role role) {
+        Member member = new Member();
+        member.setId(ids.incrementAndGet());
+        member.setName("Lookup Test");
+        member.setEmail(email);
+        member.setPhone("9000000003");
+        member.setRole(role);
+        branches.get(branch).put(email, member);
+        return member;
+    }
+
+    private Map<String, Member> members() {
+        return branches.get(BranchContext.current());
+    }
+
+    private List<String> emails(String prefix) {
+        return service.search(prefix, 50).stream().map(MemberLookupDTO::getEmail).toList();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,166 @@
+package com.sunbeam.library.app.recommendation;
+
+import com.sunbeam.library.app.branch.BranchContext;
+import com.sunbeam.library.app.branch.BranchDirectory;
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.event.DomainEvent;
+import com.sunbeam.library.app.repository.ArchivedIssueRecordRepository;
+import com.sunbeam.library.app.repository.IssueRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The primitive pair-count map, the parallel co-borrow count against a plain
+ * one, the top-N ranking, and an issue that arrives during a rebuild.
+ */
+class RecommendationTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final BranchDirectory branchDirectory = new BranchDirectory(List.of(BranchContext.DEFAULT), Map.of(BranchContext.DEFAULT, 0), 1);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+        branchDirectory.close();
+    }
+
+    @Test
+    void mapKeepsEveryCountThroughResizesAndProbing() {
+        // Starts at 4 slots, so the keys probe past each other and the table doubles many times
+        LongIntHashMap map = new LongIntHashMap(1);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1 + random.nextInt(20_000) * 64L; // multiples of 64 share their low bits
+            map.addTo(key, 2);
+            expected.merge(key, 2, Integer::sum);
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, count) -> assertThat(map.get(key)).as("key %d", key).isEqualTo(count));
+        Map<Long, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertThat(iterated).isEqualTo(expected);
+        assertThat(map.get(2)).isZero();
+        assertThat(map.get(-1)).isZero();
+    }
+
+    @Test
+    void mapMergesAndRejectsTheReservedKey() {
+        LongIntHashMap left = new LongIntHashMap(4);
+        left.addTo(7, 1);
+        left.addTo(9, 2);
+        LongIntHashMap right = new LongIntHashMap(4);
+        right.addTo(9, 3);
+        right.addTo(11, 4);
+        left.addAll(right);
+
+        assertThat(left.size()).isEqualTo(3);
+        assertThat(left.get(7)).isEqualTo(1);
+        assertThat(left.get(9)).isEqualTo(5);
+        assertThat(left.get(11)).isEqualTo(4);
+        assertThatThrownBy(() -> left.addTo(0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parallelPairCountMatchesAPlainCount() {
+        // Enough members for several fork-join splits
+        Random random = new Random(9);
+        List<long[]> memberBooks = new ArrayList<>();
+        for (int m = 0; m < 3_000; m++) {
+            memberBooks.add(random.longs(2 + random.nextInt(6), 1, 200).distinct().sorted().toArray());
+        }
+        Map<Long, Integer> expected = new HashMap<>();
+        for (long[] books : memberBooks) {
+            for (int i = 0; i < books.length; i++) {
+                for (int j = i + 1; j < books.length; j++) {
+                    expected.merge(CoBorrowIndexBuilder.pack(books[j], books[i]), 1, Integer::sum);
+                }
+            }
+        }
+
+        LongIntHashMap pairCounts = CoBorrowIndexBuilder.countPairs(memberBooks, pool);
+        Map<Long, Integer> actual = new HashMap<>();
+        pairCounts.forEach(actual::put);
+        assertThat(actual).isEqualTo(expected);
+
+        Map<Long, LongIntHashMap> adjacency = CoBorrowIndexBuilder.toAdjacency(pairCounts);
+        expected.forEach((pair, count) -> {
+            long a = pair >>> 32;
+            long b = pair & 0xFFFFFFFFL;
+            assertThat(adjacency.get(a).get(b)).isEqualTo(count);
+            assertThat(adjacency.get(b).get(a)).isEqualTo(count);
+        });
+    }
+
+    @Test
+    void packOrdersThePairAndRejectsIdsPastThirtyTwoBits() {
+        assertThat(CoBorrowIndexBuilder.pack(5, 3)).isEqualTo(CoBorrowIndexBuilder.pack(3, 5)).isEqualTo((3L << 32) | 5);
+        assertThatThrownBy(() -> CoBorrowIndexBuilder.pack(1, 1L << 32)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void topNRanksByCountThenLowerId() {
+        LongIntHashMap neighbours = new LongIntHashMap(8);
+        neighbours.addTo(40, 2);
+        neighbours.addTo(10, 5);
+        neighbours.addTo(30, 2);
+        neighbours.addTo(20, 7);
+        neighbours.addTo(50, 1);
+
+        assertThat(RecommendationTable.topN(neighbours, 3)).containsExactly(20, 10, 30);
+        assertThat(RecommendationTable.topN(neighbours, 10)).containsExactly(20, 10, 30, 40, 50);
+        assertThat(RecommendationTable.topN(new LongIntHashMap(4), 3)).isEmpty();
+    }
+
+    @Test
+    void issueDuringARebuildIsReplayedOntoTheNewIndex() {
+        IssueRecordRepository issues = mock(IssueRecordRepository.class);
+        ArchivedIssueRecordRepository archived = mock(ArchivedIssueRecordRepository.class);
+        RecommendationService service = new RecommendationService();
+        ReflectionTestUtils.setField(service, "issueRecordRepository", issues);
+        ReflectionTestUtils.setField(service, "archivedIssueRecordRepository", archived);
+        ReflectionTestUtils.setField(service, "branchDirectory", branchDirectory);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "perBook", 10);
+
+        // Member 1 borrowed books 1 and 2 (one of them now archived), member 2 books 1 and 3
+        when(archived.streamDistinctMemberBookPairs()).thenAnswer(invocation -> Stream.<Object[]>of(pair(1, 2)));
+        when(issues.countByMemberIdAndBookId(anyLong(), anyLong())).thenReturn(1L);
+        when(archived.findDistinctBookIdsByMemberId(anyLong())).thenReturn(List.of());
+        when(issues.findDistinctBookIdsByMemberId(3L)).thenReturn(List.of(3L, 4L));
+        // Member 3 borrows book 4 after the history was read but before the swap
+        when(issues.streamDistinctMemberBookPairs()).thenAnswer(invocation -> Stream.<Object[]>of(pair(1, 1), pair(2, 1), pair(2, 3))
+                .onClose(() -> service.onEvent(new DomainEvent(1, DomainEventType.COPY_ISSUED, "copy:9",
+                        3L, 4L, 9L, null, LocalDateTime.now()))));
+
+        service.rebuild();
+
+        assertThat(service.recommend(1)).containsExactly(2, 3);
+        assertThat(service.recommend(3)).containsExactly(1, 4);
+        assertThat(service.recommend(4)).containsExactly(3);
+
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+    }
+
+    private static Object[] pair(long memberId, long bookId) {
+        return new Object[]{memberId, bookId};
+    }
+}
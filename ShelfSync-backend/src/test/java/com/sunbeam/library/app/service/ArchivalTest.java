@@ -0,0 +1,156 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.cluster.JobContext;
+import com.sunbeam.library.app.dto.AddBookRequestDTO;
+import com.sunbeam.library.app.dto.AddCopyRequestDTO;
+import com.sunbeam.library.app.entity.ArchivedIssueRecord;
+import com.sunbeam.library.app.entity.ArchivedPayment;
+import com.sunbeam.library.app.entity.BookCopy;
+import com.sunbeam.library.app.entity.IssueRecord;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.entity.Payment;
+import com.sunbeam.library.app.enums.PaymentType;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.repository.ArchivedIssueRecordRepository;
+import com.sunbeam.library.app.repository.ArchivedPaymentRepository;
+import com.sunbeam.library.app.repository.BookCopyRepository;
+import com.sunbeam.library.app.repository.IssueRecordRepository;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Old closed loans and payments move to the archive tables with their ids and
+ * fields, open and recent rows stay, and running the archival again moves
+ * nothing more.
+ */
+@SpringBootTest(properties = {"test.database=archival", "archive.batch-size=2"})
+@ActiveProfiles({"embedded", "test"})
+class ArchivalTest {
+
+    private static final LocalDate LONG_AGO = LocalDate.now().minusYears(2);
+
+    @Autowired private ArchivalService archivalService;
+    @Autowired private LibrarianService librarianService;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private BookCopyRepository bookCopyRepository;
+    @Autowired private IssueRecordRepository issueRecordRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private ArchivedIssueRecordRepository archivedIssueRecordRepository;
+    @Autowired private ArchivedPaymentRepository archivedPaymentRepository;
+
+    @Test
+    void oldRowsMoveOnceAndEverythingElseStays() {
+        Member member = saveMember();
+        BookCopy copy = addCopy();
+        List<Long> oldLoans = List.of(
+                loan(member, copy, LONG_AGO, LONG_AGO.plusDays(10)).getId(),
+                loan(member, copy, LONG_AGO.plusDays(20), LONG_AGO.plusDays(30)).getId(),
+                loan(member, copy, LONG_AGO.plusDays(40), LONG_AGO.plusDays(70)).getId());
+        IssueRecord recent = loan(member, copy, LocalDate.now().minusDays(20), LocalDate.now().minusDays(5));
+        IssueRecord open = loan(member, copy, LocalDate.now().minusDays(3), null);
+        Payment oldFine = payment(member, PaymentType.FINE, "40.00", LONG_AGO.atTime(12, 0));
+        Payment oldMembership = payment(member, PaymentType.MEMBERSHIP, "500.00", LONG_AGO.atTime(9, 0));
+        Payment latestMembership = payment(member, PaymentType.MEMBERSHIP, "500.00", LONG_AGO.plusMonths(1).atTime(9, 0));
+        Payment recentFine = payment(member, PaymentType.FINE, "10.00", LocalDateTime.now().minusDays(1));
+
+        JobContext first = mock(JobContext.class);
+        archivalService.archive(first);
+
+        assertThat(issueRecordRepository.findAllById(oldLoans)).isEmpty();
+        assertThat(issueRecordRepository.findAllById(List.of(recent.getId(), open.getId()))).hasSize(2);
+        List<ArchivedIssueRecord> archivedLoans = archivedIssueRecordRepository.findAllById(oldLoans);
+        assertThat(archivedLoans).extracting(ArchivedIssueRecord::getId).containsExactlyInAnyOrderElementsOf(oldLoans);
+        ArchivedIssueRecord firstLoan = archivedIssueRecordRepository.findById(oldLoans.get(0)).orElseThrow();
+        assertThat(firstLoan.getMemberId()).isEqualTo(member.getId());
+        assertThat(firstLoan.getCopyId()).isEqualTo(copy.getId());
+        assertThat(firstLoan.getBookName()).isEqualTo("The Dispossessed");
+        assertThat(firstLoan.getIssueDate()).isEqualTo(LONG_AGO);
+        assertThat(firstLoan.getReturnDate()).isEqualTo(LONG_AGO.plusDays(10));
+
+        // The member's latest membership stays hot however old it is
+        assertThat(paymentRepository.findAllById(List.of(oldFine.getId(), oldMembership.getId()))).isEmpty();
+        assertThat(paymentRepository.findAllById(List.of(latestMembership.getId(), recentFine.getId()))).hasSize(2);
+        ArchivedPayment archivedFine = archivedPaymentRepository.findById(oldFine.getId()).orElseThrow();
+        assertThat(archivedFine.getType()).isEqualTo(PaymentType.FINE);
+        assertThat(archivedFine.getAmount()).isEqualByComparingTo("40.00");
+        assertThat(archivedFine.getTransactionTime()).isEqualTo(oldFine.getTransactionTime());
+        assertThat(archivedPaymentRepository.findById(oldMembership.getId())).isPresent();
+
+        // Three loans in batches of two, then two payments and an empty batch, renewing the lease after each
+        verify(first).addRows(1);
+        verify(first, times(2)).addRows(2);
+        verify(first).checkpoint("payments");
+        verify(first, times(4)).keepAlive();
+
+        JobContext second = mock(JobContext.class);
+        archivalService.archive(second);
+        verify(second, never()).addRows(longThat(rows -> rows > 0));
+        assertThat(archivedIssueRecordRepository.findAllById(oldLoans)).hasSize(3);
+        assertThat(archivedPaymentRepository.findAllById(List.of(oldFine.getId(), oldMembership.getId()))).hasSize(2);
+        assertThat(issueRecordRepository.findAllById(List.of(recent.getId(), open.getId()))).hasSize(2);
+        assertThat(paymentRepository.findAllById(List.of(latestMembership.getId(), recentFine.getId()))).hasSize(2);
+    }
+
+    private IssueRecord loan(Member member, BookCopy copy, LocalDate issued, LocalDate returned) {
+        IssueRecord record = new IssueRecord();
+        record.setMember(member);
+        record.setBookCopy(copy);
+        record.setIssueDate(issued);
+        record.setDueDate(issued.plusDays(14));
+        record.setReturnDate(returned);
+        record.setFine(BigDecimal.ZERO);
+        return issueRecordRepository.save(record);
+    }
+
+    private Payment payment(Member member, PaymentType type, String amount, LocalDateTime at) {
+        Payment payment = new Payment();
+        payment.setMember(member);
+        payment.setType(type);
+        payment.setAmount(new BigDecimal(amount));
+        payment.setTransactionTime(at);
+        if (type == PaymentType.MEMBERSHIP) {
+            payment.setDueDate(at.toLocalDate().plusMonths(1));
+        }
+        return paymentRepository.save(payment);
+    }
+
+    private BookCopy addCopy() {
+        AddBookRequestDTO book = new AddBookRequestDTO();
+        book.setName("The Dispossessed");
+        book.setAuthor("Ursula K. Le Guin");
+        book.setSubject("Fiction");
+        book.setIsbn("9780061054884");
+        book.setPrice(new BigDecimal("420.00"));
+        AddCopyRequestDTO copies = new AddCopyRequestDTO();
+        copies.setBookId(librarianService.addBook(book).getId());
+        copies.setRack("A3");
+        copies.setNumberOfCopies(1);
+        return bookCopyRepository.findById(librarianService.addCopies(copies).get(0).getId()).orElseThrow();
+    }
+
+    private Member saveMember() {
+        Member member = new Member();
+        member.setName("Archival Test");
+        member.setEmail("archival-test@lib.com");
+        member.setPhone("9000000007");
+        member.setPassword("unused");
+        member.setRole(Role.ROLE_MEMBER);
+        return memberRepository.save(member);
+    }
+}
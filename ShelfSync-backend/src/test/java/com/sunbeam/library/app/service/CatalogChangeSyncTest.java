@@ -0,0 +1,122 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.dto.AddBookRequestDTO;
+import com.sunbeam.library.app.dto.BookDTO;
+import com.sunbeam.library.app.dto.CatalogChangesDTO;
+import com.sunbeam.library.app.enums.CatalogChangeType;
+import com.sunbeam.library.app.repository.CatalogChangeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two changes that commit in the opposite order to their ids: a client that syncs
+ * between the two commits must still get the first change on its next sync. And
+ * paging through changes newer than the lag, which the version cannot move past.
+ */
+@SpringBootTest(properties = {
+        "test.database=catalog-sync",
+        "catalog.changes.visibility-lag-ms=2000"
+})
+@ActiveProfiles({"embedded", "test"})
+class CatalogChangeSyncTest {
+
+    @Autowired private LibrarianService librarianService;
+    @Autowired private MemberService memberService;
+    @Autowired private CatalogChangeLog catalogChangeLog;
+    @Autowired private CatalogChangeRepository catalogChangeRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void changeCommittedAfterAHigherIdIsNotSkipped() throws Exception {
+        long first = addBook("Dune", "9780441013593");
+        long second = addBook("Solaris", "9780156027601");
+        long since = catalogChangeRepository.findLatestVersion();
+
+        // The first change takes the lower id and stays uncommitted...
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(tx -> {
+            catalogChangeLog.record(first, CatalogChangeType.AVAILABILITY_CHANGED);
+            written.countDown();
+            await(release);
+        }));
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+        // ...while the second commits, and a client syncs
+        transactionTemplate.executeWithoutResult(tx -> catalogChangeLog.record(second, CatalogChangeType.AVAILABILITY_CHANGED));
+        CatalogChangesDTO beforeCommit = sync(since, 100);
+        assertThat(bookIds(beforeCommit)).containsExactly(second);
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+
+        CatalogChangesDTO afterCommit = sync(beforeCommit.getVersion(), 100);
+        assertThat(bookIds(afterCommit)).contains(first);
+
+        // Once both are older than the lag, the version moves past them
+        Thread.sleep(2500);
+        CatalogChangesDTO settled = sync(afterCommit.getVersion(), 100);
+        assertThat(settled.getVersion()).isEqualTo(catalogChangeRepository.findLatestVersion());
+        assertThat(sync(settled.getVersion(), 100).getBooks()).isEmpty();
+    }
+
+    @Test
+    void fullPageHasMoreWhileTheVersionIsHeldBack() {
+        long since = catalogChangeRepository.findLatestVersion();
+        long first = addBook("Kindred", "9780807083697");
+        long second = addBook("Parable of the Sower", "9781538732182");
+        long third = addBook("Dawn", "9781538765807");
+
+        // All three are newer than the lag: the version stays at since, paging goes on from next
+        CatalogChangesDTO firstPage = sync(since, 0, 2);
+        assertThat(bookIds(firstPage)).containsExactly(first, second);
+        assertThat(firstPage.isHasMore()).isTrue();
+        assertThat(firstPage.getVersion()).isEqualTo(since);
+
+        CatalogChangesDTO lastPage = sync(since, firstPage.getNext(), 2);
+        assertThat(bookIds(lastPage)).containsExactly(third);
+        assertThat(lastPage.isHasMore()).isFalse();
+        assertThat(lastPage.getVersion()).isEqualTo(since);
+    }
+
+    private long addBook(String name, String isbn) {
+        AddBookRequestDTO request = new AddBookRequestDTO();
+        request.setName(name);
+        request.setAuthor("Author");
+        request.setSubject("Fiction");
+        request.setIsbn(isbn);
+        request.setPrice(new BigDecimal("399.00"));
+        return librarianService.addBook(request).getId();
+    }
+
+    // In a transaction, as open-in-view would give it in a request
+    private CatalogChangesDTO sync(long since, int limit) {
+        return sync(since, 0, limit);
+    }
+
+    private CatalogChangesDTO sync(long since, long after, int limit) {
+        return transactionTemplate.execute(tx -> memberService.getCatalogChanges(since, after, limit));
+    }
+
+    private static List<Long> bookIds(CatalogChangesDTO changes) {
+        return changes.getBooks().stream().map(BookDTO::getId).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
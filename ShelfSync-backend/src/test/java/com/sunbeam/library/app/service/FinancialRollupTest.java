@@ -0,0 +1,149 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.dto.FinancialReportDTO;
+import com.sunbeam.library.app.entity.ArchivedPayment;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.entity.Payment;
+import com.sunbeam.library.app.entity.PaymentRollup;
+import com.sunbeam.library.app.enums.DomainEventType;
+import com.sunbeam.library.app.enums.PaymentType;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.enums.RollupGranularity;
+import com.sunbeam.library.app.event.DomainEvent;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.exception.ErrorCode;
+import com.sunbeam.library.app.repository.ArchivedPaymentRepository;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.repository.PaymentRepository;
+import com.sunbeam.library.app.repository.PaymentRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Day and month rollups kept up from payment events agree with the ones a
+ * backfill rebuilds from the payments and their archive, a second backfill of
+ * the same range changes nothing, and the owner report reads them back.
+ */
+@SpringBootTest(properties = "test.database=financial-rollup")
+@ActiveProfiles({"embedded", "test"})
+class FinancialRollupTest {
+
+    private static final LocalDate FROM = LocalDate.of(2020, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2020, 4, 30);
+
+    @Autowired private FinancialRollupService financialRollupService;
+    @Autowired private OwnerService ownerService;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private ArchivedPaymentRepository archivedPaymentRepository;
+    @Autowired private PaymentRollupRepository paymentRollupRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private long eventIds;
+
+    @Test
+    void backfillRebuildsTheIncrementalRollupsAndCanBeRerun() {
+        Member member = saveMember();
+        pay(member, PaymentType.MEMBERSHIP, "500.00", LocalDateTime.of(2020, 3, 10, 9, 0), false);
+        pay(member, PaymentType.FINE, "20.00", LocalDateTime.of(2020, 3, 10, 17, 30), false);
+        pay(member, PaymentType.FINE, "30.00", LocalDateTime.of(2020, 3, 10, 18, 0), true);
+        pay(member, PaymentType.FINE, "15.50", LocalDateTime.of(2020, 3, 11, 11, 0), true);
+        pay(member, PaymentType.MEMBERSHIP, "500.00", LocalDateTime.of(2020, 4, 2, 10, 0), false);
+        List<String> incremental = rollups();
+        assertThat(incremental).containsExactly(
+                "DAY 2020-03-10 membership 500 x1, fines 50 assessed 50 x2",
+                "DAY 2020-03-11 membership 0 x0, fines 15.5 assessed 15.5 x1",
+                "DAY 2020-04-02 membership 500 x1, fines 0 assessed 0 x0",
+                "MONTH 2020-03-01 membership 500 x1, fines 65.5 assessed 65.5 x3",
+                "MONTH 2020-04-01 membership 500 x1, fines 0 assessed 0 x0");
+
+        assertThat(financialRollupService.backfill(FROM, TO)).isEqualTo(5);
+        assertThat(rollups()).isEqualTo(incremental);
+        assertThat(financialRollupService.backfill(FROM, TO)).isEqualTo(5);
+        assertThat(rollups()).isEqualTo(incremental);
+
+        // A whole month from its month row, plus single days from theirs
+        FinancialReportDTO report = ownerService.getFinancialReport(LocalDate.of(2020, 3, 1), LocalDate.of(2020, 4, 2));
+        assertThat(report.getMembershipRevenue()).isEqualByComparingTo("1000");
+        assertThat(report.getFineRevenue()).isEqualByComparingTo("65.5");
+        assertThat(report.getNewMemberships()).isEqualTo(2);
+    }
+
+    @Test
+    void backfillOfAnInvertedRangeIsRejected() {
+        assertThatThrownBy(() -> financialRollupService.backfill(TO, FROM))
+                .isInstanceOf(BusinessRuleException.class)
+                .extracting(ex -> ((BusinessRuleException) ex).getCode())
+                .isEqualTo(ErrorCode.INVALID_DATE_RANGE);
+    }
+
+    // Saved like a payment and rolled up like its outbox event, in one transaction as the relay does
+    private void pay(Member member, PaymentType type, String amount, LocalDateTime at, boolean archived) {
+        BigDecimal value = new BigDecimal(amount);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (archived) {
+                // Archived rows keep the id the payment had; these never were in the payments table
+                ArchivedPayment payment = new ArchivedPayment();
+                payment.setId(1_000_000 + eventIds);
+                payment.setMemberId(member.getId());
+                payment.setType(type);
+                payment.setAmount(value);
+                payment.setTransactionTime(at);
+                payment.setArchivedAt(LocalDateTime.now());
+                archivedPaymentRepository.save(payment);
+            } else {
+                Payment payment = new Payment();
+                payment.setMember(member);
+                payment.setType(type);
+                payment.setAmount(value);
+                payment.setTransactionTime(at);
+                paymentRepository.save(payment);
+            }
+            DomainEventType eventType = type == PaymentType.MEMBERSHIP ? DomainEventType.MEMBERSHIP_PAID : DomainEventType.FINE_ASSESSED;
+            financialRollupService.onEvent(new DomainEvent(++eventIds, eventType, "member:" + member.getId(),
+                    member.getId(), null, null, value, at));
+        });
+    }
+
+    private List<String> rollups() {
+        return Stream.of(RollupGranularity.DAY, RollupGranularity.MONTH)
+                .flatMap(granularity -> paymentRollupRepository.findByGranularityAndPeriodStartBetween(granularity, FROM, TO).stream())
+                .sorted((a, b) -> a.getGranularity() != b.getGranularity()
+                        ? a.getGranularity().compareTo(b.getGranularity())
+                        : a.getPeriodStart().compareTo(b.getPeriodStart()))
+                .map(FinancialRollupTest::describe)
+                .toList();
+    }
+
+    private static String describe(PaymentRollup rollup) {
+        return String.format("%s %s membership %s x%d, fines %s assessed %s x%d", rollup.getGranularity(),
+                rollup.getPeriodStart(), plain(rollup.getMembershipRevenue()), rollup.getMembershipCount(),
+                plain(rollup.getFineRevenue()), plain(rollup.getFinesAssessed()), rollup.getFineCount());
+    }
+
+    private static String plain(BigDecimal amount) {
+        return amount.stripTrailingZeros().toPlainString();
+    }
+
+    private Member saveMember() {
+        Member member = new Member();
+        member.setName("Rollup Test");
+        member.setEmail("rollup-test@lib.com");
+        member.setPhone("9000000006");
+        member.setPassword("unused");
+        member.setRole(Role.ROLE_MEMBER);
+        return memberRepository.save(member);
+    }
+}
@@ -0,0 +1,200 @@
+package com.sunbeam.library.app.service;
+
+import com.sunbeam.library.app.cluster.JobContext;
+import com.sunbeam.library.app.dto.AddBookRequestDTO;
+import com.sunbeam.library.app.dto.AddCopyRequestDTO;
+import com.sunbeam.library.app.dto.HoldDTO;
+import com.sunbeam.library.app.entity.Member;
+import com.sunbeam.library.app.entity.Payment;
+import com.sunbeam.library.app.enums.BookStatus;
+import com.sunbeam.library.app.enums.HoldStatus;
+import com.sunbeam.library.app.enums.PaymentType;
+import com.sunbeam.library.app.enums.Role;
+import com.sunbeam.library.app.exception.BusinessRuleException;
+import com.sunbeam.library.app.repository.BookCopyRepository;
+import com.sunbeam.library.app.repository.HoldRepository;
+import com.sunbeam.library.app.repository.MemberRepository;
+import com.sunbeam.library.app.repository.PaymentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * A returned copy skips a waiting member who could not borrow it and goes to
+ * the next one in line, instead of sitting RESERVED for the whole pickup window.
+ * Issuing a reserved copy while its hold is cancelled or expires ends in exactly
+ * one of the two outcomes, never a mix of both.
+ */
+@SpringBootTest(properties = "test.database=hold-allocation")
+@ActiveProfiles({"embedded", "test"})
+class HoldAllocationTest {
+
+    @Autowired private LibrarianService librarianService;
+    @Autowired private HoldService holdService;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private HoldRepository holdRepository;
+    @Autowired private BookCopyRepository bookCopyRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService racers = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void stopRacers() {
+        racers.shutdownNow();
+    }
+
+    @Test
+    void returnedCopySkipsMemberWhoCannotBorrow() {
+        long bookId = addBook();
+        long copyId = addCopy(bookId);
+        Member borrower = saveMember("hold-borrower@lib.com", true);
+        Member unpaid = saveMember("hold-unpaid@lib.com", false);
+        Member paid = saveMember("hold-paid@lib.com", true);
+
+        librarianService.issueBook(borrower.getId(), copyId);
+        HoldDTO first = holdService.placeHold(unpaid.getEmail(), bookId);
+        HoldDTO second = holdService.placeHold(paid.getEmail(), bookId);
+
+        librarianService.returnBook(copyId);
+
+        assertThat(holdRepository.findById(first.getId()).orElseThrow().getStatus()).isEqualTo(HoldStatus.EXPIRED);
+        assertThat(holdRepository.findById(second.getId()).orElseThrow().getStatus()).isEqualTo(HoldStatus.READY);
+        assertThat(bookCopyRepository.findById(copyId).orElseThrow().getStatus()).isEqualTo(BookStatus.RESERVED);
+    }
+
+    @Test
+    void issueRacingACancelEndsInOneOutcome() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            Reservation reservation = reserve("cancel-race-" + round);
+            boolean[] outcome = race(
+                    () -> librarianService.issueBook(reservation.holder().getId(), reservation.copyId()),
+                    () -> holdService.cancelHold(reservation.holder().getEmail(), reservation.holdId()));
+
+            assertThat(outcome[0]).as("round %d: exactly one of issue and cancel succeeds", round).isNotEqualTo(outcome[1]);
+            assertOneOutcome(reservation, outcome[0], HoldStatus.CANCELLED);
+        }
+    }
+
+    @Test
+    void issueRacingAnExpiryEndsInOneOutcome() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            Reservation reservation = reserve("expiry-race-" + round);
+            transactionTemplate.executeWithoutResult(status -> holdRepository.findById(reservation.holdId()).orElseThrow()
+                    .setPickupDeadline(LocalDateTime.now().minusMinutes(1)));
+            boolean[] outcome = race(
+                    () -> librarianService.issueBook(reservation.holder().getId(), reservation.copyId()),
+                    () -> holdService.sweep(mock(JobContext.class)));
+
+            assertThat(outcome[1]).as("the sweep itself never fails").isTrue();
+            assertOneOutcome(reservation, outcome[0], HoldStatus.EXPIRED);
+        }
+    }
+
+    // Either the holder got the copy, or the hold ended and the copy went to the next in line
+    private void assertOneOutcome(Reservation reservation, boolean issued, HoldStatus endedAs) {
+        HoldStatus hold = holdRepository.findById(reservation.holdId()).orElseThrow().getStatus();
+        HoldStatus next = holdRepository.findById(reservation.nextHoldId()).orElseThrow().getStatus();
+        BookStatus copy = bookCopyRepository.findById(reservation.copyId()).orElseThrow().getStatus();
+        if (issued) {
+            assertThat(List.of(hold, next, copy)).containsExactly(HoldStatus.FULFILLED, HoldStatus.WAITING, BookStatus.ISSUED);
+        } else {
+            assertThat(List.of(hold, next, copy)).containsExactly(endedAs, HoldStatus.READY, BookStatus.RESERVED);
+        }
+    }
+
+    // A copy READY for its holder, with another member waiting behind them
+    private Reservation reserve(String name) {
+        long bookId = addBook(name);
+        long copyId = addCopy(bookId);
+        Member borrower = saveMember(name + "-borrower@lib.com", true);
+        Member holder = saveMember(name + "-holder@lib.com", true);
+        Member next = saveMember(name + "-next@lib.com", true);
+        librarianService.issueBook(borrower.getId(), copyId);
+        HoldDTO hold = holdService.placeHold(holder.getEmail(), bookId);
+        HoldDTO nextHold = holdService.placeHold(next.getEmail(), bookId);
+        librarianService.returnBook(copyId);
+        assertThat(holdRepository.findById(hold.getId()).orElseThrow().getStatus()).isEqualTo(HoldStatus.READY);
+        return new Reservation(copyId, holder, hold.getId(), nextHold.getId());
+    }
+
+    // Starts both together; whether each one returned normally
+    private boolean[] race(Runnable first, Runnable second) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Future<Boolean> a = racers.submit(() -> attempt(start, first));
+        Future<Boolean> b = racers.submit(() -> attempt(start, second));
+        start.countDown();
+        return new boolean[]{a.get(30, TimeUnit.SECONDS), b.get(30, TimeUnit.SECONDS)};
+    }
+
+    private static boolean attempt(CountDownLatch start, Runnable action) throws InterruptedException {
+        start.await();
+        try {
+            action.run();
+            return true;
+        } catch (BusinessRuleException ex) {
+            return false;
+        }
+    }
+
+    private record Reservation(long copyId, Member holder, long holdId, long nextHoldId) {
+    }
+
+    private long addBook() {
+        return addBook(null);
+    }
+
+    private long addBook(String name) {
+        AddBookRequestDTO request = new AddBookRequestDTO();
+        request.setName(name == null ? "The Left Hand of Darkness" : "The Left Hand of Darkness (" + name + ")");
+        request.setAuthor("Ursula K. Le Guin");
+        request.setSubject("Fiction");
+        request.setIsbn("9780441478125");
+        request.setPrice(new BigDecimal("450.00"));
+        return librarianService.addBook(request).getId();
+    }
+
+    private long addCopy(long bookId) {
+        AddCopyRequestDTO request = new AddCopyRequestDTO();
+        request.setBookId(bookId);
+        request.setRack("H1");
+        request.setNumberOfCopies(1);
+        return librarianService.addCopies(request).get(0).getId();
+    }
+
+    private Member saveMember(String email, boolean membershipPaid) {
+        Member member = new Member();
+        member.setName(email);
+        member.setEmail(email);
+        member.setPhone("9000000001");
+        member.setPassword("unused");
+        member.setRole(Role.ROLE_MEMBER);
+        member = memberRepository.save(member);
+        if (membershipPaid) {
+            Payment payment = new Payment();
+            payment.setMember(member);
+            payment.setAmount(new BigDecimal("500.00"));
+            payment.setType(PaymentType.MEMBERSHIP);
+            payment.setTransactionTime(LocalDateTime.now());
+            payment.setDueDate(LocalDate.now().plusMonths(1));
+            paymentRepository.save(payment);
+        }
+        return member;
+    }
+}
@@ -0,0 +1,44 @@
+package com.sunbeam.library.app.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The node stays out of rotation until the warm-up has run, and the warm-up
+ * writes nothing to any table a checkout writes to.
+ */
+@SpringBootTest(properties = {
+        "test.database=warm-up",
+        "warmup.enabled=true",
+        "warmup.rounds=5"
+})
+@ActiveProfiles({"embedded", "test"})
+class WarmUpTest {
+
+    @Autowired private WarmUp warmUp;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportsReadyAfterWarmUpWithoutLeavingRowsBehind() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (warmUp.health().getStatus().equals(Status.OUT_OF_SERVICE) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmUp.health().getDetails()).containsEntry("state", "COMPLETED").containsEntry("rounds", 5);
+
+        for (String table : List.of("books", "copies", "cart_items", "issue_records", "payments",
+                "outbox_events", "catalog_changes", "cache_invalidations")) {
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class)).as(table).isZero();
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM members WHERE email LIKE 'warm-up-%'", Long.class)).isZero();
+    }
+}
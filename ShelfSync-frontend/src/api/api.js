@@ -18,17 +18,74 @@ axiosInstance.interceptors.request.use(
     }
 );
 
+// A POST that changed state must not run twice when the app retries it. The retry
+// reuses the Idempotency-Key, so the server replays the first response instead.
+const newIdempotencyKey = () => `${Date.now().toString(36)}-${Math.random().toString(36).slice(2, 12)}`;
+
+const postOnce = async (url, data) => {
+    const config = { headers: { 'Idempotency-Key': newIdempotencyKey() } };
+    try {
+        return await axiosInstance.post(url, data, config);
+    } catch (error) {
+        // Got an answer: nothing to retry. No answer (timeout, dropped connection): it may have run, so ask again.
+        if (error.response) {
+            throw error;
+        }
+        return axiosInstance.post(url, data, config);
+    }
+};
+
+// Sections from the latest /member/home call, so a screen opened after the dashboard can render straight away
+let homeSections = {};
+
+// The catalog as of `version`: downloaded in full once, then kept current with /member/books/changes
+let catalog = null;
+const catalogKey = (book) => book.isbn || `${book.branch}:${book.id}`;
+
 class API {
-    login(credentials) { return axiosInstance.post('/auth/login', credentials); }
+    login(credentials) { homeSections = {}; catalog = null; return axiosInstance.post('/auth/login', credentials); }
     register(userData) { return axiosInstance.post('/auth/register', userData); }
     getMemberDashboard() { return axiosInstance.get('/member/dashboard'); }
+    getMemberHome(fields) {
+        return axiosInstance.get('/member/home', { params: { fields: fields.join(',') } })
+            .then(response => { homeSections = { ...homeSections, ...response.data }; return response; });
+    }
+    getCachedHomeSection(name) { return homeSections[name] || null; }
     getAllBooks() { return axiosInstance.get('/member/books/all'); }
+    getCatalogChanges(since, after) { return axiosInstance.get('/member/books/changes', { params: { since, after } }); }
+    async syncCatalog() {
+        if (!catalog) {
+            const response = await this.getAllBooks();
+            catalog = {
+                version: Number(response.headers['catalog-version'] || 0),
+                books: new Map(response.data.map(book => [catalogKey(book), book])),
+            };
+            return [...catalog.books.values()];
+        }
+        let after = catalog.version;
+        let page;
+        do {
+            page = (await this.getCatalogChanges(catalog.version, after)).data;
+            if (page.resetRequired) {
+                catalog = null;
+                return this.syncCatalog();
+            }
+            page.books.forEach(book => catalog.books.set(catalogKey(book), book));
+            after = page.next;
+        } while (page.hasMore);
+        catalog.version = page.version;
+        return [...catalog.books.values()];
+    }
     searchBooks(query) { return axiosInstance.get(`/member/books/search?query=${query}`); }
     getAvailableCopies(bookId) { return axiosInstance.get(`/member/books/${bookId}/copies`); }
-    addToCart(copyId) { return axiosInstance.post(`/member/cart/add/${copyId}`); }
+    getRecommendations(bookId) { return axiosInstance.get(`/member/books/${bookId}/recommendations`); }
+    placeHold(bookId) { return axiosInstance.post(`/member/books/${bookId}/hold`); }
+    getMyHolds() { return axiosInstance.get('/member/me/holds'); }
+    cancelHold(holdId) { return axiosInstance.delete(`/member/holds/${holdId}`); }
+    addToCart(copyId) { return postOnce(`/member/cart/add/${copyId}`); }
     viewCart() { return axiosInstance.get('/member/cart'); }
     removeFromCart(cartItemId) { return axiosInstance.delete(`/member/cart/remove/${cartItemId}`); }
-    checkoutCart() { return axiosInstance.post('/member/cart/checkout'); }
+    checkoutCart() { return postOnce('/member/cart/checkout'); }
     getMyProfile() { return axiosInstance.get('/member/me/profile'); }
     getMyBorrowedBooks() { return axiosInstance.get('/member/me/borrowed-books'); }
     getMyBorrowingHistory() { return axiosInstance.get('/member/me/borrowing-history'); }
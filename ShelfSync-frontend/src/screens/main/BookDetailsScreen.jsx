@@ -1,5 +1,5 @@
 
-import React, { useState } from 'react';
+import React, { useState, useEffect } from 'react';
 import { View, Text, StyleSheet, ScrollView, TouchableOpacity, Platform, Alert, ActivityIndicator } from 'react-native';
 import api from '../../api/api';
 import { Ionicons } from '@expo/vector-icons';
@@ -9,6 +9,13 @@ import * as Animatable from 'react-native-animatable';
 const BookDetailsScreen = ({ route, navigation }) => {
     const { book } = route.params;
     const [isAddingToCart, setIsAddingToCart] = useState(false);
+    const [recommendations, setRecommendations] = useState([]);
+
+    useEffect(() => {
+        api.getRecommendations(book.id)
+            .then(response => setRecommendations(response.data || []))
+            .catch(error => console.error("Failed to load recommendations:", error.response?.data || error.message));
+    }, [book.id]);
 
     const handleAddToCart = async () => {
         if (book.availableCopies === 0) {
@@ -44,6 +51,22 @@ const BookDetailsScreen = ({ route, navigation }) => {
         }
     };
 
+    const handlePlaceHold = async () => {
+        setIsAddingToCart(true);
+        try {
+            const response = await api.placeHold(book.id);
+            Alert.alert(
+                "You're on the Waitlist",
+                `You are #${response.data.queuePosition} in line for "${book.name}". The next returned copy will be reserved for you when it's your turn.`
+            );
+        } catch (error) {
+            console.error("Place hold failed:", error.response?.data || error.message);
+            Alert.alert("Error", error.response?.data?.error || "Could not place a hold on this book. Please try again.");
+        } finally {
+            setIsAddingToCart(false);
+        }
+    };
+
     return (
         <ScrollView style={styles.container}>
             <Animatable.View animation="fadeIn" duration={600}>
@@ -64,20 +87,41 @@ const BookDetailsScreen = ({ route, navigation }) => {
                         <InfoItem icon="library-outline" label="Total Copies" value={book.totalCopies} />
                     </View>
                 </View>
+
+                {recommendations.length > 0 && (
+                    <View style={styles.bookInfo}>
+                        <Text style={styles.sectionTitle}>Members Also Borrowed</Text>
+                        {recommendations.map(rec => (
+                            <TouchableOpacity key={rec.id} style={styles.recItem} onPress={() => navigation.push('BookDetails', { book: rec })}>
+                                <Ionicons name="book-outline" size={20} color="#8E44AD" />
+                                <View style={styles.infoTextContainer}>
+                                    <Text style={styles.infoValue}>{rec.name}</Text>
+                                    <Text style={styles.infoLabel}>{rec.author}</Text>
+                                </View>
+                                <Ionicons name="chevron-forward" size={20} color="#D2B4DE" />
+                            </TouchableOpacity>
+                        ))}
+                    </View>
+                )}
             </Animatable.View>
             
             <Animatable.View animation="slideInUp" duration={800} style={styles.actionContainer}>
                 <TouchableOpacity
-                    onPress={handleAddToCart}
-                    disabled={isAddingToCart || book.availableCopies === 0}
+                    onPress={book.availableCopies === 0 ? handlePlaceHold : handleAddToCart}
+                    disabled={isAddingToCart}
                     activeOpacity={0.7}
                 >
                     <LinearGradient
-                        colors={isAddingToCart || book.availableCopies === 0 ? ['#D7BDE2', '#D2B4DE'] : ['#8E44AD', '#6A1B9A']}
+                        colors={isAddingToCart ? ['#D7BDE2', '#D2B4DE'] : ['#8E44AD', '#6A1B9A']}
                         style={styles.primaryButton}
                     >
                         {isAddingToCart ? (
                             <ActivityIndicator color="#fff" />
+                        ) : book.availableCopies === 0 ? (
+                            <>
+                                <Ionicons name="hourglass-outline" size={22} color="#FFF" />
+                                <Text style={styles.buttonText}>Join the Waitlist</Text>
+                            </>
                         ) : (
                             <>
                                 <Ionicons name="cart-outline" size={22} color="#FFF" />
@@ -123,6 +167,7 @@ const styles = StyleSheet.create({
     infoTextContainer: { marginLeft: 12, flex: 1 },
     infoLabel: { fontSize: 13, color: '#6A1B9A', textTransform: 'uppercase', marginBottom: 3 },
     infoValue: { fontSize: 16, fontWeight: '600', color: '#4A148C', flexShrink: 1 },
+    recItem: { flexDirection: 'row', alignItems: 'center', paddingVertical: 10, borderBottomWidth: 1, borderBottomColor: '#F3E5F5' },
 
     // --- POLISHED BUTTON STYLES ---
     actionContainer: { padding: 16, paddingTop: 24, },
@@ -46,8 +46,9 @@ const DashboardScreen = ({ navigation }) => {
             const fetchData = async () => {
                 !dashboardData && setLoading(true);
                 try {
-                    const response = await api.getMemberDashboard();
-                    setDashboardData(response.data);
+                    // One round trip for the dashboard and the profile tab
+                    const response = await api.getMemberHome(['DASHBOARD', 'PROFILE']);
+                    setDashboardData(response.data.dashboard);
                 } catch (error) { console.error("Failed to fetch dashboard data:", error.response?.data || error.message); Alert.alert("Error", "Could not load dashboard data."); } finally { setLoading(false); }
             };
             fetchData();
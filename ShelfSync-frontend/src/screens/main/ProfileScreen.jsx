@@ -8,17 +8,17 @@ import { LinearGradient } from 'expo-linear-gradient';
 import * as Animatable from 'react-native-animatable';
 
 const ProfileScreen = ({ navigation }) => {
-    const [profile, setProfile] = useState(null);
-    const [loading, setLoading] = useState(true);
+    const [profile, setProfile] = useState(() => api.getCachedHomeSection('profile'));
+    const [loading, setLoading] = useState(!profile);
     const [pressed, setPressed] = useState(false);
 
     useFocusEffect(
         React.useCallback(() => {
             const fetchData = async () => {
                 try {
-                    setLoading(true);
-                    const response = await api.getMyProfile();
-                    setProfile(response.data);
+                    !profile && setLoading(true);
+                    const response = await api.getMemberHome(['PROFILE']);
+                    setProfile(response.data.profile);
                 } catch (error) {
                     console.error("Failed to fetch profile:", error);
                 } finally {
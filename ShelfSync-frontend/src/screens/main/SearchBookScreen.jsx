@@ -38,8 +38,7 @@ const SearchBookScreen = ({ navigation }) => {
     const fetchAllBooks = async () => {
         try {
             setLoading(true);
-            const response = await api.getAllBooks();
-            setBooks(response.data);
+            setBooks(await api.syncCatalog());
         } catch (error) {
             Alert.alert("Error", "Could not load the library's books.");
         } finally {